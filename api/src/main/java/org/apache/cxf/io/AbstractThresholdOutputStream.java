@@ -35,10 +35,19 @@ public abstract class AbstractThresholdOutputStream extends AbstractWrappedOutpu
     protected int threshold;
     protected LoadingByteArrayOutputStream buffer;
     
+    private BufferPool pool;
+    private byte[] pooledChunk;
+    
     public AbstractThresholdOutputStream(int threshold) {
         this.threshold = threshold;
         if (threshold >= 0) {
-            buffer = new LoadingByteArrayOutputStream(threshold + 1);
+            pool = CachedOutputStream.getBufferPool();
+            if (pool != null && threshold < pool.getChunkSize()) {
+                pooledChunk = pool.acquire();
+                buffer = new LoadingByteArrayOutputStream(pooledChunk);
+            } else {
+                buffer = new LoadingByteArrayOutputStream(threshold + 1);
+            }
         }
     }
     
@@ -89,6 +98,10 @@ public abstract class AbstractThresholdOutputStream extends AbstractWrappedOutpu
                 super.write(buffer.getRawBytes(), 0, buffer.size());
             }
             buffer = null;
+            if (pooledChunk != null) {
+                pool.release(pooledChunk);
+                pooledChunk = null;
+            }
         }  
     }
 
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+/**
+ * A bus level pool of fixed size byte[] chunks.  The in-memory buffers of
+ * CachedOutputStream and AbstractThresholdOutputStream draw their storage
+ * from the pool registered on the bus (if it is enabled) and hand the chunks
+ * back once the cached content is no longer reachable.
+ */
+public interface BufferPool {
+
+    /**
+     * @return true if streams should draw their buffers from this pool
+     */
+    boolean isEnabled();
+
+    /**
+     * @return the size of the chunks handed out by {@link #acquire()}
+     */
+    int getChunkSize();
+
+    /**
+     * Obtain a chunk of {@link #getChunkSize()} bytes.  The content of the
+     * returned array is undefined.
+     */
+    byte[] acquire();
+
+    /**
+     * Return a chunk previously obtained from {@link #acquire()}.  The caller
+     * must not touch the array after it has been released.
+     */
+    void release(byte[] chunk);
+}
@@ -26,15 +26,21 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
 import org.apache.cxf.helpers.FileUtils;
 import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
@@ -42,6 +48,12 @@ import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
 public class CachedOutputStream extends OutputStream {
     private static final File DEFAULT_TEMP_DIR;
     private static final int DEFAULT_THRESHOLD;
+    private static final boolean DEFAULT_USE_MAPPED_FILES;
+    private static final long MAX_SPILL_SIZE;
+    
+    private static final AtomicLong SPILL_COUNT = new AtomicLong();
+    private static final AtomicLong SPILLS_REJECTED = new AtomicLong();
+    private static final AtomicLong SPILLED_BYTES = new AtomicLong();
     static {
         String s = System.getProperty("org.apache.cxf.io.CachedOutputStream.Threshold",
                                       "-1");
@@ -62,6 +74,12 @@ public class CachedOutputStream extends OutputStream {
         } else {
             DEFAULT_TEMP_DIR = null;
         }
+        
+        DEFAULT_USE_MAPPED_FILES 
+            = Boolean.getBoolean("org.apache.cxf.io.CachedOutputStream.UseMappedFiles");
+        
+        s = System.getProperty("org.apache.cxf.io.CachedOutputStream.MaxSpillSize", "-1");
+        MAX_SPILL_SIZE = Long.parseLong(s);
     }
 
     protected boolean outputLocked;
@@ -77,6 +95,8 @@ public class CachedOutputStream extends OutputStream {
     private File tempFile;
     private File outputDir = DEFAULT_TEMP_DIR;
     private boolean allowDeleteOfFile = true;
+    private boolean useMappedFiles = DEFAULT_USE_MAPPED_FILES;
+    private long spilled;
 
     private List<CachedOutputStreamCallback> callbacks;
     
@@ -88,15 +108,42 @@ public class CachedOutputStream extends OutputStream {
     }
 
     public CachedOutputStream() {
-        currentStream = new LoadingByteArrayOutputStream(2048);
+        currentStream = createMemoryStream(2048);
         inmem = true;
     }
 
     public CachedOutputStream(long threshold) {
         this.threshold = threshold; 
-        currentStream = new LoadingByteArrayOutputStream(2048);
+        currentStream = createMemoryStream(2048);
         inmem = true;
     }
+    
+    /**
+     * Returns the BufferPool of the thread default bus if one is registered
+     * and enabled, null otherwise.
+     */
+    static BufferPool getBufferPool() {
+        Bus bus = BusFactory.getThreadDefaultBus(false);
+        if (bus != null) {
+            BufferPool pool = bus.getExtension(BufferPool.class);
+            if (pool != null && pool.isEnabled()) {
+                return pool;
+            }
+        }
+        return null;
+    }
+    
+    private OutputStream createMemoryStream(int initialSize) {
+        BufferPool pool = getBufferPool();
+        if (pool != null) {
+            //the pooled chunks are released like the temp file once the
+            //stream and all the InputStreams created from it are closed
+            OutputStream out = new PooledByteArrayOutputStream(pool);
+            streamList.add(out);
+            return out;
+        }
+        return new LoadingByteArrayOutputStream(initialSize);
+    }
 
     public void holdTempFile() {
         allowDeleteOfFile = false;
@@ -171,7 +218,10 @@ public class CachedOutputStream extends OutputStream {
             }
         }
         doClose();
-        streamList.remove(currentStream);
+        if (!(currentStream instanceof PooledByteArrayOutputStream)) {
+            //pooled buffers stay around until the stream is closed
+            streamList.remove(currentStream);
+        }
     }
     
     public void close() throws IOException {
@@ -219,6 +269,7 @@ public class CachedOutputStream extends OutputStream {
                     if (copyOldContent && byteOut.size() > 0) {
                         byteOut.writeTo(out);
                     }
+                    releasePooledStream();
                 } else if (currentStream instanceof PipedOutputStream) {
                     PipedOutputStream pipeOut = (PipedOutputStream) currentStream;
                     IOUtils.copyAndCloseInput(new PipedInputStream(pipeOut), out);
@@ -228,13 +279,11 @@ public class CachedOutputStream extends OutputStream {
             } else {
                 // read the file
                 currentStream.close();
-                FileInputStream fin = new FileInputStream(tempFile);
                 if (copyOldContent) {
-                    IOUtils.copyAndCloseInput(fin, out);
+                    IOUtils.copyAndCloseInput(createFileInputStream(), out);
                 }
                 streamList.remove(currentStream);
-                tempFile.delete();
-                tempFile = null;
+                deleteTempFile();
                 inmem = true;
             }
         }
@@ -260,8 +309,7 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
-            return IOUtils.readBytesFromStream(fin);
+            return IOUtils.readBytesFromStream(createFileInputStream());
         }
     }
 
@@ -275,8 +323,7 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
-            IOUtils.copyAndCloseInput(fin, out);
+            copyFileTo(out);
         }
     }
     public void writeCacheTo(StringBuilder out, int limit) throws IOException {
@@ -289,7 +336,15 @@ public class CachedOutputStream extends OutputStream {
 
         int count = 0;
         if (inmem) {
-            if (currentStream instanceof ByteArrayOutputStream) {
+            if (currentStream instanceof PooledByteArrayOutputStream) {
+                //only copy the part that is needed out of the chunks
+                byte bytes[] = new byte[limit];
+                int x = ((PooledByteArrayOutputStream)currentStream).createInputStream()
+                    .read(bytes, 0, limit);
+                if (x > 0) {
+                    out.append(IOUtils.newStringFromBytes(bytes, 0, x));
+                }
+            } else if (currentStream instanceof ByteArrayOutputStream) {
                 byte bytes[] = ((ByteArrayOutputStream)currentStream).toByteArray();
                 out.append(IOUtils.newStringFromBytes(bytes, 0, limit));
             } else {
@@ -297,7 +352,7 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
+            InputStream fin = createFileInputStream();
             byte bytes[] = new byte[1024];
             int x = fin.read(bytes);
             while (x != -1) {
@@ -327,7 +382,7 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             // read the file
-            FileInputStream fin = new FileInputStream(tempFile);
+            InputStream fin = createFileInputStream();
             byte bytes[] = new byte[1024];
             int x = fin.read(bytes);
             while (x != -1) {
@@ -374,6 +429,9 @@ public class CachedOutputStream extends OutputStream {
                 createFileOutputStream();
             }
             currentStream.write(b, off, len);
+            if (!inmem) {
+                addSpilled(len);
+            }
         }
     }
 
@@ -385,6 +443,9 @@ public class CachedOutputStream extends OutputStream {
                 createFileOutputStream();
             }
             currentStream.write(b);
+            if (!inmem) {
+                addSpilled(b.length);
+            }
         }
     }
 
@@ -396,14 +457,35 @@ public class CachedOutputStream extends OutputStream {
                 createFileOutputStream();
             }
             currentStream.write(b);
+            if (!inmem) {
+                addSpilled(1);
+            }
         }
     }
+    
+    private void addSpilled(long len) {
+        spilled += len;
+        SPILLED_BYTES.addAndGet(len);
+    }
+    
+    private void deleteTempFile() {
+        tempFile.delete();
+        tempFile = null;
+        SPILLED_BYTES.addAndGet(-spilled);
+        spilled = 0;
+    }
 
     private void createFileOutputStream() throws IOException {
         if (tempFileFailed) {
             return;
         }
         ByteArrayOutputStream bout = (ByteArrayOutputStream)currentStream;
+        if (MAX_SPILL_SIZE > 0 && SPILLED_BYTES.get() + bout.size() > MAX_SPILL_SIZE) {
+            //the spill directory is full, keep it in memory
+            SPILLS_REJECTED.incrementAndGet();
+            tempFileFailed = true;
+            return;
+        }
         try {
             if (outputDir == null) {
                 tempFile = FileUtils.createTempFile("cos", "tmp");
@@ -411,20 +493,80 @@ public class CachedOutputStream extends OutputStream {
                 tempFile = FileUtils.createTempFile("cos", "tmp", outputDir, false);
             }
             
-            currentStream = new BufferedOutputStream(new FileOutputStream(tempFile));
+            if (useMappedFiles) {
+                currentStream = new MappedFileOutputStream(tempFile);
+            } else {
+                currentStream = new BufferedOutputStream(new FileOutputStream(tempFile));
+            }
             bout.writeTo(currentStream);
             inmem = false;
+            SPILL_COUNT.incrementAndGet();
+            addSpilled(bout.size());
+            if (bout instanceof PooledByteArrayOutputStream) {
+                streamList.remove(bout);
+                if (streamList.isEmpty()) {
+                    ((PooledByteArrayOutputStream)bout).release();
+                }
+            }
             streamList.add(currentStream);
         } catch (Exception ex) {
             //Could be IOException or SecurityException or other issues.
             //Don't care what, just keep it in memory.
             tempFileFailed = true;
-            tempFile = null;
+            if (tempFile != null) {
+                tempFile.delete();
+                tempFile = null;
+            }
             inmem = true;
             currentStream = bout;
         }
     }
 
+    private long getSpilledLength() {
+        if (currentStream instanceof MappedFileOutputStream) {
+            return ((MappedFileOutputStream)currentStream).getLength();
+        }
+        return tempFile.length();
+    }
+    
+    private InputStream createFileInputStream() throws IOException {
+        if (currentStream instanceof MappedFileOutputStream) {
+            return new MappedFileInputStream(tempFile, getSpilledLength());
+        }
+        return new FileInputStream(tempFile);
+    }
+    
+    /**
+     * Copies the temp file to the stream.  If the target exposes a channel
+     * (a FileOutputStream or a stream that is itself a WritableByteChannel)
+     * the copy is done with FileChannel.transferTo which lets the operating
+     * system move the data without copying it through the heap.
+     */
+    private void copyFileTo(OutputStream out) throws IOException {
+        WritableByteChannel target = null;
+        if (out instanceof FileOutputStream) {
+            //socket streams are FileOutputStreams without a channel
+            target = ((FileOutputStream)out).getChannel();
+        } else if (out instanceof WritableByteChannel) {
+            target = (WritableByteChannel)out;
+        }
+        if (target == null) {
+            IOUtils.copyAndCloseInput(createFileInputStream(), out);
+            return;
+        }
+        long length = getSpilledLength();
+        FileInputStream fin = new FileInputStream(tempFile);
+        try {
+            FileChannel source = fin.getChannel();
+            long pos = 0;
+            while (pos < length) {
+                pos += source.transferTo(pos, length - pos, target);
+            }
+        } finally {
+            fin.close();
+        }
+    }
+
     public File getTempFile() {
         return tempFile != null && tempFile.exists() ? tempFile : null;
     }
@@ -432,7 +574,17 @@ public class CachedOutputStream extends OutputStream {
     public InputStream getInputStream() throws IOException {
         flush();
         if (inmem) {
-            if (currentStream instanceof LoadingByteArrayOutputStream) {
+            if (currentStream instanceof PooledByteArrayOutputStream) {
+                InputStream in = new FilterInputStream(
+                    ((PooledByteArrayOutputStream) currentStream).createInputStream()) {
+                    public void close() throws IOException {
+                        super.close();
+                        maybeDeleteTempFile(this);
+                    }
+                };
+                streamList.add(in);
+                return in;
+            } else if (currentStream instanceof LoadingByteArrayOutputStream) {
                 return ((LoadingByteArrayOutputStream) currentStream).createInputStream();
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 return new ByteArrayInputStream(((ByteArrayOutputStream) currentStream).toByteArray());
@@ -443,12 +595,22 @@ public class CachedOutputStream extends OutputStream {
             }
         } else {
             try {
-                FileInputStream fileInputStream = new FileInputStream(tempFile) {
-                    public void close() throws IOException {
-                        super.close();
-                        maybeDeleteTempFile(this);
-                    }
-                };
+                InputStream fileInputStream;
+                if (currentStream instanceof MappedFileOutputStream) {
+                    fileInputStream = new MappedFileInputStream(tempFile, getSpilledLength()) {
+                        public void close() throws IOException {
+                            super.close();
+                            maybeDeleteTempFile(this);
+                        }
+                    };
+                } else {
+                    fileInputStream = new FileInputStream(tempFile) {
+                        public void close() throws IOException {
+                            super.close();
+                            maybeDeleteTempFile(this);
+                        }
+                    };
+                }
                 streamList.add(fileInputStream);
                 return fileInputStream;
             } catch (FileNotFoundException e) {
@@ -468,10 +630,22 @@ public class CachedOutputStream extends OutputStream {
                     //ignore
                 }
             }
-            tempFile.delete();
-            tempFile = null;
+            deleteTempFile();
             currentStream = new LoadingByteArrayOutputStream(1024);
             inmem = true;
+        } else if (inmem && streamList.isEmpty() && allowDeleteOfFile
+            && currentStream instanceof PooledByteArrayOutputStream) {
+            ((PooledByteArrayOutputStream)currentStream).release();
+            currentStream = new LoadingByteArrayOutputStream(1024);
+        }
+    }
+    
+    private void releasePooledStream() {
+        if (currentStream instanceof PooledByteArrayOutputStream) {
+            streamList.remove(currentStream);
+            if (streamList.isEmpty()) {
+                ((PooledByteArrayOutputStream)currentStream).release();
+            }
         }
     }
 
@@ -481,4 +655,42 @@ public class CachedOutputStream extends OutputStream {
     public void setThreshold(long threshold) {
         this.threshold = threshold;
     }
+    
+    /**
+     * Write and read the temp file through memory mapped regions instead of
+     * file streams.  Needs to be set before the threshold is reached.
+     */
+    public void setUseMappedFiles(boolean b) {
+        useMappedFiles = b;
+    }
+    
+    /**
+     * @return the number of CachedOutputStreams that spilled to a temp file 
+     */
+    public static long getSpillCount() {
+        return SPILL_COUNT.get();
+    }
+    
+    /**
+     * @return the number of times a spill was refused because the 
+     * org.apache.cxf.io.CachedOutputStream.MaxSpillSize quota was reached 
+     */
+    public static long getSpillsRejected() {
+        return SPILLS_REJECTED.get();
+    }
+    
+    /**
+     * @return the number of bytes currently held in temp files
+     */
+    public static long getSpilledBytes() {
+        return SPILLED_BYTES.get();
+    }
+    
+    /**
+     * @return the maximum number of bytes all CachedOutputStreams may hold 
+     * in temp files, -1 if unlimited
+     */
+    public static long getMaxSpillSize() {
+        return MAX_SPILL_SIZE > 0 ? MAX_SPILL_SIZE : -1;
+    }
 }
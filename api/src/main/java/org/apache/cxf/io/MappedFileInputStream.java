@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * InputStream that reads the first length bytes of a file through read only
+ * memory mapped regions.
+ */
+class MappedFileInputStream extends InputStream {
+    static final int REGION_SIZE = 64 * 1024 * 1024;
+    
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long length;
+    private MappedByteBuffer region;
+    private long regionEnd;
+    
+    MappedFileInputStream(File f, long length) throws IOException {
+        file = new RandomAccessFile(f, "r");
+        channel = file.getChannel();
+        this.length = length;
+    }
+    
+    private boolean nextRegion() throws IOException {
+        if (region != null && region.hasRemaining()) {
+            return true;
+        }
+        if (regionEnd >= length) {
+            return false;
+        }
+        long size = Math.min(REGION_SIZE, length - regionEnd);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, regionEnd, size);
+        regionEnd += size;
+        return true;
+    }
+
+    public int available() {
+        long avail = length - regionEnd;
+        if (region != null) {
+            avail += region.remaining();
+        }
+        return (int)Math.min(Integer.MAX_VALUE, avail);
+    }
+
+    public int read() throws IOException {
+        if (!nextRegion()) {
+            return -1;
+        }
+        return region.get() & 0xFF;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextRegion()) {
+            return -1;
+        }
+        int n = Math.min(len, region.remaining());
+        region.get(b, off, n);
+        return n;
+    }
+
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (n > 0 && nextRegion()) {
+            int step = (int)Math.min(n, region.remaining());
+            region.position(region.position() + step);
+            n -= step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+        file.close();
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * OutputStream that writes a file through a sequence of memory mapped 
+ * regions.  Writes only copy into the page cache, writing the pages back to
+ * disk is left to the operating system so the writing thread does not block
+ * on disk I/O.
+ */
+final class MappedFileOutputStream extends OutputStream {
+    static final int REGION_SIZE = 1024 * 1024;
+    
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    private long length;
+    private boolean closed;
+    
+    MappedFileOutputStream(File f) throws IOException {
+        file = new RandomAccessFile(f, "rw");
+        channel = file.getChannel();
+    }
+    
+    /**
+     * @return the number of bytes written to the file
+     */
+    long getLength() {
+        return length;
+    }
+    
+    private void nextRegion() throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, length, REGION_SIZE);
+    }
+
+    public void write(int b) throws IOException {
+        if (region == null || !region.hasRemaining()) {
+            nextRegion();
+        }
+        region.put((byte)b);
+        length++;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (region == null || !region.hasRemaining()) {
+                nextRegion();
+            }
+            int n = Math.min(len, region.remaining());
+            region.put(b, off, n);
+            off += n;
+            len -= n;
+            length += n;
+        }
+    }
+
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        region = null;
+        try {
+            //drop the unused part of the last region
+            channel.truncate(length);
+        } catch (IOException ex) {
+            //some platforms do not allow truncating mapped files, the 
+            //readers use the length so the trailing bytes are never seen
+        }
+        channel.close();
+        file.close();
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ByteArrayOutputStream that stores its content in a list of fixed size 
+ * chunks obtained from a {@link BufferPool} instead of a single growing array.  
+ * Growing the stream never copies the content already written and the chunks
+ * can be handed back to the pool with {@link #release()}.
+ * 
+ * It extends ByteArrayOutputStream so that code checking for in-memory
+ * streams keeps working, but none of the inherited buffer fields are used.
+ * 
+ * Note: once {@link #release()} has been called, the content (and any 
+ * InputStream created from this stream) must no longer be used.
+ */
+public class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+    private final BufferPool pool;
+    private final List<byte[]> chunks = new ArrayList<byte[]>();
+    private byte[] current;
+    private int pos;
+    private int size;
+    
+    public PooledByteArrayOutputStream(BufferPool pool) {
+        super(0);
+        this.pool = pool;
+    }
+    
+    private void nextChunk() {
+        current = pool.acquire();
+        chunks.add(current);
+        pos = 0;
+    }
+    
+    public void write(int b) {
+        if (current == null || pos == current.length) {
+            nextChunk();
+        }
+        current[pos++] = (byte)b;
+        size++;
+    }
+    
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (current == null || pos == current.length) {
+                nextChunk();
+            }
+            int n = Math.min(len, current.length - pos);
+            System.arraycopy(b, off, current, pos, n);
+            pos += n;
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+    
+    public void writeTo(OutputStream out) throws IOException {
+        int remaining = size;
+        for (byte[] chunk : chunks) {
+            int n = Math.min(remaining, chunk.length);
+            out.write(chunk, 0, n);
+            remaining -= n;
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            int n = Math.min(size - offset, chunk.length);
+            System.arraycopy(chunk, 0, bytes, offset, n);
+            offset += n;
+        }
+        return bytes;
+    }
+    
+    public String toString() {
+        return new String(toByteArray());
+    }
+    
+    public String toString(String charsetName) throws UnsupportedEncodingException {
+        return new String(toByteArray(), charsetName);
+    }
+    
+    /**
+     * Discards the content, handing all chunks but the first back to the pool.
+     */
+    public void reset() {
+        for (int x = 1; x < chunks.size(); x++) {
+            pool.release(chunks.get(x));
+        }
+        if (chunks.size() > 1) {
+            current = chunks.get(0);
+            chunks.clear();
+            chunks.add(current);
+        }
+        pos = 0;
+        size = 0;
+    }
+    
+    /**
+     * Hands all chunks back to the pool.  The stream is empty afterwards. 
+     */
+    public void release() {
+        for (byte[] chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        current = null;
+        pos = 0;
+        size = 0;
+    }
+    
+    /**
+     * Creates an InputStream that reads the chunks directly without copying
+     * them.  The stream must not be used once the chunks are released.
+     */
+    public InputStream createInputStream() {
+        return new ChunkInputStream(size);
+    }
+    
+    private class ChunkInputStream extends InputStream {
+        private final int length;
+        private int chunk;
+        private int chunkPos;
+        private int read;
+        
+        ChunkInputStream(int length) {
+            this.length = length;
+        }
+
+        public int available() {
+            return length - read;
+        }
+
+        public int read() {
+            if (read >= length) {
+                return -1;
+            }
+            byte[] c = chunks.get(chunk);
+            int b = c[chunkPos++] & 0xFF;
+            read++;
+            if (chunkPos == c.length) {
+                chunk++;
+                chunkPos = 0;
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if (off < 0 || len < 0 || off + len > b.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (read >= length) {
+                return -1;
+            }
+            int total = 0;
+            while (len > 0 && read < length) {
+                byte[] c = chunks.get(chunk);
+                int n = Math.min(Math.min(len, c.length - chunkPos), length - read);
+                System.arraycopy(c, chunkPos, b, off, n);
+                chunkPos += n;
+                off += n;
+                len -= n;
+                read += n;
+                total += n;
+                if (chunkPos == c.length) {
+                    chunk++;
+                    chunkPos = 0;
+                }
+            }
+            return total;
+        }
+
+        public long skip(long n) {
+            long skipped = 0;
+            while (n > 0 && read < length) {
+                int c = chunks.get(chunk).length;
+                int step = (int)Math.min(Math.min(n, c - chunkPos), length - read);
+                chunkPos += step;
+                read += step;
+                n -= step;
+                skipped += step;
+                if (chunkPos == c) {
+                    chunk++;
+                    chunkPos = 0;
+                }
+            }
+            return skipped;
+        }
+        
+        public String toString() {
+            return PooledByteArrayOutputStream.this.toString();
+        }
+    }
+}
@@ -86,13 +86,10 @@ public class ExchangeImpl extends StringMapImpl implements Exchange {
     public <T> void put(Class<T> key, T value) {
         super.put(key, value);
         if (key == Bus.class) {
-            resetContextCaches();
             bus = (Bus)value;
         } else if (key == Endpoint.class) {
-            resetContextCaches();
             endpoint = (Endpoint)value;
         } else if (key == Service.class) {
-            resetContextCaches();
             service = (Service)value;
         } else if (key == BindingOperationInfo.class) {
             bindingOp = (BindingOperationInfo)value;
@@ -100,22 +97,6 @@ public class ExchangeImpl extends StringMapImpl implements Exchange {
             binding = (Binding)value;
         }
     }
-    public Object put(String key, Object value) {
-        if (inMessage != null) {
-            inMessage.setContextualProperty(key, value);
-        }
-        if (outMessage != null) {
-            outMessage.setContextualProperty(key, value);
-        }
-        if (inFaultMessage != null) {
-            inFaultMessage.setContextualProperty(key, value);
-        }
-        if (outFaultMessage != null) {
-            outFaultMessage.setContextualProperty(key, value);
-        }
-        return super.put(key, value);
-    }
-
     
     public Destination getDestination() {
         return destination;
@@ -22,7 +22,6 @@ package org.apache.cxf.message;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -77,7 +76,7 @@ public class MessageImpl extends StringMapImpl implements Message {
     
     private Object[] defaultContents = new Object[DEFAULT_CONTENTS_LENGTH];
     private Map<Class<?>, Object> contents;
-    private Map<String, Object> contextCache;
+    private StringMapImpl contextCache;
     
     
     public MessageImpl() {
@@ -193,51 +192,74 @@ public class MessageImpl extends StringMapImpl implements Message {
     public void setInterceptorChain(InterceptorChain ic) {
         this.interceptorChain = ic;
     }
-    public Object put(String key, Object value) {
-        if (contextCache != null) {
-            contextCache.put(key, value);
-        }
-        return super.put(key, value);
-    }
     public Object getContextualProperty(String key) {
-        if (contextCache == null) {
-            calcContextCache();
+        Object v = find(key);
+        if (v == NOT_FOUND && contextCache != null) {
+            v = contextCache.find(key);
+        }
+        if (v == NOT_FOUND) {
+            v = findContextualProperty(getExchange(), key);
         }
-        return contextCache.get(key);
+        return v == NOT_FOUND ? null : v;
     }
     
-    private void calcContextCache() {
-        Map<String, Object> o = new HashMap<String, Object>() {
-            public void putAll(Map<? extends String, ? extends Object> m) {
-                if (m != null) {
-                    super.putAll(m);
-                }
-            }
-        };
-        Exchange ex = getExchange();
-        if (ex != null) {
-            Bus b = ex.getBus();
-            if (b != null) {
-                o.putAll(b.getProperties());
-            }
-            Service sv = ex.getService(); 
-            if (sv != null) {
-                o.putAll(sv);
+    /**
+     * Walks the exchange, endpoint, binding, service and bus properties, in 
+     * that order of precedence, without copying them anywhere.
+     */
+    private static Object findContextualProperty(Exchange ex, String key) {
+        if (ex == null) {
+            return NOT_FOUND;
+        }
+        Object v = find(ex, key);
+        if (v != NOT_FOUND) {
+            return v;
+        }
+        Endpoint ep = ex.getEndpoint(); 
+        if (ep != null) {
+            v = find(ep, key);
+            if (v != NOT_FOUND) {
+                return v;
             }
-            Endpoint ep = ex.getEndpoint(); 
-            if (ep != null) {
-                EndpointInfo ei = ep.getEndpointInfo();
-                if (ei != null) {
-                    o.putAll(ep.getEndpointInfo().getBinding().getProperties());
-                    o.putAll(ep.getEndpointInfo().getProperties());
+            EndpointInfo ei = ep.getEndpointInfo();
+            if (ei != null) {
+                v = find(ei.getProperties(), key);
+                if (v == NOT_FOUND && ei.getBinding() != null) {
+                    v = find(ei.getBinding().getProperties(), key);
                 }
-                o.putAll(ep);
+                if (v != NOT_FOUND) {
+                    return v;
+                }
+            }
+        }
+        Service sv = ex.getService(); 
+        if (sv != null) {
+            v = find(sv, key);
+            if (v != NOT_FOUND) {
+                return v;
             }
         }
-        o.putAll(ex);
-        o.putAll(this);
-        contextCache = o;
+        Bus b = ex.getBus();
+        if (b != null) {
+            return find(b.getProperties(), key);
+        }
+        return NOT_FOUND;
+    }
+    
+    private static Object find(Map<String, Object> m, String key) {
+        if (m == null) {
+            return NOT_FOUND;
+        }
+        if (m instanceof StringMapImpl) {
+            return ((StringMapImpl)m).find(key);
+        }
+        Object v = m.get(key);
+        if (v == null && !m.containsKey(key)) {
+            return NOT_FOUND;
+        }
+        return v;
     }
+    
     public static void copyContent(Message m1, Message m2) {
         for (Class<?> c : m1.getContentFormats()) {
             m2.setContent(c, m1.getContent(c));
@@ -245,13 +267,18 @@ public class MessageImpl extends StringMapImpl implements Message {
     }
 
     public void resetContextCache() {
-        if (contextCache != null) {
-            contextCache = null;
-        }
+        contextCache = null;
     }
 
+    /**
+     * Overrides the value getContextualProperty returns for the key 
+     * unless the message itself holds the key.
+     */
     public void setContextualProperty(String key, Object v) {
-        if (contextCache != null && !containsKey(key)) {
+        if (!containsKey(key)) {
+            if (contextCache == null) {
+                contextCache = new StringMapImpl();
+            }
             contextCache.put(key, v);
         }
     }
@@ -16,24 +16,106 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.apache.cxf.message;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.binding.Binding;
+import org.apache.cxf.endpoint.ConduitSelector;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.OperationInfo;
 
 /**
- * A variation on HashMap which allows lookup by Class, via the string
+ * A Map which allows lookup by Class, via the string
  * returned by {@link Class#getName()}.
+ * <p>
+ * Messages and exchanges carry a handful of well known properties and only a
+ * few others, so rather than a HashMap (a table plus an entry object per 
+ * property) the well known keys are kept in fixed slots and anything else
+ * goes into a small open addressing table of keys and values.
  */
 public class StringMapImpl 
-    extends HashMap<String, Object> 
+    extends AbstractMap<String, Object> 
     implements StringMap {
     
+    /**
+     * Returned by {@link #find(Object)} when the key is not present.
+     */
+    static final Object NOT_FOUND = new Object();
+    
+    private static final String[] FIXED_KEYS = {
+        Bus.class.getName(),
+        Service.class.getName(),
+        Endpoint.class.getName(),
+        Binding.class.getName(),
+        BindingOperationInfo.class.getName(),
+        OperationInfo.class.getName(),
+        ConduitSelector.class.getName(),
+        Header.HEADER_LIST,
+        Message.REQUESTOR_ROLE,
+        Message.INBOUND_MESSAGE,
+        Message.PROTOCOL_HEADERS,
+        Message.CONTENT_TYPE,
+        Message.ACCEPT_CONTENT_TYPE,
+        Message.ENCODING,
+        Message.RESPONSE_CODE,
+        Message.HTTP_REQUEST_METHOD,
+        Message.REQUEST_URI,
+        Message.ENDPOINT_ADDRESS,
+        Message.PARTIAL_RESPONSE_MESSAGE,
+        Message.DECOUPLED_CHANNEL_MESSAGE,
+        Message.ONE_WAY_REQUEST,
+        Message.ATTACHMENTS,
+        Message.INTERCEPTOR_PROVIDERS,
+    };
+    private static final int FIXED_INDEX_MASK = 63;
+    private static final String[] FIXED_INDEX_KEYS = new String[FIXED_INDEX_MASK + 1];
+    private static final int[] FIXED_INDEX_SLOTS = new int[FIXED_INDEX_MASK + 1];
+    
+    private static final int INITIAL_CAPACITY = 8;
+    
+    // stand ins for a null key/value and for a removed key in the table
+    private static final Object NULL_KEY = new Object();
+    private static final Object NULL_VALUE = new Object();
+    private static final Object REMOVED = new Object();
+    
+    static {
+        for (int x = 0; x < FIXED_KEYS.length; x++) {
+            int i = hash(FIXED_KEYS[x]) & FIXED_INDEX_MASK;
+            while (FIXED_INDEX_KEYS[i] != null) {
+                i = (i + 1) & FIXED_INDEX_MASK;
+            }
+            FIXED_INDEX_KEYS[i] = FIXED_KEYS[x];
+            FIXED_INDEX_SLOTS[i] = x;
+        }
+    }
+
+    private Object[] fixed;
+    // keys at the even indexes, values right after them
+    private Object[] table;
+    private int size;
+    private int tableSize;
+    private int tableUsed;
+    private int modCount;
+    private Set<Map.Entry<String, Object>> entrySet;
+    
     public StringMapImpl() {
     }
     public StringMapImpl(Map<String, Object> i) {
-        super(i);
+        for (Map.Entry<String, Object> e : i.entrySet()) {
+            store(e.getKey(), maskValue(e.getValue()));
+        }
     }
     
     @SuppressWarnings("unchecked")
@@ -44,4 +126,355 @@ public class StringMapImpl
     public <T> void put(Class<T> key, T value) {
         put(key.getName(), value);
     }
+    
+    public Object get(Object key) {
+        Object v = find(key);
+        return v == NOT_FOUND ? null : v;
+    }
+    
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+    
+    public Object put(String key, Object value) {
+        return unmaskValue(store(key, maskValue(value)));
+    }
+    
+    public Object remove(Object key) {
+        return unmaskValue(delete(key));
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        if (fixed != null) {
+            Arrays.fill(fixed, null);
+        }
+        if (table != null) {
+            Arrays.fill(table, null);
+        }
+        size = 0;
+        tableSize = 0;
+        tableUsed = 0;
+        modCount++;
+    }
+    
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+                public int size() {
+                    return size;
+                }
+                public void clear() {
+                    StringMapImpl.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+    
+    /**
+     * Looks the key up without the double lookup containsKey/get would need.
+     * @return the value (possibly null) or NOT_FOUND
+     */
+    final Object find(Object key) {
+        int slot = fixedSlot(key);
+        Object v = null;
+        if (slot != -1) {
+            if (fixed != null) {
+                v = fixed[slot];
+            }
+        } else {
+            int idx = indexOf(key);
+            if (idx != -1) {
+                v = table[idx + 1];
+            }
+        }
+        if (v == null) {
+            return NOT_FOUND;
+        }
+        return v == NULL_VALUE ? null : v;
+    }
+    
+    
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+    
+    private static int fixedSlot(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int i = hash(key) & FIXED_INDEX_MASK;
+        String k = FIXED_INDEX_KEYS[i];
+        while (k != null) {
+            if (k == key || k.equals(key)) {
+                return FIXED_INDEX_SLOTS[i];
+            }
+            i = (i + 1) & FIXED_INDEX_MASK;
+            k = FIXED_INDEX_KEYS[i];
+        }
+        return -1;
+    }
+    
+    private static Object maskValue(Object v) {
+        return v == null ? NULL_VALUE : v;
+    }
+    private static Object unmaskValue(Object v) {
+        return v == NULL_VALUE ? null : v;
+    }
+    private static Object unmaskKey(Object k) {
+        return k == NULL_KEY ? null : k;
+    }
+    
+    private int firstIndex(Object k, int length) {
+        return (k == NULL_KEY ? 0 : hash(k) << 1) & (length - 1);
+    }
+    
+    private int indexOf(Object key) {
+        if (tableSize == 0) {
+            return -1;
+        }
+        Object k = key == null ? NULL_KEY : key;
+        int mask = table.length - 1;
+        int idx = firstIndex(k, table.length);
+        Object t = table[idx];
+        while (t != null) {
+            if (t == k || (t != REMOVED && k.equals(t))) {
+                return idx;
+            }
+            idx = (idx + 2) & mask;
+            t = table[idx];
+        }
+        return -1;
+    }
+    
+    /**
+     * Stores the masked value, returns the old masked value or null.
+     */
+    private Object store(String key, Object v) {
+        int slot = fixedSlot(key);
+        if (slot != -1) {
+            if (fixed == null) {
+                fixed = new Object[FIXED_KEYS.length];
+            }
+            Object old = fixed[slot];
+            fixed[slot] = v;
+            if (old == null) {
+                size++;
+                modCount++;
+            }
+            return old;
+        }
+        
+        if (table == null) {
+            table = new Object[INITIAL_CAPACITY << 1];
+        }
+        Object k = key == null ? NULL_KEY : key;
+        int mask = table.length - 1;
+        int idx = firstIndex(k, table.length);
+        int free = -1;
+        Object t = table[idx];
+        while (t != null) {
+            if (t == REMOVED) {
+                if (free == -1) {
+                    free = idx;
+                }
+            } else if (t == k || k.equals(t)) {
+                Object old = table[idx + 1];
+                table[idx + 1] = v;
+                return old;
+            }
+            idx = (idx + 2) & mask;
+            t = table[idx];
+        }
+        if (free == -1) {
+            free = idx;
+            tableUsed++;
+        }
+        table[free] = k;
+        table[free + 1] = v;
+        size++;
+        tableSize++;
+        modCount++;
+        // keep the table (including removed markers) at most two thirds full
+        if (tableUsed * 3 >= table.length) {
+            rehash();
+        }
+        return null;
+    }
+    
+    private void rehash() {
+        Object[] old = table;
+        int length = old.length;
+        if (tableSize * 3 >= length) {
+            length <<= 1;
+        }
+        table = new Object[length];
+        tableUsed = tableSize;
+        int mask = length - 1;
+        for (int x = 0; x < old.length; x += 2) {
+            Object k = old[x];
+            if (k != null && k != REMOVED) {
+                int idx = firstIndex(k, length);
+                while (table[idx] != null) {
+                    idx = (idx + 2) & mask;
+                }
+                table[idx] = k;
+                table[idx + 1] = old[x + 1];
+            }
+        }
+    }
+    
+    /**
+     * Removes the key, returns the old masked value or null.
+     */
+    private Object delete(Object key) {
+        int slot = fixedSlot(key);
+        if (slot != -1) {
+            if (fixed == null || fixed[slot] == null) {
+                return null;
+            }
+            Object old = fixed[slot];
+            fixed[slot] = null;
+            size--;
+            modCount++;
+            return old;
+        }
+        int idx = indexOf(key);
+        if (idx == -1) {
+            return null;
+        }
+        Object old = table[idx + 1];
+        size--;
+        modCount++;
+        if (--tableSize == 0) {
+            Arrays.fill(table, null);
+            tableUsed = 0;
+        } else {
+            table[idx] = REMOVED;
+            table[idx + 1] = null;
+        }
+        return old;
+    }
+    
+    private final class Entry implements Map.Entry<String, Object> {
+        private final String key;
+        private Object value;
+        
+        Entry(String k, Object v) {
+            key = k;
+            value = v;
+        }
+        public String getKey() {
+            return key;
+        }
+        public Object getValue() {
+            return value;
+        }
+        public Object setValue(Object v) {
+            Object old = value;
+            value = v;
+            store(key, maskValue(v));
+            return old;
+        }
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            return (key == null ? e.getKey() == null : key.equals(e.getKey()))
+                && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+    
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        // positions below fixedLength are fixed slots, the rest index into the table
+        private final int fixedLength = fixed == null ? 0 : fixed.length;
+        private int expectedModCount = modCount;
+        private int pos = -1;
+        private int next = -1;
+        private String lastKey;
+        private boolean canRemove;
+        
+        EntryIterator() {
+            next = advance(0);
+        }
+        
+        private int advance(int from) {
+            int p = from;
+            for (; p < fixedLength; p++) {
+                if (fixed[p] != null) {
+                    return p;
+                }
+            }
+            if (table != null) {
+                p = fixedLength + ((p - fixedLength + 1) & ~1);
+                for (; p - fixedLength < table.length; p += 2) {
+                    Object k = table[p - fixedLength];
+                    if (k != null && k != REMOVED) {
+                        return p;
+                    }
+                }
+            }
+            return -1;
+        }
+        
+        public boolean hasNext() {
+            return next != -1;
+        }
+        
+        public Map.Entry<String, Object> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == -1) {
+                throw new NoSuchElementException();
+            }
+            pos = next;
+            Entry e;
+            if (pos < fixedLength) {
+                e = new Entry(FIXED_KEYS[pos], unmaskValue(fixed[pos]));
+                next = advance(pos + 1);
+            } else {
+                int idx = pos - fixedLength;
+                e = new Entry((String)unmaskKey(table[idx]), unmaskValue(table[idx + 1]));
+                next = advance(pos + 2);
+            }
+            lastKey = e.getKey();
+            canRemove = true;
+            return e;
+        }
+        
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            canRemove = false;
+            delete(lastKey);
+            expectedModCount = modCount;
+        }
+    }
 }
@@ -25,6 +25,7 @@ import java.util.ListIterator;
 import java.util.SortedSet;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.cxf.common.util.ConcurrentWeakCache;
 import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
 import org.apache.cxf.interceptor.Interceptor;
 import org.apache.cxf.message.Message;
@@ -35,9 +36,18 @@ import org.apache.cxf.message.Message;
  * phases supplied in the get() methods of this class are defined by default
  * within org.apache.cxf.phase.PhaseManagerImpl.  For an example of this class 
  * in use, check the sourcecode of org.apache.cxf.endpoint.ClientImpl.
+ * <p>
+ * The get() methods taking a key keep one compiled chain per key (normally
+ * the Endpoint), so a cache used for several endpoints does not re-sort the
+ * chain each time the endpoint changes.  A compiled chain is only rebuilt 
+ * when one of its source interceptor lists is replaced or modified.  Keys are
+ * compared by identity and only weakly referenced, as the properties of an 
+ * Endpoint change its hash code and a destroyed endpoint must not be kept alive
+ * by the cache.
  */
 public final class PhaseChainCache {
     AtomicReference<ChainHolder> lastData = new AtomicReference<ChainHolder>();
+    ConcurrentWeakCache<Object, ChainHolder> keyedData = new ConcurrentWeakCache<Object, ChainHolder>(true);
     
     
     @SuppressWarnings("unchecked")
@@ -76,6 +86,54 @@ public final class PhaseChainCache {
                                      List<Interceptor<? extends Message>> p5) {
         return getChain(phaseList, p1, p2, p3, p4, p5);
     }
+
+    @SuppressWarnings("unchecked")
+    public PhaseInterceptorChain get(Object key,
+                                     SortedSet<Phase> phaseList,
+                                     List<Interceptor<? extends Message>> p1) {
+        return getChain(key, phaseList, p1);
+    }
+    @SuppressWarnings("unchecked")
+    public PhaseInterceptorChain get(Object key,
+                                     SortedSet<Phase> phaseList,
+                                     List<Interceptor<? extends Message>> p1,
+                                     List<Interceptor<? extends Message>> p2) {
+        return getChain(key, phaseList, p1, p2);
+    }
+    @SuppressWarnings("unchecked")
+    public PhaseInterceptorChain get(Object key,
+                                     SortedSet<Phase> phaseList,
+                                     List<Interceptor<? extends Message>> p1,
+                                     List<Interceptor<? extends Message>> p2,
+                                     List<Interceptor<? extends Message>> p3) {
+        return getChain(key, phaseList, p1, p2, p3);
+    }
+    @SuppressWarnings("unchecked")
+    public PhaseInterceptorChain get(Object key,
+                                     SortedSet<Phase> phaseList,
+                                     List<Interceptor<? extends Message>> p1,
+                                     List<Interceptor<? extends Message>> p2,
+                                     List<Interceptor<? extends Message>> p3,
+                                     List<Interceptor<? extends Message>> p4) {
+        return getChain(key, phaseList, p1, p2, p3, p4);
+    }
+    @SuppressWarnings("unchecked")
+    public PhaseInterceptorChain get(Object key,
+                                     SortedSet<Phase> phaseList,
+                                     List<Interceptor<? extends Message>> p1,
+                                     List<Interceptor<? extends Message>> p2,
+                                     List<Interceptor<? extends Message>> p3,
+                                     List<Interceptor<? extends Message>> p4,
+                                     List<Interceptor<? extends Message>> p5) {
+        return getChain(key, phaseList, p1, p2, p3, p4, p5);
+    }
+    
+    /**
+     * Drops the compiled chain held for the key.
+     */
+    public void remove(Object key) {
+        keyedData.remove(key);
+    }
     
     private PhaseInterceptorChain getChain(SortedSet<Phase> phaseList,
                                            List<Interceptor<? extends Message>> ... providers) {
@@ -84,15 +142,7 @@ public final class PhaseChainCache {
         if (last == null 
             || !last.matches(providers)) {
             
-            PhaseInterceptorChain chain = new PhaseInterceptorChain(phaseList);
-            List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> copy 
-                = new ArrayList<ModCountCopyOnWriteArrayList<
-                    Interceptor<? extends Message>>>(providers.length);
-            for (List<Interceptor<? extends Message>> p : providers) {
-                copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
-                chain.add(p);
-            }
-            last = new ChainHolder(chain, copy);
+            last = compile(phaseList, providers);
             lastData.set(last);
         }
         
@@ -100,13 +150,44 @@ public final class PhaseChainCache {
         return last.chain.cloneChain();
     }
     
+    private PhaseInterceptorChain getChain(Object key,
+                                           SortedSet<Phase> phaseList,
+                                           List<Interceptor<? extends Message>> ... providers) {
+        ChainHolder last = keyedData.get(key);
+        
+        if (last == null 
+            || !last.matches(providers)) {
+            
+            last = compile(phaseList, providers);
+            keyedData.put(key, last);
+        }
+        
+        return last.chain.cloneChain();
+    }
+    
+    private static ChainHolder compile(SortedSet<Phase> phaseList,
+                                       List<Interceptor<? extends Message>> ... providers) {
+        PhaseInterceptorChain chain = new PhaseInterceptorChain(phaseList);
+        List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> copy 
+            = new ArrayList<ModCountCopyOnWriteArrayList<
+                Interceptor<? extends Message>>>(providers.length);
+        for (List<Interceptor<? extends Message>> p : providers) {
+            copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
+            chain.add(p);
+        }
+        return new ChainHolder(chain, copy, providers.clone());
+    }
+    
     private static class ChainHolder {
         List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> lists;
+        List<Interceptor<? extends Message>>[] sources;
         PhaseInterceptorChain chain;
         
         ChainHolder(PhaseInterceptorChain c, 
-                    List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> l) {
+                    List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> l,
+                    List<Interceptor<? extends Message>>[] s) {
             lists = l;
+            sources = s;
             chain = c;
         }
         
@@ -117,7 +198,9 @@ public final class PhaseChainCache {
                         return false;
                     }
                     
-                    if (providers[x].getClass() == ModCountCopyOnWriteArrayList.class) {
+                    if (providers[x] == sources[x]
+                        && providers[x].getClass() == ModCountCopyOnWriteArrayList.class) {
+                        // same list the chain was compiled from, the modCount tells if it changed
                         if (((ModCountCopyOnWriteArrayList)providers[x]).getModCount()
                             != lists.get(x).getModCount()) {
                             return false;
@@ -55,7 +55,14 @@ import org.apache.cxf.transport.MessageObserver;
  * has an ID. PhaseInterceptors can supply a Collection of IDs which they 
  * should run before or after, supplying fine grained ordering.
  * <p>
- *  
+ * A cloned chain shares the interceptor list with the chain it was cloned 
+ * from until either of them is modified, so a chain cloned per message only
+ * allocates its own iteration state unless interceptors are added or removed
+ * while the message is processed.
+ * <p>
+ * The chain does not lock while it executes.  If the chain is paused and 
+ * resumed on another thread, resume() waits until the pausing thread has 
+ * left doIntercept before continuing.
  */
 public class PhaseInterceptorChain implements InterceptorChain {
 
@@ -79,8 +86,13 @@ public class PhaseInterceptorChain implements InterceptorChain {
     private boolean hasAfters[];
 
     
-    private State state;
-    private Message pausedMessage;
+    // true while heads/tails/hasAfters and the holders are shared with the
+    // chain this one was cloned from (or a chain cloned from this one),
+    // the structure is copied on the first modification
+    private boolean shared;
+    
+    private volatile State state;
+    private volatile Message pausedMessage;
     private MessageObserver faultObserver;
     private PhaseInterceptorIterator iterator;
     private final boolean isFineLogging;
@@ -90,6 +102,11 @@ public class PhaseInterceptorChain implements InterceptorChain {
     // doIntercept(), which will throw same fault multi-times
     private boolean faultOccurred;
     
+    // the thread currently running doIntercept and its nesting depth,
+    // used by resume() to hand the chain over to another thread
+    private volatile Thread executingThread;
+    private int executionDepth;
+    private volatile boolean resumeWaiting;
     
     
     private PhaseInterceptorChain(PhaseInterceptorChain src) {
@@ -102,16 +119,34 @@ public class PhaseInterceptorChain implements InterceptorChain {
         nameMap = src.nameMap;
         phases = src.phases;
         
+        //share the structure, whichever chain is modified first copies it
+        heads = src.heads;
+        tails = src.tails;
+        hasAfters = src.hasAfters;
+        shared = true;
+        src.shared = true;
+    }
+    
+    /**
+     * Gives this chain its own copy of the interceptor list if it still 
+     * shares it with another chain.  The iterator is moved over to the 
+     * copied holders.
+     */
+    private void copyOnWrite() {
+        if (!shared) {
+            return;
+        }
         int length = phases.length;
-        hasAfters = new boolean[length];
-        System.arraycopy(src.hasAfters, 0, hasAfters, 0, length);
+        InterceptorHolder srcHeads[] = heads;
         
-        heads = new InterceptorHolder[length];
-        tails = new InterceptorHolder[length];
+        boolean newAfters[] = new boolean[length];
+        System.arraycopy(hasAfters, 0, newAfters, 0, length);
+        InterceptorHolder newHeads[] = new InterceptorHolder[length];
+        InterceptorHolder newTails[] = new InterceptorHolder[length];
         
         InterceptorHolder last = null;
         for (int x = 0; x < length; x++) {
-            InterceptorHolder ih = src.heads[x];
+            InterceptorHolder ih = srcHeads[x];
             while (ih != null
                 && ih.phaseIdx == x) {
                 InterceptorHolder ih2 = new InterceptorHolder(ih);
@@ -119,14 +154,29 @@ public class PhaseInterceptorChain implements InterceptorChain {
                 if (last != null) {
                     last.next = ih2;
                 }
-                if (heads[x] == null) {
-                    heads[x] = ih2;
+                if (newHeads[x] == null) {
+                    newHeads[x] = ih2;
                 }
-                tails[x] = ih2;
+                newTails[x] = ih2;
                 last = ih2;
+                if (iterator != null) {
+                    if (iterator.prev == ih) {
+                        iterator.prev = ih2;
+                    }
+                    if (iterator.first == ih) {
+                        iterator.first = ih2;
+                    }
+                }
                 ih = ih.next;
             }
         }
+        heads = newHeads;
+        tails = newTails;
+        hasAfters = newAfters;
+        if (iterator != null) {
+            iterator.heads = newHeads;
+        }
+        shared = false;
     }
     
     public PhaseInterceptorChain(SortedSet<Phase> ps) {
@@ -208,14 +258,53 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
 
-    public synchronized void pause() {
+    public void pause() {
         state = State.PAUSED;
     }
 
-    public synchronized void resume() {
-        if (state == State.PAUSED) {
+    public void resume() {
+        synchronized (this) {
+            if (state != State.PAUSED) {
+                return;
+            }
+            //the chain may be paused by an interceptor that hands the resume 
+            //to another thread, wait for the pausing thread to unwind first
+            Thread current = Thread.currentThread();
+            boolean interrupted = false;
+            resumeWaiting = true;
+            while (executingThread != null && executingThread != current) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            resumeWaiting = false;
+            if (interrupted) {
+                current.interrupt();
+            }
+            if (state != State.PAUSED) {
+                return;
+            }
             state = State.EXECUTING;
-            doIntercept(pausedMessage);
+        }
+        doIntercept(pausedMessage);
+    }
+    
+    private void enterExecution() {
+        if (executionDepth++ == 0) {
+            executingThread = Thread.currentThread();
+        }
+    }
+    
+    private void exitExecution() {
+        if (--executionDepth == 0) {
+            executingThread = null;
+            if (resumeWaiting) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
         }
     }
 
@@ -226,11 +315,12 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @throws Exception
      */
     @SuppressWarnings("unchecked")
-    public synchronized boolean doIntercept(Message message) {
+    public boolean doIntercept(Message message) {
         updateIterator();
         pausedMessage = message;
 
         Message oldMessage = CURRENT_MESSAGE.get();
+        enterExecution();
         try {
             CURRENT_MESSAGE.set(message);
             while (state == State.EXECUTING && iterator.hasNext()) {
@@ -302,6 +392,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
             return state == State.COMPLETE;
         } finally {
             CURRENT_MESSAGE.set(oldMessage);
+            exitExecution();
         }
     }
 
@@ -346,8 +437,8 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @param startingAfterInterceptorID the id of the interceptor 
      * @throws Exception
      */
-    public synchronized boolean doInterceptStartingAfter(Message message,
-                                                         String startingAfterInterceptorID) {
+    public boolean doInterceptStartingAfter(Message message,
+                                            String startingAfterInterceptorID) {
         updateIterator();
         while (state == State.EXECUTING && iterator.hasNext()) {
             PhaseInterceptor currentInterceptor = (PhaseInterceptor)iterator.next();
@@ -366,8 +457,8 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @param startingAtInterceptorID the id of the interceptor 
      * @throws Exception
      */
-    public synchronized boolean doInterceptStartingAt(Message message,
-                                                         String startingAtInterceptorID) {
+    public boolean doInterceptStartingAt(Message message,
+                                         String startingAtInterceptorID) {
         updateIterator();
         while (state == State.EXECUTING && iterator.hasNext()) {
             PhaseInterceptor currentInterceptor = (PhaseInterceptor)iterator.next();
@@ -379,7 +470,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
         return doIntercept(message);
     }
 
-    public synchronized void reset() {
+    public void reset() {
         updateIterator();
         if (state == State.COMPLETE) {
             state = State.EXECUTING;
@@ -409,6 +500,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
     public void remove(Interceptor i) {
+        copyOnWrite();
         PhaseInterceptorIterator it = new PhaseInterceptorIterator(heads);
         while (it.hasNext()) {
             InterceptorHolder holder = it.nextInterceptorHolder();
@@ -419,7 +511,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
 
-    public synchronized void abort() {
+    public void abort() {
         this.state = InterceptorChain.State.ABORTED;
     }
 
@@ -459,6 +551,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
     
     private void insertInterceptor(int phase, PhaseInterceptor interc, boolean force) {
+        copyOnWrite();
         InterceptorHolder ih = new InterceptorHolder(interc, phase);
         if (heads[phase] == null) {
             // no interceptors yet in this phase
@@ -108,11 +108,22 @@ public class AssertionInfoMap extends HashMap<QName, Collection<AssertionInfo>>
     }
     
     public void checkEffectivePolicy(Policy policy) {
+        checkAlternatives(policy.getAlternatives());
+    }
+    
+    /**
+     * Like {@link #checkEffectivePolicy(Policy)} for the alternatives of an effective policy 
+     * computed beforehand, which saves normalizing the policy for every message.
+     */
+    public void checkEffectivePolicyAlternatives(Collection<? extends Collection<PolicyAssertion>> alts) {
+        checkAlternatives(alts.iterator());
+    }
+    
+    private void checkAlternatives(Iterator alternatives) {
         List<QName> errors = new ArrayList<QName>();
-        Iterator alternatives = policy.getAlternatives();
         while (alternatives.hasNext()) {      
-            List<PolicyAssertion> alternative = CastUtils.cast((List)alternatives.next(), 
-                                                               PolicyAssertion.class);
+            Collection<PolicyAssertion> alternative = CastUtils.cast((Collection)alternatives.next(), 
+                                                                     PolicyAssertion.class);
             if (supportsAlternative(alternative, errors)) {
                 return;
             }
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.cxf.Bus;
+import org.easymock.classextension.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StringMapImplTest extends Assert {
+    
+    @Test
+    public void testMapOperations() {
+        StringMapImpl map = new StringMapImpl();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        Random random = new Random(42);
+        String keys[] = new String[] {
+            Message.CONTENT_TYPE, Message.PROTOCOL_HEADERS, Bus.class.getName(), 
+            "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", null
+        };
+        for (int x = 0; x < 5000; x++) {
+            String key = keys[random.nextInt(keys.length)];
+            switch (random.nextInt(4)) {
+            case 0:
+            case 1:
+                Object v = random.nextInt(5) == 0 ? null : Integer.valueOf(x);
+                assertEquals(expected.put(key, v), map.put(key, v));
+                break;
+            case 2:
+                assertEquals(expected.remove(key), map.remove(key));
+                break;
+            default:
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected, new StringMapImpl(map));
+    }
+    
+    @Test
+    public void testIteratorRemoveAndSetValue() {
+        StringMapImpl map = new StringMapImpl();
+        for (int x = 0; x < 40; x++) {
+            map.put("key" + x, x);
+        }
+        map.put(Message.CONTENT_TYPE, "text/xml");
+        map.put(Exception.class, new Exception());
+        assertEquals(42, map.size());
+        
+        for (Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> e = it.next();
+            if (e.getValue() instanceof Integer) {
+                if (((Integer)e.getValue()) % 2 == 0) {
+                    it.remove();
+                } else {
+                    e.setValue("odd");
+                }
+            }
+        }
+        assertEquals(22, map.size());
+        assertNull(map.get("key2"));
+        assertEquals("odd", map.get("key3"));
+        assertEquals("text/xml", map.get(Message.CONTENT_TYPE));
+        assertNotNull(map.get(Exception.class));
+        
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+    
+    @Test
+    public void testContextualProperties() {
+        Bus bus = EasyMock.createMock(Bus.class);
+        Map<String, Object> busProps = new HashMap<String, Object>();
+        busProps.put("a", "bus");
+        busProps.put("b", "bus");
+        busProps.put("c", "bus");
+        busProps.put("d", "bus");
+        EasyMock.expect(bus.getProperties()).andReturn(busProps).anyTimes();
+        EasyMock.replay(bus);
+        
+        Exchange ex = new ExchangeImpl();
+        ex.put(Bus.class, bus);
+        ex.put("b", "exchange");
+        ex.put("c", "exchange");
+        Message m = new MessageImpl();
+        m.setExchange(ex);
+        m.put("c", "message");
+        
+        assertEquals("bus", m.getContextualProperty("a"));
+        assertEquals("exchange", m.getContextualProperty("b"));
+        assertEquals("message", m.getContextualProperty("c"));
+        assertNull(m.getContextualProperty("e"));
+        
+        // changes to the layers are seen without resetting anything
+        busProps.put("e", "bus");
+        ex.put("d", null);
+        assertEquals("bus", m.getContextualProperty("e"));
+        assertNull(m.getContextualProperty("d"));
+        
+        m.setContextualProperty("a", "override");
+        m.setContextualProperty("c", "override");
+        assertEquals("override", m.getContextualProperty("a"));
+        assertEquals("message", m.getContextualProperty("c"));
+        m.resetContextCache();
+        assertEquals("bus", m.getContextualProperty("a"));
+    }
+}
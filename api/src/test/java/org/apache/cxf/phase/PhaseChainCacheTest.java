@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Message;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PhaseChainCacheTest extends Assert {
+    
+    private SortedSet<Phase> phases;
+    private List<Interceptor<? extends Message>> bus;
+    private List<Interceptor<? extends Message>> ep1;
+    private List<Interceptor<? extends Message>> ep2;
+    
+    @Before
+    public void setUp() {
+        phases = new TreeSet<Phase>();
+        phases.add(new Phase("phase1", 1));
+        phases.add(new Phase("phase2", 2));
+        
+        bus = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        bus.add(new TestInterceptor("phase1", "b1"));
+        ep1 = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        ep1.add(new TestInterceptor("phase2", "e1"));
+        ep2 = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        ep2.add(new TestInterceptor("phase2", "e2"));
+    }
+    
+    @Test
+    public void testKeyedChainsAreKeptPerKey() throws Exception {
+        PhaseChainCache cache = new PhaseChainCache();
+        Object key1 = new Object();
+        Object key2 = new Object();
+        
+        PhaseInterceptorChain c1 = cache.get(key1, phases, bus, ep1);
+        PhaseInterceptorChain c2 = cache.get(key2, phases, bus, ep2);
+        PhaseInterceptorChain c3 = cache.get(key1, phases, bus, ep1);
+        PhaseInterceptorChain c4 = cache.get(key2, phases, bus, ep2);
+        
+        // alternating keys must not recompile the chains
+        assertSame(getHeads(c1), getHeads(c3));
+        assertSame(getHeads(c2), getHeads(c4));
+        assertNotSame(getHeads(c1), getHeads(c2));
+        assertIds(c3, "b1", "e1");
+        assertIds(c4, "b1", "e2");
+    }
+    
+    @Test
+    public void testKeyedChainRecompiledOnModification() throws Exception {
+        PhaseChainCache cache = new PhaseChainCache();
+        Object key = new Object();
+        
+        PhaseInterceptorChain c1 = cache.get(key, phases, bus, ep1);
+        ep1.add(new TestInterceptor("phase1", "e3"));
+        PhaseInterceptorChain c2 = cache.get(key, phases, bus, ep1);
+        assertNotSame(getHeads(c1), getHeads(c2));
+        assertIds(c1, "b1", "e1");
+        assertIds(c2, "b1", "e3", "e1");
+        
+        // a different list with the same size and modCount must not match
+        List<Interceptor<? extends Message>> other 
+            = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(ep2);
+        ((ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>)other)
+            .setModCount(((ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>)ep1).getModCount());
+        other.add(new TestInterceptor("phase1", "o1"));
+        ((ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>)other)
+            .setModCount(((ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>)ep1).getModCount());
+        PhaseInterceptorChain c3 = cache.get(key, phases, bus, other);
+        assertIds(c3, "b1", "o1", "e2");
+        
+        cache.remove(key);
+        PhaseInterceptorChain c4 = cache.get(key, phases, bus, other);
+        assertNotSame(getHeads(c3), getHeads(c4));
+    }
+    
+    @Test
+    public void testKeyedByIdentity() throws Exception {
+        PhaseChainCache cache = new PhaseChainCache();
+        // an Endpoint is a Map, its hash code changes with its properties
+        HashMap<String, Object> key = new HashMap<String, Object>();
+        
+        PhaseInterceptorChain c1 = cache.get(key, phases, bus, ep1);
+        key.put("property", "value");
+        PhaseInterceptorChain c2 = cache.get(key, phases, bus, ep1);
+        assertSame(getHeads(c1), getHeads(c2));
+        
+        PhaseInterceptorChain c3 = cache.get(new HashMap<String, Object>(key), phases, bus, ep1);
+        assertNotSame(getHeads(c1), getHeads(c3));
+    }
+    
+    private static Object getHeads(PhaseInterceptorChain chain) throws Exception {
+        Field f = PhaseInterceptorChain.class.getDeclaredField("heads");
+        f.setAccessible(true);
+        return f.get(chain);
+    }
+    
+    private static void assertIds(PhaseInterceptorChain chain, String ... ids) {
+        Iterator<Interceptor<? extends Message>> it = chain.iterator();
+        for (String id : ids) {
+            assertTrue(it.hasNext());
+            assertEquals(id, ((TestInterceptor)it.next()).getId());
+        }
+        assertFalse(it.hasNext());
+    }
+    
+    static class TestInterceptor extends AbstractPhaseInterceptor<Message> {
+        TestInterceptor(String phase, String id) {
+            super(id, phase);
+        }
+        public void handleMessage(Message message) {
+        }
+    }
+}
@@ -388,6 +388,68 @@ public class PhaseInterceptorChainTest extends Assert {
         assertEquals(1, p3.invoked);
     }
     
+    @Test
+    public void testClonedChainCopiedOnModification() throws Exception {
+        final CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        final CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        final PhaseInterceptorChain clones[] = new PhaseInterceptorChain[1];
+        AbstractPhaseInterceptor<Message> p0 = new AbstractPhaseInterceptor<Message>("p0", "phase1") {
+            public void handleMessage(Message m) {
+                //modify the clone while it is executing
+                clones[0].add(p2);
+            }
+        };
+        control.replay();
+        chain.add(p0);
+        chain.add(p1);
+        chain.add(p3);
+        
+        clones[0] = chain.cloneChain();
+        assertTrue(clones[0].doIntercept(message));
+        assertEquals(1, p1.invoked);
+        assertEquals(1, p2.invoked);
+        assertEquals(1, p3.invoked);
+        
+        //the original chain must not see the interceptor added to the clone
+        Iterator<Interceptor<? extends Message>> it = chain.iterator();
+        assertSame(p0, it.next());
+        assertSame(p1, it.next());
+        assertSame(p3, it.next());
+        assertFalse(it.hasNext());
+    }
+    
+    @Test
+    public void testResumeOnOtherThread() throws Exception {
+        final CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        final Thread threads[] = new Thread[1];
+        AbstractPhaseInterceptor<Message> p1 = new AbstractPhaseInterceptor<Message>("p1", "phase1") {
+            public void handleMessage(Message m) {
+                chain.pause();
+                threads[0] = new Thread() {
+                    public void run() {
+                        chain.resume();
+                    }
+                };
+                threads[0].start();
+                try {
+                    //give the other thread a chance to resume too early
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    //ignore
+                }
+                assertEquals(0, p2.invoked);
+            }
+        };
+        control.replay();
+        chain.add(p1);
+        chain.add(p2);
+        assertFalse(chain.doIntercept(message));
+        threads[0].join();
+        assertEquals(1, p2.invoked);
+        assertSame(InterceptorChain.State.COMPLETE, chain.getState());
+    }
+    
     AbstractPhaseInterceptor setUpPhaseInterceptor(String phase, String id) throws Exception {
         return setUpPhaseInterceptor(phase, id, null, null);
     }
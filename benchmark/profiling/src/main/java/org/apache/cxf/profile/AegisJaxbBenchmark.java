@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.cxf.aegis.AegisContext;
+import org.apache.cxf.aegis.AegisReader;
+import org.apache.cxf.aegis.AegisWriter;
+import org.apache.cxf.aegis.type.AegisType;
+import org.apache.cxf.aegis.type.TypeCreationOptions;
+import org.apache.cxf.staxutils.StaxUtils;
+
+/**
+ * Writes and reads the same object graph, an order with [items] line items,
+ * with JAXB, with Aegis using reflection ("aegis") and with Aegis using
+ * generated property accessors ("aegis generated").
+ *
+ * Arguments: [iterations] [items]
+ */
+public final class AegisJaxbBenchmark {
+
+    private static final QName ORDER = new QName("urn:benchmark", "order");
+
+    private AegisJaxbBenchmark() {
+    }
+
+    public static class Item {
+        private String sku;
+        private String description;
+        private int quantity;
+        private double price;
+
+        public String getSku() {
+            return sku;
+        }
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+        public String getDescription() {
+            return description;
+        }
+        public void setDescription(String description) {
+            this.description = description;
+        }
+        public int getQuantity() {
+            return quantity;
+        }
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+        public double getPrice() {
+            return price;
+        }
+        public void setPrice(double price) {
+            this.price = price;
+        }
+    }
+
+    public static class Order {
+        private String id;
+        private String customer;
+        private long created;
+        private List<Item> items = new ArrayList<Item>();
+
+        public String getId() {
+            return id;
+        }
+        public void setId(String id) {
+            this.id = id;
+        }
+        public String getCustomer() {
+            return customer;
+        }
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+        public long getCreated() {
+            return created;
+        }
+        public void setCreated(long created) {
+            this.created = created;
+        }
+        public List<Item> getItems() {
+            return items;
+        }
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+    }
+
+    private static Order createOrder(int count) {
+        Order order = new Order();
+        order.setId("order-1");
+        order.setCustomer("customer-1");
+        order.setCreated(System.currentTimeMillis());
+        for (int x = 0; x < count; x++) {
+            Item item = new Item();
+            item.setSku("sku-" + x);
+            item.setDescription("item number " + x);
+            item.setQuantity(x % 10 + 1);
+            item.setPrice(x * 0.25);
+            order.getItems().add(item);
+        }
+        return order;
+    }
+
+    private static long runJaxb(int iterations, Order order) throws Exception {
+        JAXBContext ctx = JAXBContext.newInstance(Order.class);
+        long start = System.nanoTime();
+        for (int x = 0; x < iterations; x++) {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(bout);
+            Marshaller m = ctx.createMarshaller();
+            m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            m.marshal(new JAXBElement<Order>(ORDER, Order.class, order), writer);
+            writer.close();
+
+            XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(bout
+                .toByteArray()));
+            Unmarshaller u = ctx.createUnmarshaller();
+            u.unmarshal(reader, Order.class).getValue();
+            reader.close();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runAegis(int iterations, Order order, boolean generated) throws Exception {
+        AegisContext ctx = new AegisContext();
+        TypeCreationOptions options = new TypeCreationOptions();
+        options.setGeneratedAccessors(generated);
+        ctx.setTypeCreationOptions(options);
+        ctx.initialize();
+        AegisType type = ctx.getTypeMapping().getTypeCreator().createType(Order.class);
+        ctx.getTypeMapping().register(type);
+
+        long start = System.nanoTime();
+        for (int x = 0; x < iterations; x++) {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(bout);
+            AegisWriter<XMLStreamWriter> aegisWriter = ctx.createXMLStreamWriter();
+            aegisWriter.write(order, ORDER, false, writer, type);
+            writer.close();
+
+            XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(bout
+                .toByteArray()));
+            AegisReader<XMLStreamReader> aegisReader = ctx.createXMLStreamReader();
+            aegisReader.read(reader, type);
+            reader.close();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String name, int iterations, long time) {
+        System.out.println(name + ": " + (time / 1000000L) + " ms, "
+                           + (time / iterations / 1000L) + " us per round trip");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        Order order = createOrder(items);
+        //warm up
+        runJaxb(iterations / 10, order);
+        runAegis(iterations / 10, order, false);
+        runAegis(iterations / 10, order, true);
+
+        for (int x = 0; x < 3; x++) {
+            print("jaxb", iterations, runJaxb(iterations, order));
+            print("aegis", iterations, runAegis(iterations, order, false));
+            print("aegis generated", iterations, runAegis(iterations, order, true));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.math.BigInteger;
+
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.ws.addressing.v200408.EndpointReferenceType;
+import org.apache.cxf.ws.rm.Destination;
+import org.apache.cxf.ws.rm.DestinationSequence;
+import org.apache.cxf.ws.rm.Identifier;
+import org.apache.cxf.ws.rm.ObjectFactory;
+import org.apache.cxf.ws.rm.RMContextUtils;
+import org.apache.cxf.ws.rm.RMEndpoint;
+import org.apache.cxf.ws.rm.RMManager;
+import org.apache.cxf.ws.rm.RMProperties;
+import org.apache.cxf.ws.rm.SequenceType;
+import org.apache.cxf.ws.rm.manager.DeliveryAssuranceType;
+import org.apache.cxf.ws.rm.manager.DestinationPolicyType;
+
+/**
+ * Measures how fast a destination sequence acknowledges incoming messages
+ * as the sequence grows. Three delivery patterns are run: all messages in order
+ * ("in order"), every 100th message arriving 1000 messages late as a
+ * retransmission would ("late"), and every 100th message never arriving 
+ * ("lost"). Every [ack interval] messages the sequence acknowledgement is 
+ * rendered, as it would be for an outgoing acknowledgement.
+ * 
+ * Arguments: [messages] [ack interval]
+ */
+public final class DestinationSequenceBenchmark {
+    
+    private static final ObjectFactory FACTORY = new ObjectFactory();
+    
+    private final Destination destination;
+    
+    private DestinationSequenceBenchmark() {
+        RMManager manager = new RMManager();
+        manager.setRMAssertion(null);
+        org.apache.cxf.ws.rm.manager.ObjectFactory cfg = new org.apache.cxf.ws.rm.manager.ObjectFactory();
+        DeliveryAssuranceType da = cfg.createDeliveryAssuranceType();
+        da.setAtMostOnce(cfg.createDeliveryAssuranceTypeAtMostOnce());
+        da.setAtLeastOnce(cfg.createDeliveryAssuranceTypeAtLeastOnce());
+        manager.setDeliveryAssurance(da);
+        DestinationPolicyType dp = cfg.createDestinationPolicyType();
+        dp.setAcksPolicy(cfg.createAcksPolicyType());
+        manager.setDestinationPolicy(dp);
+        destination = new RMEndpoint(manager, null).getDestination();
+    }
+    
+    private long run(String name, int count, int ackInterval) throws Exception {
+        Identifier sid = FACTORY.createIdentifier();
+        sid.setValue(name + "-" + System.nanoTime());
+        DestinationSequence seq = new DestinationSequence(sid, new EndpointReferenceType(), destination);
+        destination.addSequence(seq, false);
+        
+        long start = System.nanoTime();
+        for (int i = 1; i <= count; i++) {
+            if (i % 100 == 0 && !"in order".equals(name)) {
+                continue;
+            }
+            destination.acknowledge(createMessage(sid, i));
+            if ("late".equals(name) && i % 100 == 50 && i > 1000) {
+                destination.acknowledge(createMessage(sid, i - 1050));
+            }
+            if (i % ackInterval == 0) {
+                seq.getAcknowledgment();
+            }
+        }
+        int ranges = seq.getAcknowledgment().getAcknowledgementRange().size();
+        long time = System.nanoTime() - start;
+        destination.removeSequence(seq);
+        System.out.println(name + ": " + (time / 1000000L) + " ms, " + ranges + " ranges");
+        return time;
+    }
+    
+    private static Message createMessage(Identifier sid, long nr) {
+        Message message = new MessageImpl();
+        SequenceType st = FACTORY.createSequenceType();
+        st.setIdentifier(sid);
+        st.setMessageNumber(BigInteger.valueOf(nr));
+        RMProperties rmps = new RMProperties();
+        rmps.setSequence(st);
+        RMContextUtils.storeRMProperties(message, rmps, false);
+        return message;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int ackInterval = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        
+        DestinationSequenceBenchmark benchmark = new DestinationSequenceBenchmark();
+        //warm up
+        benchmark.run("in order", count / 10, ackInterval);
+        benchmark.run("lost", count / 10, ackInterval);
+        
+        for (int x = 0; x < 3; x++) {
+            benchmark.run("in order", count, ackInterval);
+            benchmark.run("late", count, ackInterval);
+            benchmark.run("lost", count, ackInterval);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.jws.WebService;
+import javax.xml.ws.BindingProvider;
+
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxws.JAXWSMethodInvoker;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.invoker.BeanInvoker;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.transport.local.LocalConduit;
+import org.apache.cxf.transport.local.LocalTransportFactory;
+
+/**
+ * Calls an echo operation through the invoker alone ("invoker") and through a
+ * JAX-WS client and server over the local transport ("round trip"), with the
+ * service methods called reflectively ("reflection") and through the generated
+ * class of direct invocation ("direct").
+ *
+ * Arguments: [invoker calls] [round trips]
+ */
+public final class DirectInvocationBenchmark {
+
+    private static final String[] MODES = {"reflection", "direct"};
+
+    private DirectInvocationBenchmark() {
+    }
+
+    @WebService
+    public interface Echo {
+        String echo(String text);
+    }
+
+    @WebService(endpointInterface = "org.apache.cxf.profile.DirectInvocationBenchmark$Echo")
+    public static class EchoImpl implements Echo {
+        public String echo(String text) {
+            return text;
+        }
+    }
+
+    private static Server createServer(String mode) {
+        JAXWSMethodInvoker invoker = new JAXWSMethodInvoker(new EchoImpl());
+        invoker.setDirectInvocation("direct".equals(mode));
+        JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+        factory.setServiceBean(new EchoImpl());
+        factory.setInvoker(invoker);
+        factory.setAddress("local://" + mode);
+        factory.setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        return factory.create();
+    }
+
+    private static Echo createClient(String mode) {
+        JaxWsProxyFactoryBean factory = new JaxWsProxyFactoryBean();
+        factory.setServiceClass(Echo.class);
+        factory.setAddress("local://" + mode);
+        factory.getClientFactoryBean().setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        Echo echo = (Echo)factory.create();
+        ((BindingProvider)echo).getRequestContext().put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
+        return echo;
+    }
+
+    private static Exchange createExchange(Server server) {
+        Service service = server.getEndpoint().getService();
+        BindingOperationInfo bop = null;
+        for (BindingOperationInfo b : server.getEndpoint().getEndpointInfo().getBinding().getOperations()) {
+            if ("echo".equals(b.getName().getLocalPart())) {
+                bop = b;
+            }
+        }
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Service.class, service);
+        exchange.put(BindingOperationInfo.class, bop);
+        exchange.setInMessage(new MessageImpl());
+        return exchange;
+    }
+
+    private static long runInvoker(BeanInvoker invoker, Exchange exchange, int count) {
+        List<Object> params = Arrays.asList(new Object[] {"hello"});
+        long start = System.nanoTime();
+        for (int x = 0; x < count; x++) {
+            if (!"hello".equals(((List<?>)invoker.invoke(exchange, params)).get(0))) {
+                throw new IllegalStateException("Wrong reply");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runRoundTrip(Echo echo, int count) {
+        long start = System.nanoTime();
+        for (int x = 0; x < count; x++) {
+            if (!"hello".equals(echo.echo("hello"))) {
+                throw new IllegalStateException("Wrong reply");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+        int roundTrips = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+
+        BeanInvoker invokers[] = new BeanInvoker[MODES.length];
+        Exchange exchanges[] = new Exchange[MODES.length];
+        Echo clients[] = new Echo[MODES.length];
+        for (int m = 0; m < MODES.length; m++) {
+            Server server = createServer(MODES[m]);
+            exchanges[m] = createExchange(server);
+            invokers[m] = new BeanInvoker(new EchoImpl());
+            invokers[m].setDirectInvocation("direct".equals(MODES[m]));
+            invokers[m].initializeDirectInvocation(server.getEndpoint().getService());
+            clients[m] = createClient(MODES[m]);
+        }
+
+        //warm up
+        for (int m = 0; m < MODES.length; m++) {
+            runInvoker(invokers[m], exchanges[m], calls / 10);
+            runRoundTrip(clients[m], roundTrips / 10);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (int m = 0; m < MODES.length; m++) {
+                long time = runInvoker(invokers[m], exchanges[m], calls);
+                System.out.println("invoker, " + MODES[m] + ": " + (time / calls) + " ns/call");
+            }
+            for (int m = 0; m < MODES.length; m++) {
+                long time = runRoundTrip(clients[m], roundTrips);
+                System.out.println("round trip, " + MODES[m] + ": " + (time / roundTrips / 1000)
+                                   + " us/call");
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.OutputStream;
+
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import javax.xml.namespace.QName;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.cxf.bus.CXFBusImpl;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.jms.JMSConduit;
+import org.apache.cxf.transport.jms.JMSConfiguration;
+import org.apache.cxf.workqueue.WorkQueueManagerImpl;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+
+/**
+ * Measures synchronous request/reply throughput of a JMSConduit shared by
+ * [threads] callers against an echo service on an embedded ActiveMQ broker.
+ * The replies are received with a consumer and selector per request ("selector"),
+ * with the shared reply listener ("shared"), and with the shared reply listener
+ * and cached sessions and producers ("shared cached").
+ *
+ * Arguments: [requests per thread] [threads] [message size]
+ */
+public final class JMSConduitBenchmark {
+
+    private static final String[] MODES = {"selector", "shared", "shared cached"};
+    private static final String BROKER_URL = "vm://benchmark?broker.persistent=false&broker.useJmx=false";
+    private static final String REQUEST_QUEUE = "benchmark.request";
+
+    private final CXFBusImpl bus;
+    private final ActiveMQConnectionFactory connectionFactory;
+    private final String payload;
+
+    private JMSConduitBenchmark(CXFBusImpl b, int size) {
+        bus = b;
+        connectionFactory = new ActiveMQConnectionFactory(BROKER_URL);
+        StringBuilder sb = new StringBuilder(size);
+        for (int x = 0; x < size; x++) {
+            sb.append((char)('a' + x % 26));
+        }
+        payload = sb.toString();
+    }
+
+    private DefaultMessageListenerContainer startEchoService() {
+        DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setDestinationName(REQUEST_QUEUE);
+        container.setConcurrentConsumers(4);
+        container.setMessageListener(new SessionAwareMessageListener() {
+            public void onMessage(javax.jms.Message request, Session session) throws JMSException {
+                TextMessage reply = session.createTextMessage(((TextMessage)request).getText());
+                String correlationId = request.getJMSCorrelationID();
+                reply.setJMSCorrelationID(correlationId == null
+                                          ? request.getJMSMessageID() : correlationId);
+                MessageProducer producer = session.createProducer(request.getJMSReplyTo());
+                producer.send(reply);
+                producer.close();
+            }
+        });
+        container.initialize();
+        container.start();
+        return container;
+    }
+
+    private JMSConduit createConduit(String mode) {
+        JMSConfiguration config = new JMSConfiguration();
+        config.setConnectionFactory(connectionFactory);
+        config.setTargetDestination(REQUEST_QUEUE);
+        config.setReceiveTimeout(Long.valueOf(10000));
+        config.setUseSharedReplyListener(mode.startsWith("shared"));
+        if ("shared cached".equals(mode)) {
+            config.setSessionCacheSize(16);
+        }
+        EndpointInfo ei = new EndpointInfo();
+        ei.setName(new QName("http://cxf.apache.org/profile", "JMSConduitBenchmark"));
+        return new JMSConduit(ei, null, config, bus);
+    }
+
+    private void invoke(JMSConduit conduit) throws Exception {
+        Message m = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setSynchronous(true);
+        exchange.setOutMessage(m);
+        m.setExchange(exchange);
+        conduit.prepare(m);
+        OutputStream out = m.getContent(OutputStream.class);
+        out.write(payload.getBytes("UTF-8"));
+        out.close();
+        if (exchange.getInMessage() == null) {
+            throw new IllegalStateException("No reply received");
+        }
+    }
+
+    private long run(String mode, final int count, int threads) throws Exception {
+        final JMSConduit conduit = createConduit(mode);
+        Thread workers[] = new Thread[threads];
+        for (int x = 0; x < threads; x++) {
+            workers[x] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < count; i++) {
+                            invoke(conduit);
+                        }
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (Thread t : workers) {
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        long time = System.nanoTime() - start;
+        conduit.close();
+        return time;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        CXFBusImpl bus = new CXFBusImpl();
+        new WorkQueueManagerImpl(bus);
+        JMSConduitBenchmark benchmark = new JMSConduitBenchmark(bus, size);
+        DefaultMessageListenerContainer echo = benchmark.startEchoService();
+
+        //warm up
+        for (String mode : MODES) {
+            benchmark.run(mode, count / 10, threads);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (String mode : MODES) {
+                long throughput = (long)count * threads * 1000000000L / benchmark.run(mode, count, threads);
+                System.out.println(mode + ": " + throughput + " round trips/s");
+            }
+        }
+        echo.shutdown();
+        bus.shutdown(false);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.provider.JSONProvider;
+import org.apache.cxf.jaxrs.provider.StreamingJSONProvider;
+
+/**
+ * Writes and reads back a bean holding a list of [items] beans, with the
+ * JSON provider which goes through JAXB and Jettison ("jaxb") and with the
+ * one which streams the properties of the beans directly ("streaming").
+ *
+ * Arguments: [messages] [items]
+ */
+public final class JSONProviderBenchmark {
+
+    private static final String[] MODES = {"jaxb", "streaming"};
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[]{};
+
+    private final Catalog catalog = new Catalog();
+
+    private JSONProviderBenchmark(int items) {
+        for (int x = 0; x < items; x++) {
+            Item item = new Item();
+            item.setId(x);
+            item.setName("item " + x);
+            catalog.getItems().add(item);
+        }
+    }
+
+    @XmlRootElement
+    public static class Catalog {
+        private List<Item> items = new ArrayList<Item>();
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+    }
+
+    public static class Item {
+        private long id;
+        private String name;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T createProvider(String mode) {
+        return (T)("streaming".equals(mode) ? new StreamingJSONProvider() : new JSONProvider());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long run(String mode, int count) throws Exception {
+        MessageBodyWriter<Object> writer = createProvider(mode);
+        MessageBodyReader<Object> reader = createProvider(mode);
+        MediaType mt = MediaType.APPLICATION_JSON_TYPE;
+        long start = System.nanoTime();
+        for (int x = 0; x < count; x++) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            writer.writeTo(catalog, Catalog.class, Catalog.class, NO_ANNOTATIONS, mt,
+                           new MetadataMap<String, Object>(), bos);
+            Object o = reader.readFrom((Class)Catalog.class, Catalog.class,
+                                       NO_ANNOTATIONS, mt, new MetadataMap<String, String>(),
+                                       new ByteArrayInputStream(bos.toByteArray()));
+            if (((Catalog)o).getItems().size() != catalog.getItems().size()) {
+                throw new IllegalStateException("Wrong catalog");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        JSONProviderBenchmark benchmark = new JSONProviderBenchmark(items);
+
+        //warm up
+        for (String mode : MODES) {
+            benchmark.run(mode, count / 10);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (String mode : MODES) {
+                long time = benchmark.run(mode, count);
+                System.out.println(mode + ": " + (time / count) + " ns/message");
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.cxf.bus.CXFBusImpl;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.local.LocalConduit;
+import org.apache.cxf.transport.local.LocalTransportFactory;
+import org.apache.cxf.workqueue.WorkQueueManagerImpl;
+
+/**
+ * Measures echo round trips over the local transport in its dispatch modes:
+ * direct dispatch, piped streams with a thread per message, and buffer handoff
+ * on the bus's work queue and inline. Latency is taken from a single caller,
+ * throughput from [threads] concurrent callers with a conduit each.
+ * 
+ * Arguments: [round trips per thread] [threads] [message size]
+ */
+public final class LocalTransportBenchmark {
+    
+    private static final String[] MODES = {"direct", "piped", "handoff", "handoff inline"};
+    private static final String DONE = LocalTransportBenchmark.class.getName() + ".done";
+    
+    private final LocalTransportFactory factory;
+    private final EndpointInfo endpointInfo;
+    private final byte[] payload;
+    
+    private LocalTransportBenchmark(LocalTransportFactory f, int size) throws IOException {
+        factory = f;
+        endpointInfo = new EndpointInfo(null, LocalTransportFactory.TRANSPORT_ID);
+        endpointInfo.setAddress("local://benchmark");
+        factory.getDestination(endpointInfo).setMessageObserver(new EchoObserver());
+        payload = new byte[size];
+    }
+    
+    private void invoke(Conduit conduit, String mode) throws IOException, InterruptedException {
+        Message m = new MessageImpl();
+        if ("direct".equals(mode)) {
+            m.put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
+        } else if (mode.startsWith("handoff")) {
+            m.put(LocalConduit.BUFFER_HANDOFF, Boolean.TRUE);
+            m.put(LocalConduit.DISPATCH_INLINE, "handoff inline".equals(mode));
+        }
+        Exchange exchange = new ExchangeImpl();
+        exchange.setOutMessage(m);
+        conduit.prepare(m);
+        OutputStream out = m.getContent(OutputStream.class);
+        out.write(payload);
+        out.close();
+        conduit.close(m);
+        synchronized (exchange) {
+            while (exchange.get(DONE) == null) {
+                exchange.wait();
+            }
+        }
+    }
+    
+    private long run(final String mode, final int count, int threads) throws Exception {
+        Thread workers[] = new Thread[threads];
+        for (int x = 0; x < threads; x++) {
+            final Conduit conduit = factory.getConduit(endpointInfo);
+            conduit.setMessageObserver(new ResponseObserver());
+            workers[x] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < count; i++) {
+                            invoke(conduit, mode);
+                        }
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (Thread t : workers) {
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        return System.nanoTime() - start;
+    }
+    
+    static void drain(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[4096];
+        int n = in.read(buffer);
+        while (n != -1) {
+            if (out != null) {
+                out.write(buffer, 0, n);
+            }
+            n = in.read(buffer);
+        }
+        in.close();
+    }
+    
+    static class EchoObserver implements MessageObserver {
+        public void onMessage(Message message) {
+            try {
+                message.getExchange().setInMessage(message);
+                Conduit backChannel = message.getDestination().getBackChannel(message, null, null);
+                backChannel.prepare(message);
+                OutputStream out = message.getContent(OutputStream.class);
+                drain(message.getContent(InputStream.class), out);
+                out.close();
+                backChannel.close(message);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+    
+    static class ResponseObserver implements MessageObserver {
+        public void onMessage(Message message) {
+            try {
+                drain(message.getContent(InputStream.class), null);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            Exchange exchange = message.getExchange();
+            synchronized (exchange) {
+                exchange.put(DONE, Boolean.TRUE);
+                exchange.notifyAll();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 2048;
+        
+        CXFBusImpl bus = new CXFBusImpl();
+        new WorkQueueManagerImpl(bus);
+        LocalTransportFactory factory = new LocalTransportFactory();
+        factory.setBus(bus);
+        LocalTransportBenchmark benchmark = new LocalTransportBenchmark(factory, size);
+        
+        //warm up
+        for (String mode : MODES) {
+            benchmark.run(mode, count / 10, threads);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (String mode : MODES) {
+                long latency = benchmark.run(mode, count, 1) / count;
+                long throughput = (long)count * threads * 1000000000L / benchmark.run(mode, count, threads);
+                System.out.println(mode + ": " + (latency / 1000) + " us/round trip, " 
+                                   + throughput + " round trips/s");
+            }
+        }
+        bus.shutdown(false);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+
+import org.apache.cxf.jaxws.handler.logical.LogicalMessageContextImpl;
+import org.apache.cxf.jaxws.handler.logical.LogicalMessageImpl;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.staxutils.StaxUtils;
+
+/**
+ * Hands the payload of a message with [items] elements to a read-only logical
+ * handler that looks at its first two elements, and then reads the payload as the
+ * databinding would.  The payload is copied into a DOM ("dom") or recorded as
+ * events ("streaming").  Allocation is only reported on VMs that can measure it
+ * per thread.
+ *
+ * Arguments: [messages] [items]
+ */
+public final class LogicalHandlerBenchmark {
+
+    private static final String[] MODES = {"dom", "streaming"};
+
+    private final byte[] message;
+
+    private LogicalHandlerBenchmark(int items) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<soap:Body xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">");
+        sb.append("<b:echo xmlns:b=\"urn:benchmark\">");
+        for (int x = 0; x < items; x++) {
+            sb.append("<b:item id=\"" + x + "\"><b:name>item " + x + "</b:name></b:item>");
+        }
+        sb.append("</b:echo></soap:Body>");
+        message = sb.toString().getBytes("UTF-8");
+    }
+
+    private void handle(String mode) throws Exception {
+        Message m = new MessageImpl();
+        m.setExchange(new ExchangeImpl());
+        if ("streaming".equals(mode)) {
+            m.put(LogicalMessageImpl.STREAMING_PAYLOAD, Boolean.TRUE);
+        }
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(message));
+        reader.nextTag();
+        reader.nextTag();
+        m.setContent(XMLStreamReader.class, reader);
+
+        // the handler
+        Source source = new LogicalMessageImpl(new LogicalMessageContextImpl(m)).getPayload();
+        XMLStreamReader payload = StaxUtils.createXMLStreamReader(source);
+        payload.nextTag();
+        payload.nextTag();
+        if (!"item".equals(payload.getLocalName())) {
+            throw new IllegalStateException("Wrong payload");
+        }
+
+        // the databinding
+        reader = m.getContent(XMLStreamReader.class);
+        while (reader.hasNext()) {
+            reader.next();
+        }
+    }
+
+    private long run(String mode, int count) throws Exception {
+        long start = System.nanoTime();
+        for (int x = 0; x < count; x++) {
+            handle(mode);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long getAllocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)threads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        LogicalHandlerBenchmark benchmark = new LogicalHandlerBenchmark(items);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        //warm up
+        for (String mode : MODES) {
+            benchmark.run(mode, count / 10);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (String mode : MODES) {
+                long allocated = getAllocatedBytes(threads);
+                long time = benchmark.run(mode, count);
+                String allocation = allocated < 0 ? ""
+                    : ", " + (getAllocatedBytes(threads) - allocated) / count + " bytes allocated/message";
+                System.out.println(mode + ": " + (time / count) + " ns/message" + allocation);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.apache.cxf.attachment.AttachmentDeserializer;
+import org.apache.cxf.message.Attachment;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+
+/**
+ * Measures the throughput of reading a multipart/related message with one 
+ * binary attachment through the AttachmentDeserializer. The message is 
+ * generated while it is read, so attachments larger than the heap can be used.
+ * 
+ * Arguments: [attachment size in bytes]...
+ */
+public final class MimeAttachmentBenchmark {
+    
+    private static final String BOUNDARY = "uuid:4f5e0b2c-3a19-4d7e-9c3b-8e2f1a6d5c40";
+    private static final String CONTENT_TYPE = "multipart/related; type=\"application/xop+xml\"; "
+        + "boundary=\"" + BOUNDARY + "\"; start=\"<root.message@cxf.apache.org>\"; start-info=\"text/xml\"";
+    private static final byte[] HEAD = ("--" + BOUNDARY + "\r\n"
+        + "Content-Type: application/xop+xml; charset=UTF-8; type=\"text/xml\"\r\n"
+        + "Content-Transfer-Encoding: binary\r\n"
+        + "Content-ID: <root.message@cxf.apache.org>\r\n\r\n"
+        + "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+        + "<data><xop:Include xmlns:xop=\"http://www.w3.org/2004/08/xop/include\" "
+        + "href=\"cid:attachment@cxf.apache.org\"/></data></soap:Body></soap:Envelope>\r\n"
+        + "--" + BOUNDARY + "\r\n"
+        + "Content-Type: application/octet-stream\r\n"
+        + "Content-Transfer-Encoding: binary\r\n"
+        + "Content-ID: <attachment@cxf.apache.org>\r\n\r\n").getBytes();
+    private static final byte[] TAIL = ("\r\n--" + BOUNDARY + "--\r\n").getBytes();
+    
+    private MimeAttachmentBenchmark() {
+        //utility class
+    }
+    
+    /**
+     * Produces the head, size bytes of random data and the tail of the message.
+     */
+    static class MultipartInputStream extends InputStream {
+        private static final byte[] DATA = new byte[65536];
+        static {
+            new Random(0).nextBytes(DATA);
+        }
+        
+        private final long size;
+        private long position;
+        
+        MultipartInputStream(long s) {
+            size = s;
+        }
+        
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+        
+        public int read(byte[] b, int off, int len) {
+            int n;
+            if (position < HEAD.length) {
+                n = Math.min(len, HEAD.length - (int)position);
+                System.arraycopy(HEAD, (int)position, b, off, n);
+            } else if (position < HEAD.length + size) {
+                int start = (int)((position - HEAD.length) & (DATA.length - 1));
+                n = (int)Math.min(Math.min(len, DATA.length - start), HEAD.length + size - position);
+                System.arraycopy(DATA, start, b, off, n);
+            } else if (position < HEAD.length + size + TAIL.length) {
+                int start = (int)(position - HEAD.length - size);
+                n = Math.min(len, TAIL.length - start);
+                System.arraycopy(TAIL, start, b, off, n);
+            } else {
+                return -1;
+            }
+            position += n;
+            return n;
+        }
+    }
+    
+    static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int n = in.read(buffer);
+        while (n != -1) {
+            total += n;
+            n = in.read(buffer);
+        }
+        in.close();
+        return total;
+    }
+    
+    static void read(long size) throws IOException {
+        Message message = new MessageImpl();
+        message.setExchange(new ExchangeImpl());
+        message.put(Message.CONTENT_TYPE, CONTENT_TYPE);
+        message.setContent(InputStream.class, new MultipartInputStream(size));
+        new AttachmentDeserializer(message).initializeAttachments();
+        drain(message.getContent(InputStream.class));
+        long read = 0;
+        for (Attachment a : message.getAttachments()) {
+            read += drain(a.getDataHandler().getInputStream());
+        }
+        if (read != size) {
+            throw new IllegalStateException("Read " + read + " bytes instead of " + size);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long sizes[] = {1024, 64 * 1024, 1024 * 1024, 64 * 1024 * 1024, 1024 * 1024 * 1024};
+        if (args.length > 0) {
+            sizes = new long[args.length];
+            for (int x = 0; x < args.length; x++) {
+                sizes[x] = Long.parseLong(args[x]);
+            }
+        }
+        for (long size : sizes) {
+            // repeat small messages so every size moves at least 256MB
+            long count = Math.max(1, (256L * 1024 * 1024) / size);
+            for (int i = 0; i < count / 10 + 1; i++) {
+                read(size);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                read(size);
+            }
+            long time = System.nanoTime() - start;
+            System.out.println(size + " bytes: " + (time / count / 1000) + " us/message, " 
+                               + (size * count * 1000L / time) + " MB/s");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.UUID;
+
+import org.apache.cxf.jaxrs.model.ParameterType;
+import org.apache.cxf.jaxrs.utils.InjectionUtils;
+
+/**
+ * Converts query parameter values to an Integer, an enum and a UUID, the way
+ * InjectionUtils.handleParameter does it ("converter"), and by looking up the
+ * String constructor and the static valueOf/fromString methods for every
+ * value as it used to ("lookup"), three parameters per request.
+ *
+ * Arguments: [conversions]
+ */
+public final class ParameterConversionBenchmark {
+
+    private static final String[] MODES = {"lookup", "converter"};
+    private static final String ID = UUID.randomUUID().toString();
+
+    public enum Order {
+        ASCENDING, DESCENDING
+    }
+
+    private ParameterConversionBenchmark() {
+    }
+
+    private static Object lookup(String value, Class<?> cls) throws Exception {
+        try {
+            return cls.getConstructor(new Class<?>[]{String.class}).newInstance(new Object[]{value});
+        } catch (NoSuchMethodException ex) {
+            // try valueOf
+        }
+        String[] methodNames = cls.isEnum()
+            ? new String[] {"fromString", "fromValue", "valueOf"}
+            : new String[] {"valueOf", "fromString"};
+        for (String mName : methodNames) {
+            try {
+                Method m = cls.getMethod(mName, new Class<?>[]{String.class});
+                if (Modifier.isStatic(m.getModifiers())) {
+                    Object result = m.invoke(null, new Object[]{value});
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            } catch (NoSuchMethodException ex) {
+                // no luck
+            }
+        }
+        return null;
+    }
+
+    private static Object convert(String mode, String value, Class<?> cls) throws Exception {
+        if ("lookup".equals(mode)) {
+            return lookup(value, cls);
+        }
+        return InjectionUtils.handleParameter(value, cls, ParameterType.QUERY, null);
+    }
+
+    private static long run(String mode, int count) throws Exception {
+        long start = System.nanoTime();
+        for (int x = 0; x < count; x++) {
+            if (convert(mode, "10", Integer.class) == null
+                || convert(mode, "DESCENDING", Order.class) == null
+                || convert(mode, ID, UUID.class) == null) {
+                throw new IllegalStateException("Conversion failed");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        //warm up
+        for (String mode : MODES) {
+            run(mode, count / 10);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (String mode : MODES) {
+                long time = run(mode, count);
+                System.out.println(mode + ": " + (time / count) + " ns/request");
+            }
+        }
+    }
+}
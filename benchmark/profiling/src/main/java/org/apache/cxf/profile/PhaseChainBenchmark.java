@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.profile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseChainCache;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.apache.cxf.phase.PhaseManagerImpl;
+
+/**
+ * Measures the per message cost of obtaining an interceptor chain from the
+ * PhaseChainCache and running a message through it.  The "copied" mode 
+ * forces every chain to copy its interceptor list like the chains did before
+ * they were shared between messages, the "shared" mode uses the chain as 
+ * returned by the cache.
+ * 
+ * Arguments: [iterations] [threads] [interceptors]
+ */
+public final class PhaseChainBenchmark {
+    
+    private final SortedSet<Phase> phases = new PhaseManagerImpl().getInPhases();
+    private final PhaseChainCache cache = new PhaseChainCache();
+    private final List<Interceptor<? extends Message>> interceptors 
+        = new ArrayList<Interceptor<? extends Message>>();
+    
+    private PhaseChainBenchmark(int count) {
+        Phase phaseArray[] = phases.toArray(new Phase[phases.size()]);
+        for (int x = 0; x < count; x++) {
+            interceptors.add(new NoOpInterceptor("interceptor" + x, 
+                                                 phaseArray[x % phaseArray.length].getName()));
+        }
+    }
+    
+    private void iteration(boolean copy) {
+        PhaseInterceptorChain chain = cache.get(phases, interceptors);
+        if (copy) {
+            //already in the chain so it is not added, but the chain is copied
+            chain.add(interceptors.get(0));
+        }
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        message.setInterceptorChain(chain);
+        chain.doIntercept(message);
+    }
+    
+    private long run(final boolean copy, final int count, int threads) throws InterruptedException {
+        Thread workers[] = new Thread[threads];
+        for (int x = 0; x < threads; x++) {
+            workers[x] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        iteration(copy);
+                    }
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (Thread t : workers) {
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        
+        PhaseChainBenchmark bench = new PhaseChainBenchmark(size);
+        //warm up
+        bench.run(true, count / 10, threads);
+        bench.run(false, count / 10, threads);
+        
+        for (int x = 0; x < 3; x++) {
+            long copied = bench.run(true, count, threads);
+            long shared = bench.run(false, count, threads);
+            long total = (long)count * threads;
+            System.out.println("copied: " + (copied / total) + " ns/message, "
+                               + "shared: " + (shared / total) + " ns/message");
+        }
+    }
+    
+    static class NoOpInterceptor extends AbstractPhaseInterceptor<Message> {
+        NoOpInterceptor(String id, String phase) {
+            super(id, phase);
+        }
+        public void handleMessage(Message message) {
+            //nothing
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.bus.CXFBusImpl;
+import org.apache.cxf.service.model.BindingFaultInfo;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.BindingMessageInfo;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.InterfaceInfo;
+import org.apache.cxf.service.model.MessageInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.Destination;
+import org.apache.cxf.ws.policy.AbstractPolicyInterceptorProvider;
+import org.apache.cxf.ws.policy.PolicyEngineImpl;
+import org.apache.cxf.ws.policy.PolicyInterceptorProviderRegistryImpl;
+import org.apache.cxf.ws.policy.PolicyProvider;
+import org.apache.cxf.ws.policy.builder.primitive.PrimitiveAssertion;
+import org.apache.neethi.All;
+import org.apache.neethi.ExactlyOne;
+import org.apache.neethi.Policy;
+
+/**
+ * Measures effective policy lookups on an endpoint with [operations] operations
+ * whose endpoint policy has [alternatives] alternatives of 10 assertions each,
+ * as a WS-SecurityPolicy endpoint would. Every operation and message adds an
+ * assertion of its own. The request and response policies of both sides are
+ * looked up from [threads] threads. In the "stable" run the policies never change,
+ * in the "changing" run a policy is registered every 10000 lookups, which
+ * invalidates the cached policies.
+ *
+ * Arguments: [lookups per thread] [threads] [operations] [alternatives]
+ */
+public final class PolicyEngineBenchmark {
+
+    private static final String NS = "http://cxf.apache.org/profile/policy";
+
+    private final PolicyEngineImpl engine;
+    private final EndpointInfo endpointInfo;
+    private final List<BindingOperationInfo> operations = new ArrayList<BindingOperationInfo>();
+
+    private PolicyEngineBenchmark(int operationCount, int alternatives) {
+        CXFBusImpl bus = new CXFBusImpl();
+        PolicyInterceptorProviderRegistryImpl pipr = new PolicyInterceptorProviderRegistryImpl(bus);
+        List<QName> names = new ArrayList<QName>();
+
+        Policy endpointPolicy = new Policy();
+        ExactlyOne ea = new ExactlyOne();
+        for (int a = 0; a < alternatives; a++) {
+            All all = new All();
+            for (int x = 0; x < 10; x++) {
+                QName name = new QName(NS, "Assertion" + a + "-" + x);
+                names.add(name);
+                all.addPolicyComponent(new PrimitiveAssertion(name));
+            }
+            ea.addPolicyComponent(all);
+        }
+        endpointPolicy.addPolicyComponent(ea);
+
+        ServiceInfo si = new ServiceInfo();
+        InterfaceInfo ii = new InterfaceInfo(si, new QName(NS, "Interface"));
+        si.setInterface(ii);
+        BindingInfo bi = new BindingInfo(si, NS);
+        si.addBinding(bi);
+        for (int x = 0; x < operationCount; x++) {
+            QName opName = new QName(NS, "operation" + x);
+            OperationInfo oi = ii.addOperation(opName);
+            oi.setInput("in", oi.createMessage(new QName(NS, "in" + x), MessageInfo.Type.INPUT));
+            oi.setOutput("out", oi.createMessage(new QName(NS, "out" + x), MessageInfo.Type.OUTPUT));
+            BindingOperationInfo boi = new BindingOperationInfo(bi, oi);
+            bi.addOperation(boi);
+            operations.add(boi);
+            names.add(opName);
+        }
+        names.add(new QName(NS, "in"));
+        names.add(new QName(NS, "out"));
+        endpointInfo = new EndpointInfo(si, NS);
+        endpointInfo.setName(new QName(NS, "Port"));
+        endpointInfo.setBinding(bi);
+        si.addEndpoint(endpointInfo);
+
+        pipr.register(new AbstractPolicyInterceptorProvider(names) { });
+        engine = new PolicyEngineImpl(bus);
+        engine.getPolicyProviders().add(new BenchmarkPolicyProvider(endpointPolicy));
+    }
+
+    private void lookup(int i) {
+        BindingOperationInfo boi = operations.get(i % operations.size());
+        engine.getEffectiveServerRequestPolicy(endpointInfo, boi);
+        engine.getEffectiveServerResponsePolicy(endpointInfo, boi, (Destination)null);
+        engine.getEffectiveClientRequestPolicy(endpointInfo, boi, (Conduit)null);
+        engine.getEffectiveClientResponsePolicy(endpointInfo, boi);
+    }
+
+    private long run(final String mode, final int count, int threads) throws Exception {
+        Thread workers[] = new Thread[threads];
+        for (int x = 0; x < threads; x++) {
+            final boolean changing = "changing".equals(mode) && x == 0;
+            workers[x] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        if (changing && i % 10000 == 0) {
+                            engine.getRegistry().register("p" + i, new Policy());
+                        }
+                        lookup(i);
+                    }
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (Thread t : workers) {
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    static Policy createPolicy(String name) {
+        Policy p = new Policy();
+        p.addPolicyComponent(new PrimitiveAssertion(new QName(NS, name)));
+        return p;
+    }
+
+    static class BenchmarkPolicyProvider implements PolicyProvider {
+        private final Policy endpointPolicy;
+
+        BenchmarkPolicyProvider(Policy p) {
+            endpointPolicy = p;
+        }
+        public Policy getEffectivePolicy(ServiceInfo si) {
+            return null;
+        }
+        public Policy getEffectivePolicy(EndpointInfo ei) {
+            return endpointPolicy;
+        }
+        public Policy getEffectivePolicy(BindingOperationInfo bi) {
+            return createPolicy(bi.getName().getLocalPart());
+        }
+        public Policy getEffectivePolicy(BindingMessageInfo bmi) {
+            return createPolicy(bmi == bmi.getBindingOperation().getInput() ? "in" : "out");
+        }
+        public Policy getEffectivePolicy(BindingFaultInfo bfi) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int operationCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int alternatives = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        PolicyEngineBenchmark benchmark = new PolicyEngineBenchmark(operationCount, alternatives);
+        //warm up
+        benchmark.run("stable", count / 10, threads);
+        benchmark.run("changing", count / 10, threads);
+
+        for (int x = 0; x < 3; x++) {
+            for (String mode : new String[] {"stable", "changing"}) {
+                long time = benchmark.run(mode, count, threads);
+                System.out.println(mode + ": " + ((long)count * threads * 1000000000L / time)
+                                   + " operation lookups/s");
+            }
+        }
+    }
+}
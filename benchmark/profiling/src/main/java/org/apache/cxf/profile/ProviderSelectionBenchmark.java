@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.cxf.jaxrs.provider.BinaryDataProvider;
+import org.apache.cxf.jaxrs.provider.JAXBElementProvider;
+import org.apache.cxf.jaxrs.provider.PrimitiveTextProvider;
+import org.apache.cxf.jaxrs.provider.ProviderFactory;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+
+/**
+ * Selects the message body readers and writers of a JAXB bean, a String and
+ * an InputStream, as a server does for every request, from user providers
+ * which either all declare their answers stable, so that selections are
+ * remembered ("cached"), or include one which does not, so that the providers
+ * are looked through every time ("scan").
+ *
+ * Arguments: [selections]
+ */
+public final class ProviderSelectionBenchmark {
+
+    private static final String[] MODES = {"scan", "cached"};
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[]{};
+
+    private ProviderSelectionBenchmark() {
+    }
+
+    @XmlRootElement
+    public static class Item {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @Consumes("application/x-unused")
+    @Produces("application/x-unused")
+    public static class UnusedProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+        public boolean isReadable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+            return false;
+        }
+
+        public Object readFrom(Class<Object> type, Type genericType, Annotation[] anns, MediaType mt,
+                               MultivaluedMap<String, String> headers, InputStream is) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean isWriteable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+            return false;
+        }
+
+        public long getSize(Object o, Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+            return -1;
+        }
+
+        public void writeTo(Object o, Class<?> type, Type genericType, Annotation[] anns, MediaType mt,
+                            MultivaluedMap<String, Object> headers, OutputStream os) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static ProviderFactory createFactory(String mode) {
+        ProviderFactory factory = ProviderFactory.getInstance();
+        factory.registerUserProvider(new JAXBElementProvider());
+        factory.registerUserProvider(new PrimitiveTextProvider());
+        factory.registerUserProvider(new BinaryDataProvider());
+        if ("scan".equals(mode)) {
+            factory.registerUserProvider(new UnusedProvider());
+        }
+        return factory;
+    }
+
+    private static void select(ProviderFactory factory, Class<?> type, MediaType mt, Message m) {
+        if (factory.createMessageBodyReader(type, type, NO_ANNOTATIONS, mt, m) == null
+            || factory.createMessageBodyWriter(type, type, NO_ANNOTATIONS, mt, m) == null) {
+            throw new IllegalStateException("No provider for " + type.getName());
+        }
+    }
+
+    private static long run(ProviderFactory factory, int count) {
+        Message m = new MessageImpl();
+        long start = System.nanoTime();
+        for (int x = 0; x < count; x++) {
+            select(factory, Item.class, MediaType.APPLICATION_XML_TYPE, m);
+            select(factory, String.class, MediaType.TEXT_PLAIN_TYPE, m);
+            select(factory, InputStream.class, MediaType.APPLICATION_OCTET_STREAM_TYPE, m);
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+
+        ProviderFactory factories[] = new ProviderFactory[MODES.length];
+        for (int m = 0; m < MODES.length; m++) {
+            factories[m] = createFactory(MODES[m]);
+        }
+
+        //warm up
+        for (int m = 0; m < MODES.length; m++) {
+            run(factories[m], count / 10);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (int m = 0; m < MODES.length; m++) {
+                long time = run(factories[m], count);
+                System.out.println(MODES[m] + ": " + (time / count) + " ns/request");
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.profile;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cxf.ws.rm.Identifier;
+import org.apache.cxf.ws.rm.RMUtils;
+import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
+import org.apache.cxf.ws.rm.persistence.jdbc.RMTxStore;
+
+/**
+ * Measures the outbound message throughput of the RMTxStore on an embedded
+ * Derby database, with one commit per message ("default") and with the 
+ * writes of concurrent sequences committed together ("group commit").  Each
+ * thread sends on its own sequence and removes the messages again in groups
+ * of ten, as acknowledgements would.
+ * 
+ * Arguments: [messages per thread] [threads] [message size]
+ */
+public final class RMTxStoreBenchmark {
+    
+    private static final String ENDPOINT_ID = "benchmark.endpoint";
+    
+    private final RMTxStore store;
+    private final int size;
+    private final AtomicLong sequences = new AtomicLong();
+    
+    private RMTxStoreBenchmark(boolean groupCommit, int s) {
+        store = new RMTxStore();
+        store.setUrl("jdbc:derby:rmbench;create=true");
+        store.setGroupCommit(groupCommit);
+        store.init();
+        size = s;
+    }
+    
+    private void send(int count) {
+        Identifier sid = RMUtils.getWSRMFactory().createIdentifier();
+        sid.setValue("benchmark" + sequences.incrementAndGet() + "-" + System.nanoTime());
+        BenchmarkSequence seq = new BenchmarkSequence(sid);
+        store.createSourceSequence(seq);
+        Collection<BigInteger> acked = new ArrayList<BigInteger>();
+        for (int i = 1; i <= count; i++) {
+            BigInteger nr = BigInteger.valueOf(i);
+            seq.setCurrentMessageNr(nr);
+            RMMessage msg = new RMMessage();
+            msg.setMessageNumber(nr);
+            msg.setContent(new byte[size]);
+            store.persistOutgoing(seq, msg);
+            acked.add(nr);
+            if (acked.size() == 10) {
+                store.removeMessages(sid, acked, true);
+                acked.clear();
+            }
+        }
+        store.removeMessages(sid, acked, true);
+        store.removeSourceSequence(sid);
+    }
+    
+    private long run(final int count, int threads) throws InterruptedException {
+        Thread workers[] = new Thread[threads];
+        for (int x = 0; x < threads; x++) {
+            workers[x] = new Thread() {
+                public void run() {
+                    send(count);
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (Thread t : workers) {
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        
+        RMTxStore.deleteDatabaseFiles("rmbench", true);
+        RMTxStoreBenchmark single = new RMTxStoreBenchmark(false, size);
+        RMTxStoreBenchmark group = new RMTxStoreBenchmark(true, size);
+        //warm up
+        single.run(count / 10, threads);
+        group.run(count / 10, threads);
+        
+        long total = (long)count * threads;
+        for (int x = 0; x < 3; x++) {
+            long s = single.run(count, threads);
+            long g = group.run(count, threads);
+            System.out.println("default: " + (total * 1000000000L / s) + " messages/s, "
+                               + "group commit: " + (total * 1000000000L / g) + " messages/s");
+        }
+        RMTxStore.deleteDatabaseFiles("rmbench", false);
+    }
+    
+    static class BenchmarkSequence extends SourceSequence {
+        private BigInteger current = BigInteger.ZERO;
+        
+        BenchmarkSequence(Identifier sid) {
+            super(sid);
+        }
+        void setCurrentMessageNr(BigInteger nr) {
+            current = nr;
+        }
+        public BigInteger getCurrentMessageNr() {
+            return current;
+        }
+        public String getEndpointIdentifier() {
+            return ENDPOINT_ID;
+        }
+    }
+}
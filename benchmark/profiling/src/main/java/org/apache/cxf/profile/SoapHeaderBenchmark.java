@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.staxutils.StaxUtils;
+
+/**
+ * Reads the envelope and headers of a small message with the WS-Addressing headers
+ * of a request and [headers] custom headers, reading the headers into a DOM ("dom"),
+ * buffering them without asking for their objects ("lazy") and buffering them and then
+ * asking every header for its object ("lazy materialized").  Allocation is only
+ * reported on VMs that can measure it per thread.
+ *
+ * Arguments: [messages] [headers]
+ */
+public final class SoapHeaderBenchmark {
+
+    private static final String[] MODES = {"dom", "lazy", "lazy materialized"};
+    private static final String WSA_NS = "http://www.w3.org/2005/08/addressing";
+
+    private final ReadHeadersInterceptor interceptor;
+    private final byte[] message;
+
+    private SoapHeaderBenchmark(Bus bus, int headers) throws Exception {
+        interceptor = new ReadHeadersInterceptor(bus);
+        StringBuilder sb = new StringBuilder();
+        sb.append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">");
+        sb.append("<soap:Header>");
+        sb.append("<wsa:To xmlns:wsa=\"" + WSA_NS + "\">http://localhost:9000/benchmark</wsa:To>");
+        sb.append("<wsa:Action xmlns:wsa=\"" + WSA_NS + "\">urn:benchmark:echo</wsa:Action>");
+        sb.append("<wsa:MessageID xmlns:wsa=\"" + WSA_NS + "\">"
+                  + "urn:uuid:6b29fc40-ca47-1067-b31d</wsa:MessageID>");
+        sb.append("<wsa:ReplyTo xmlns:wsa=\"" + WSA_NS + "\"><wsa:Address>"
+                  + "http://www.w3.org/2005/08/addressing/anonymous</wsa:Address></wsa:ReplyTo>");
+        for (int x = 0; x < headers; x++) {
+            sb.append("<h:custom" + x + " xmlns:h=\"urn:benchmark:headers\" h:version=\"1\">");
+            sb.append("<h:key>key" + x + "</h:key><h:value>value" + x + "</h:value>");
+            sb.append("</h:custom" + x + ">");
+        }
+        sb.append("</soap:Header>");
+        sb.append("<soap:Body><b:echo xmlns:b=\"urn:benchmark\"><text>hello</text></b:echo></soap:Body>");
+        sb.append("</soap:Envelope>");
+        message = sb.toString().getBytes("UTF-8");
+    }
+
+    private void read(String mode) throws Exception {
+        SoapMessage m = new SoapMessage(new MessageImpl());
+        if (mode.startsWith("lazy")) {
+            m.put(ReadHeadersInterceptor.LAZY_HEADERS, Boolean.TRUE);
+        }
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(message));
+        m.setContent(XMLStreamReader.class, reader);
+        interceptor.handleMessage(m);
+        if ("lazy materialized".equals(mode)) {
+            for (Header h : m.getHeaders()) {
+                h.getObject();
+            }
+        }
+        reader.nextTag();
+        reader.close();
+    }
+
+    private long run(String mode, int count) throws Exception {
+        long start = System.nanoTime();
+        for (int x = 0; x < count; x++) {
+            read(mode);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long getAllocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)threads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int headers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        Bus bus = BusFactory.newInstance().createBus();
+        SoapHeaderBenchmark benchmark = new SoapHeaderBenchmark(bus, headers);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        //warm up
+        for (String mode : MODES) {
+            benchmark.run(mode, count / 10);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (String mode : MODES) {
+                long allocated = getAllocatedBytes(threads);
+                long time = benchmark.run(mode, count);
+                String allocation = allocated < 0 ? ""
+                    : ", " + (getAllocatedBytes(threads) - allocated) / count + " bytes allocated/message";
+                System.out.println(mode + ": " + (time / count) + " ns/message" + allocation);
+            }
+        }
+        bus.shutdown(false);
+    }
+}
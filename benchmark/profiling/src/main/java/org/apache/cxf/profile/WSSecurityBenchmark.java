@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.profile;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jws.WebService;
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.CallbackHandler;
+import javax.xml.ws.BindingProvider;
+
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.transport.local.LocalConduit;
+import org.apache.cxf.transport.local.LocalTransportFactory;
+import org.apache.cxf.ws.security.wss4j.WSS4JInInterceptor;
+import org.apache.cxf.ws.security.wss4j.WSS4JOutInterceptor;
+import org.apache.ws.security.WSPasswordCallback;
+import org.apache.ws.security.handler.WSHandlerConstants;
+
+/**
+ * Echoes a list of [items] strings secured with a Timestamp and a UsernameToken
+ * in both directions over the local transport, with the WS-Security interceptors
+ * working on a SAAJ model of the message ("dom") and on the headers alone ("streaming").
+ * Latency and the peak heap usage are taken from a single caller, throughput
+ * from [threads] concurrent callers.
+ *
+ * Arguments: [round trips per thread] [threads] [items]
+ */
+public final class WSSecurityBenchmark {
+
+    private static final String[] MODES = {"dom", "streaming"};
+    private static final String ACTIONS = WSHandlerConstants.TIMESTAMP + " "
+        + WSHandlerConstants.USERNAME_TOKEN;
+
+    private final List<String> items = new ArrayList<String>();
+
+    private WSSecurityBenchmark(int count) {
+        for (int x = 0; x < count; x++) {
+            items.add("item number " + x);
+        }
+    }
+
+    @WebService
+    public interface SecureEcho {
+        List<String> echo(List<String> list);
+    }
+
+    @WebService(endpointInterface = "org.apache.cxf.profile.WSSecurityBenchmark$SecureEcho")
+    public static class SecureEchoImpl implements SecureEcho {
+        public List<String> echo(List<String> list) {
+            return list;
+        }
+    }
+
+    public static class PasswordCallback implements CallbackHandler {
+        public void handle(Callback[] callbacks) throws IOException {
+            for (Callback c : callbacks) {
+                ((WSPasswordCallback)c).setPassword("benchmarkPassword");
+            }
+        }
+    }
+
+    private static WSS4JInInterceptor createIn(boolean streaming) {
+        WSS4JInInterceptor in = new WSS4JInInterceptor();
+        in.setStreaming(streaming);
+        in.setProperty(WSHandlerConstants.ACTION, ACTIONS);
+        in.setProperty(WSHandlerConstants.PW_CALLBACK_CLASS, PasswordCallback.class.getName());
+        return in;
+    }
+
+    private static WSS4JOutInterceptor createOut(boolean streaming) {
+        WSS4JOutInterceptor out = new WSS4JOutInterceptor();
+        out.setStreaming(streaming);
+        out.setProperty(WSHandlerConstants.ACTION, ACTIONS);
+        out.setProperty(WSHandlerConstants.USER, "benchmark");
+        out.setProperty(WSHandlerConstants.PW_CALLBACK_CLASS, PasswordCallback.class.getName());
+        return out;
+    }
+
+    private static Server createServer(String mode) {
+        boolean streaming = "streaming".equals(mode);
+        JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+        factory.setServiceBean(new SecureEchoImpl());
+        factory.setAddress("local://" + mode);
+        factory.setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        factory.getInInterceptors().add(createIn(streaming));
+        factory.getOutInterceptors().add(createOut(streaming));
+        return factory.create();
+    }
+
+    private static SecureEcho createClient(String mode) {
+        boolean streaming = "streaming".equals(mode);
+        JaxWsProxyFactoryBean factory = new JaxWsProxyFactoryBean();
+        factory.setServiceClass(SecureEcho.class);
+        factory.setAddress("local://" + mode);
+        factory.getClientFactoryBean().setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        SecureEcho echo = (SecureEcho)factory.create();
+        Client client = ClientProxy.getClient(echo);
+        client.getInInterceptors().add(createIn(streaming));
+        client.getOutInterceptors().add(createOut(streaming));
+        ((BindingProvider)echo).getRequestContext().put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
+        return echo;
+    }
+
+    private long run(String mode, final int count, int threads) throws Exception {
+        Thread workers[] = new Thread[threads];
+        for (int x = 0; x < threads; x++) {
+            final SecureEcho echo = createClient(mode);
+            workers[x] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        if (echo.echo(items).size() != items.size()) {
+                            throw new IllegalStateException("Wrong reply");
+                        }
+                    }
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (Thread t : workers) {
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<MemoryPoolMXBean> resetHeapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static long getPeakHeap(List<MemoryPoolMXBean> pools) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        WSSecurityBenchmark benchmark = new WSSecurityBenchmark(size);
+        for (String mode : MODES) {
+            createServer(mode);
+        }
+
+        //warm up
+        for (String mode : MODES) {
+            benchmark.run(mode, count / 10, threads);
+        }
+        for (int x = 0; x < 3; x++) {
+            for (String mode : MODES) {
+                System.gc();
+                List<MemoryPoolMXBean> pools = resetHeapPools();
+                long latency = benchmark.run(mode, count, 1) / count;
+                long peak = getPeakHeap(pools);
+                long throughput = (long)count * threads * 1000000000L / benchmark.run(mode, count, threads);
+                System.out.println(mode + ": " + (latency / 1000) + " us/round trip, "
+                                   + (peak / 1024) + " KB peak heap, " + throughput + " round trips/s");
+            }
+        }
+    }
+}
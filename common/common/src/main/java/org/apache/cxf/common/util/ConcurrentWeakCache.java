@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.common.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread safe cache which weakly references its keys and softly references 
+ * its values. Lookups do not lock, which makes it suitable for caches which are 
+ * read on every request.
+ * <p>
+ * Keys are typically classes or packages, the values may strongly reference 
+ * the keys (as a JAXBContext references its classes) without preventing the 
+ * class loader from being collected: the values are released when the memory 
+ * runs low and the entries are removed once either the key or the value has 
+ * been collected. 
+ * <p>
+ * An identity cache compares its keys with == instead of equals(), for keys
+ * whose hash code changes while they are cached (such as an Endpoint, which is
+ * a Map of its properties).
+ * <p>
+ * Null keys and values are not supported.
+ */
+public class ConcurrentWeakCache<K, V> {
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    private final ConcurrentHashMap<KeyReference, ValueReference<V>> store =
+        new ConcurrentHashMap<KeyReference, ValueReference<V>>();
+    private final boolean identity;
+    
+    public ConcurrentWeakCache() {
+        this(false);
+    }
+    
+    public ConcurrentWeakCache(boolean identity) {
+        this.identity = identity;
+    }
+    
+    public V get(K key) {
+        ValueReference<V> ref = store.get(new KeyReference(key, null, identity));
+        return ref == null ? null : ref.get();
+    }
+    
+    /**
+     * Adds the value unless a value is already cached for this key.
+     * 
+     * @return the value now cached for the key
+     */
+    public V putIfAbsent(K key, V value) {
+        reap();
+        KeyReference keyRef = new KeyReference(key, queue, identity);
+        ValueReference<V> valueRef = new ValueReference<V>(value, keyRef, queue);
+        while (true) {
+            ValueReference<V> existing = store.putIfAbsent(keyRef, valueRef);
+            if (existing == null) {
+                return value;
+            }
+            V existingValue = existing.get();
+            if (existingValue != null) {
+                return existingValue;
+            }
+            if (store.replace(keyRef, existing, valueRef)) {
+                return value;
+            }
+        }
+    }
+    
+    public void put(K key, V value) {
+        reap();
+        KeyReference keyRef = new KeyReference(key, queue, identity);
+        store.put(keyRef, new ValueReference<V>(value, keyRef, queue));
+    }
+    
+    public V remove(K key) {
+        reap();
+        ValueReference<V> ref = store.remove(new KeyReference(key, null, identity));
+        return ref == null ? null : ref.get();
+    }
+    
+    public void clear() {
+        store.clear();
+        reap();
+    }
+    
+    public int size() {
+        reap();
+        return store.size();
+    }
+    
+    private void reap() {
+        Reference<?> ref = queue.poll();
+        while (ref != null) {
+            if (ref instanceof KeyReference) {
+                store.remove(ref);
+            } else {
+                ValueReference<?> valueRef = (ValueReference<?>)ref;
+                store.remove(valueRef.key, valueRef);
+            }
+            ref = queue.poll();
+        }
+    }
+    
+    private static final class KeyReference extends WeakReference<Object> {
+        private final int hash;
+        private final boolean identity;
+        
+        KeyReference(Object key, ReferenceQueue<Object> queue, boolean identity) {
+            super(key, queue);
+            this.identity = identity;
+            hash = identity ? System.identityHashCode(key) : key.hashCode();
+        }
+        
+        public int hashCode() {
+            return hash;
+        }
+        
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof KeyReference)) {
+                return false;
+            }
+            Object key = get();
+            if (key == null) {
+                return false;
+            }
+            return identity ? key == ((KeyReference)o).get() : key.equals(((KeyReference)o).get());
+        }
+    }
+    
+    private static final class ValueReference<V> extends SoftReference<V> {
+        private final KeyReference key;
+        
+        ValueReference(V value, KeyReference key, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -42,6 +42,14 @@ public class LoadingByteArrayOutputStream extends ByteArrayOutputStream {
     public LoadingByteArrayOutputStream(int i) {
         super(i);
     }
+    /**
+     * Creates a stream that uses the given array as its initial buffer.
+     * The array is replaced by a bigger one if it fills up.
+     */
+    public LoadingByteArrayOutputStream(byte[] initial) {
+        super(0);
+        buf = initial;
+    }
     
     public ByteArrayInputStream createInputStream() {
         return new ByteArrayInputStream(buf, 0, count) {
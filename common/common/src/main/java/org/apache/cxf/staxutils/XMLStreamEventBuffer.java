@@ -0,0 +1,660 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.staxutils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Records the events of an XMLStreamReader as two flat arrays, the event types with
+ * their namespace and attribute counts and the strings of the events, so they can be
+ * turned into DOM nodes or read again later on, or not at all.  Whitespace the parser
+ * reports as ignorable is dropped, as StaxUtils.read does.
+ */
+public final class XMLStreamEventBuffer {
+
+    private int[] events = new int[64];
+    private int eventCount;
+    private String[] strings = new String[256];
+    private int stringCount;
+
+    /**
+     * Records the event the reader is positioned on.
+     */
+    public void add(XMLStreamReader reader) {
+        int type = reader.getEventType();
+        switch (type) {
+        case XMLStreamConstants.START_ELEMENT:
+            addStartElement(reader, null);
+            break;
+        case XMLStreamConstants.END_ELEMENT:
+            addEvent(type);
+            break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.COMMENT:
+            addEvent(type);
+            addString(reader.getText());
+            break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            addEvent(type);
+            addString(reader.getPITarget());
+            addString(reader.getPIData());
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Records the element the reader is positioned on, leaving the reader
+     * on its end tag.
+     */
+    public void addElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        do {
+            int type = reader.getEventType();
+            add(reader);
+            if (type == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (type == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            if (depth > 0) {
+                reader.next();
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Records the element the reader is positioned on as a fragment that stands on
+     * its own, declaring the namespaces used by the names of its elements and attributes
+     * that were declared outside of it.  The reader is left on the end tag of the element.
+     */
+    public void addFragment(XMLStreamReader reader) throws XMLStreamException {
+        // the prefixes declared within the fragment, with the number declared outside each element
+        List<String> declared = new ArrayList<String>();
+        int[] marks = new int[16];
+        int depth = 0;
+        do {
+            int type = reader.getEventType();
+            if (type == XMLStreamConstants.START_ELEMENT) {
+                if (depth == marks.length) {
+                    int[] newMarks = new int[depth * 2];
+                    System.arraycopy(marks, 0, newMarks, 0, depth);
+                    marks = newMarks;
+                }
+                marks[depth++] = declared.size();
+                for (int x = 0; x < reader.getNamespaceCount(); x++) {
+                    declared.add(nullToEmpty(reader.getNamespacePrefix(x)));
+                }
+                addStartElement(reader, getInheritedNamespaces(reader, declared));
+            } else {
+                add(reader);
+                if (type == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    declared.subList(marks[depth], declared.size()).clear();
+                }
+            }
+            if (depth > 0) {
+                reader.next();
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * @return the prefixes and namespaces the element uses that are not declared in the
+     * fragment yet, which are then added to the declared prefixes
+     */
+    private static List<String> getInheritedNamespaces(XMLStreamReader reader, List<String> declared) {
+        List<String> inherited = null;
+        for (int x = -1; x < reader.getAttributeCount(); x++) {
+            String prefix = nullToEmpty(x == -1 ? reader.getPrefix() : reader.getAttributePrefix(x));
+            String ns = x == -1 ? reader.getNamespaceURI() : reader.getAttributeNamespace(x);
+            if (ns == null || ns.length() == 0 || XMLConstants.XML_NS_URI.equals(ns)
+                || declared.contains(prefix)) {
+                continue;
+            }
+            if (inherited == null) {
+                inherited = new ArrayList<String>();
+            }
+            inherited.add(prefix);
+            inherited.add(ns);
+            declared.add(prefix);
+        }
+        return inherited;
+    }
+
+    private void addStartElement(XMLStreamReader reader, List<String> inherited) {
+        int nsCount = reader.getNamespaceCount();
+        int attCount = reader.getAttributeCount();
+        addEvent(XMLStreamConstants.START_ELEMENT);
+        addEvent(inherited == null ? nsCount : nsCount + inherited.size() / 2);
+        addEvent(attCount);
+        addString(reader.getPrefix());
+        addString(reader.getLocalName());
+        addString(reader.getNamespaceURI());
+        for (int x = 0; x < nsCount; x++) {
+            addString(reader.getNamespacePrefix(x));
+            addString(reader.getNamespaceURI(x));
+        }
+        if (inherited != null) {
+            for (String s : inherited) {
+                addString(s);
+            }
+        }
+        for (int x = 0; x < attCount; x++) {
+            addString(reader.getAttributePrefix(x));
+            addString(reader.getAttributeLocalName(x));
+            addString(reader.getAttributeNamespace(x));
+            addString(reader.getAttributeValue(x));
+        }
+    }
+
+    /**
+     * Appends the recorded events to the given parent node.
+     */
+    public void appendTo(Node parent) {
+        Document doc = parent instanceof Document ? (Document)parent : parent.getOwnerDocument();
+        Node current = parent;
+        int s = 0;
+        for (int e = 0; e < eventCount; e++) {
+            switch (events[e]) {
+            case XMLStreamConstants.START_ELEMENT:
+                int nsCount = events[++e];
+                int attCount = events[++e];
+                String prefix = strings[s++];
+                String localName = strings[s++];
+                Element el = doc.createElementNS(emptyToNull(strings[s++]), qualify(prefix, localName));
+                for (int x = 0; x < nsCount; x++) {
+                    String nsPrefix = strings[s++];
+                    String qname = nsPrefix == null || nsPrefix.length() == 0
+                        ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + nsPrefix;
+                    el.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, qname, strings[s++]);
+                }
+                for (int x = 0; x < attCount; x++) {
+                    String attPrefix = strings[s++];
+                    String attName = strings[s++];
+                    String attNs = emptyToNull(strings[s++]);
+                    el.setAttributeNS(attNs, qualify(attPrefix, attName), strings[s++]);
+                }
+                current = current.appendChild(el);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                current = current.getParentNode();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+                current.appendChild(doc.createTextNode(strings[s++]));
+                break;
+            case XMLStreamConstants.CDATA:
+                current.appendChild(doc.createCDATASection(strings[s++]));
+                break;
+            case XMLStreamConstants.COMMENT:
+                current.appendChild(doc.createComment(strings[s++]));
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                String target = strings[s++];
+                current.appendChild(doc.createProcessingInstruction(target, strings[s++]));
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Creates a reader over the recorded events, starting on the START_DOCUMENT event.
+     * Any number of readers can be created, and each reads the events from the start.
+     * The events are expected to be balanced, as recorded by addElement or addFragment.
+     */
+    public XMLStreamReader createXMLStreamReader() {
+        return new EventReader();
+    }
+
+    private static String qualify(String prefix, String localName) {
+        if (prefix == null || prefix.length() == 0) {
+            return localName;
+        }
+        return prefix + ":" + localName;
+    }
+
+    private static String emptyToNull(String s) {
+        return s == null || s.length() == 0 ? null : s;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    private void addEvent(int i) {
+        if (eventCount == events.length) {
+            int[] newEvents = new int[events.length * 2];
+            System.arraycopy(events, 0, newEvents, 0, eventCount);
+            events = newEvents;
+        }
+        events[eventCount++] = i;
+    }
+
+    private void addString(String s) {
+        if (stringCount == strings.length) {
+            String[] newStrings = new String[strings.length * 2];
+            System.arraycopy(strings, 0, newStrings, 0, stringCount);
+            strings = newStrings;
+        }
+        strings[stringCount++] = s;
+    }
+
+    /**
+     * Reads the recorded events.  For an element the reader keeps the index of its
+     * first event and first string on a stack, the names and namespace declarations
+     * are read from the buffer from there.
+     */
+    private final class EventReader implements XMLStreamReader, NamespaceContext {
+        private int type = XMLStreamConstants.START_DOCUMENT;
+        private int e = -1;
+        private int s;
+        private int[] elementEvents = new int[16];
+        private int[] elementStrings = new int[16];
+        private int depth;
+
+        public int next() throws XMLStreamException {
+            if (type == XMLStreamConstants.END_DOCUMENT) {
+                throw new NoSuchElementException();
+            }
+            if (type == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            if (e != -1) {
+                switch (type) {
+                case XMLStreamConstants.START_ELEMENT:
+                    s += 3 + 2 * events[e + 1] + 4 * events[e + 2];
+                    e += 3;
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    s += 2;
+                    e++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    e++;
+                    break;
+                default:
+                    s++;
+                    e++;
+                    break;
+                }
+            } else {
+                e = 0;
+            }
+            if (e >= eventCount) {
+                type = XMLStreamConstants.END_DOCUMENT;
+                return type;
+            }
+            type = events[e];
+            if (type == XMLStreamConstants.START_ELEMENT) {
+                if (depth == elementEvents.length) {
+                    int[] newEvents = new int[depth * 2];
+                    int[] newStrings = new int[depth * 2];
+                    System.arraycopy(elementEvents, 0, newEvents, 0, depth);
+                    System.arraycopy(elementStrings, 0, newStrings, 0, depth);
+                    elementEvents = newEvents;
+                    elementStrings = newStrings;
+                }
+                elementEvents[depth] = e;
+                elementStrings[depth] = s;
+                depth++;
+            }
+            return type;
+        }
+
+        public boolean hasNext() throws XMLStreamException {
+            return type != XMLStreamConstants.END_DOCUMENT;
+        }
+
+        public int nextTag() throws XMLStreamException {
+            int t = next();
+            while ((t == XMLStreamConstants.CHARACTERS && isWhiteSpace())
+                || (t == XMLStreamConstants.CDATA && isWhiteSpace())
+                || t == XMLStreamConstants.SPACE
+                || t == XMLStreamConstants.PROCESSING_INSTRUCTION
+                || t == XMLStreamConstants.COMMENT) {
+                t = next();
+            }
+            if (t != XMLStreamConstants.START_ELEMENT && t != XMLStreamConstants.END_ELEMENT) {
+                throw new XMLStreamException("expected start or end tag", getLocation());
+            }
+            return t;
+        }
+
+        public String getElementText() throws XMLStreamException {
+            if (type != XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("parser must be on START_ELEMENT to read next text",
+                                             getLocation());
+            }
+            StringBuilder b = new StringBuilder();
+            int t = next();
+            while (t != XMLStreamConstants.END_ELEMENT) {
+                if (t == XMLStreamConstants.CHARACTERS || t == XMLStreamConstants.CDATA) {
+                    b.append(getText());
+                } else if (t != XMLStreamConstants.PROCESSING_INSTRUCTION
+                    && t != XMLStreamConstants.COMMENT) {
+                    throw new XMLStreamException("element text content may not contain START_ELEMENT",
+                                                 getLocation());
+                }
+                t = next();
+            }
+            return b.toString();
+        }
+
+        public void require(int t, String namespaceURI, String localName) throws XMLStreamException {
+            if (t != type
+                || (namespaceURI != null && !namespaceURI.equals(getNamespaceURI()))
+                || (localName != null && !localName.equals(getLocalName()))) {
+                throw new XMLStreamException("required event " + t + " does not match", getLocation());
+            }
+        }
+
+        public void close() throws XMLStreamException {
+        }
+
+        public Object getProperty(String name) {
+            return null;
+        }
+
+        public int getEventType() {
+            return type;
+        }
+
+        public boolean isStartElement() {
+            return type == XMLStreamConstants.START_ELEMENT;
+        }
+
+        public boolean isEndElement() {
+            return type == XMLStreamConstants.END_ELEMENT;
+        }
+
+        public boolean isCharacters() {
+            return type == XMLStreamConstants.CHARACTERS;
+        }
+
+        public boolean isWhiteSpace() {
+            if (type != XMLStreamConstants.CHARACTERS && type != XMLStreamConstants.CDATA) {
+                return false;
+            }
+            String text = getText();
+            for (int x = 0; x < text.length(); x++) {
+                if (!Character.isWhitespace(text.charAt(x))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int getElementEvent() {
+            if (type != XMLStreamConstants.START_ELEMENT && type != XMLStreamConstants.END_ELEMENT) {
+                throw new IllegalStateException("not on an element");
+            }
+            return elementEvents[depth - 1];
+        }
+
+        private int getElementString() {
+            getElementEvent();
+            return elementStrings[depth - 1];
+        }
+
+        private int getAttributeString(int index) {
+            if (type != XMLStreamConstants.START_ELEMENT) {
+                throw new IllegalStateException("not on a start tag");
+            }
+            if (index < 0 || index >= events[e + 2]) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return s + 3 + 2 * events[e + 1] + 4 * index;
+        }
+
+        public String getAttributeValue(String namespaceURI, String localName) {
+            for (int x = 0; x < getAttributeCount(); x++) {
+                int a = getAttributeString(x);
+                if (localName.equals(strings[a + 1])
+                    && (namespaceURI == null || namespaceURI.equals(nullToEmpty(strings[a + 2])))) {
+                    return strings[a + 3];
+                }
+            }
+            return null;
+        }
+
+        public int getAttributeCount() {
+            if (type != XMLStreamConstants.START_ELEMENT) {
+                throw new IllegalStateException("not on a start tag");
+            }
+            return events[e + 2];
+        }
+
+        public QName getAttributeName(int index) {
+            int a = getAttributeString(index);
+            return new QName(nullToEmpty(strings[a + 2]), strings[a + 1], nullToEmpty(strings[a]));
+        }
+
+        public String getAttributeNamespace(int index) {
+            return strings[getAttributeString(index) + 2];
+        }
+
+        public String getAttributeLocalName(int index) {
+            return strings[getAttributeString(index) + 1];
+        }
+
+        public String getAttributePrefix(int index) {
+            return strings[getAttributeString(index)];
+        }
+
+        public String getAttributeType(int index) {
+            getAttributeString(index);
+            return "CDATA";
+        }
+
+        public String getAttributeValue(int index) {
+            return strings[getAttributeString(index) + 3];
+        }
+
+        public boolean isAttributeSpecified(int index) {
+            getAttributeString(index);
+            return true;
+        }
+
+        public int getNamespaceCount() {
+            return events[getElementEvent() + 1];
+        }
+
+        public String getNamespacePrefix(int index) {
+            return strings[getElementString() + 3 + 2 * index];
+        }
+
+        public String getNamespaceURI(int index) {
+            return strings[getElementString() + 4 + 2 * index];
+        }
+
+        public NamespaceContext getNamespaceContext() {
+            return this;
+        }
+
+        public String getNamespaceURI(String prefix) {
+            if (prefix == null) {
+                throw new IllegalArgumentException("prefix can not be null");
+            }
+            if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+                return XMLConstants.XML_NS_URI;
+            } else if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+                return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+            }
+            for (int d = depth - 1; d >= 0; d--) {
+                int nsCount = events[elementEvents[d] + 1];
+                int ns = elementStrings[d] + 3;
+                for (int x = 0; x < nsCount; x++) {
+                    if (prefix.equals(nullToEmpty(strings[ns + 2 * x]))) {
+                        return strings[ns + 2 * x + 1];
+                    }
+                }
+            }
+            return null;
+        }
+
+        public String getPrefix(String namespaceURI) {
+            Iterator<?> it = getPrefixes(namespaceURI);
+            return it.hasNext() ? (String)it.next() : null;
+        }
+
+        public Iterator getPrefixes(String namespaceURI) {
+            if (namespaceURI == null) {
+                throw new IllegalArgumentException("namespace URI can not be null");
+            }
+            List<String> prefixes = new ArrayList<String>();
+            for (int d = depth - 1; d >= 0; d--) {
+                int nsCount = events[elementEvents[d] + 1];
+                int ns = elementStrings[d] + 3;
+                for (int x = 0; x < nsCount; x++) {
+                    String prefix = nullToEmpty(strings[ns + 2 * x]);
+                    if (namespaceURI.equals(strings[ns + 2 * x + 1]) && !prefixes.contains(prefix)
+                        && namespaceURI.equals(getNamespaceURI(prefix))) {
+                        prefixes.add(prefix);
+                    }
+                }
+            }
+            return Collections.unmodifiableList(prefixes).iterator();
+        }
+
+        public boolean hasText() {
+            return type == XMLStreamConstants.CHARACTERS || type == XMLStreamConstants.CDATA
+                || type == XMLStreamConstants.COMMENT;
+        }
+
+        public String getText() {
+            if (!hasText()) {
+                throw new IllegalStateException("no text on event " + type);
+            }
+            return strings[s];
+        }
+
+        public char[] getTextCharacters() {
+            return getText().toCharArray();
+        }
+
+        public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length)
+            throws XMLStreamException {
+            String text = getText();
+            int count = Math.min(length, text.length() - sourceStart);
+            if (count <= 0) {
+                return 0;
+            }
+            text.getChars(sourceStart, sourceStart + count, target, targetStart);
+            return count;
+        }
+
+        public int getTextStart() {
+            return 0;
+        }
+
+        public int getTextLength() {
+            return getText().length();
+        }
+
+        public boolean hasName() {
+            return type == XMLStreamConstants.START_ELEMENT || type == XMLStreamConstants.END_ELEMENT;
+        }
+
+        public QName getName() {
+            int n = getElementString();
+            return new QName(nullToEmpty(strings[n + 2]), strings[n + 1], nullToEmpty(strings[n]));
+        }
+
+        public String getLocalName() {
+            return strings[getElementString() + 1];
+        }
+
+        public String getNamespaceURI() {
+            return strings[getElementString() + 2];
+        }
+
+        public String getPrefix() {
+            return strings[getElementString()];
+        }
+
+        public String getPITarget() {
+            return type == XMLStreamConstants.PROCESSING_INSTRUCTION ? strings[s] : null;
+        }
+
+        public String getPIData() {
+            return type == XMLStreamConstants.PROCESSING_INSTRUCTION ? strings[s + 1] : null;
+        }
+
+        public String getEncoding() {
+            return null;
+        }
+
+        public String getVersion() {
+            return null;
+        }
+
+        public boolean isStandalone() {
+            return false;
+        }
+
+        public boolean standaloneSet() {
+            return false;
+        }
+
+        public String getCharacterEncodingScheme() {
+            return null;
+        }
+
+        public Location getLocation() {
+            return new Location() {
+                public int getLineNumber() {
+                    return -1;
+                }
+                public int getColumnNumber() {
+                    return -1;
+                }
+                public int getCharacterOffset() {
+                    return e;
+                }
+                public String getPublicId() {
+                    return null;
+                }
+                public String getSystemId() {
+                    return null;
+                }
+            };
+        }
+    }
+}
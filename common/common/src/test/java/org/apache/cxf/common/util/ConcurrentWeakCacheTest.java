@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.common.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentWeakCacheTest extends Assert {
+    
+    @Test
+    public void testPutAndGet() throws Exception {
+        ConcurrentWeakCache<Class<?>, String> cache = new ConcurrentWeakCache<Class<?>, String>();
+        assertNull(cache.get(String.class));
+        assertEquals("string", cache.putIfAbsent(String.class, "string"));
+        assertEquals("string", cache.putIfAbsent(String.class, "other"));
+        assertEquals("string", cache.get(String.class));
+        cache.put(String.class, "other");
+        assertEquals("other", cache.get(String.class));
+        assertEquals(1, cache.size());
+        
+        assertEquals("other", cache.remove(String.class));
+        assertNull(cache.get(String.class));
+        
+        cache.put(Integer.class, "integer");
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    public void testIdentityKeys() throws Exception {
+        ConcurrentWeakCache<Object, String> cache = new ConcurrentWeakCache<Object, String>(true);
+        Map<String, String> key = new HashMap<String, String>();
+        cache.put(key, "value");
+        key.put("name", "changed");
+        assertEquals("value", cache.get(key));
+        assertNull(cache.get(new HashMap<String, String>(key)));
+        
+        cache = new ConcurrentWeakCache<Object, String>(true);
+        cache.put("key", "value");
+        assertNull(cache.get(new String("key")));
+    }
+    
+    @Test
+    public void testEntryRemovedWhenKeyCollected() throws Exception {
+        ConcurrentWeakCache<Object, String> cache = new ConcurrentWeakCache<Object, String>();
+        Object key = new Object();
+        cache.put(key, "value");
+        assertEquals(1, cache.size());
+        key = null;
+        for (int i = 0; i < 50 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.staxutils;
+
+import java.io.StringReader;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.apache.cxf.helpers.DOMUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XMLStreamEventBufferTest extends Assert {
+    private static final String XML =
+        "<a:root xmlns:a=\"urn:a\" xmlns:b=\"urn:b\"><a:body><b:item b:id=\"1\">one</b:item>"
+        + "<item xmlns=\"urn:c\"/><!--note--></a:body><a:tail/></a:root>";
+
+    private XMLStreamEventBuffer record() throws Exception {
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new StringReader(XML));
+        reader.nextTag();
+        reader.nextTag();
+        assertEquals("body", reader.getLocalName());
+
+        XMLStreamEventBuffer buffer = new XMLStreamEventBuffer();
+        buffer.addFragment(reader);
+        assertEquals(XMLStreamReader.END_ELEMENT, reader.getEventType());
+        assertEquals("body", reader.getLocalName());
+        reader.nextTag();
+        assertEquals("tail", reader.getLocalName());
+        return buffer;
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        XMLStreamEventBuffer buffer = record();
+        for (int x = 0; x < 2; x++) {
+            XMLStreamReader reader = buffer.createXMLStreamReader();
+            assertEquals(XMLStreamReader.START_DOCUMENT, reader.getEventType());
+            assertEquals(XMLStreamReader.START_ELEMENT, reader.nextTag());
+            assertEquals("urn:a", reader.getNamespaceURI());
+            assertEquals("body", reader.getLocalName());
+
+            assertEquals(XMLStreamReader.START_ELEMENT, reader.nextTag());
+            assertEquals("item", reader.getLocalName());
+            assertEquals("urn:b", reader.getNamespaceURI("b"));
+            assertEquals("1", reader.getAttributeValue("urn:b", "id"));
+            assertEquals("one", reader.getElementText());
+            assertEquals(XMLStreamReader.END_ELEMENT, reader.getEventType());
+
+            assertEquals(XMLStreamReader.START_ELEMENT, reader.nextTag());
+            assertEquals("urn:c", reader.getNamespaceURI());
+            assertEquals("urn:c", reader.getNamespaceContext().getNamespaceURI(""));
+            assertEquals(XMLStreamReader.END_ELEMENT, reader.nextTag());
+
+            assertEquals(XMLStreamReader.COMMENT, reader.next());
+            assertEquals("note", reader.getText());
+            assertEquals(XMLStreamReader.END_ELEMENT, reader.next());
+            assertEquals("body", reader.getLocalName());
+            assertNull(reader.getNamespaceURI(""));
+            assertEquals(XMLStreamReader.END_DOCUMENT, reader.next());
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        XMLStreamEventBuffer buffer = record();
+        Document doc = StaxUtils.read(buffer.createXMLStreamReader());
+        checkBody(doc.getDocumentElement());
+
+        doc = DOMUtils.createDocument();
+        buffer.appendTo(doc);
+        checkBody(doc.getDocumentElement());
+    }
+
+    private void checkBody(Element body) {
+        assertEquals("urn:a", body.getNamespaceURI());
+        assertEquals("body", body.getLocalName());
+        Element item = DOMUtils.getFirstElement(body);
+        assertEquals("urn:b", item.getNamespaceURI());
+        assertEquals("1", item.getAttributeNS("urn:b", "id"));
+        assertEquals("one", item.getTextContent());
+        item = DOMUtils.getNextElement(item);
+        assertEquals("urn:c", item.getNamespaceURI());
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.binding.soap.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.apache.cxf.binding.soap.SoapHeader;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.databinding.DataBinding;
+import org.apache.cxf.helpers.DOMUtils;
+import org.apache.cxf.staxutils.XMLStreamEventBuffer;
+
+/**
+ * The envelope and header block of a message read by the ReadHeadersInterceptor into
+ * an {@link XMLStreamEventBuffer} rather than a DOM.  The document is only built once one
+ * of the headers is asked for its object, or the document itself is asked for, and
+ * then becomes the Node content of the message as if the headers were read eagerly.
+ * Until then a header can also be read from the buffer itself with a stream reader.
+ */
+final class BufferedHeaders {
+
+    private final SoapMessage message;
+    private final QName headerName;
+    private final XMLStreamEventBuffer buffer = new XMLStreamEventBuffer();
+    private final List<BufferedHeader> headers = new ArrayList<BufferedHeader>();
+    private Document document;
+
+    BufferedHeaders(SoapMessage m) {
+        message = m;
+        headerName = m.getVersion().getHeader();
+    }
+
+    XMLStreamEventBuffer getBuffer() {
+        return buffer;
+    }
+
+    BufferedHeader createHeader(QName name, DataBinding dataBinding) {
+        BufferedHeader header = new BufferedHeader(name, dataBinding, this, headers.size());
+        headers.add(header);
+        return header;
+    }
+
+    /**
+     * Returns a reader over the buffer positioned on the start tag of the header with 
+     * the given index, the namespaces declared on the envelope and the header block 
+     * stay in scope.
+     */
+    XMLStreamReader createReader(int index) throws XMLStreamException {
+        XMLStreamReader reader = buffer.createXMLStreamReader();
+        int depth = 0;
+        int count = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                // the header elements are the only ones buffered at the third level
+                if (++depth == 3 && count++ == index) {
+                    return reader;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        throw new XMLStreamException("Header " + index + " was not buffered");
+    }
+
+    Document getDocument() {
+        if (document == null) {
+            document = DOMUtils.createDocument();
+            buffer.appendTo(document);
+
+            int index = 0;
+            Element elem = DOMUtils.getFirstElement(document.getDocumentElement());
+            while (elem != null) {
+                if (headerName.getNamespaceURI().equals(elem.getNamespaceURI())
+                    && headerName.getLocalPart().equals(elem.getLocalName())) {
+                    Element hel = DOMUtils.getFirstElement(elem);
+                    while (hel != null) {
+                        ReadHeadersInterceptor.addHeaderAttributes(elem, hel);
+                        headers.get(index++).load(hel);
+                        hel = DOMUtils.getNextElement(hel);
+                    }
+                }
+                elem = DOMUtils.getNextElement(elem);
+            }
+            message.setContent(Node.class, document);
+        }
+        return document;
+    }
+
+    /**
+     * A header whose object is only created when asked for.
+     */
+    static final class BufferedHeader extends SoapHeader {
+        private final BufferedHeaders block;
+        private final int index;
+        private boolean loaded;
+
+        BufferedHeader(QName name, DataBinding dataBinding, BufferedHeaders b, int i) {
+            super(name, null, dataBinding);
+            block = b;
+            index = i;
+        }
+
+        /**
+         * Returns a reader positioned on the header, or null once its object was created
+         * as it may have been changed since.
+         */
+        XMLStreamReader getReader() throws XMLStreamException {
+            return loaded ? null : block.createReader(index);
+        }
+
+        @Override
+        public Object getObject() {
+            if (!loaded) {
+                block.getDocument();
+            }
+            return super.getObject();
+        }
+
+        @Override
+        public void setObject(Object object) {
+            loaded = true;
+            super.setObject(object);
+        }
+
+        void load(Element hel) {
+            if (loaded) {
+                return;
+            }
+            if (getDataBinding() == null) {
+                setObject(hel);
+            } else {
+                setObject(getDataBinding().createReader(Node.class).read(hel));
+            }
+        }
+    }
+}
@@ -47,6 +47,7 @@ import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.databinding.DataBinding;
+import org.apache.cxf.headers.Header;
 import org.apache.cxf.headers.HeaderManager;
 import org.apache.cxf.headers.HeaderProcessor;
 import org.apache.cxf.helpers.DOMUtils;
@@ -55,6 +56,7 @@ import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.staxutils.PartialXMLStreamReader;
 import org.apache.cxf.staxutils.StaxUtils;
+import org.apache.cxf.staxutils.XMLStreamEventBuffer;
 
 
 public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
@@ -85,6 +87,12 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
 
     }
 
+    /**
+     * Set to true to keep the headers in a compact event buffer until an interceptor
+     * asks one of them for its object, instead of reading them into a DOM up front.
+     */
+    public static final String LAZY_HEADERS = ReadHeadersInterceptor.class.getName() + ".lazyHeaders";
+
     private static final Logger LOG = LogUtils.getL7dLogger(ReadHeadersInterceptor.class);
 
     private Bus bus;
@@ -138,79 +146,10 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                 }
                 message.setVersion(soapVersion);
 
-                XMLStreamReader filteredReader = new PartialXMLStreamReader(xmlReader, message.getVersion()
-                    .getBody());
-
-                Document doc = StaxUtils.read(filteredReader);
-
-                message.setContent(Node.class, doc);
-
-                // Find header
-                // TODO - we could stream read the "known" headers and just DOM read the 
-                // unknown ones
-                Element element = doc.getDocumentElement();
-                QName header = soapVersion.getHeader();                
-                List<Element> elemList = 
-                    DOMUtils.findAllElementsByTagNameNS(element, 
-                                                        header.getNamespaceURI(), 
-                                                        header.getLocalPart());
-                for (Element elem : elemList) {
-                    Element hel = DOMUtils.getFirstElement(elem);
-                    while (hel != null) {
-                        // Need to add any attributes that are present on the parent element
-                        // which otherwise would be lost.
-                        if (elem.hasAttributes()) {
-                            NamedNodeMap nnp = elem.getAttributes();
-                            for (int ct = 0; ct < nnp.getLength(); ct++) {
-                                Node attr = nnp.item(ct);
-                                Node headerAttrNode = hel.hasAttributes() 
-                                        ?  hel.getAttributes().getNamedItemNS(
-                                                        attr.getNamespaceURI(), attr.getLocalName()) 
-                                        : null;
-                                
-                                if (headerAttrNode == null) {
-                                    Attr attribute = hel.getOwnerDocument().createAttributeNS(
-                                            attr.getNamespaceURI(), 
-                                            attr.getNodeName());
-                                    attribute.setNodeValue(attr.getNodeValue());
-                                    hel.setAttributeNodeNS(attribute);
-                                }
-                            }
-                        }
-                        
-                        HeaderProcessor p = bus.getExtension(HeaderManager.class)
-                            .getHeaderProcessor(hel.getNamespaceURI());
-
-                        Object obj;
-                        DataBinding dataBinding = null;
-                        if (p == null || p.getDataBinding() == null) {
-                            obj = hel;
-                        } else {
-                            dataBinding = p.getDataBinding();
-                            obj = dataBinding.createReader(Node.class).read(hel);
-                        }
-                        //TODO - add the interceptors
-                        
-                        SoapHeader shead = new SoapHeader(new QName(hel.getNamespaceURI(),
-                                                                    hel.getLocalName()),
-                                                           obj,
-                                                           dataBinding);
-                        String mu = hel.getAttributeNS(soapVersion.getNamespace(),
-                                                      soapVersion.getAttrNameMustUnderstand());
-                        String act = hel.getAttributeNS(soapVersion.getNamespace(),
-                                                        soapVersion.getAttrNameRole());
-
-                        if (!StringUtils.isEmpty(act)) {
-                            shead.setActor(act);
-                        }
-                        shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
-                        //mark header as inbound header.(for distinguishing between the  direction to 
-                        //avoid piggybacking of headers from request->server->response.
-                        shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
-                        message.getHeaders().add(shead);
-                        
-                        hel = DOMUtils.getNextElement(hel);
-                    }
+                if (MessageUtils.getContextualBoolean(message, LAZY_HEADERS, false)) {
+                    readBufferedHeaders(message, xmlReader, soapVersion);
+                } else {
+                    readHeaders(message, xmlReader, soapVersion);
                 }
                 if (MessageUtils.getContextualBoolean(message, 
                                                       SoapMessage.SCHEMA_VALIDATION_ENABLED,
@@ -222,4 +161,172 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
             throw new SoapFault(new Message("XML_STREAM_EXC", LOG), e, message.getVersion().getSender());
         }
     }
+
+    private void readHeaders(SoapMessage message, XMLStreamReader xmlReader, SoapVersion soapVersion)
+        throws XMLStreamException {
+        XMLStreamReader filteredReader = new PartialXMLStreamReader(xmlReader, message.getVersion()
+            .getBody());
+
+        Document doc = StaxUtils.read(filteredReader);
+
+        message.setContent(Node.class, doc);
+
+        // Find header
+        // TODO - we could stream read the "known" headers and just DOM read the 
+        // unknown ones
+        Element element = doc.getDocumentElement();
+        QName header = soapVersion.getHeader();                
+        List<Element> elemList = 
+            DOMUtils.findAllElementsByTagNameNS(element, 
+                                                header.getNamespaceURI(), 
+                                                header.getLocalPart());
+        for (Element elem : elemList) {
+            Element hel = DOMUtils.getFirstElement(elem);
+            while (hel != null) {
+                addHeaderAttributes(elem, hel);
+                
+                HeaderProcessor p = bus.getExtension(HeaderManager.class)
+                    .getHeaderProcessor(hel.getNamespaceURI());
+
+                Object obj;
+                DataBinding dataBinding = null;
+                if (p == null || p.getDataBinding() == null) {
+                    obj = hel;
+                } else {
+                    dataBinding = p.getDataBinding();
+                    obj = dataBinding.createReader(Node.class).read(hel);
+                }
+                //TODO - add the interceptors
+                
+                SoapHeader shead = new SoapHeader(new QName(hel.getNamespaceURI(),
+                                                            hel.getLocalName()),
+                                                   obj,
+                                                   dataBinding);
+                String mu = hel.getAttributeNS(soapVersion.getNamespace(),
+                                              soapVersion.getAttrNameMustUnderstand());
+                String act = hel.getAttributeNS(soapVersion.getNamespace(),
+                                                soapVersion.getAttrNameRole());
+
+                if (!StringUtils.isEmpty(act)) {
+                    shead.setActor(act);
+                }
+                shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
+                //mark header as inbound header.(for distinguishing between the  direction to 
+                //avoid piggybacking of headers from request->server->response.
+                shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
+                message.getHeaders().add(shead);
+                
+                hel = DOMUtils.getNextElement(hel);
+            }
+        }
+    }
+
+    /**
+     * Reads the envelope and headers into a {@link XMLStreamEventBuffer}, creating the
+     * headers with their name, actor and mustUnderstand flag only.  The reader is
+     * left on the start of the body, as when reading them into a document.
+     */
+    private void readBufferedHeaders(SoapMessage message, XMLStreamReader xmlReader, 
+                                     SoapVersion soapVersion) throws XMLStreamException {
+        BufferedHeaders headers = new BufferedHeaders(message);
+        XMLStreamEventBuffer buffer = headers.getBuffer();
+        String soapNs = soapVersion.getNamespace();
+        HeaderManager manager = bus.getExtension(HeaderManager.class);
+
+        buffer.add(xmlReader);
+        int depth = 1;
+        boolean inHeader = false;
+        String headerMu = null;
+        String headerAct = null;
+        while (depth > 0 && xmlReader.hasNext()) {
+            int event = xmlReader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                QName name = xmlReader.getName();
+                if (inHeader) {
+                    String mu = xmlReader.getAttributeValue(soapNs, soapVersion.getAttrNameMustUnderstand());
+                    String act = xmlReader.getAttributeValue(soapNs, soapVersion.getAttrNameRole());
+                    mu = mu == null ? headerMu : mu;
+                    act = act == null ? headerAct : act;
+                    HeaderProcessor p = manager.getHeaderProcessor(name.getNamespaceURI());
+                    SoapHeader shead = headers.createHeader(name, p == null ? null : p.getDataBinding());
+                    if (!StringUtils.isEmpty(act)) {
+                        shead.setActor(act);
+                    }
+                    shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
+                    shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
+                    message.getHeaders().add(shead);
+                    buffer.addElement(xmlReader);
+                    continue;
+                }
+                buffer.add(xmlReader);
+                if (depth == 1 && name.equals(soapVersion.getBody())) {
+                    break;
+                }
+                depth++;
+                if (depth == 2 && name.equals(soapVersion.getHeader())) {
+                    inHeader = true;
+                    headerMu = xmlReader.getAttributeValue(soapNs, soapVersion.getAttrNameMustUnderstand());
+                    headerAct = xmlReader.getAttributeValue(soapNs, soapVersion.getAttrNameRole());
+                }
+            } else {
+                buffer.add(xmlReader);
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    inHeader = false;
+                }
+            }
+        }
+        message.put(BufferedHeaders.class, headers);
+    }
+
+    /**
+     * Returns the document the envelope and headers of the message were read into,
+     * building it first if the headers were buffered.
+     */
+    public static Document getHeaderDocument(SoapMessage message) {
+        Node node = message.getContent(Node.class);
+        if (node == null) {
+            BufferedHeaders headers = message.get(BufferedHeaders.class);
+            return headers == null ? null : headers.getDocument();
+        }
+        return node instanceof Document ? (Document)node : null;
+    }
+
+    /**
+     * Returns a reader positioned on the start tag of the header if it was buffered and
+     * its object was not created yet, so that it can be read without building the 
+     * document of the headers.  Returns null otherwise, the object of the header then 
+     * has to be used.
+     */
+    public static XMLStreamReader getHeaderReader(Header header) throws XMLStreamException {
+        if (header instanceof BufferedHeaders.BufferedHeader) {
+            return ((BufferedHeaders.BufferedHeader)header).getReader();
+        }
+        return null;
+    }
+
+    /**
+     * Adds any attributes that are present on the header element to the header
+     * block which otherwise would be lost.
+     */
+    static void addHeaderAttributes(Element elem, Element hel) {
+        if (elem.hasAttributes()) {
+            NamedNodeMap nnp = elem.getAttributes();
+            for (int ct = 0; ct < nnp.getLength(); ct++) {
+                Node attr = nnp.item(ct);
+                Node headerAttrNode = hel.hasAttributes() 
+                        ?  hel.getAttributes().getNamedItemNS(
+                                        attr.getNamespaceURI(), attr.getLocalName()) 
+                        : null;
+                
+                if (headerAttrNode == null) {
+                    Attr attribute = hel.getOwnerDocument().createAttributeNS(
+                            attr.getNamespaceURI(), 
+                            attr.getNodeName());
+                    attribute.setNodeValue(attr.getNodeValue());
+                    hel.setAttributeNodeNS(attribute);
+                }
+            }
+        }
+    }
 }
@@ -50,6 +50,7 @@ import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
+import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.binding.soap.interceptor.Soap11FaultInInterceptor;
 import org.apache.cxf.binding.soap.interceptor.Soap12FaultInInterceptor;
 import org.apache.cxf.common.i18n.BundleUtils;
@@ -105,7 +106,7 @@ public class SAAJInInterceptor extends AbstractSoapInterceptor {
             
             SOAPPart part = soapMessage.getSOAPPart();
             
-            Document node = (Document) message.getContent(Node.class);
+            Document node = ReadHeadersInterceptor.getHeaderDocument(message);
             if (node == null) {
                 // replicate 2.1 behavior.
                 part.setContent(new DOMSource(null));
@@ -29,7 +29,9 @@ import javax.activation.DataHandler;
 import javax.mail.util.ByteArrayDataSource;
 import javax.xml.stream.XMLStreamReader;
 
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 import org.apache.cxf.BusFactory;
 import org.apache.cxf.attachment.AttachmentImpl;
@@ -149,6 +151,61 @@ public class ReadHeaderInterceptorTest extends TestBase {
         }
     }
 
+    @Test
+    public void testHandleLazyHeader() throws Exception {
+        prepareSoapMessage("test-soap-header.xml");
+        soapMessage.put(ReadHeadersInterceptor.LAZY_HEADERS, Boolean.TRUE);
+
+        staxIntc.handleMessage(soapMessage);
+        soapMessage.getInterceptorChain().doIntercept(soapMessage);
+        XMLStreamReader xmlReader = soapMessage.getContent(XMLStreamReader.class);
+        assertEquals("check the first entry of body", "itinerary", xmlReader.getLocalName());
+        
+        List<Header> eleHeaders = soapMessage.getHeaders();
+        assertEquals(2, eleHeaders.size());
+        assertEquals("reservation", eleHeaders.get(0).getName().getLocalPart());
+        assertEquals("passenger", eleHeaders.get(1).getName().getLocalPart());
+        assertTrue(((SoapHeader)eleHeaders.get(0)).isMustUnderstand());
+        assertNull("headers read before asked for", soapMessage.getContent(Node.class));
+
+        Element passenger = (Element)eleHeaders.get(1).getObject();
+        assertEquals("Bob", DOMUtils.getFirstElement(passenger).getTextContent());
+        Element reservation = (Element)eleHeaders.get(0).getObject();
+        Element reference = DOMUtils.getFirstElement(reservation);
+        assertEquals("reference", reference.getLocalName());
+        assertEquals("uuid:093a2da1-q345-739r-ba5d-pqff98fe8j7d", reference.getTextContent());
+        assertEquals("dateAndTime", DOMUtils.getNextElement(reference).getLocalName());
+
+        Document doc = (Document)soapMessage.getContent(Node.class);
+        assertSame(doc, reservation.getOwnerDocument());
+        assertSame(doc, ReadHeadersInterceptor.getHeaderDocument(soapMessage));
+        assertEquals("Header", reservation.getParentNode().getLocalName());
+    }
+
+    @Test
+    public void testReadLazyHeaderFromBuffer() throws Exception {
+        prepareSoapMessage("test-soap-header.xml");
+        soapMessage.put(ReadHeadersInterceptor.LAZY_HEADERS, Boolean.TRUE);
+
+        staxIntc.handleMessage(soapMessage);
+        soapMessage.getInterceptorChain().doIntercept(soapMessage);
+
+        List<Header> eleHeaders = soapMessage.getHeaders();
+        XMLStreamReader reader = ReadHeadersInterceptor.getHeaderReader(eleHeaders.get(1));
+        assertEquals("passenger", reader.getLocalName());
+        assertEquals("http://schemas.xmlsoap.org/soap/envelope/", 
+                     reader.getNamespaceContext().getNamespaceURI("env"));
+        assertEquals("1", reader.getAttributeValue("http://schemas.xmlsoap.org/soap/envelope/", 
+                                                   "mustUnderstand"));
+        assertEquals(XMLStreamReader.START_ELEMENT, reader.nextTag());
+        assertEquals("Bob", reader.getElementText());
+        assertNull("headers read into a document", soapMessage.getContent(Node.class));
+
+        eleHeaders.get(0).getObject();
+        assertNotNull(soapMessage.getContent(Node.class));
+        assertNull(ReadHeadersInterceptor.getHeaderReader(eleHeaders.get(1)));
+    }
+
     private void prepareSoapMessage(String message) throws IOException {
 
         soapMessage = TestUtil.createEmptySoapMessage(Soap12.getInstance(), chain);
@@ -118,7 +118,7 @@ public class AttachmentDeserializer {
 
             stream = new PushbackInputStream(message.getContent(InputStream.class),
                                              pbAmount);
-            if (!readTillFirstBoundary(stream, boundary)) {
+            if (!readTillFirstBoundary(stream, boundary, pbAmount)) {
                 throw new IOException("Couldn't find MIME boundary: " + boundaryString);
             }
 
@@ -264,33 +264,37 @@ public class AttachmentDeserializer {
      * @param boundary
      * @throws MessagingException
      */
-    private static boolean readTillFirstBoundary(PushbackInputStream pbs, byte[] bp) throws IOException {
-
-        // work around a bug in PushBackInputStream where the buffer isn't
-        // initialized
-        // and available always returns 0.
-        int value = pbs.read();
-        pbs.unread(value);
-        while (value != -1) {
-            value = pbs.read();
-            if ((byte) value == bp[0]) {
-                int boundaryIndex = 0;
-                while (value != -1 && (boundaryIndex < bp.length) && ((byte) value == bp[boundaryIndex])) {
-
-                    value = pbs.read();
-                    if (value == -1) {
-                        throw new IOException("Unexpected End while searching for first Mime Boundary");
-                    }
-                    boundaryIndex++;
-                }
-                if (boundaryIndex == bp.length) {
-                    // boundary found, read the newline
-                    if (value == 13) {
+    private static boolean readTillFirstBoundary(PushbackInputStream pbs, byte[] bp, int pbAmount)
+        throws IOException {
+
+        MimeBoundaryScanner scanner = new MimeBoundaryScanner(bp);
+        byte[] buf = new byte[pbAmount];
+        int count = 0;
+        int n = pbs.read(buf);
+        while (n != -1) {
+            count += n;
+            int idx = scanner.indexOf(buf, 0, count);
+            if (idx != -1) {
+                // boundary found, read the newline and push back the first part
+                int i = idx + bp.length;
+                int value = i < count ? buf[i++] : pbs.read();
+                if (value == 13) {
+                    if (i < count) {
+                        i++;
+                    } else {
                         pbs.read();
                     }
-                    return true;
                 }
+                if (i < count) {
+                    pbs.unread(buf, i, count - i);
+                }
+                return true;
             }
+            // keep the tail, which may hold the start of the boundary
+            int keep = Math.min(count, bp.length - 1);
+            System.arraycopy(buf, count - keep, buf, 0, keep);
+            count = keep;
+            n = pbs.read(buf, count, buf.length - count);
         }
         return false;
     }
@@ -321,9 +325,9 @@ public class AttachmentDeserializer {
     public void markClosed(DelegatingInputStream delegatingInputStream) throws IOException {
         closedCount++;
         if (closedCount == createCount && !attachments.hasNext(false)) {
-            int x = stream.read();
-            while (x != -1) {
-                x = stream.read();
+            byte[] buf = new byte[pbAmount];
+            while (stream.read(buf) != -1) {
+                // discard the rest of the message
             }
             stream.close();
             closed = true;
@@ -31,7 +31,14 @@ public class MimeBodyPartInputStream extends InputStream {
     int pbAmount;
     byte[] boundary;
     byte[] boundaryBuffer;
+    MimeBoundaryScanner scanner;
 
+    /**
+     * @param inStreamParam the multipart stream, positioned at the start of the part body
+     * @param boundaryParam the boundary, including the leading "--"
+     * @param pbsize the pushback capacity of the stream, which should be at least 
+     *        twice the boundary length plus six
+     */
     public MimeBodyPartInputStream(PushbackInputStream inStreamParam, 
                                    byte[] boundaryParam,
                                    int pbsize) {
@@ -39,155 +46,81 @@ public class MimeBodyPartInputStream extends InputStream {
         this.inStream = inStreamParam;
         this.boundary = boundaryParam;
         this.pbAmount = pbsize;
+        this.scanner = new MimeBoundaryScanner(boundaryParam);
     }
 
-    public int read(byte buf[], int origOff, int origLen) throws IOException {
-        byte b[] = buf;
-        int off = origOff;
-        int len = origLen;
+    public int read(byte buf[], int off, int len) throws IOException {
         if (boundaryFound) {
             return -1;
         }
-        if ((off < 0) || (off > b.length) || (len < 0) 
-            || ((off + len) > b.length) || ((off + len) < 0)) {
+        if ((off < 0) || (off > buf.length) || (len < 0) 
+            || ((off + len) > buf.length) || ((off + len) < 0)) {
 
             throw new IndexOutOfBoundsException();
         }
         if (len == 0) {
             return 0;
         }
-        boolean bufferCreated = false;
-        if (len < boundary.length * 2) {
-            //buffer is too short to detect boundaries with it.  We'll need to create a larger buffer   
-            bufferCreated = true;
-            if (boundaryBuffer == null) {
-                boundaryBuffer = new byte[boundary.length * 2];
+        
+        // Read ahead far enough to see a boundary following the returned data, 
+        // together with its leading CRLF and trailing line end. Whatever is not 
+        // returned is pushed back, so we can not read more than the pushback size.
+        int minimum = Math.min(pbAmount, 2 * boundary.length + 6);
+        int want = Math.min(pbAmount, Math.max(len, boundary.length + 2) + boundary.length + 4);
+        if (boundaryBuffer == null || boundaryBuffer.length < want) {
+            boundaryBuffer = new byte[want];
+        }
+        byte[] b = boundaryBuffer;
+        int count = 0;
+        boolean eof = false;
+        while (count < minimum) {
+            int n = inStream.read(b, count, want - count);
+            if (n == -1) {
+                eof = true;
+                break;
             }
-            b = boundaryBuffer;
-            off = 0;
-            len = boundaryBuffer.length;
+            count += n;
         }
-        if (len > pbAmount) {
-            len = pbAmount;  //can only pushback that much so make sure we can
+        if (count == 0) {
+            return -1;
         }
-        if (len > 0) {
-            len = inStream.read(b, off, len);
+        
+        int idx = scanner.indexOf(b, 0, count);
+        if (idx == -1) {
+            // hold back what may be the start of a CRLF and boundary
+            int n = eof ? count : count - boundary.length - 1;
+            return handOver(b, count, buf, off, Math.min(n, len));
         }
-        int i = processBuffer(b, off, len);
-        if (bufferCreated && i > 0) {
-            // read more than we need, push it back
-            if (origLen >= i) {
-                System.arraycopy(b, 0, buf, origOff, i);
-            } else {
-                System.arraycopy(b, 0, buf, origOff, origLen);
-                inStream.unread(b, origLen, i - origLen);
-                i = origLen;
-            }
-        } else if (i == 0 && boundaryFound) {
-            return -1;
+        int dataEnd = idx;
+        if (idx >= 2 && b[idx - 2] == 13 && b[idx - 1] == 10) {
+            // the CRLF preceding the boundary belongs to the boundary
+            dataEnd = idx - 2;
         }
-        return i;
-    }
-
-    //Has Data after encountering CRLF
-    private boolean hasData(byte[] b, int initialPointer, int pointer, int off, int len)
-        throws IOException {
-        if (pointer < (off + len)) {
-            return true;
-        } else if (pointer >= 1000000000) {
-            inStream.unread(b, initialPointer, (off + len) - initialPointer);
-            return false;            
-        } else {
-            int x = inStream.read();
-            if (x != -1) {
-                inStream.unread(x);
-                inStream.unread(b, initialPointer, (off + len) - initialPointer);
-                return false;
-            }
-            return true;
+        if (dataEnd > 0) {
+            return handOver(b, count, buf, off, Math.min(dataEnd, len));
+        }
+        
+        boundaryFound = true;
+        int i = idx + boundary.length;
+        if (i + 1 < count && b[i] == 45 && b[i + 1] == 45) {
+            // Last mime boundary should have a succeeding "--"
+            // as we are on it, read the terminating CRLF
+            i += 2;
+        }
+        // read the end of line characters
+        i = Math.min(i + 2, count);
+        if (count > i) {
+            inStream.unread(b, i, count - i);
         }
+        return -1;
     }
-
-    protected int processBuffer(byte[] buffer, int off, int len) throws IOException {
-        for (int i = off; i < (off + len); i++) {
-            boolean needUnread0d0a = false;
-            int value = buffer[i];
-            int initialI = i;
-            if (value == 13) {
-                if (!hasData(buffer, initialI, initialI + 1, off, len)) {
-                    return initialI - off;
-                }
-                value = buffer[initialI + 1];
-                if (value != 10) {
-                    continue;
-                } else {  //if it comes here then 13, 10 are values and will try to match boundaries
-                    if (!hasData(buffer, initialI, initialI + 2, off, len)) {
-                        return initialI - off;
-                    }
-                    value = buffer[initialI + 2];
-                    if ((byte) value != boundary[0]) {
-                        i++;
-                        continue;
-                    } else { //13, 10, boundaries first value matched
-                        needUnread0d0a = true;
-                        i += 2; //i after this points to boundary[0] element
-                    }
-                }
-            } else if (value != boundary[0]) {
-                continue;
-            }
-
-            int boundaryIndex = 0;
-            while ((boundaryIndex < boundary.length) && (value == boundary[boundaryIndex])) {
-                if (!hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }                
-                value = buffer[++i];
-                boundaryIndex++;
-            }
-            if (boundaryIndex == boundary.length) {
-                // read the end of line character
-                if (initialI != off) {
-                    i = 1000000000;
-                }
-                if (initialI - off != 0 
-                    && !hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }
-                boundaryFound = true;
-                int j = i + 1;
-                if (j < len && buffer[j] == 45 && value == 45) {
-                    // Last mime boundary should have a succeeding "--"
-                    // as we are on it, read the terminating CRLF
-                    i += 2;
-                    //last mime boundary
-                }
-
-                //boundary matched (may or may not be last mime boundary)
-                int processed = initialI - off;
-                if ((len - (i + 2)) > 0) {
-                    inStream.unread(buffer, i + 2, len - (i + 2));
-                }
-                return processed;
-            }
-
-            // Boundary not found. Restoring bytes skipped.
-            // write first skipped byte, push back the rest
-            if (value != -1) { //pushing back first byte of boundary
-                // Stream might have ended
-                i--;
-            }
-            if (needUnread0d0a) { //Pushing all,  returning 13
-                i = i - boundaryIndex;
-                i--; //for 10
-                value = 13;
-            } else {
-                i = i - boundaryIndex;
-                i++;
-                value = boundary[0];
-            }
+    
+    private int handOver(byte[] b, int count, byte[] buf, int off, int n) throws IOException {
+        System.arraycopy(b, 0, buf, off, n);
+        if (count > n) {
+            inStream.unread(b, n, count - n);
         }
-        return len;
+        return n;
     }
 
     public int read() throws IOException {
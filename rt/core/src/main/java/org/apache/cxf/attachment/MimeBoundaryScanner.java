@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.attachment;
+
+/**
+ * Finds a MIME boundary in a byte buffer with the Boyer-Moore-Horspool 
+ * algorithm, which skips up to the length of the boundary per comparison 
+ * instead of inspecting every byte.
+ */
+final class MimeBoundaryScanner {
+    
+    private final byte[] pattern;
+    private final int[] skip = new int[256];
+    
+    MimeBoundaryScanner(byte[] p) {
+        pattern = p;
+        int last = p.length - 1;
+        for (int i = 0; i < skip.length; i++) {
+            skip[i] = p.length;
+        }
+        for (int i = 0; i < last; i++) {
+            skip[p[i] & 0xff] = last - i;
+        }
+    }
+    
+    int length() {
+        return pattern.length;
+    }
+    
+    /**
+     * @return the index of the first occurrence of the boundary within 
+     * b[from, to), or -1 if there is none
+     */
+    int indexOf(byte[] b, int from, int to) {
+        int last = pattern.length - 1;
+        int i = from;
+        while (i + last < to) {
+            int j = last;
+            while (b[i + j] == pattern[j]) {
+                if (j == 0) {
+                    return i;
+                }
+                j--;
+            }
+            i += skip[b[i + last] & 0xff];
+        }
+        return -1;
+    }
+}
@@ -662,10 +662,10 @@ public class ClientImpl
             if (LOG.isLoggable(Level.FINE)) {
                 LOG.fine("Interceptors contributed by databinging: " + p.getInInterceptors());
             }
-            chain = inboundChainCache.get(pm.getInPhases(), i1, i2, i3, i4,
+            chain = inboundChainCache.get(endpoint, pm.getInPhases(), i1, i2, i3, i4,
                                           p.getInInterceptors());
         } else {
-            chain = inboundChainCache.get(pm.getInPhases(), i1, i2, i3, i4);
+            chain = inboundChainCache.get(endpoint, pm.getInPhases(), i1, i2, i3, i4);
         }
         message.setInterceptorChain(chain);
 
@@ -850,9 +850,9 @@ public class ClientImpl
             }
         }
         if (i5 != null) {
-            return outboundChainCache.get(pm.getOutPhases(), i1, i2, i3, i4, i5);
+            return outboundChainCache.get(endpoint, pm.getOutPhases(), i1, i2, i3, i4, i5);
         }
-        return outboundChainCache.get(pm.getOutPhases(), i1, i2, i3, i4);
+        return outboundChainCache.get(endpoint, pm.getOutPhases(), i1, i2, i3, i4);
     }
 
     protected void modifyChain(InterceptorChain chain, Message ctx, boolean in) {
@@ -202,13 +202,13 @@ public class OutgoingChainInterceptor extends AbstractPhaseInterceptor<Message>
         }
         PhaseInterceptorChain chain;
         if (i5 != null) {
-            chain = chainCache.get(bus.getExtension(PhaseManager.class).getOutPhases(),
+            chain = chainCache.get(ep, bus.getExtension(PhaseManager.class).getOutPhases(),
                                    i1, i2, i3, i4, i5);
         } else if (i4 != null) {
-            chain = chainCache.get(bus.getExtension(PhaseManager.class).getOutPhases(),
+            chain = chainCache.get(ep, bus.getExtension(PhaseManager.class).getOutPhases(),
                                    i1, i2, i3, i4);
         } else {
-            chain = chainCache.get(bus.getExtension(PhaseManager.class).getOutPhases(),
+            chain = chainCache.get(ep, bus.getExtension(PhaseManager.class).getOutPhases(),
                                    i1, i2, i3);
         }
         
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Resource;
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.management.InstrumentationManager;
+
+/**
+ * Default BufferPool implementation that keeps up to maxPooledChunks 
+ * released chunks around for reuse.  Chunks that are not handed back 
+ * (for example because an InputStream obtained from a CachedOutputStream 
+ * was never closed) are simply left for the garbage collector.
+ * 
+ * The pool is disabled by default and can be switched on by configuring the
+ * org.apache.cxf.io.BufferPool bean with enabled set to true or by setting
+ * the org.apache.cxf.io.BufferPool.Enabled system property.
+ */
+@NoJSR250Annotations(unlessNull = "bus")
+public class BufferPoolImpl implements BufferPool {
+    private static final Logger LOG = LogUtils.getL7dLogger(BufferPoolImpl.class);
+    
+    private static final int DEFAULT_CHUNK_SIZE;
+    private static final int DEFAULT_MAX_POOLED_CHUNKS;
+    private static final boolean DEFAULT_ENABLED;
+    static {
+        int i = Integer.getInteger("org.apache.cxf.io.BufferPool.ChunkSize", -1);
+        DEFAULT_CHUNK_SIZE = i <= 0 ? 4 * 1024 : i;
+        i = Integer.getInteger("org.apache.cxf.io.BufferPool.MaxPooledChunks", -1);
+        DEFAULT_MAX_POOLED_CHUNKS = i < 0 ? 1024 : i;
+        DEFAULT_ENABLED = Boolean.getBoolean("org.apache.cxf.io.BufferPool.Enabled");
+    }
+
+    private final Queue<byte[]> chunks = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong outstanding = new AtomicLong();
+    
+    private volatile boolean enabled = DEFAULT_ENABLED;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxPooledChunks = DEFAULT_MAX_POOLED_CHUNKS;
+    private Bus bus;
+    
+    public BufferPoolImpl() {
+        
+    }
+    public BufferPoolImpl(Bus b) {
+        setBus(b);
+    }
+    
+    public Bus getBus() {
+        return bus;
+    }
+    
+    @Resource
+    public final void setBus(Bus bus) {        
+        this.bus = bus;
+        if (null != bus) {
+            bus.setExtension(this, BufferPool.class);
+            InstrumentationManager manager = bus.getExtension(InstrumentationManager.class);
+            if (null != manager) {
+                try {
+                    manager.register(new BufferPoolImplMBeanWrapper(this));
+                } catch (JMException jmex) {
+                    LOG.log(Level.WARNING , jmex.getMessage(), jmex);
+                }
+            }
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    public void setEnabled(boolean b) {
+        enabled = b;
+    }
+    
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    /**
+     * Sets the size of the chunks.  Chunks of the previous size that are 
+     * still in use are dropped when they are released. 
+     */
+    public void setChunkSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        chunkSize = size;
+        clear();
+    }
+    
+    public int getMaxPooledChunks() {
+        return maxPooledChunks;
+    }
+    public void setMaxPooledChunks(int max) {
+        maxPooledChunks = max;
+    }
+
+    public byte[] acquire() {
+        int size = chunkSize;
+        outstanding.addAndGet(size);
+        byte[] chunk = chunks.poll();
+        if (chunk != null) {
+            pooled.decrementAndGet();
+            if (chunk.length == size) {
+                hits.incrementAndGet();
+                return chunk;
+            }
+        }
+        misses.incrementAndGet();
+        return new byte[size];
+    }
+
+    public void release(byte[] chunk) {
+        outstanding.addAndGet(-chunk.length);
+        if (chunk.length == chunkSize
+            && pooled.incrementAndGet() <= maxPooledChunks) {
+            chunks.offer(chunk);
+        } else {
+            if (chunk.length == chunkSize) {
+                pooled.decrementAndGet();
+            }
+            discarded.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Drops all chunks currently held by the pool.
+     */
+    public void clear() {
+        while (chunks.poll() != null) {
+            pooled.decrementAndGet();
+        }
+    }
+    
+    public int getPooledChunks() {
+        return pooled.get();
+    }
+    public long getHits() {
+        return hits.get();
+    }
+    public long getMisses() {
+        return misses.get();
+    }
+    public long getDiscarded() {
+        return discarded.get();
+    }
+    
+    /**
+     * @return the number of bytes handed out by acquire() and not released yet
+     */
+    public long getOutstandingBytes() {
+        return outstanding.get();
+    }
+    
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double)h / total;
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedOperation;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+@ManagedResource(componentName = "BufferPool", 
+                 description = "The CXF pool of message buffers", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+                 
+public class BufferPoolImplMBeanWrapper implements ManagedComponent {    
+    static final String NAME_VALUE = "Bus.BufferPool";
+    static final String TYPE_VALUE = "BufferPool";
+    
+    private BufferPoolImpl pool;
+    
+    public BufferPoolImplMBeanWrapper(BufferPoolImpl p) {
+        pool = p;        
+    }
+    
+    @ManagedAttribute(description = "Whether streams use the pool")
+    public boolean isEnabled() {
+        return pool.isEnabled();
+    }
+    public void setEnabled(boolean b) {
+        pool.setEnabled(b);
+    }
+    
+    @ManagedAttribute(description = "The size of the pooled chunks")
+    public int getChunkSize() {
+        return pool.getChunkSize();
+    }
+
+    @ManagedAttribute(description = "The maximum number of chunks kept in the pool")
+    public int getMaxPooledChunks() {
+        return pool.getMaxPooledChunks();
+    }
+    public void setMaxPooledChunks(int max) {
+        pool.setMaxPooledChunks(max);
+    }
+
+    @ManagedAttribute(description = "The number of chunks currently kept in the pool")
+    public int getPooledChunks() {
+        return pool.getPooledChunks();
+    }
+    
+    @ManagedAttribute(description = "The number of chunks served from the pool")
+    public long getHits() {
+        return pool.getHits();
+    }
+
+    @ManagedAttribute(description = "The number of chunks that had to be allocated")
+    public long getMisses() {
+        return pool.getMisses();
+    }
+    
+    @ManagedAttribute(description = "The ratio of chunks served from the pool")
+    public double getHitRate() {
+        return pool.getHitRate();
+    }
+
+    @ManagedAttribute(description = "The number of released chunks that did not fit in the pool")
+    public long getDiscarded() {
+        return pool.getDiscarded();
+    }
+
+    @ManagedAttribute(description = "The number of bytes acquired and not released yet")
+    public long getOutstandingBytes() {
+        return pool.getOutstandingBytes();
+    }
+    
+    @ManagedAttribute(description = "The number of cached streams that spilled to a temp file")
+    public long getSpillCount() {
+        return CachedOutputStream.getSpillCount();
+    }
+    
+    @ManagedAttribute(description = "The number of spills refused because the quota was reached")
+    public long getSpillsRejected() {
+        return CachedOutputStream.getSpillsRejected();
+    }
+
+    @ManagedAttribute(description = "The number of bytes currently held in temp files")
+    public long getSpilledBytes() {
+        return CachedOutputStream.getSpilledBytes();
+    }
+
+    @ManagedAttribute(description = "The quota for bytes held in temp files, -1 if unlimited")
+    public long getMaxSpillSize() {
+        return CachedOutputStream.getMaxSpillSize();
+    }
+    
+    @ManagedOperation(description = "Drop all pooled chunks")
+    public void clear() {
+        pool.clear();
+    }
+      
+    public ObjectName getObjectName() throws JMException {
+        String busId = "cxf";
+        if (pool.getBus() != null) {
+            busId = pool.getBus().getId();
+        }
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME + ":");
+        buffer.append(ManagementConstants.BUS_ID_PROP + "=" + busId + ",");
+        buffer.append("BufferPool=" + NAME_VALUE);
+        buffer.append("," + ManagementConstants.TYPE_PROP + "=" + TYPE_VALUE);
+
+        //Use default domain name of server
+        return new ObjectName(buffer.toString());
+    }
+}
@@ -23,7 +23,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,7 +41,9 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.FaultMode;
 import org.apache.cxf.message.MessageContentsList;
 import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.BindingInfo;
 import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.ServiceInfo;
 
 /**
  * Abstract implementation of Invoker.
@@ -46,6 +52,62 @@ import org.apache.cxf.service.model.BindingOperationInfo;
 public abstract class AbstractInvoker implements Invoker {
     private static final Logger LOG = LogUtils.getL7dLogger(AbstractInvoker.class);
     
+    private boolean directInvocation;
+    private volatile Map<Method, DirectInvocationCompiler.Target> directTargets;
+    
+    public boolean isDirectInvocation() {
+        return directInvocation;
+    }
+
+    /**
+     * Calls the service methods through a class generated for the service rather than
+     * through reflection.  Methods a class can not be generated for, such as those of
+     * non-public classes, or if ASM is not available, are still called reflectively.
+     */
+    public void setDirectInvocation(boolean directInvocation) {
+        this.directInvocation = directInvocation;
+    }
+
+    /**
+     * Generates the classes calling the methods of the operations of the service if
+     * direct invocation is turned on.  Called when the endpoint is published, or on the
+     * first invocation otherwise.
+     */
+    public void initializeDirectInvocation(Service service) {
+        if (!directInvocation || service == null) {
+            return;
+        }
+        MethodDispatcher md = (MethodDispatcher)service.get(MethodDispatcher.class.getName());
+        Collection<Method> methods = new LinkedHashSet<Method>();
+        if (md != null) {
+            for (ServiceInfo si : service.getServiceInfos()) {
+                for (BindingInfo bi : si.getBindings()) {
+                    for (BindingOperationInfo bop : bi.getOperations()) {
+                        methods.add(md.getMethod(bop));
+                        if (bop.getUnwrappedOperation() != null) {
+                            methods.add(md.getMethod(bop.getUnwrappedOperation()));
+                        }
+                    }
+                }
+            }
+        }
+        methods.remove(null);
+        synchronized (this) {
+            Map<Method, DirectInvocationCompiler.Target> targets 
+                = new HashMap<Method, DirectInvocationCompiler.Target>();
+            if (directTargets != null) {
+                targets.putAll(directTargets);
+                methods.removeAll(directTargets.keySet());
+            }
+            try {
+                targets.putAll(DirectInvocationCompiler.compile(methods));
+            } catch (Throwable t) {
+                // no ASM, all the methods are called reflectively
+            }
+            directTargets = targets;
+        }
+    }
+    
     public Object invoke(Exchange exchange, Object o) {
 
         final Object serviceObject = getServiceObject(exchange);
@@ -164,6 +226,16 @@ public abstract class AbstractInvoker implements Invoker {
     
     protected Object performInvocation(Exchange exchange, final Object serviceObject, Method m,
                                        Object[] paramArray) throws Exception {
+        if (directInvocation) {
+            if (directTargets == null) {
+                initializeDirectInvocation(exchange.get(Service.class));
+            }
+            Map<Method, DirectInvocationCompiler.Target> targets = directTargets;
+            DirectInvocationCompiler.Target target = targets == null ? null : targets.get(m);
+            if (target != null) {
+                return performDirectInvocation(exchange, serviceObject, m, paramArray, target);
+            }
+        }
         paramArray = insertExchange(m, paramArray, exchange);
         if (LOG.isLoggable(Level.FINER)) {
             LOG.log(Level.FINER, "INVOKING_METHOD", new Object[] {serviceObject, 
@@ -173,6 +245,36 @@ public abstract class AbstractInvoker implements Invoker {
         return m.invoke(serviceObject, paramArray);
     }
 
+    private Object performDirectInvocation(Exchange exchange, Object serviceObject, Method m,
+                                           Object[] paramArray, DirectInvocationCompiler.Target target)
+        throws Exception {
+        if (target.exchangeIndex != -1) {
+            Object[] newParams = new Object[paramArray.length + 1];
+            System.arraycopy(paramArray, 0, newParams, 0, target.exchangeIndex);
+            newParams[target.exchangeIndex] = exchange;
+            System.arraycopy(paramArray, target.exchangeIndex, newParams, target.exchangeIndex + 1,
+                             paramArray.length - target.exchangeIndex);
+            paramArray = newParams;
+        }
+        if (LOG.isLoggable(Level.FINER)) {
+            LOG.log(Level.FINER, "INVOKING_METHOD", new Object[] {serviceObject, 
+                                                                  m,
+                                                                  Arrays.asList(paramArray)});
+        }
+        if (!target.accepts(serviceObject, paramArray)) {
+            // wrong arguments, Method.invoke reports them as an IllegalArgumentException
+            // (or converts them if it can) rather than as a failure of the service
+            return m.invoke(serviceObject, paramArray);
+        }
+        try {
+            return target.invocation.invoke(target.index, serviceObject, paramArray);
+        } catch (Throwable t) {
+            // the arguments were checked, so this was thrown by the service method itself,
+            // report it the same way Method.invoke does
+            throw new InvocationTargetException(t);
+        }
+    }
+
     public Object[] insertExchange(Method method, Object[] params, Exchange context) {
         Object[] newParams = params;
         for (int i = 0; i < method.getParameterTypes().length; i++) {
@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.service.invoker;
+
+/**
+ * Calls the methods of a service class without going through reflection.
+ * Implementations are generated by the invoker when direct invocation is
+ * turned on, one class per class declaring service methods.
+ */
+public interface DirectInvocation {
+
+    /**
+     * Describes the methods this class calls, so that a class generated earlier
+     * can be reused for the same methods.
+     */
+    String getSignature();
+
+    /**
+     * Calls a method on the target.
+     *
+     * @param index the index of the method within the generated class
+     * @param target the service object
+     * @param params the parameters of the method, primitives boxed
+     * @return the return value of the method, boxed, or null for a void method
+     */
+    Object invoke(int index, Object target, Object[] params) throws Exception;
+}
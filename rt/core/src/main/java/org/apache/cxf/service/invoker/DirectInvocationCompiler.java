@@ -0,0 +1,319 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.service.invoker;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cxf.common.util.ASMHelper;
+import org.apache.cxf.message.Exchange;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates a {@link DirectInvocation} that calls the methods of one class with a
+ * switch on the method index and a typed call for each method.
+ */
+final class DirectInvocationCompiler extends ASMHelper {
+
+    final Class<?> declaringClass;
+    final Method methods[];
+    final ClassWriter cw;
+
+    private DirectInvocationCompiler(Class<?> declaringClass, Method methods[]) {
+        this.declaringClass = declaringClass;
+        this.methods = methods;
+        cw = createClassWriter();
+    }
+
+    /**
+     * A method that can be called through a generated class.
+     */
+    static final class Target {
+        private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<Class<?>, Class<?>>();
+        static {
+            WRAPPERS.put(Boolean.TYPE, Boolean.class);
+            WRAPPERS.put(Byte.TYPE, Byte.class);
+            WRAPPERS.put(Character.TYPE, Character.class);
+            WRAPPERS.put(Short.TYPE, Short.class);
+            WRAPPERS.put(Integer.TYPE, Integer.class);
+            WRAPPERS.put(Long.TYPE, Long.class);
+            WRAPPERS.put(Float.TYPE, Float.class);
+            WRAPPERS.put(Double.TYPE, Double.class);
+        }
+
+        final DirectInvocation invocation;
+        final int index;
+        final int exchangeIndex;
+        private final Class<?> declaringClass;
+        private final Class<?> types[];
+
+        Target(DirectInvocation invocation, int index, Method m) {
+            this.invocation = invocation;
+            this.index = index;
+            declaringClass = m.getDeclaringClass();
+            types = m.getParameterTypes();
+            int ex = -1;
+            for (int x = 0; x < types.length; x++) {
+                if (types[x].equals(Exchange.class)) {
+                    ex = x;
+                }
+            }
+            exchangeIndex = ex;
+        }
+
+        /**
+         * Checks the service object and the arguments the way the generated class casts 
+         * and unboxes them, so that the generated class only throws what the method throws.
+         */
+        boolean accepts(Object serviceObject, Object args[]) {
+            if (!declaringClass.isInstance(serviceObject) || args.length != types.length) {
+                return false;
+            }
+            for (int x = 0; x < types.length; x++) {
+                if (types[x].isPrimitive()) {
+                    if (args[x] == null || args[x].getClass() != WRAPPERS.get(types[x])) {
+                        return false;
+                    }
+                } else if (args[x] != null && !types[x].isInstance(args[x])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return the methods a class could be generated for, the others are left out
+     */
+    static Map<Method, Target> compile(Collection<Method> methods) {
+        Map<Class<?>, List<Method>> byClass = new LinkedHashMap<Class<?>, List<Method>>();
+        for (Method m : methods) {
+            if (!isAccessible(m)) {
+                continue;
+            }
+            List<Method> list = byClass.get(m.getDeclaringClass());
+            if (list == null) {
+                list = new ArrayList<Method>();
+                byClass.put(m.getDeclaringClass(), list);
+            }
+            if (!list.contains(m)) {
+                list.add(m);
+            }
+        }
+        Map<Method, Target> targets = new HashMap<Method, Target>();
+        for (Map.Entry<Class<?>, List<Method>> entry : byClass.entrySet()) {
+            Method list[] = entry.getValue().toArray(new Method[entry.getValue().size()]);
+            DirectInvocation invocation = null;
+            try {
+                invocation = new DirectInvocationCompiler(entry.getKey(), list).compile();
+            } catch (Throwable t) {
+                // Some error - probably a bad version of ASM or no ASM at all
+            }
+            if (invocation != null) {
+                for (int x = 0; x < list.length; x++) {
+                    targets.put(list[x], new Target(invocation, x, list[x]));
+                }
+            }
+        }
+        return targets;
+    }
+
+    private static boolean isAccessible(Method m) {
+        if (m == null || !Modifier.isPublic(m.getModifiers()) || Modifier.isStatic(m.getModifiers())) {
+            return false;
+        }
+        // the generated class is in another class loader, so only public classes can be used
+        for (Class<?> c = m.getDeclaringClass(); c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        for (Class<?> c : m.getParameterTypes()) {
+            if (!isAccessible(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(Class<?> cls) {
+        while (cls.isArray()) {
+            cls = cls.getComponentType();
+        }
+        for (Class<?> c = cls; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public DirectInvocation compile() {
+        if (cw == null) {
+            return null;
+        }
+        String signature = computeSignature();
+        int count = 1;
+        String newClassName = getClassName(count);
+        Class<?> cls = super.findClass(newClassName, declaringClass);
+        while (cls != null) {
+            try {
+                DirectInvocation invocation = DirectInvocation.class.cast(cls.newInstance());
+                if (invocation.getSignature().equals(signature)) {
+                    return invocation;
+                }
+            } catch (Exception e) {
+                return null;
+            }
+            count++;
+            newClassName = getClassName(count);
+            cls = super.findClass(newClassName, declaringClass);
+        }
+
+        String internalName = periodToSlashes(newClassName);
+        cw.visit(Opcodes.V1_5,
+                 Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                 internalName,
+                 null,
+                 "java/lang/Object",
+                 new String[] {periodToSlashes(DirectInvocation.class.getName())});
+        addConstructor();
+        addSignature(signature);
+        addInvoke();
+        cw.visitEnd();
+
+        try {
+            Class<?> cl = loadClass(newClassName, declaringClass, cw.toByteArray());
+            return DirectInvocation.class.cast(cl.newInstance());
+        } catch (Throwable e) {
+            // ignore, we'll just fall down to reflection based
+        }
+        return null;
+    }
+
+    private String getClassName(int count) {
+        return (declaringClass.getName() + "_DirectInvocation" + count).replaceAll("\\$", ".");
+    }
+
+    private String computeSignature() {
+        StringBuilder b = new StringBuilder();
+        b.append(methods.length).append(':');
+        for (Method m : methods) {
+            b.append(m.getName()).append(Type.getMethodDescriptor(m)).append(',');
+        }
+        return b.toString();
+    }
+
+    private void addConstructor() {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void addSignature(String signature) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC,
+                                          "getSignature", "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(signature);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void addInvoke() {
+        String className = Type.getInternalName(declaringClass);
+        boolean isInterface = declaringClass.isInterface();
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invoke",
+                                          "(ILjava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;",
+                                          null, new String[] {"java/lang/Exception"});
+        mv.visitCode();
+
+        Label dflt = new Label();
+        Label labels[] = new Label[methods.length];
+        for (int x = 0; x < labels.length; x++) {
+            labels[x] = new Label();
+        }
+        if (labels.length > 0) {
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitTableSwitchInsn(0, labels.length - 1, dflt, labels);
+        }
+        for (int x = 0; x < labels.length; x++) {
+            Method m = methods[x];
+            mv.visitLabel(labels[x]);
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, className);
+            Class<?> types[] = m.getParameterTypes();
+            for (int p = 0; p < types.length; p++) {
+                mv.visitVarInsn(Opcodes.ALOAD, 3);
+                addInt(mv, p);
+                mv.visitInsn(Opcodes.AALOAD);
+                Class<?> tp = types[p];
+                if (tp.isPrimitive()) {
+                    mv.visitTypeInsn(Opcodes.CHECKCAST, NONPRIMITIVE_MAP.get(tp));
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NONPRIMITIVE_MAP.get(tp),
+                                       tp.getName() + "Value", "()" + PRIMITIVE_MAP.get(tp));
+                } else if (tp != Object.class) {
+                    mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(tp));
+                }
+            }
+            mv.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL,
+                               className, m.getName(), Type.getMethodDescriptor(m));
+            Class<?> ret = m.getReturnType();
+            if (ret == Void.TYPE) {
+                mv.visitInsn(Opcodes.ACONST_NULL);
+            } else if (ret.isPrimitive()) {
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, NONPRIMITIVE_MAP.get(ret), "valueOf",
+                                   "(" + PRIMITIVE_MAP.get(ret) + ")L" + NONPRIMITIVE_MAP.get(ret) + ";");
+            }
+            mv.visitInsn(Opcodes.ARETURN);
+        }
+        mv.visitLabel(dflt);
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "()V");
+        mv.visitInsn(Opcodes.ATHROW);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void addInt(MethodVisitor mv, int i) {
+        if (i <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + i);
+        } else if (i <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, i);
+        } else {
+            mv.visitIntInsn(Opcodes.SIPUSH, i);
+        }
+    }
+}
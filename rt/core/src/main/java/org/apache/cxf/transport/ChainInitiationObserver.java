@@ -85,13 +85,15 @@ public class ChainInitiationObserver implements MessageObserver {
             }
             // setup chain
             if (dbp == null) {
-                phaseChain = chainCache.get(bus.getExtension(PhaseManager.class).getInPhases(),
-                                                             bus.getInInterceptors(),
-                                                             endpoint.getService().getInInterceptors(),
-                                                             endpoint.getInInterceptors(),
-                                                             getBinding().getInInterceptors());
+                phaseChain = chainCache.get(endpoint,
+                                            bus.getExtension(PhaseManager.class).getInPhases(),
+                                            bus.getInInterceptors(),
+                                            endpoint.getService().getInInterceptors(),
+                                            endpoint.getInInterceptors(),
+                                            getBinding().getInInterceptors());
             } else {
-                phaseChain = chainCache.get(bus.getExtension(PhaseManager.class).getInPhases(),
+                phaseChain = chainCache.get(endpoint,
+                                            bus.getExtension(PhaseManager.class).getInPhases(),
                                             bus.getInInterceptors(),
                                             endpoint.getService().getInInterceptors(),
                                             endpoint.getInInterceptors(),
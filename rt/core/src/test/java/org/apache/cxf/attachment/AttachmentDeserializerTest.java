@@ -341,6 +341,40 @@ public class AttachmentDeserializerTest extends Assert {
         assertEquals(-1, m.read(new byte[1000]));
     }
     
+    @Test
+    public void testBoundaryAcrossReads() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            // near misses of the boundary must stay part of the body
+            body.append("line ").append(i).append("\r\n------=_Part_2\r\n------=_Part");
+        }
+        byte[] messageBytes = ("preamble\r\n------=_Part_1\r\n\r\n" + body 
+            + "\r\n------=_Part_1--\r\n").getBytes();
+        // deliver the message a few bytes at a time so the boundary straddles reads
+        InputStream trickle = new ByteArrayInputStream(messageBytes) {
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        PushbackInputStream pushbackStream = new PushbackInputStream(trickle, 2048);
+        byte[] prefix = new byte["preamble\r\n------=_Part_1\r\n\r\n".length()];
+        int n = 0;
+        while (n < prefix.length) {
+            n += pushbackStream.read(prefix, n, prefix.length - n);
+        }
+        MimeBodyPartInputStream m = new MimeBodyPartInputStream(pushbackStream, "------=_Part_1".getBytes(),
+                                                                2048);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[13];
+        n = m.read(buf);
+        while (n != -1) {
+            out.write(buf, 0, n);
+            n = m.read(buf);
+        }
+        assertEquals(body.toString(), out.toString());
+        assertEquals(-1, pushbackStream.read());
+    }
+    
     @Test
     public void testCXF2542() throws Exception {
         StringBuffer buf = new StringBuffer();
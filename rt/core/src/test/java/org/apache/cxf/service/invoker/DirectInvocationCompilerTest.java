@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.service.invoker;
+
+import java.lang.reflect.Method;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DirectInvocationCompilerTest extends Assert {
+
+    @Test
+    public void testTargetAcceptsOnlyWhatTheGeneratedClassCasts() throws Exception {
+        Method m = Calculator.class.getMethod("add", Integer.TYPE, String.class);
+        DirectInvocationCompiler.Target target = new DirectInvocationCompiler.Target(null, 0, m);
+        Calculator calc = new Calculator();
+
+        assertTrue(target.accepts(calc, new Object[] {1, "2"}));
+        assertTrue(target.accepts(calc, new Object[] {1, null}));
+        assertFalse("wrong service object", target.accepts("calc", new Object[] {1, "2"}));
+        assertFalse("missing argument", target.accepts(calc, new Object[] {1}));
+        assertFalse("null primitive", target.accepts(calc, new Object[] {null, "2"}));
+        assertFalse("widened primitive", target.accepts(calc, new Object[] {(short)1, "2"}));
+        assertFalse("wrong type", target.accepts(calc, new Object[] {1, 2}));
+    }
+
+    public static class Calculator {
+        public int add(int a, String b) {
+            return a + Integer.parseInt(b);
+        }
+    }
+}
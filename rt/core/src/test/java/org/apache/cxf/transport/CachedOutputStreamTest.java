@@ -20,8 +20,14 @@ package org.apache.cxf.transport;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.bus.CXFBusImpl;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.io.BufferPoolImpl;
 import org.apache.cxf.io.CachedOutputStream;
 import org.junit.Assert;
 import org.junit.Test;
@@ -54,6 +60,70 @@ public class CachedOutputStreamTest extends Assert {
         assertFalse(tempFile.exists());
     }
     
+    @Test
+    public void testMappedTmpFile() throws IOException {
+        long spills = CachedOutputStream.getSpillCount();
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setUseMappedFiles(true);
+        String result = initTestData(65);
+        cos.write(result.getBytes());
+        File tempFile = cos.getTempFile();
+        assertNotNull(tempFile);
+        assertEquals(spills + 1, CachedOutputStream.getSpillCount());
+        assertTrue(CachedOutputStream.getSpilledBytes() >= result.length());
+        assertEquals(result, new String(cos.getBytes()));
+        
+        InputStream in = cos.getInputStream();
+        assertEquals(result, IOUtils.toString(in));
+        in.close();
+        
+        File target = File.createTempFile("cos", "target");
+        FileOutputStream out = new FileOutputStream(target);
+        cos.writeCacheTo(out);
+        out.close();
+        assertEquals(result.length(), target.length());
+        target.delete();
+        
+        cos.close();
+        assertFalse(tempFile.exists());
+    }
+    
+    @Test
+    public void testPooledBuffers() throws IOException {
+        BufferPoolImpl pool = new BufferPoolImpl(new CXFBusImpl());
+        pool.setEnabled(true);
+        pool.setChunkSize(1024);
+        BusFactory.setThreadDefaultBus(pool.getBus());
+        try {
+            CachedOutputStream cos = new CachedOutputStream();
+            String result = initTestData(16);
+            cos.write(result.getBytes());
+            assertNull(cos.getTempFile());
+            assertEquals(result.length(), pool.getOutstandingBytes());
+            assertEquals(result, new String(cos.getBytes()));
+            
+            InputStream in = cos.getInputStream();
+            cos.close();
+            //still being read, the chunks must not be released yet
+            assertEquals(result.length(), pool.getOutstandingBytes());
+            assertEquals(result, IOUtils.toString(in));
+            in.close();
+            assertEquals(0, pool.getOutstandingBytes());
+            assertEquals(16, pool.getPooledChunks());
+            
+            cos = new CachedOutputStream();
+            cos.write(result.getBytes());
+            StringBuilder builder = new StringBuilder();
+            cos.writeCacheTo(builder, 10);
+            assertEquals(result.substring(0, 10), builder.toString());
+            cos.close();
+            assertEquals(16, pool.getHits());
+            assertEquals(0, pool.getOutstandingBytes());
+        } finally {
+            BusFactory.setThreadDefaultBus(null);
+        }
+    }
+    
     String initTestData(int packetSize) {
         String temp = "abcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*()_+?><[]/0123456789";
         String result = new String();
@@ -77,6 +77,7 @@ public class DefaultTypeCreator extends AbstractTypeCreator {
         type.setSchemaType(createQName(typeClass));
         type.setTypeClass(typeClass);
         type.setTypeMapping(getTypeMapping());
+        type.setGeneratedAccessors(getConfiguration().isGeneratedAccessors());
 
         BeanTypeInfo typeInfo = type.getTypeInfo();
         typeInfo.setDefaultMinOccurs(getConfiguration().getDefaultMinOccurs());
@@ -25,10 +25,9 @@ import java.net.URI;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.activation.DataHandler;
@@ -100,13 +99,14 @@ public class DefaultTypeMapping implements TypeMapping {
 
     public DefaultTypeMapping(String identifierURI) {
         this.identifierURI = identifierURI;
-        class2Type = Collections.synchronizedMap(new HashMap<Type, AegisType>());
-        class2xml = Collections.synchronizedMap(new HashMap<Type, QName>());
-        xml2Type = Collections.synchronizedMap(new HashMap<QName, AegisType>());
+        // lookups happen for every value that is read or written, so they must not lock
+        class2Type = new ConcurrentHashMap<Type, AegisType>();
+        class2xml = new ConcurrentHashMap<Type, QName>();
+        xml2Type = new ConcurrentHashMap<QName, AegisType>();
     }
 
     public boolean isRegistered(Type javaType) {
-        boolean registered = class2Type.containsKey(javaType);
+        boolean registered = javaType != null && class2Type.containsKey(javaType);
 
         if (!registered && nextTM != null) {
             registered = nextTM.isRegistered(javaType);
@@ -116,7 +116,7 @@ public class DefaultTypeMapping implements TypeMapping {
     }
 
     public boolean isRegistered(QName xmlType) {
-        boolean registered = xml2Type.containsKey(xmlType);
+        boolean registered = xmlType != null && xml2Type.containsKey(xmlType);
 
         if (!registered && nextTM != null) {
             registered = nextTM.isRegistered(xmlType);
@@ -138,7 +138,11 @@ public class DefaultTypeMapping implements TypeMapping {
     public void register(AegisType type) {
         type.setTypeMapping(this);
         if (type.getType() != null) {
-            class2xml.put(type.getType(), type.getSchemaType());
+            if (type.getSchemaType() != null) {
+                class2xml.put(type.getType(), type.getSchemaType());
+            } else {
+                class2xml.remove(type.getType());
+            }
             class2Type.put(type.getType(), type);
         }
         if (type.getSchemaType() != null) {
@@ -152,17 +156,19 @@ public class DefaultTypeMapping implements TypeMapping {
     }
 
     public void removeType(AegisType type) {
-        if (!xml2Type.containsKey(type.getSchemaType())) {
+        if (type.getSchemaType() == null || !xml2Type.containsKey(type.getSchemaType())) {
             nextTM.removeType(type);
         } else {
             xml2Type.remove(type.getSchemaType());
-            class2Type.remove(type.getType());
-            class2xml.remove(type.getType());
+            if (type.getType() != null) {
+                class2Type.remove(type.getType());
+                class2xml.remove(type.getType());
+            }
         }
     }
 
     public AegisType getType(Type javaType) {
-        AegisType type = class2Type.get(javaType);
+        AegisType type = javaType == null ? null : class2Type.get(javaType);
 
         if (type == null && nextTM != null) {
             type = nextTM.getType(javaType);
@@ -172,7 +178,7 @@ public class DefaultTypeMapping implements TypeMapping {
     }
 
     public AegisType getType(QName xmlType) {
-        AegisType type = xml2Type.get(xmlType);
+        AegisType type = xmlType == null ? null : xml2Type.get(xmlType);
 
         if (type == null && nextTM != null) {
             type = nextTM.getType(xmlType);
@@ -182,7 +188,7 @@ public class DefaultTypeMapping implements TypeMapping {
     }
 
     public QName getTypeQName(Type clazz) {
-        QName qname = class2xml.get(clazz);
+        QName qname = clazz == null ? null : class2xml.get(clazz);
 
         if (qname == null && nextTM != null) {
             qname = nextTM.getTypeQName(clazz);
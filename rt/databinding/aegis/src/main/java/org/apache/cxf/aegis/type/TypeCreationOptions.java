@@ -39,6 +39,7 @@ public class TypeCreationOptions {
     private int defaultMinOccurs;
     private boolean qualifyElements = true;
     private boolean qualifyAttributes;
+    private boolean generatedAccessors;
 
     public TypeCreationOptions() {
         super();
@@ -127,4 +128,23 @@ public class TypeCreationOptions {
     public void setQualifyAttributes(boolean qualifyAttributes) {
         this.qualifyAttributes = qualifyAttributes;
     }
+
+    /**
+     * Whether or not bean properties are read and written through accessor classes 
+     * generated with ASM instead of reflection. Beans that are not public, or ASM 
+     * not being available, fall back to reflection.
+     * False by default.
+     * @return
+     */
+    public boolean isGeneratedAccessors() {
+        return generatedAccessors;
+    }
+
+    /**
+     * Turn on or off generated property accessors.
+     * @param generatedAccessors
+     */
+    public void setGeneratedAccessors(boolean generatedAccessors) {
+        this.generatedAccessors = generatedAccessors;
+    }
 }
@@ -392,6 +392,7 @@ public class XMLTypeCreator extends AbstractTypeCreator {
 
             type.setTypeClass(info.getType());
             type.setTypeMapping(getTypeMapping());
+            type.setGeneratedAccessors(getConfiguration().isGeneratedAccessors());
 
             return type;
         } else {
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.aegis.type.basic;
+
+/**
+ * Reads and writes the properties of a bean class without reflection. Implementations are 
+ * generated by BeanType when {@link org.apache.cxf.aegis.type.TypeCreationOptions#isGeneratedAccessors()} 
+ * is set. A property is addressed by its index in the attributes followed by the elements 
+ * of the BeanTypeInfo.
+ */
+public interface BeanAccessor {
+    
+    /**
+     * @return a string identifying the accessor methods, so a generated class can be reused
+     * for the same properties
+     */
+    String getSignature();
+    
+    Object readProperty(Object bean, int index);
+    
+    void writeProperty(Object bean, int index, Object value);
+}
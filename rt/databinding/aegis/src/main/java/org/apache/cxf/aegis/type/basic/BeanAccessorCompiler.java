@@ -0,0 +1,262 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.aegis.type.basic;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.cxf.common.util.ASMHelper;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates a {@link BeanAccessor} that calls the read and write methods of the
+ * properties of a bean directly.
+ */
+final class BeanAccessorCompiler extends ASMHelper {
+    
+    final Class<?> beanClass;
+    final Method readMethods[];
+    final Method writeMethods[];
+    final ClassWriter cw;
+    
+    private BeanAccessorCompiler(Class<?> beanClass, Method readMethods[], Method writeMethods[]) {
+        this.beanClass = beanClass;
+        this.readMethods = readMethods;
+        this.writeMethods = writeMethods;
+        cw = createClassWriter();
+    }
+    
+    /**
+     * @param readMethods the read method of each property 
+     * @param writeMethods the write method of each property, or null for a read only property
+     * @return the accessor, or null if one can not be generated
+     */
+    static BeanAccessor compileBeanAccessor(Class<?> beanClass, 
+                                            Method readMethods[], 
+                                            Method writeMethods[]) {
+        if (!isAccessible(beanClass)) {
+            return null;
+        }
+        for (int x = 0; x < readMethods.length; x++) {
+            if (!isAccessible(readMethods[x]) 
+                || (writeMethods[x] != null && !isAccessible(writeMethods[x]))) {
+                return null;
+            }
+        }
+        try {
+            return new BeanAccessorCompiler(beanClass, readMethods, writeMethods).compile();
+        } catch (Throwable t) {
+            // Some error - probably a bad version of ASM or similar
+        }
+        return null;
+    }
+    
+    private static boolean isAccessible(Class<?> cls) {
+        // the generated class is in another class loader, so only public classes can be used
+        for (Class<?> c = cls; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return !cls.isInterface() && !cls.isArray() && !cls.isPrimitive();
+    }
+    
+    private static boolean isAccessible(Method m) {
+        return m != null && Modifier.isPublic(m.getModifiers()) 
+            && !Modifier.isStatic(m.getModifiers())
+            && isAccessible(m.getDeclaringClass());
+    }
+
+    public BeanAccessor compile() {
+        if (cw == null) {
+            return null;
+        }
+        String signature = computeSignature();
+        int count = 1;
+        String newClassName = getClassName(count);
+        Class<?> cls = super.findClass(newClassName, beanClass);
+        while (cls != null) {
+            try {
+                BeanAccessor accessor = BeanAccessor.class.cast(cls.newInstance());
+                if (accessor.getSignature().equals(signature)) {
+                    return accessor;
+                }
+            } catch (Exception e) {
+                return null;
+            }
+            count++;
+            newClassName = getClassName(count);
+            cls = super.findClass(newClassName, beanClass);
+        }
+        
+        String internalName = periodToSlashes(newClassName);
+        cw.visit(Opcodes.V1_5,
+                 Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                 internalName,
+                 null,
+                 "java/lang/Object",
+                 new String[] {periodToSlashes(BeanAccessor.class.getName())});
+        addConstructor();
+        addSignature(signature);
+        addReadProperty();
+        addWriteProperty();
+        cw.visitEnd();
+        
+        try {
+            Class<?> cl = loadClass(newClassName, beanClass, cw.toByteArray());
+            return BeanAccessor.class.cast(cl.newInstance());
+        } catch (Throwable e) {
+            // ignore, we'll just fall down to reflection based
+        }
+        return null;
+    }
+    
+    private String getClassName(int count) {
+        return (beanClass.getName() + "_BeanAccessor" + count).replaceAll("\\$", ".");
+    }
+    
+    private String computeSignature() {
+        StringBuilder b = new StringBuilder();
+        b.append(readMethods.length).append(':');
+        for (int x = 0; x < readMethods.length; x++) {
+            b.append(readMethods[x].getName()).append(Type.getMethodDescriptor(readMethods[x]));
+            if (writeMethods[x] != null) {
+                b.append('/').append(writeMethods[x].getName())
+                    .append(Type.getMethodDescriptor(writeMethods[x]));
+            }
+            b.append(',');
+        }
+        return b.toString();
+    }
+    
+    private void addConstructor() {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    private void addSignature(String signature) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC,
+                                          "getSignature", "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(signature);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    private void addReadProperty() {
+        String beanName = Type.getInternalName(beanClass);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "readProperty", 
+                                          "(Ljava/lang/Object;I)Ljava/lang/Object;", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, beanName);
+        mv.visitVarInsn(Opcodes.ASTORE, 3);
+        
+        Label dflt = new Label();
+        Label labels[] = new Label[readMethods.length];
+        for (int x = 0; x < labels.length; x++) {
+            labels[x] = new Label();
+        }
+        if (labels.length > 0) {
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitTableSwitchInsn(0, labels.length - 1, dflt, labels);
+        }
+        for (int x = 0; x < labels.length; x++) {
+            Method m = readMethods[x];
+            mv.visitLabel(labels[x]);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanName, m.getName(), Type.getMethodDescriptor(m));
+            Class<?> tp = m.getReturnType();
+            if (tp.isPrimitive()) {
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, NONPRIMITIVE_MAP.get(tp), "valueOf", 
+                                   "(" + PRIMITIVE_MAP.get(tp) + ")L" + NONPRIMITIVE_MAP.get(tp) + ";");
+            }
+            mv.visitInsn(Opcodes.ARETURN);
+        }
+        addThrowIllegalArgument(mv, dflt);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    private void addWriteProperty() {
+        String beanName = Type.getInternalName(beanClass);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "writeProperty", 
+                                          "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, beanName);
+        mv.visitVarInsn(Opcodes.ASTORE, 4);
+        
+        Label dflt = new Label();
+        Label labels[] = new Label[writeMethods.length];
+        for (int x = 0; x < labels.length; x++) {
+            labels[x] = writeMethods[x] == null ? dflt : new Label();
+        }
+        if (labels.length > 0) {
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitTableSwitchInsn(0, labels.length - 1, dflt, labels);
+        }
+        for (int x = 0; x < labels.length; x++) {
+            Method m = writeMethods[x];
+            if (m == null) {
+                continue;
+            }
+            mv.visitLabel(labels[x]);
+            mv.visitVarInsn(Opcodes.ALOAD, 4);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            Class<?> tp = m.getParameterTypes()[0];
+            if (tp.isPrimitive()) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, NONPRIMITIVE_MAP.get(tp));
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NONPRIMITIVE_MAP.get(tp), 
+                                   tp.getName() + "Value", "()" + PRIMITIVE_MAP.get(tp));
+            } else if (tp != Object.class) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(tp));
+            }
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanName, m.getName(), Type.getMethodDescriptor(m));
+            Class<?> ret = m.getReturnType();
+            if (ret == Long.TYPE || ret == Double.TYPE) {
+                mv.visitInsn(Opcodes.POP2);
+            } else if (ret != Void.TYPE) {
+                mv.visitInsn(Opcodes.POP);
+            }
+            mv.visitInsn(Opcodes.RETURN);
+        }
+        addThrowIllegalArgument(mv, dflt);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    private static void addThrowIllegalArgument(MethodVisitor mv, Label label) {
+        mv.visitLabel(label);
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "()V");
+        mv.visitInsn(Opcodes.ATHROW);
+    }
+}
@@ -26,8 +26,11 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
@@ -72,6 +75,10 @@ public class BeanType extends AegisType {
     private boolean isInterface;
 
     private boolean isException;
+    
+    private boolean generatedAccessors;
+    
+    private volatile GeneratedAccessor generatedAccessor;
 
     /**
      * Construct a type info. Caller must pass in the type class via 
@@ -271,6 +278,25 @@ public class BeanType extends AegisType {
             return;
         }
 
+        GeneratedAccessor generated = getGeneratedAccessor();
+        if (generated != null && generated.info == inf) {
+            Integer index = generated.indexes.get(name);
+            if (index != null && generated.writable[index]) {
+                try {
+                    if (property != null || !generated.primitive[index]) {
+                        generated.accessor.writeProperty(object, index, property);
+                    }
+                    return;
+                } catch (DatabindingException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // the generated class does not wrap the checked exceptions of the setters
+                    throw new DatabindingException("Couldn't set property " + name + " on " + object + ". "
+                                                   + e.getMessage(), e);
+                }
+            }
+        }
+
         try {
             PropertyDescriptor desc = inf.getPropertyDescriptorFromMappedName(name);
 
@@ -433,6 +459,19 @@ public class BeanType extends AegisType {
     }
 
     protected Object readProperty(Object object, QName name) {
+        GeneratedAccessor generated = getGeneratedAccessor();
+        if (generated != null && generated.info == getTypeInfo()) {
+            Integer index = generated.indexes.get(name);
+            if (index != null) {
+                try {
+                    return generated.accessor.readProperty(object, index);
+                } catch (Exception e) {
+                    // the generated class does not wrap the checked exceptions of the getters
+                    throw new DatabindingException("Couldn't get property " + name + " from bean "
+                                                   + object, e);
+                }
+            }
+        }
         try {
             PropertyDescriptor desc = getTypeInfo().getPropertyDescriptorFromMappedName(name);
 
@@ -617,6 +656,68 @@ public class BeanType extends AegisType {
         return info;
     }
 
+    /**
+     * Whether the properties are read and written through a generated {@link BeanAccessor}
+     * instead of reflection.
+     * @see org.apache.cxf.aegis.type.TypeCreationOptions#isGeneratedAccessors()
+     */
+    public boolean isGeneratedAccessors() {
+        return generatedAccessors;
+    }
+
+    public void setGeneratedAccessors(boolean generatedAccessors) {
+        this.generatedAccessors = generatedAccessors;
+    }
+    
+    /**
+     * The accessor is generated on first use, as the type info may still be changed 
+     * after the type is registered.
+     * @return the generated accessor, or null if reflection has to be used
+     */
+    private GeneratedAccessor getGeneratedAccessor() {
+        if (!generatedAccessors || isInterface) {
+            return null;
+        }
+        GeneratedAccessor generated = generatedAccessor;
+        if (generated == null) {
+            generated = new GeneratedAccessor(getTypeInfo(), getTypeClass());
+            generatedAccessor = generated;
+        }
+        return generated.accessor == null ? null : generated;
+    }
+    
+    /**
+     * A generated accessor with the indexes of the mapped properties.
+     */
+    private static final class GeneratedAccessor {
+        final BeanTypeInfo info;
+        final BeanAccessor accessor;
+        final Map<QName, Integer> indexes = new HashMap<QName, Integer>();
+        final boolean writable[];
+        final boolean primitive[];
+        
+        GeneratedAccessor(BeanTypeInfo info, Class<?> beanClass) {
+            this.info = info;
+            List<QName> names = new ArrayList<QName>(info.getAttributes());
+            names.addAll(info.getElements());
+            Method readMethods[] = new Method[names.size()];
+            Method writeMethods[] = new Method[names.size()];
+            writable = new boolean[names.size()];
+            primitive = new boolean[names.size()];
+            for (int x = 0; x < names.size(); x++) {
+                PropertyDescriptor desc = info.getPropertyDescriptorFromMappedName(names.get(x));
+                if (desc != null) {
+                    readMethods[x] = desc.getReadMethod();
+                    writeMethods[x] = desc.getWriteMethod();
+                    writable[x] = writeMethods[x] != null;
+                    primitive[x] = desc.getPropertyType() != null && desc.getPropertyType().isPrimitive();
+                }
+                indexes.put(names.get(x), x);
+            }
+            accessor = BeanAccessorCompiler.compileBeanAccessor(beanClass, readMethods, writeMethods);
+        }
+    }
+
     /**
      * Create type info based in the type class.
      * @return
@@ -223,6 +223,7 @@ public class Java5TypeCreator extends AbstractTypeCreator {
 
         BeanType type = new BeanType(typeInfo);
         type.setTypeMapping(getTypeMapping());
+        type.setGeneratedAccessors(getConfiguration().isGeneratedAccessors());
         type.setSchemaType(typeName);
 
         return type;
@@ -21,6 +21,8 @@ package org.apache.cxf.aegis.type.basic;
 import java.beans.PropertyDescriptor;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.Date;
 
 import javax.xml.bind.annotation.XmlElement;
@@ -33,6 +35,7 @@ import org.w3c.dom.Element;
 import org.apache.cxf.aegis.AbstractAegisTest;
 import org.apache.cxf.aegis.AegisContext;
 import org.apache.cxf.aegis.Context;
+import org.apache.cxf.aegis.DatabindingException;
 import org.apache.cxf.aegis.services.SimpleBean;
 import org.apache.cxf.aegis.type.AegisType;
 import org.apache.cxf.aegis.type.TypeCreationOptions;
@@ -111,6 +114,101 @@ public class BeanTest extends AbstractAegisTest {
         assertValid("/b:root/b:howdy[text()='howdy']", element);
     }
 
+    @Test
+    public void testBeanWithGeneratedAccessors() throws Exception {
+        defaultContext();
+        BeanType type = new BeanType();
+        type.setTypeClass(SimpleBean.class);
+        type.setTypeMapping(mapping);
+        type.setSchemaType(new QName("urn:Bean", "bean"));
+        type.setGeneratedAccessors(true);
+
+        ElementReader reader = new ElementReader(getResourceAsStream("bean1.xml"));
+        SimpleBean bean = (SimpleBean)type.readObject(reader, getContext());
+        assertEquals("bleh", bean.getBleh());
+        assertEquals("howdy", bean.getHowdy());
+        reader.getXMLStreamReader().close();
+
+        bean.setBleh("blah");
+        Element element = writeObjectToElement(type, bean, getContext());
+        assertValid("/b:root/b:bleh[text()='blah']", element);
+        assertValid("/b:root/b:howdy[text()='howdy']", element);
+    }
+    
+    @Test
+    public void testGeneratedAccessor() throws Exception {
+        Method readMethods[] = new Method[] {
+            IntBean.class.getMethod("getInt1"), IntBean.class.getMethod("getInt2"), 
+        };
+        Method writeMethods[] = new Method[] {
+            IntBean.class.getMethod("setInt1", Integer.class), null, 
+        };
+        BeanAccessor accessor = BeanAccessorCompiler.compileBeanAccessor(IntBean.class, 
+                                                                         readMethods, writeMethods);
+        assertNotNull(accessor);
+        // the class is reused for the same properties
+        assertSame(accessor.getClass(), 
+                   BeanAccessorCompiler.compileBeanAccessor(IntBean.class, readMethods, writeMethods)
+                       .getClass());
+        
+        IntBean bean = new IntBean();
+        bean.setInt2(42);
+        accessor.writeProperty(bean, 0, Integer.valueOf(7));
+        assertEquals(Integer.valueOf(7), bean.getInt1());
+        assertEquals(Integer.valueOf(7), accessor.readProperty(bean, 0));
+        assertEquals(Integer.valueOf(42), accessor.readProperty(bean, 1));
+        try {
+            accessor.writeProperty(bean, 1, Integer.valueOf(1));
+            fail("int2 has no write method");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        
+        // classes that are not public can not be reached from the generated class
+        assertNull(BeanAccessorCompiler.compileBeanAccessor(PrivateBean.class, 
+                                                            new Method[0], new Method[0]));
+    }
+    
+    @Test
+    public void testGeneratedAccessorsOption() throws Exception {
+        context = new AegisContext();
+        TypeCreationOptions config = new TypeCreationOptions();
+        config.setGeneratedAccessors(true);
+        context.setTypeCreationOptions(config);
+        context.initialize();
+        mapping = context.getTypeMapping();
+
+        BeanType type = (BeanType)mapping.getTypeCreator().createType(IntBean.class);
+        assertTrue(type.isGeneratedAccessors());
+        
+        IntBean bean = new IntBean();
+        bean.setInt1(1);
+        bean.setInt2(2);
+        Element element = writeObjectToElement(type, bean, getContext());
+        IntBean read = (IntBean)type.readObject(new ElementReader(StaxUtils.createXMLStreamReader(element)), 
+                                                getContext());
+        assertEquals(Integer.valueOf(1), read.getInt1());
+        assertEquals(2, read.getInt2());
+    }
+
+    @Test
+    public void testGeneratedAccessorWrapsCheckedException() throws Exception {
+        defaultContext();
+        BeanType type = new BeanType();
+        type.setTypeClass(UnreadableBean.class);
+        type.setTypeMapping(mapping);
+        type.setSchemaType(new QName("urn:Bean", "bean"));
+        type.setGeneratedAccessors(true);
+        
+        QName name = type.getTypeInfo().getElements().get(0);
+        try {
+            type.readProperty(new UnreadableBean(), name);
+            fail("The getter exception was not reported");
+        } catch (DatabindingException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
     @Test
     public void testBeanWithXsiType() throws Exception {
         defaultContext();
@@ -618,6 +716,18 @@ public class BeanTest extends AbstractAegisTest {
         }
     }
 
+    private static class PrivateBean {
+    }
+    
+    public static class UnreadableBean {
+        public String getValue() throws IOException {
+            throw new IOException("unreadable");
+        }
+
+        public void setValue(String value) {
+        }
+    }
+    
     public static class IntBean {
         private Integer int1;
         private int int2;
@@ -206,6 +206,8 @@ public class JAXBDataBinding extends AbstractDataBinding
     private Unmarshaller.Listener unmarshallerListener;
     private Marshaller.Listener marshallerListener;
     private ValidationEventHandler validationEventHandler;
+    private int marshallerPoolSize = MarshallerPool.DEFAULT_MAX_SIZE;
+    private volatile MarshallerPool marshallerPool;
     
     private boolean unwrapJAXBElement = true;
 
@@ -245,6 +247,41 @@ public class JAXBDataBinding extends AbstractDataBinding
 
     public final void setContext(JAXBContext ctx) {
         context = ctx;
+        marshallerPool = null;
+    }
+    
+    /**
+     * Returns the pool of the Marshaller and Unmarshaller instances created
+     * by the current context.
+     * 
+     * @return the pool or null if pooling is disabled or there is no context yet
+     */
+    public MarshallerPool getMarshallerPool() {
+        MarshallerPool pool = marshallerPool;
+        JAXBContext ctx = context;
+        if (ctx == null || marshallerPoolSize <= 0) {
+            return null;
+        }
+        if (pool == null || pool.getContext() != ctx) {
+            pool = new MarshallerPool(ctx, marshallerPoolSize);
+            marshallerPool = pool;
+        }
+        return pool;
+    }
+    
+    public int getMarshallerPoolSize() {
+        return marshallerPoolSize;
+    }
+    
+    /**
+     * Sets the maximum number of idle Marshaller and Unmarshaller instances 
+     * kept for reuse, 0 disables the pooling.
+     * 
+     * @param size the pool size
+     */
+    public void setMarshallerPoolSize(int size) {
+        marshallerPoolSize = size;
+        marshallerPool = null;
     }
 
     @SuppressWarnings("unchecked")
@@ -681,6 +718,7 @@ public class JAXBDataBinding extends AbstractDataBinding
      */
     public void setMarshallerProperties(Map<String, Object> marshallerProperties) {
         this.marshallerProperties = marshallerProperties;
+        marshallerPool = null;
     }
     
     
@@ -704,6 +742,7 @@ public class JAXBDataBinding extends AbstractDataBinding
      */
     public void setUnmarshallerProperties(Map<String, Object> unmarshallerProperties) {
         this.unmarshallerProperties = unmarshallerProperties;
+        marshallerPool = null;
     }
     
     /**
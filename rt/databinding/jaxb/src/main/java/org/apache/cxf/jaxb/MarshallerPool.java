@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxb;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * A bounded pool of Marshaller and Unmarshaller instances created by a single
+ * JAXBContext. 
+ * <p>
+ * Instances are reset to their default state when they are released: the 
+ * standard marshaller properties, the schema, the event handler, the listener
+ * and the attachment (un)marshaller. Provider specific properties can not be 
+ * reset in a portable way so a pool is expected to be owned by a component 
+ * which sets the same properties on every instance it acquires, instances 
+ * which got other properties set should be dropped rather than released.
+ * Instances used by a failed (un)marshal operation should be dropped too.
+ */
+public class MarshallerPool {
+    
+    public static final int DEFAULT_MAX_SIZE = 32;
+    
+    private static final String DEFAULT_ENCODING = "UTF-8";
+    
+    private final JAXBContext context;
+    private final int maxSize;
+    private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<Marshaller>();
+    private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<Unmarshaller>();
+    private final AtomicInteger marshallerCount = new AtomicInteger();
+    private final AtomicInteger unmarshallerCount = new AtomicInteger();
+    
+    public MarshallerPool(JAXBContext context) {
+        this(context, DEFAULT_MAX_SIZE);
+    }
+    
+    public MarshallerPool(JAXBContext context, int maxSize) {
+        this.context = context;
+        this.maxSize = maxSize;
+    }
+    
+    public JAXBContext getContext() {
+        return context;
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public Marshaller acquireMarshaller() throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        if (marshaller == null) {
+            return context.createMarshaller();
+        }
+        marshallerCount.decrementAndGet();
+        return marshaller;
+    }
+    
+    public Unmarshaller acquireUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.poll();
+        if (unmarshaller == null) {
+            return context.createUnmarshaller();
+        }
+        unmarshallerCount.decrementAndGet();
+        return unmarshaller;
+    }
+    
+    /**
+     * Resets the marshaller and returns it to the pool, the marshaller 
+     * is dropped if the pool is full or if it can not be reset.
+     */
+    public void releaseMarshaller(Marshaller marshaller) {
+        if (marshaller == null || marshallerCount.get() >= maxSize) {
+            return;
+        }
+        try {
+            if (!resetMarshaller(marshaller)) {
+                return;
+            }
+        } catch (JAXBException ex) {
+            return;
+        }
+        if (marshallerCount.incrementAndGet() > maxSize) {
+            marshallerCount.decrementAndGet();
+            return;
+        }
+        marshallers.offer(marshaller);
+    }
+    
+    /**
+     * Resets the unmarshaller and returns it to the pool, the unmarshaller 
+     * is dropped if the pool is full or if it can not be reset.
+     */
+    public void releaseUnmarshaller(Unmarshaller unmarshaller) {
+        if (unmarshaller == null || unmarshallerCount.get() >= maxSize) {
+            return;
+        }
+        try {
+            resetUnmarshaller(unmarshaller);
+        } catch (JAXBException ex) {
+            return;
+        }
+        if (unmarshallerCount.incrementAndGet() > maxSize) {
+            unmarshallerCount.decrementAndGet();
+            return;
+        }
+        unmarshallers.offer(unmarshaller);
+    }
+    
+    /**
+     * Drops all the pooled instances.
+     */
+    public void clear() {
+        while (marshallers.poll() != null) {
+            marshallerCount.decrementAndGet();
+        }
+        while (unmarshallers.poll() != null) {
+            unmarshallerCount.decrementAndGet();
+        }
+    }
+    
+    int getMarshallerCount() {
+        return marshallerCount.get();
+    }
+    
+    int getUnmarshallerCount() {
+        return unmarshallerCount.get();
+    }
+    
+    protected boolean resetMarshaller(Marshaller marshaller) throws JAXBException {
+        // schema locations can not be unset once they have been set 
+        if (marshaller.getProperty(Marshaller.JAXB_SCHEMA_LOCATION) != null
+            || marshaller.getProperty(Marshaller.JAXB_NO_NAMESPACE_SCHEMA_LOCATION) != null) {
+            return false;
+        }
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, DEFAULT_ENCODING);
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.FALSE);
+        marshaller.setSchema(null);
+        marshaller.setEventHandler(null);
+        marshaller.setListener(null);
+        marshaller.setAttachmentMarshaller(null);
+        return true;
+    }
+    
+    protected void resetUnmarshaller(Unmarshaller unmarshaller) throws JAXBException {
+        unmarshaller.setSchema(null);
+        unmarshaller.setEventHandler(null);
+        unmarshaller.setListener(null);
+        unmarshaller.setAttachmentUnmarshaller(null);
+    }
+}
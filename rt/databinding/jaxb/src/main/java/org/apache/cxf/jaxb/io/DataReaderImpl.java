@@ -37,6 +37,7 @@ import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.jaxb.JAXBDataBase;
 import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.apache.cxf.jaxb.JAXBEncoderDecoder;
+import org.apache.cxf.jaxb.MarshallerPool;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.service.model.MessagePartInfo;
 
@@ -71,7 +72,8 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
     private Unmarshaller createUnmarshaller() {
         try {
             Unmarshaller um = null;
-            um = context.createUnmarshaller();
+            MarshallerPool pool = getMarshallerPool();
+            um = pool != null ? pool.acquireUnmarshaller() : context.createUnmarshaller();
             if (databinding.getUnmarshallerListener() != null) {
                 um.setListener(databinding.getUnmarshallerListener());
             }
@@ -102,6 +104,19 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
         }
     }
 
+    private MarshallerPool getMarshallerPool() {
+        MarshallerPool pool = databinding.getMarshallerPool();
+        return pool != null && pool.getContext() == context ? pool : null;
+    }
+    
+    private Object release(Unmarshaller um, Object result) {
+        MarshallerPool pool = getMarshallerPool();
+        if (pool != null) {
+            pool.releaseUnmarshaller(um);
+        }
+        return result;
+    }
+
     public Object read(MessagePartInfo part, T reader) {
         boolean honorJaxbAnnotation = false;
         if (part != null && part.getProperty("honor.jaxb.annotations") != null) {
@@ -125,14 +140,13 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
             }
         }
         
-        return JAXBEncoderDecoder.unmarshall(createUnmarshaller(), reader, part, 
-                                             unwrapJAXBElement);
+        Unmarshaller um = createUnmarshaller();
+        return release(um, JAXBEncoderDecoder.unmarshall(um, reader, part, unwrapJAXBElement));
     }
 
     public Object read(QName name, T input, Class type) {
-        return JAXBEncoderDecoder.unmarshall(createUnmarshaller(), input,
-                                             name, type, 
-                                             unwrapJAXBElement);
+        Unmarshaller um = createUnmarshaller();
+        return release(um, JAXBEncoderDecoder.unmarshall(um, input, name, type, unwrapJAXBElement));
     }
 
 }
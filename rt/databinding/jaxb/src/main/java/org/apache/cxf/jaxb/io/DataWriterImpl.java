@@ -43,6 +43,7 @@ import org.apache.cxf.jaxb.JAXBDataBase;
 import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.apache.cxf.jaxb.JAXBEncoderDecoder;
 import org.apache.cxf.jaxb.JAXBUtils;
+import org.apache.cxf.jaxb.MarshallerPool;
 import org.apache.cxf.jaxb.attachment.JAXBAttachmentMarshaller;
 import org.apache.cxf.service.model.MessagePartInfo;
 import org.apache.ws.commons.schema.XmlSchemaElement;
@@ -98,8 +99,8 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
         }
         Marshaller marshaller;
         try {
-            
-            marshaller = context.createMarshaller();
+            MarshallerPool pool = getMarshallerPool();
+            marshaller = pool != null ? pool.acquireMarshaller() : context.createMarshaller();
             marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
             marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
@@ -146,6 +147,18 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
         return marshaller;
     }
     
+    private MarshallerPool getMarshallerPool() {
+        MarshallerPool pool = databinding.getMarshallerPool();
+        return pool != null && pool.getContext() == context ? pool : null;
+    }
+    
+    private void releaseMarshaller(Marshaller marshaller) {
+        MarshallerPool pool = getMarshallerPool();
+        if (pool != null) {
+            pool.releaseMarshaller(marshaller);
+        }
+    }
+    
     public void write(Object obj, MessagePartInfo part, T output) {
         boolean honorJaxbAnnotation = false;
         if (part != null && part.getProperty("honor.jaxb.annotations") != null) {
@@ -159,14 +172,18 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
                 && part != null
                 && Boolean.TRUE.equals(part.getProperty(JAXBDataBinding.class.getName() 
                                                         + ".CUSTOM_EXCEPTION"))) {
-                JAXBEncoderDecoder.marshallException(createMarshaller(obj, part),
+                Marshaller marshaller = createMarshaller(obj, part);
+                JAXBEncoderDecoder.marshallException(marshaller,
                                                      (Exception)obj,
                                                      part, 
                                                      output);                
+                releaseMarshaller(marshaller);
             } else {
                 Annotation[] anns = getJAXBAnnotation(part);
                 if (!honorJaxbAnnotation || anns.length == 0) {
-                    JAXBEncoderDecoder.marshall(createMarshaller(obj, part), obj, part, output);
+                    Marshaller marshaller = createMarshaller(obj, part);
+                    JAXBEncoderDecoder.marshall(marshaller, obj, part, output);
+                    releaseMarshaller(marshaller);
                 } else if (honorJaxbAnnotation && anns.length > 0) {
                     //RpcLit will use the JAXB Bridge to marshall part message when it is 
                     //annotated with @XmlList,@XmlAttachmentRef,@XmlJavaTypeAdapter
@@ -183,8 +200,9 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
                 }
             }
         } else if (obj == null && needToRender(obj, part)) {
-            JAXBEncoderDecoder.marshallNullElement(createMarshaller(obj, part),
-                                                   output, part);
+            Marshaller marshaller = createMarshaller(obj, part);
+            JAXBEncoderDecoder.marshallNullElement(marshaller, output, part);
+            releaseMarshaller(marshaller);
         }
     }
 
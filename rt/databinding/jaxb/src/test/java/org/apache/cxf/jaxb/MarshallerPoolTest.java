@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxb;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MarshallerPoolTest extends Assert {
+    
+    private JAXBContext context;
+    
+    @Before
+    public void setUp() throws Exception {
+        context = JAXBContext.newInstance(Bean.class);
+    }
+    
+    @Test
+    public void testMarshallerReused() throws Exception {
+        MarshallerPool pool = new MarshallerPool(context, 2);
+        Marshaller m = pool.acquireMarshaller();
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        m.setProperty(Marshaller.JAXB_ENCODING, "ISO-8859-1");
+        m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        pool.releaseMarshaller(m);
+        assertEquals(1, pool.getMarshallerCount());
+        
+        Marshaller m2 = pool.acquireMarshaller();
+        assertSame(m, m2);
+        assertEquals(0, pool.getMarshallerCount());
+        assertEquals(Boolean.FALSE, m2.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+        assertEquals(Boolean.FALSE, m2.getProperty(Marshaller.JAXB_FRAGMENT));
+        assertEquals("UTF-8", m2.getProperty(Marshaller.JAXB_ENCODING));
+        assertNull(m2.getSchema());
+        assertNull(m2.getListener());
+        assertNull(m2.getAttachmentMarshaller());
+        
+        StringWriter sw = new StringWriter();
+        Bean bean = new Bean();
+        bean.setName("pooled");
+        m2.marshal(bean, sw);
+        assertTrue(sw.toString().startsWith("<?xml"));
+        assertTrue(sw.toString().contains("<name>pooled</name>"));
+    }
+    
+    @Test
+    public void testMarshallerWithSchemaLocationDropped() throws Exception {
+        MarshallerPool pool = new MarshallerPool(context, 2);
+        Marshaller m = pool.acquireMarshaller();
+        m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, "http://foo bar.xsd");
+        pool.releaseMarshaller(m);
+        assertEquals(0, pool.getMarshallerCount());
+        assertNotSame(m, pool.acquireMarshaller());
+    }
+    
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        MarshallerPool pool = new MarshallerPool(context, 2);
+        Marshaller m1 = pool.acquireMarshaller();
+        Marshaller m2 = pool.acquireMarshaller();
+        Marshaller m3 = pool.acquireMarshaller();
+        pool.releaseMarshaller(m1);
+        pool.releaseMarshaller(m2);
+        pool.releaseMarshaller(m3);
+        assertEquals(2, pool.getMarshallerCount());
+        
+        Unmarshaller u1 = pool.acquireUnmarshaller();
+        Unmarshaller u2 = pool.acquireUnmarshaller();
+        Unmarshaller u3 = pool.acquireUnmarshaller();
+        pool.releaseUnmarshaller(u1);
+        pool.releaseUnmarshaller(u2);
+        pool.releaseUnmarshaller(u3);
+        assertEquals(2, pool.getUnmarshallerCount());
+        
+        pool.clear();
+        assertEquals(0, pool.getMarshallerCount());
+        assertEquals(0, pool.getUnmarshallerCount());
+    }
+    
+    @Test
+    public void testUnmarshallerReused() throws Exception {
+        MarshallerPool pool = new MarshallerPool(context, 2);
+        Unmarshaller u = pool.acquireUnmarshaller();
+        u.setListener(new Unmarshaller.Listener() { });
+        pool.releaseUnmarshaller(u);
+        
+        Unmarshaller u2 = pool.acquireUnmarshaller();
+        assertSame(u, u2);
+        assertNull(u2.getListener());
+        assertNull(u2.getSchema());
+        Bean bean = (Bean)u2.unmarshal(
+            new StreamSource(new StringReader("<bean><name>pooled</name></bean>")));
+        assertEquals("pooled", bean.getName());
+    }
+    
+    @XmlRootElement(name = "bean")
+    public static class Bean {
+        private String name;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
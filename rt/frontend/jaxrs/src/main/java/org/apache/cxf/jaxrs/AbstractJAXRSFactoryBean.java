@@ -223,6 +223,7 @@ public class AbstractJAXRSFactoryBean extends AbstractEndpointFactory {
                     it.remove();
                 }
             }
+            serviceFactory.resourcesChanged();
         }
         if (list.size() == 0) {
             org.apache.cxf.common.i18n.Message msg = 
@@ -126,6 +126,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
             classResourceInfos.clear();
             boolean isRoot = AnnotationUtils.getClassAnnotation(cls, Path.class) != null;
             createResourceInfo(cls, isRoot);
+            resourcesChanged();
         }
     }
     
@@ -144,6 +145,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
             
             createResourceInfo(resourceClass, true);
         }
+        resourcesChanged();
     }
     
     public void setUserResources(List<UserResource> resources) {
@@ -156,6 +158,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
                 }
             }
         }
+        resourcesChanged();
     }
     
     public void setUserResourcesWithServiceClass(List<UserResource> resources, Class<?> ...sClasses) {
@@ -167,6 +170,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
                 classResourceInfos.add(cri);
             }
         }
+        resourcesChanged();
     }
     
     private Map<String, UserResource> userResourcesAsMap(List<UserResource> resources) {
@@ -213,6 +217,17 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
                                    new SingletonResourceProvider(bean));
             }
         }
+        resourcesChanged();
+    }
+    
+    /**
+     * Lets the service rebuild its resource trie after the root resources 
+     * have been set or added. 
+     */
+    void resourcesChanged() {
+        if (getService() instanceof JAXRSServiceImpl) {
+            ((JAXRSServiceImpl)getService()).invalidateClassResourceInfoTrie();
+        }
     }
     
     private ClassResourceInfo getCreatedFromModel(Class<?> realClass) {
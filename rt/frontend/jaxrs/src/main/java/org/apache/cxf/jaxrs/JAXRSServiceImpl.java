@@ -39,6 +39,8 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
+import org.apache.cxf.jaxrs.model.URITemplate;
+import org.apache.cxf.jaxrs.model.URITemplateTrie;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
 import org.apache.cxf.service.Service;
@@ -53,6 +55,7 @@ import org.apache.cxf.workqueue.SynchronousExecutor;
 
 public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider implements Service, Configurable {
     private List<ClassResourceInfo> classResourceInfos;
+    private volatile URITemplateTrie<ClassResourceInfo> resourceTrie;
     private DataBinding dataBinding;
     private Executor executor;
     private Invoker invoker;
@@ -106,6 +109,31 @@ public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider impl
         return classResourceInfos;
     }
     
+    /**
+     * Returns the trie indexing the root resource templates, it is built on the first
+     * request and kept until {@link #invalidateClassResourceInfoTrie()} is called.
+     */
+    public URITemplateTrie<ClassResourceInfo> getClassResourceInfoTrie() {
+        URITemplateTrie<ClassResourceInfo> trie = resourceTrie;
+        if (trie == null) {
+            List<URITemplate> templates = new ArrayList<URITemplate>(classResourceInfos.size());
+            for (ClassResourceInfo cri : classResourceInfos) {
+                templates.add(cri.getURITemplate());
+            }
+            trie = new URITemplateTrie<ClassResourceInfo>(classResourceInfos, templates);
+            resourceTrie = trie;
+        }
+        return trie;
+    }
+    
+    /**
+     * Drops the trie so that it is rebuilt from the current root resources, 
+     * must be called whenever the list of root resources is modified.
+     */
+    public void invalidateClassResourceInfoTrie() {
+        resourceTrie = null;
+    }
+    
     public List<ServiceInfo> getServiceInfos() {
         if (!createServiceModel) {
             return Collections.emptyList();
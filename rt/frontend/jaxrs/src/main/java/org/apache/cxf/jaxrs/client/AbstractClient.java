@@ -65,7 +65,6 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
-import org.apache.cxf.phase.PhaseChainCache;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.apache.cxf.phase.PhaseManager;
 import org.apache.cxf.service.Service;
@@ -555,17 +554,19 @@ public class AbstractClient implements Client {
         PhaseManager pm = cfg.getBus().getExtension(PhaseManager.class);
         List<Interceptor<? extends Message>> i1 = cfg.getBus().getOutInterceptors();
         List<Interceptor<? extends Message>> i2 = cfg.getOutInterceptors();
-        List<Interceptor<? extends Message>> i3 = cfg.getConduitSelector().getEndpoint().getOutInterceptors();
-        return new PhaseChainCache().get(pm.getOutPhases(), i1, i2, i3);
+        Endpoint ep = cfg.getConduitSelector().getEndpoint();
+        List<Interceptor<? extends Message>> i3 = ep.getOutInterceptors();
+        return cfg.getOutboundChainCache().get(ep, pm.getOutPhases(), i1, i2, i3);
     }
     
     protected static PhaseInterceptorChain setupInInterceptorChain(ClientConfiguration cfg) { 
         PhaseManager pm = cfg.getBus().getExtension(PhaseManager.class);
         List<Interceptor<? extends Message>> i1 = cfg.getBus().getInInterceptors();
         List<Interceptor<? extends Message>> i2 = cfg.getInInterceptors();
-        List<Interceptor<? extends Message>> i3 = cfg.getConduitSelector().getEndpoint().getInInterceptors();
+        Endpoint ep = cfg.getConduitSelector().getEndpoint();
+        List<Interceptor<? extends Message>> i3 = ep.getInInterceptors();
         
-        return new PhaseChainCache().get(pm.getInPhases(), i1, i2, i3);
+        return cfg.getInboundChainCache().get(ep, pm.getInPhases(), i1, i2, i3);
     }
     
     protected Message createSimpleMessage() {
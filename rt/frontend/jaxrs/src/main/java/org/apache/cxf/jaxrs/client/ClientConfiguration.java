@@ -31,6 +31,7 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.PhaseChainCache;
 import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.MessageObserver;
 import org.apache.cxf.transport.http.HTTPConduit;
@@ -49,6 +50,8 @@ public class ClientConfiguration implements InterceptorProvider {
     private Bus bus;
     private Map<String, Object> requestContext = new HashMap<String, Object>();
     private Map<String, Object> responseContext = new HashMap<String, Object>();
+    private PhaseChainCache outboundChainCache = new PhaseChainCache();
+    private PhaseChainCache inboundChainCache = new PhaseChainCache();
     
     
     public void setConduitSelector(ConduitSelector cs) {
@@ -125,4 +128,12 @@ public class ClientConfiguration implements InterceptorProvider {
     public Map<String, Object> getRequestContext() {
         return requestContext;
     }
+    
+    PhaseChainCache getOutboundChainCache() {
+        return outboundChainCache;
+    }
+    
+    PhaseChainCache getInboundChainCache() {
+        return inboundChainCache;
+    }
 }
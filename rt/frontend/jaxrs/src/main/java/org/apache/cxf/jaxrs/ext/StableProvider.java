@@ -0,0 +1,33 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.ext;
+
+/**
+ * Marks a MessageBodyReader or MessageBodyWriter whose isReadable and 
+ * isWriteable answers only depend on the arguments they are given, so that
+ * the provider chosen for a given class, generic type, annotations and media type
+ * can be remembered. Configuration affecting these answers is expected to be
+ * set before the provider is registered.
+ * 
+ * Only the class which declares this interface is trusted, a subclass of a stable
+ * provider has to declare it again.
+ */
+public interface StableProvider {
+}
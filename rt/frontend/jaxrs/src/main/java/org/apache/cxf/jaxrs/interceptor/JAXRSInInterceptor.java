@@ -41,6 +41,7 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
 import org.apache.cxf.jaxrs.model.URITemplate;
+import org.apache.cxf.jaxrs.model.URITemplateTrie;
 import org.apache.cxf.jaxrs.provider.ProviderFactory;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
@@ -125,6 +126,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
         //1. Matching target resource class
         Service service = message.getExchange().get(Service.class);
         List<ClassResourceInfo> resources = ((JAXRSServiceImpl)service).getClassResourceInfos();
+        URITemplateTrie<ClassResourceInfo> trie = ((JAXRSServiceImpl)service).getClassResourceInfoTrie();
 
         String acceptTypes = HttpUtils.getProtocolHeader(message, Message.ACCEPT_CONTENT_TYPE, null);
         if (acceptTypes == null) {
@@ -135,7 +137,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
         message.getExchange().put(Message.ACCEPT_CONTENT_TYPE, acceptContentTypes);
 
         MultivaluedMap<String, String> values = new MetadataMap<String, String>();
-        ClassResourceInfo resource = JAXRSUtils.selectResourceClass(resources, 
+        ClassResourceInfo resource = JAXRSUtils.selectResourceClass(resources, trie, 
                                           rawPath, 
                                           values,
                                           message);
@@ -164,7 +166,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
                 message.getExchange().put(Message.ACCEPT_CONTENT_TYPE, acceptContentTypes);
                 if (ori != null) {
                     values = new MetadataMap<String, String>();
-                    resource = JAXRSUtils.selectResourceClass(resources, 
+                    resource = JAXRSUtils.selectResourceClass(resources, trie, 
                                                               rawPath, 
                                                               values,
                                                               message);
@@ -195,7 +197,7 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
             message.getExchange().put(Message.ACCEPT_CONTENT_TYPE, acceptContentTypes);
             if (ori != null) {
                 values = new MetadataMap<String, String>();
-                resource = JAXRSUtils.selectResourceClass(resources, 
+                resource = JAXRSUtils.selectResourceClass(resources, trie, 
                                                           rawPath, 
                                                           values,
                                                           message);
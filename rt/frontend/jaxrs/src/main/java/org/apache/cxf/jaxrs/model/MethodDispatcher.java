@@ -19,7 +19,9 @@
 package org.apache.cxf.jaxrs.model;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -29,6 +31,7 @@ public class MethodDispatcher {
         new LinkedHashMap<OperationResourceInfo, Method>();
     private Map<Method, OperationResourceInfo> methodToOri = 
         new LinkedHashMap<Method, OperationResourceInfo>();
+    private volatile URITemplateTrie<OperationResourceInfo> oriTrie;
 
     public MethodDispatcher() {
         
@@ -50,6 +53,7 @@ public class MethodDispatcher {
         }
 
         oriToMethod.put(o, primary);
+        oriTrie = null;
     }
 
     public OperationResourceInfo getOperationResourceInfo(Method method) {
@@ -60,6 +64,25 @@ public class MethodDispatcher {
         return oriToMethod.keySet();
     }
 
+    /**
+     * Returns the trie indexing the operation templates, it is rebuilt 
+     * after a new operation has been bound.
+     */
+    public URITemplateTrie<OperationResourceInfo> getOperationResourceInfoTrie() {
+        URITemplateTrie<OperationResourceInfo> trie = oriTrie;
+        if (trie == null) {
+            List<OperationResourceInfo> oris = 
+                new ArrayList<OperationResourceInfo>(oriToMethod.keySet());
+            List<URITemplate> templates = new ArrayList<URITemplate>(oris.size());
+            for (OperationResourceInfo ori : oris) {
+                templates.add(ori.getURITemplate());
+            }
+            trie = new URITemplateTrie<OperationResourceInfo>(oris, templates);
+            oriTrie = trie;
+        }
+        return trie;
+    }
+
     public Method getMethod(OperationResourceInfo op) {
         return oriToMethod.get(op);
     }
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path segment trie over a fixed list of URI templates. Every template is indexed 
+ * by the literal segments which precede its first templated segment, so that a request 
+ * path can be narrowed down to the templates which may match it with a hash lookup per 
+ * segment; the regular expressions of the remaining candidates still have to be run. 
+ * <p>
+ * Candidates are returned in the order the templates were originally listed in, 
+ * so that the comparators used to select between them see exactly the same input as 
+ * they would if all the templates were checked.  
+ */
+public final class URITemplateTrie<T> {
+    
+    private static final String REGEX_CHARACTERS = "\\^$|?+()[]{}";
+    
+    private final List<T> values;
+    private final Node root = new Node();
+    
+    public URITemplateTrie(List<T> values, List<URITemplate> templates) {
+        if (values.size() != templates.size()) {
+            throw new IllegalArgumentException("Number of values and templates is different");
+        }
+        this.values = new ArrayList<T>(values);
+        for (int i = 0; i < templates.size(); i++) {
+            URITemplate template = templates.get(i);
+            if (template == null) {
+                // a null template never matches
+                continue;
+            }
+            Node node = root;
+            for (String segment : getLiteralSegments(template.getValue())) {
+                node = node.getChild(segment);
+            }
+            node.indexes.add(i);
+        }
+    }
+    
+    public List<T> getValues() {
+        return values;
+    }
+    
+    /**
+     * Returns the values whose templates may match a given path, in their original order.
+     * 
+     * @param path the path to match
+     * @return the candidates or null if the path can not be narrowed down, 
+     *         in which case all the values have to be checked
+     */
+    public List<T> getCandidates(String path) {
+        if (path == null || !path.startsWith("/") || path.indexOf(';') != -1) {
+            // matrix parameters are matched by URITemplate after the segments 
+            // have been rewritten, leave it to the full check 
+            return null;
+        }
+        BitSet matched = new BitSet(values.size());
+        Node node = root;
+        node.mark(matched);
+        int start = 1;
+        while (node.children != null) {
+            int end = path.indexOf('/', start);
+            String segment = end == -1 ? path.substring(start) : path.substring(start, end);
+            node = node.children.get(segment);
+            if (node == null) {
+                break;
+            }
+            node.mark(matched);
+            if (end == -1) {
+                break;
+            }
+            start = end + 1;
+        }
+        List<T> candidates = new ArrayList<T>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            candidates.add(values.get(i));
+        }
+        return candidates;
+    }
+    
+    /**
+     * Splits a template into the segments which have to be matched literally 
+     * by any path this template matches. Splitting stops at the first segment 
+     * which contains a variable or a character having a special meaning in the 
+     * template regular expression. 
+     */
+    static List<String> getLiteralSegments(String template) {
+        List<String> segments = new ArrayList<String>();
+        if (template == null || !template.startsWith("/")) {
+            return segments;
+        }
+        if (template.endsWith("/")) {
+            // the trailing slash is optional in the template expression 
+            template = template.substring(0, template.length() - 1);
+        }
+        if (template.length() == 0) {
+            return segments;
+        }
+        int start = 1;
+        while (true) {
+            int end = template.indexOf('/', start);
+            String segment = end == -1 ? template.substring(start) : template.substring(start, end);
+            if (!isLiteral(segment)) {
+                break;
+            }
+            segments.add(segment);
+            if (end == -1) {
+                break;
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+    
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (REGEX_CHARACTERS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static class Node {
+        private Map<String, Node> children;
+        private List<Integer> indexes = new ArrayList<Integer>(1);
+        
+        Node getChild(String segment) {
+            if (children == null) {
+                children = new HashMap<String, Node>();
+            }
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+        
+        void mark(BitSet matched) {
+            for (Integer index : indexes) {
+                matched.set(index);
+            }
+        }
+    }
+}
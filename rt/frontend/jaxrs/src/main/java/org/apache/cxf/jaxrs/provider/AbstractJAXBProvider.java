@@ -25,6 +25,10 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -37,7 +41,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import javax.ws.rs.WebApplicationException;
@@ -66,11 +71,13 @@ import javax.xml.validation.Schema;
 
 import org.apache.cxf.common.i18n.BundleUtils;
 import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.ConcurrentWeakCache;
 import org.apache.cxf.common.util.PackageUtils;
 import org.apache.cxf.common.util.ReflectionInvokationHandler;
 import org.apache.cxf.jaxb.JAXBBeanInfo;
 import org.apache.cxf.jaxb.JAXBContextProxy;
 import org.apache.cxf.jaxb.JAXBUtils;
+import org.apache.cxf.jaxb.MarshallerPool;
 import org.apache.cxf.jaxrs.ext.MessageContext;
 import org.apache.cxf.jaxrs.utils.AnnotationUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
@@ -90,8 +97,12 @@ public abstract class AbstractJAXBProvider extends AbstractConfigurableProvider
     private static final String JAXB_DEFAULT_NAMESPACE = "##default";
     private static final String JAXB_DEFAULT_NAME = "##default";
     
-    private static Map<String, JAXBContext> packageContexts = new WeakHashMap<String, JAXBContext>();
-    private static Map<Class<?>, JAXBContext> classContexts = new WeakHashMap<Class<?>, JAXBContext>();
+    private static final int MAX_POOLED_CONTEXTS = 64;
+    
+    private static ConcurrentWeakCache<Package, JAXBContext> packageContexts = 
+        new ConcurrentWeakCache<Package, JAXBContext>();
+    private static ConcurrentWeakCache<Class<?>, JAXBContext> classContexts = 
+        new ConcurrentWeakCache<Class<?>, JAXBContext>();
    
     private static Set<Class<?>> collectionContextClasses = new HashSet<Class<?>>();
     private static JAXBContext collectionContext; 
@@ -118,6 +129,19 @@ public abstract class AbstractJAXBProvider extends AbstractConfigurableProvider
     
     private boolean skipJaxbChecks;
     
+    private int marshallerPoolSize = MarshallerPool.DEFAULT_MAX_SIZE;
+    private ConcurrentHashMap<JAXBContext, MarshallerPool> marshallerPools = 
+        new ConcurrentHashMap<JAXBContext, MarshallerPool>();
+    
+    /**
+     * Sets the maximum number of idle Marshaller and Unmarshaller instances 
+     * kept per JAXBContext, 0 disables the pooling.
+     */
+    public void setMarshallerPoolSize(int size) {
+        marshallerPoolSize = size;
+        marshallerPools.clear();
+    }
+    
     public void setContextProperties(Map<String, Object> contextProperties) {
         cProperties = contextProperties;
     }
@@ -326,14 +350,12 @@ public abstract class AbstractJAXBProvider extends AbstractConfigurableProvider
             }
         }
         
-        synchronized (classContexts) {
-            JAXBContext context = classContexts.get(type);
-            if (context != null) {
-                return context;
-            }
+        JAXBContext context = classContexts.get(type);
+        if (context != null) {
+            return context;
         }
         
-        JAXBContext context = getPackageContext(type);
+        context = getPackageContext(type);
         if (context == null && type != genericType) {
             context = getPackageContext(InjectionUtils.getActualType(genericType));
         }
@@ -342,35 +364,36 @@ public abstract class AbstractJAXBProvider extends AbstractConfigurableProvider
     }
     
     public JAXBContext getClassContext(Class<?> type) throws JAXBException {
-        synchronized (classContexts) {
-            JAXBContext context = classContexts.get(type);
-            if (context == null) {
-                context = JAXBContext.newInstance(new Class[]{type}, cProperties);
-                classContexts.put(type, context);
-            }
-            return context;
+        JAXBContext context = classContexts.get(type);
+        if (context == null) {
+            context = JAXBContext.newInstance(new Class[]{type}, cProperties);
+            context = classContexts.putIfAbsent(type, context);
         }
+        return context;
     }
     
     public JAXBContext getPackageContext(Class<?> type) {
         if (type == null || type == JAXBElement.class) {
             return null;
         }
-        synchronized (packageContexts) {
+        // Package instances belong to the class loader, so the contexts of 
+        // the packages of undeployed applications can be collected
+        Package pkg = type.getPackage();
+        JAXBContext context = pkg == null ? null : packageContexts.get(pkg);
+        if (context == null) {
             String packageName = PackageUtils.getPackageName(type);
-            JAXBContext context = packageContexts.get(packageName);
-            if (context == null) {
-                try {
-                    context = JAXBContext.newInstance(packageName, type.getClassLoader(), cProperties);
-                    packageContexts.put(packageName, context);
-                } catch (JAXBException ex) {
-                    LOG.fine("Error creating a JAXBContext using ObjectFactory : " 
-                                + ex.getMessage());
-                    return null;
-                }
+            try {
+                context = JAXBContext.newInstance(packageName, type.getClassLoader(), cProperties);
+            } catch (JAXBException ex) {
+                LOG.fine("Error creating a JAXBContext using ObjectFactory : " 
+                            + ex.getMessage());
+                return null;
+            }
+            if (pkg != null) {
+                context = packageContexts.putIfAbsent(pkg, context);
             }
-            return context;
         }
+        return context;
     }
     
     protected boolean isSupported(Class<?> type, Type genericType, Annotation[] anns) {
@@ -412,9 +435,19 @@ public abstract class AbstractJAXBProvider extends AbstractConfigurableProvider
     
     protected Unmarshaller createUnmarshaller(Class<?> cls, Type genericType, boolean isCollection) 
         throws JAXBException {
-        JAXBContext context = isCollection ? getCollectionContext(cls) 
-                                           : getJAXBContext(cls, genericType);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        Unmarshaller unmarshaller = null;
+        if (isCollection) {
+            // collection contexts are recreated every time, there is no point in pooling them
+            unmarshaller = getCollectionContext(cls).createUnmarshaller();
+        } else {
+            JAXBContext context = getJAXBContext(cls, genericType);
+            MarshallerPool pool = getMarshallerPool(context);
+            if (pool != null) {
+                unmarshaller = PooledInstance.lease(Unmarshaller.class, pool.acquireUnmarshaller(), pool);
+            } else {
+                unmarshaller = context.createUnmarshaller();
+            }
+        }
         if (schema != null) {
             unmarshaller.setSchema(schema);
         }
@@ -433,13 +466,69 @@ public abstract class AbstractJAXBProvider extends AbstractConfigurableProvider
                             ? ((JAXBElement)obj).getDeclaredType() : cls;
                             
         JAXBContext context = getJAXBContext(objClazz, genericType);
-        Marshaller marshaller = context.createMarshaller();
+        MarshallerPool pool = getMarshallerPool(context);
+        Marshaller marshaller = null;
+        if (pool != null) {
+            marshaller = PooledInstance.lease(Marshaller.class, pool.acquireMarshaller(), pool);
+        } else {
+            marshaller = context.createMarshaller();
+        }
         if (enc != null) {
             marshaller.setProperty(Marshaller.JAXB_ENCODING, enc);
         }
         return marshaller;
     }
     
+    /**
+     * Ends the use of a marshaller created by {@link #createMarshaller(Object, Class, Type, String)},
+     * it should be called in a finally block. The marshaller is returned to the pool for reuse 
+     * only if reuse is true, which should only be the case after a successful marshal operation 
+     * and only if no properties other than the standard ones and the marshaller properties set 
+     * on every marshaller have been set.   
+     */
+    protected void releaseMarshaller(Marshaller ms, boolean reuse) {
+        PooledInstance lease = PooledInstance.getLease(ms);
+        if (lease != null) {
+            Object instance = lease.end();
+            if (reuse && instance != null) {
+                lease.pool.releaseMarshaller((Marshaller)instance);
+            }
+        }
+    }
+    
+    /**
+     * Ends the use of an unmarshaller created by {@link #createUnmarshaller(Class, Type, boolean)},
+     * it should be called in a finally block. The unmarshaller is returned to the pool for reuse 
+     * only if reuse is true, that is after a successful unmarshal operation.
+     */
+    protected void releaseUnmarshaller(Unmarshaller unmarshaller, boolean reuse) {
+        PooledInstance lease = PooledInstance.getLease(unmarshaller);
+        if (lease != null) {
+            Object instance = lease.end();
+            if (reuse && instance != null) {
+                lease.pool.releaseUnmarshaller((Unmarshaller)instance);
+            }
+        }
+    }
+    
+    private MarshallerPool getMarshallerPool(JAXBContext context) {
+        if (marshallerPoolSize <= 0) {
+            return null;
+        }
+        MarshallerPool pool = marshallerPools.get(context);
+        if (pool == null) {
+            if (marshallerPools.size() >= MAX_POOLED_CONTEXTS) {
+                return null;
+            }
+            pool = new MarshallerPool(context, marshallerPoolSize);
+            MarshallerPool existing = marshallerPools.putIfAbsent(context, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        return pool;
+    }
+    
         
     protected Class<?> getActualType(Class<?> type, Type genericType, Annotation[] anns) {
         Class<?> theType = null;
@@ -994,4 +1083,57 @@ public abstract class AbstractJAXBProvider extends AbstractConfigurableProvider
         }
         
     }
+    
+    /**
+     * The lease of a pooled Marshaller or Unmarshaller, it is carried by the proxy 
+     * handed out to the caller rather than kept by the provider so an instance which 
+     * is never released is simply garbage collected.
+     */
+    private static final class PooledInstance implements InvocationHandler {
+        private final MarshallerPool pool;
+        private final AtomicReference<Object> instance;
+        
+        private PooledInstance(MarshallerPool pool, Object instance) {
+            this.pool = pool;
+            this.instance = new AtomicReference<Object>(instance);
+        }
+        
+        static <T> T lease(Class<T> type, T instance, MarshallerPool pool) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[] {type}, 
+                                                    new PooledInstance(pool, instance)));
+        }
+        
+        static PooledInstance getLease(Object proxy) {
+            if (proxy != null && Proxy.isProxyClass(proxy.getClass())) {
+                InvocationHandler handler = Proxy.getInvocationHandler(proxy);
+                if (handler instanceof PooledInstance) {
+                    return (PooledInstance)handler;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * Returns the leased instance the first time it is called and null afterwards. 
+         */
+        Object end() {
+            return instance.getAndSet(null);
+        }
+        
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return "equals".equals(method.getName()) 
+                    ? Boolean.valueOf(proxy == args[0]) : method.invoke(this, args);
+            }
+            Object target = instance.get();
+            if (target == null) {
+                throw new IllegalStateException("The instance has been released");
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
 }
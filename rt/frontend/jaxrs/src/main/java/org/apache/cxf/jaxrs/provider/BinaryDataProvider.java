@@ -39,9 +39,10 @@ import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.jaxrs.ext.StableProvider;
 
 public class BinaryDataProvider extends AbstractConfigurableProvider 
-    implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    implements MessageBodyReader<Object>, MessageBodyWriter<Object>, StableProvider {
     
     private static final int BUFFER_SIZE = 4096;
 
@@ -43,6 +43,7 @@ import javax.ws.rs.ext.Provider;
 
 import org.apache.cxf.attachment.AttachmentUtil;
 import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.jaxrs.ext.StableProvider;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
@@ -56,7 +57,7 @@ import org.apache.cxf.jaxrs.utils.multipart.AttachmentUtils;
 @Consumes({"application/x-www-form-urlencoded", "multipart/form-data" })
 @Provider
 public class FormEncodingProvider implements 
-    MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    MessageBodyReader<Object>, MessageBodyWriter<Object>, StableProvider {
         
     private FormValidator validator;
     @Context private MessageContext mc;
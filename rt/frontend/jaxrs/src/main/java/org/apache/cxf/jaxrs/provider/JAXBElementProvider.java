@@ -55,6 +55,7 @@ import javax.xml.transform.stream.StreamSource;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.jaxb.NamespaceMapper;
 import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.jaxrs.ext.StableProvider;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.schemas.SchemaHandler;
@@ -66,7 +67,7 @@ import org.apache.cxf.staxutils.StaxUtils;
 @Produces({"application/xml", "application/*+xml", "text/xml" })
 @Consumes({"application/xml", "application/*+xml", "text/xml" })
 @Provider
-public class JAXBElementProvider extends AbstractJAXBProvider  {
+public class JAXBElementProvider extends AbstractJAXBProvider implements StableProvider {
     
     private static final List<String> MARSHALLER_PROPERTIES =
         Arrays.asList(new String[] {Marshaller.JAXB_ENCODING,
@@ -149,17 +150,23 @@ public class JAXBElementProvider extends AbstractJAXBProvider  {
             theType = getActualType(theType, genericType, anns);
 
             Unmarshaller unmarshaller = createUnmarshaller(theType, genericType, isCollection);
-            if (eventHandler != null) {
-                unmarshaller.setEventHandler(eventHandler);
-            }
-            addAttachmentUnmarshaller(unmarshaller);
+            boolean unmarshalled = false;
             Object response = null;
-            if (JAXBElement.class.isAssignableFrom(type) 
-                || unmarshalAsJaxbElement 
-                || jaxbElementClassMap != null && jaxbElementClassMap.containsKey(theType.getName())) {
-                response = unmarshaller.unmarshal(new StreamSource(is), theType);
-            } else {
-                response = doUnmarshal(unmarshaller, type, is, mt);
+            try {
+                if (eventHandler != null) {
+                    unmarshaller.setEventHandler(eventHandler);
+                }
+                addAttachmentUnmarshaller(unmarshaller);
+                if (JAXBElement.class.isAssignableFrom(type) 
+                    || unmarshalAsJaxbElement 
+                    || jaxbElementClassMap != null && jaxbElementClassMap.containsKey(theType.getName())) {
+                    response = unmarshaller.unmarshal(new StreamSource(is), theType);
+                } else {
+                    response = doUnmarshal(unmarshaller, type, is, mt);
+                }
+                unmarshalled = true;
+            } finally {
+                releaseUnmarshaller(unmarshaller, unmarshalled);
             }
             if (response instanceof JAXBElement && !JAXBElement.class.isAssignableFrom(type)) {
                 response = ((JAXBElement)response).getValue();    
@@ -293,17 +300,24 @@ public class JAXBElementProvider extends AbstractJAXBProvider  {
             cls = JAXBElement.class;
         }
         Marshaller ms = createMarshaller(obj, cls, genericType, enc);
-        ms.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
-        if (ns.length() > 0) {
-            Map<String, String> map = Collections.singletonMap(ns, "ns1");
-            NamespaceMapper nsMapper = new NamespaceMapper(map);
-            try {
-                ms.setProperty("com.sun.xml.bind.namespacePrefixMapper", nsMapper);
-            } catch (PropertyException ex) {
-                ms.setProperty("com.sun.xml.internal.bind.namespacePrefixMapper", nsMapper);
+        boolean marshalled = false;
+        try {
+            ms.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            if (ns.length() > 0) {
+                Map<String, String> map = Collections.singletonMap(ns, "ns1");
+                NamespaceMapper nsMapper = new NamespaceMapper(map);
+                try {
+                    ms.setProperty("com.sun.xml.bind.namespacePrefixMapper", nsMapper);
+                } catch (PropertyException ex) {
+                    ms.setProperty("com.sun.xml.internal.bind.namespacePrefixMapper", nsMapper);
+                }
             }
+            marshal(obj, cls, genericType, enc, os, mt, ms);
+            marshalled = true;
+        } finally {
+            // a marshaller with a prefix mapper set can not be reset
+            releaseMarshaller(ms, marshalled && ns.length() == 0);
         }
-        marshal(obj, cls, genericType, enc, os, mt, ms);
     }
     
     protected void marshal(Object obj, Class<?> cls, Type genericType, 
@@ -314,8 +328,14 @@ public class JAXBElementProvider extends AbstractJAXBProvider  {
         }
         
         Marshaller ms = createMarshaller(obj, cls, genericType, enc);
-        addAttachmentMarshaller(ms);
-        marshal(obj, cls, genericType, enc, os, mt, ms);
+        boolean marshalled = false;
+        try {
+            addAttachmentMarshaller(ms);
+            marshal(obj, cls, genericType, enc, os, mt, ms);
+            marshalled = true;
+        } finally {
+            releaseMarshaller(ms, marshalled);
+        }
     }
     
     protected void addAttachmentMarshaller(Marshaller ms) {
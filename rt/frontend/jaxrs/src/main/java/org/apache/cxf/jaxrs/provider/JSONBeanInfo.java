@@ -0,0 +1,348 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.beans.Introspector;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * The JSON properties of a JAXB-annotated or plain bean class, worked out once
+ * per class. The JAXB access type, XmlTransient, the names given by XmlElement
+ * and XmlAttribute and the XmlType property order are respected, plain beans
+ * are treated like JAXB beans with the default public member access.
+ * 
+ * As with the mapped convention of JSONProvider the attributes come first and
+ * their names start with '@'. Namespaces are not written, the local names are 
+ * used.
+ */
+final class JSONBeanInfo {
+    private static final String JAXB_DEFAULT_NAME = "##default";
+    private static final String ATTRIBUTE_PREFIX = "@";
+    
+    private final Class<?> beanClass;
+    private final String rootName;
+    private final Constructor<?> constructor;
+    private final Property[] properties;
+    private final Map<String, Property> propertiesByName = new HashMap<String, Property>();
+    
+    JSONBeanInfo(Class<?> beanClass) {
+        this.beanClass = beanClass;
+        XmlRootElement root = beanClass.getAnnotation(XmlRootElement.class);
+        if (root == null) {
+            rootName = null;
+        } else {
+            rootName = JAXB_DEFAULT_NAME.equals(root.name()) 
+                ? Introspector.decapitalize(beanClass.getSimpleName()) : root.name();
+        }
+        constructor = getDefaultConstructor(beanClass);
+        
+        Map<String, Property> props = new LinkedHashMap<String, Property>();
+        List<Class<?>> classes = new LinkedList<Class<?>>();
+        for (Class<?> c = beanClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            classes.add(0, c);
+        }
+        for (Class<?> c : classes) {
+            addProperties(c, getAccessType(c), props);
+        }
+        properties = orderProperties(beanClass, props);
+        for (Property p : properties) {
+            propertiesByName.put(p.getName(), p);
+        }
+        // attributes are also accepted without the '@'
+        for (Property p : properties) {
+            if (p.isAttribute() && !propertiesByName.containsKey(p.getXmlName())) {
+                propertiesByName.put(p.getXmlName(), p);
+            }
+        }
+    }
+    
+    String getRootName() {
+        return rootName;
+    }
+    
+    Property[] getProperties() {
+        return properties;
+    }
+    
+    Property getProperty(String name) {
+        return propertiesByName.get(name);
+    }
+    
+    boolean canCreate() {
+        return constructor != null;
+    }
+    
+    Object newInstance() throws Exception {
+        if (constructor == null) {
+            throw new InstantiationException("Class " + beanClass.getName() 
+                                             + " has no default constructor");
+        }
+        return constructor.newInstance(new Object[]{});
+    }
+    
+    private static Constructor<?> getDefaultConstructor(Class<?> cls) {
+        if (cls.isInterface() || Modifier.isAbstract(cls.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> c = cls.getDeclaredConstructor(new Class[]{});
+            if (!Modifier.isPublic(c.getModifiers()) || !Modifier.isPublic(cls.getModifiers())) {
+                c.setAccessible(true);
+            }
+            return c;
+        } catch (NoSuchMethodException ex) {
+            return null;
+        } catch (SecurityException ex) {
+            return null;
+        }
+    }
+    
+    private static XmlAccessType getAccessType(Class<?> cls) {
+        XmlAccessorType accessor = cls.getAnnotation(XmlAccessorType.class);
+        if (accessor == null && cls.getPackage() != null) {
+            accessor = cls.getPackage().getAnnotation(XmlAccessorType.class);
+        }
+        return accessor == null ? XmlAccessType.PUBLIC_MEMBER : accessor.value();
+    }
+    
+    private static boolean isAnnotated(AnnotatedElement element) {
+        return element.getAnnotation(XmlElement.class) != null 
+            || element.getAnnotation(XmlAttribute.class) != null;
+    }
+    
+    private static boolean isAttribute(AnnotatedElement element) {
+        return element.getAnnotation(XmlElement.class) == null 
+            && element.getAnnotation(XmlAttribute.class) != null;
+    }
+    
+    private static String getName(AnnotatedElement element, String defaultName) {
+        String name = null;
+        XmlElement el = element.getAnnotation(XmlElement.class);
+        if (el != null) {
+            name = el.name();
+        } else {
+            XmlAttribute attr = element.getAnnotation(XmlAttribute.class);
+            if (attr != null) {
+                name = attr.name();
+            }
+        }
+        return name == null || JAXB_DEFAULT_NAME.equals(name) ? defaultName : name;
+    }
+    
+    private static void addProperties(Class<?> cls, XmlAccessType accessType, Map<String, Property> props) {
+        for (Field f : cls.getDeclaredFields()) {
+            int mod = f.getModifiers();
+            if (Modifier.isStatic(mod) || Modifier.isTransient(mod) || f.isSynthetic()
+                || f.getAnnotation(XmlTransient.class) != null) {
+                continue;
+            }
+            if (accessType == XmlAccessType.FIELD || isAnnotated(f)
+                || accessType == XmlAccessType.PUBLIC_MEMBER && Modifier.isPublic(mod)) {
+                try {
+                    if (!Modifier.isPublic(mod) || !Modifier.isPublic(cls.getModifiers())) {
+                        f.setAccessible(true);
+                    }
+                } catch (SecurityException ex) {
+                    continue;
+                }
+                addProperty(props, new Property(getName(f, f.getName()), isAttribute(f), f.getType(), 
+                                                f.getGenericType(), f, null, null));
+            }
+        }
+        for (Method m : cls.getDeclaredMethods()) {
+            String propertyName = getPropertyName(m);
+            if (propertyName == null || m.getAnnotation(XmlTransient.class) != null
+                || !isAnnotated(m) && accessType != XmlAccessType.PROPERTY 
+                    && accessType != XmlAccessType.PUBLIC_MEMBER) {
+                continue;
+            }
+            Method setter = null;
+            try {
+                setter = cls.getMethod("set" + m.getName().substring(m.getName().startsWith("is") ? 2 : 3),
+                                       new Class[]{m.getReturnType()});
+            } catch (NoSuchMethodException ex) {
+                // read-only
+            }
+            if (setter == null && !Collection.class.isAssignableFrom(m.getReturnType())) {
+                continue;
+            }
+            try {
+                if (!Modifier.isPublic(cls.getModifiers())) {
+                    m.setAccessible(true);
+                    if (setter != null) {
+                        setter.setAccessible(true);
+                    }
+                }
+            } catch (SecurityException ex) {
+                continue;
+            }
+            addProperty(props, new Property(getName(m, propertyName), isAttribute(m), m.getReturnType(), 
+                                            m.getGenericReturnType(), null, m, setter));
+        }
+    }
+    
+    private static String getPropertyName(Method m) {
+        int mod = m.getModifiers();
+        if (!Modifier.isPublic(mod) || Modifier.isStatic(mod) || m.isBridge() || m.isSynthetic()
+            || m.getParameterTypes().length != 0) {
+            return null;
+        }
+        String name = m.getName();
+        Class<?> type = m.getReturnType();
+        if (name.startsWith("get") && name.length() > 3 && type != Void.TYPE) {
+            return Introspector.decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 && (type == Boolean.TYPE || type == Boolean.class)) {
+            return Introspector.decapitalize(name.substring(2));
+        }
+        return null;
+    }
+    
+    private static void addProperty(Map<String, Property> props, Property p) {
+        if (!props.containsKey(p.getName())) {
+            props.put(p.getName(), p);
+        }
+    }
+    
+    private static Property[] orderProperties(Class<?> cls, Map<String, Property> props) {
+        List<Property> ordered = new ArrayList<Property>(props.size());
+        Map<String, Property> remaining = new LinkedHashMap<String, Property>();
+        for (Property p : props.values()) {
+            // JAXB writes the attributes before the elements whatever the order
+            if (p.isAttribute()) {
+                ordered.add(p);
+            } else {
+                remaining.put(p.getName(), p);
+            }
+        }
+        XmlType type = cls.getAnnotation(XmlType.class);
+        if (type == null || type.propOrder().length == 0 
+            || type.propOrder().length == 1 && type.propOrder()[0].length() == 0) {
+            ordered.addAll(remaining.values());
+            return ordered.toArray(new Property[ordered.size()]);
+        }
+        for (String name : type.propOrder()) {
+            Property p = remaining.remove(name);
+            if (p == null) {
+                // propOrder lists the Java property names
+                for (Property candidate : remaining.values()) {
+                    if (name.equals(candidate.getJavaName())) {
+                        p = remaining.remove(candidate.getName());
+                        break;
+                    }
+                }
+            }
+            if (p != null) {
+                ordered.add(p);
+            }
+        }
+        ordered.addAll(remaining.values());
+        return ordered.toArray(new Property[ordered.size()]);
+    }
+    
+    static final class Property {
+        private final String name;
+        private final String xmlName;
+        private final boolean attribute;
+        private final Class<?> type;
+        private final JSONValueHandler handler;
+        private final Field field;
+        private final Method getter;
+        private final Method setter;
+        
+        Property(String name, boolean attribute, Class<?> type, Type genericType, 
+                 Field field, Method getter, Method setter) {
+            this.name = attribute ? ATTRIBUTE_PREFIX + name : name;
+            this.xmlName = name;
+            this.attribute = attribute;
+            this.type = type;
+            this.handler = JSONValueHandler.getHandler(genericType);
+            this.field = field;
+            this.getter = getter;
+            this.setter = setter;
+        }
+        
+        String getName() {
+            return name;
+        }
+        
+        String getXmlName() {
+            return xmlName;
+        }
+        
+        boolean isAttribute() {
+            return attribute;
+        }
+        
+        String getJavaName() {
+            if (field != null) {
+                return field.getName();
+            }
+            String methodName = getter.getName();
+            return Introspector.decapitalize(methodName.substring(methodName.startsWith("is") ? 2 : 3));
+        }
+        
+        JSONValueHandler getHandler() {
+            return handler;
+        }
+        
+        Object getValue(Object bean) throws Exception {
+            return field != null ? field.get(bean) : getter.invoke(bean, new Object[]{});
+        }
+        
+        @SuppressWarnings("unchecked")
+        void setValue(Object bean, Object value) throws Exception {
+            if (value == null && type.isPrimitive()) {
+                return;
+            }
+            if (field != null) {
+                field.set(bean, value);
+            } else if (setter != null) {
+                setter.invoke(bean, new Object[]{value});
+            } else if (value != null) {
+                // a read-only collection property, as supported by JAXB
+                Collection<Object> values = (Collection<Object>)getter.invoke(bean, new Object[]{});
+                if (values != null) {
+                    values.addAll((Collection<Object>)value);
+                }
+            }
+        }
+    }
+}
@@ -51,6 +51,7 @@ import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.jaxrs.ext.StableProvider;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.schemas.SchemaHandler;
@@ -58,7 +59,7 @@ import org.apache.cxf.jaxrs.utils.schemas.SchemaHandler;
 @Produces("application/json")
 @Consumes("application/json")
 @Provider
-public class JSONProvider extends AbstractJAXBProvider  {
+public class JSONProvider extends AbstractJAXBProvider implements StableProvider {
     
     private static final String MAPPED_CONVENTION = "mapped";
     private static final String BADGER_FISH_CONVENTION = "badgerfish";
@@ -157,17 +158,22 @@ public class JSONProvider extends AbstractJAXBProvider  {
         try {
             Class<?> theType = getActualType(type, genericType, anns);
             Unmarshaller unmarshaller = createUnmarshaller(theType, genericType);
-            
-            InputStream realStream = getInputStream(type, genericType, is);
-            XMLStreamReader xsw = createReader(type, realStream);
-            
+            boolean unmarshalled = false;
             Object response = null;
-            if (JAXBElement.class.isAssignableFrom(type) 
-                || unmarshalAsJaxbElement
-                || jaxbElementClassMap != null && jaxbElementClassMap.containsKey(theType.getName())) {
-                response = unmarshaller.unmarshal(xsw, theType);
-            } else {
-                response = unmarshaller.unmarshal(xsw);
+            try {
+                InputStream realStream = getInputStream(type, genericType, is);
+                XMLStreamReader xsw = createReader(type, realStream);
+                
+                if (JAXBElement.class.isAssignableFrom(type) 
+                    || unmarshalAsJaxbElement
+                    || jaxbElementClassMap != null && jaxbElementClassMap.containsKey(theType.getName())) {
+                    response = unmarshaller.unmarshal(xsw, theType);
+                } else {
+                    response = unmarshaller.unmarshal(xsw);
+                }
+                unmarshalled = true;
+            } finally {
+                releaseUnmarshaller(unmarshaller, unmarshalled);
             }
             if (response instanceof JAXBElement && !JAXBElement.class.isAssignableFrom(type)) {
                 response = ((JAXBElement)response).getValue();    
@@ -313,7 +319,13 @@ public class JSONProvider extends AbstractJAXBProvider  {
                 cls = JAXBElement.class;
             }
             Marshaller ms = createMarshaller(obj, cls, genericType, encoding);
-            marshal(ms, obj, cls, genericType, encoding, os, true);
+            boolean marshalled = false;
+            try {
+                marshal(ms, obj, cls, genericType, encoding, os, true);
+                marshalled = true;
+            } finally {
+                releaseMarshaller(ms, marshalled);
+            }
             if (i + 1 < arr.length) {
                 os.write(",".getBytes());
             }
@@ -355,7 +367,13 @@ public class JSONProvider extends AbstractJAXBProvider  {
         }
         
         Marshaller ms = createMarshaller(actualObject, actualClass, genericType, enc);
-        marshal(ms, actualObject, actualClass, genericType, enc, os, false);
+        boolean marshalled = false;
+        try {
+            marshal(ms, actualObject, actualClass, genericType, enc, os, false);
+            marshalled = true;
+        } finally {
+            releaseMarshaller(ms, marshalled);
+        }
     }
     
     private QName getQName(Class<?> cls, Type type, Object object, boolean allocatePrefix) 
@@ -0,0 +1,365 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads JSON tokens from a Reader one at a time, only buffering a small
+ * block of characters, so that large documents and arrays can be read
+ * incrementally. The token ahead can be looked at with peek() before it
+ * is consumed.
+ */
+final class JSONTokenReader {
+    static final int BEGIN_OBJECT = 1;
+    static final int END_OBJECT = 2;
+    static final int BEGIN_ARRAY = 3;
+    static final int END_ARRAY = 4;
+    static final int NAME = 5;
+    static final int STRING = 6;
+    static final int NUMBER = 7;
+    static final int BOOLEAN = 8;
+    static final int NULL = 9;
+    static final int END_DOCUMENT = 10;
+    
+    private static final int NONE = 0;
+    
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+    
+    private final Reader reader;
+    private final char[] buffer = new char[4096];
+    private int pos;
+    private int limit;
+    private int offset;
+    
+    private int[] scopes = new int[16];
+    private int depth = 1;
+    
+    private int peeked = NONE;
+    private String peekedText;
+    private final StringBuilder text = new StringBuilder();
+    
+    JSONTokenReader(Reader reader) {
+        this.reader = reader;
+        scopes[0] = EMPTY_DOCUMENT;
+    }
+    
+    int peek() throws IOException {
+        if (peeked != NONE) {
+            return peeked;
+        }
+        int c;
+        switch (scopes[depth - 1]) {
+        case EMPTY_DOCUMENT:
+            scopes[depth - 1] = NONEMPTY_DOCUMENT;
+            break;
+        case NONEMPTY_DOCUMENT:
+            if (nextNonWhitespace() == -1) {
+                return peeked = END_DOCUMENT;
+            }
+            throw syntaxError("Unexpected content after the document");
+        case EMPTY_ARRAY:
+            scopes[depth - 1] = NONEMPTY_ARRAY;
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = END_ARRAY;
+            }
+            // the first value is read from there, at the end nothing is left to go back to
+            if (c != -1) {
+                pos--;
+            }
+            break;
+        case NONEMPTY_ARRAY:
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = END_ARRAY;
+            } else if (c != ',') {
+                throw syntaxError("Expected ',' or ']'");
+            }
+            break;
+        case EMPTY_OBJECT:
+        case NONEMPTY_OBJECT:
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return peeked = END_OBJECT;
+            }
+            if (scopes[depth - 1] == NONEMPTY_OBJECT) {
+                if (c != ',') {
+                    throw syntaxError("Expected ',' or '}'");
+                }
+                c = nextNonWhitespace();
+            }
+            if (c != '"') {
+                throw syntaxError("Expected a name");
+            }
+            scopes[depth - 1] = DANGLING_NAME;
+            peekedText = readString();
+            return peeked = NAME;
+        case DANGLING_NAME:
+            scopes[depth - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("Expected ':'");
+            }
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+        return peekValue();
+    }
+    
+    boolean hasNext() throws IOException {
+        int p = peek();
+        return p != END_OBJECT && p != END_ARRAY && p != END_DOCUMENT;
+    }
+    
+    void beginObject() throws IOException {
+        expect(BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+    
+    void endObject() throws IOException {
+        expect(END_OBJECT);
+        depth--;
+    }
+    
+    void beginArray() throws IOException {
+        expect(BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+    
+    void endArray() throws IOException {
+        expect(END_ARRAY);
+        depth--;
+    }
+    
+    String nextName() throws IOException {
+        expect(NAME);
+        return peekedText;
+    }
+    
+    /**
+     * Returns the text of the next string, number or boolean value, or null
+     * if the next value is null
+     */
+    String nextText() throws IOException {
+        int p = peek();
+        if (p != STRING && p != NUMBER && p != BOOLEAN && p != NULL) {
+            throw syntaxError("Expected a value");
+        }
+        peeked = NONE;
+        return p == NULL ? null : peekedText;
+    }
+    
+    boolean nextNull() throws IOException {
+        if (peek() == NULL) {
+            peeked = NONE;
+            return true;
+        }
+        return false;
+    }
+    
+    void skipValue() throws IOException {
+        int count = 0;
+        do {
+            switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                count++;
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                count++;
+                break;
+            case END_OBJECT:
+                endObject();
+                count--;
+                break;
+            case END_ARRAY:
+                endArray();
+                count--;
+                break;
+            case END_DOCUMENT:
+                throw syntaxError("Unexpected end of the document");
+            default:
+                peeked = NONE;
+            }
+        } while (count != 0);
+    }
+    
+    private void expect(int token) throws IOException {
+        if (peek() != token) {
+            throw syntaxError("Unexpected token");
+        }
+        peeked = NONE;
+    }
+    
+    private void push(int scope) {
+        if (depth == scopes.length) {
+            int[] newScopes = new int[depth * 2];
+            System.arraycopy(scopes, 0, newScopes, 0, depth);
+            scopes = newScopes;
+        }
+        scopes[depth++] = scope;
+    }
+    
+    private int peekValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+        case '{':
+            return peeked = BEGIN_OBJECT;
+        case '[':
+            return peeked = BEGIN_ARRAY;
+        case '"':
+            peekedText = readString();
+            return peeked = STRING;
+        case 't':
+            readLiteral("rue");
+            peekedText = "true";
+            return peeked = BOOLEAN;
+        case 'f':
+            readLiteral("alse");
+            peekedText = "false";
+            return peeked = BOOLEAN;
+        case 'n':
+            readLiteral("ull");
+            return peeked = NULL;
+        case -1:
+            throw syntaxError("Unexpected end of the document");
+        default:
+            if (c == '-' || c >= '0' && c <= '9') {
+                peekedText = readNumber((char)c);
+                return peeked = NUMBER;
+            }
+            throw syntaxError("Unexpected character '" + (char)c + "'");
+        }
+    }
+    
+    private int read() throws IOException {
+        if (pos == limit) {
+            offset += limit;
+            pos = 0;
+            limit = 0;
+            int count = reader.read(buffer, 0, buffer.length);
+            if (count <= 0) {
+                return -1;
+            }
+            limit = count;
+        }
+        return buffer[pos++];
+    }
+    
+    private int nextNonWhitespace() throws IOException {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = read();
+        }
+        return c;
+    }
+    
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw syntaxError("Unexpected literal");
+            }
+        }
+    }
+    
+    private String readNumber(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        while (true) {
+            int c = read();
+            if (c >= '0' && c <= '9' || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                text.append((char)c);
+            } else {
+                if (c != -1) {
+                    pos--;
+                }
+                return text.toString();
+            }
+        }
+    }
+    
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == '"') {
+                    text.append(buffer, start, pos - start - 1);
+                    return text.toString();
+                } else if (c == '\\') {
+                    text.append(buffer, start, pos - start - 1);
+                    text.append(readEscape());
+                    start = pos;
+                }
+            }
+            text.append(buffer, start, pos - start);
+            if (read() == -1) {
+                throw syntaxError("Unterminated string");
+            }
+            pos--;
+        }
+    }
+    
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'u':
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit == -1) {
+                    throw syntaxError("Invalid unicode escape");
+                }
+                value = (value << 4) + digit;
+            }
+            return (char)value;
+        case '"':
+        case '\\':
+        case '/':
+            return (char)c;
+        default:
+            throw syntaxError("Invalid escape");
+        }
+    }
+    
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at character " + (offset + pos));
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes JSON tokens to a Writer as they are produced. The names and values
+ * passed in are escaped, and the commas and colons between them are added.
+ */
+final class JSONTokenWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private final Writer writer;
+    // whether the object or array at each depth already has a member
+    private boolean[] hasMembers = new boolean[16];
+    private int depth;
+    private boolean afterName;
+    
+    JSONTokenWriter(Writer writer) {
+        this.writer = writer;
+    }
+    
+    void beginObject() throws IOException {
+        open('{');
+    }
+    
+    void endObject() throws IOException {
+        close('}');
+    }
+    
+    void beginArray() throws IOException {
+        open('[');
+    }
+    
+    void endArray() throws IOException {
+        close(']');
+    }
+    
+    void name(String name) throws IOException {
+        separate();
+        writeString(name);
+        writer.write(':');
+        afterName = true;
+    }
+    
+    void value(String value) throws IOException {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        separate();
+        writeString(value);
+    }
+    
+    void value(boolean value) throws IOException {
+        separate();
+        writer.write(value ? "true" : "false");
+    }
+    
+    /**
+     * Writes a number, its String form is expected to be a valid JSON number
+     */
+    void numberValue(String value) throws IOException {
+        separate();
+        writer.write(value);
+    }
+    
+    void nullValue() throws IOException {
+        separate();
+        writer.write("null");
+    }
+    
+    void flush() throws IOException {
+        writer.flush();
+    }
+    
+    private void open(char c) throws IOException {
+        separate();
+        writer.write(c);
+        if (++depth == hasMembers.length) {
+            boolean[] newMembers = new boolean[depth * 2];
+            System.arraycopy(hasMembers, 0, newMembers, 0, depth);
+            hasMembers = newMembers;
+        }
+        hasMembers[depth] = false;
+    }
+    
+    private void close(char c) throws IOException {
+        depth--;
+        writer.write(c);
+    }
+    
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasMembers[depth]) {
+            writer.write(',');
+        } else {
+            hasMembers[depth] = true;
+        }
+    }
+    
+    private void writeString(String s) throws IOException {
+        writer.write('"');
+        int length = s.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            if (start < i) {
+                writer.write(s, start, i - start);
+            }
+            start = i + 1;
+            switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            default:
+                writer.write("\\u");
+                writer.write(HEX[(c >> 12) & 0xF]);
+                writer.write(HEX[(c >> 8) & 0xF]);
+                writer.write(HEX[(c >> 4) & 0xF]);
+                writer.write(HEX[c & 0xF]);
+            }
+        }
+        if (start < length) {
+            writer.write(s, start, length - start);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,602 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.datatype.DatatypeFactory;
+
+import org.apache.cxf.common.util.Base64Utility;
+import org.apache.cxf.common.util.ConcurrentWeakCache;
+import org.apache.cxf.jaxrs.model.ParameterType;
+import org.apache.cxf.jaxrs.utils.InjectionUtils;
+
+/**
+ * Writes values of a given type as JSON tokens and reads them back. The
+ * handler of a type is worked out once, bean handlers keep the properties of
+ * their class, so no introspection is done while a value is written or read.
+ */
+abstract class JSONValueHandler {
+    
+    static final JSONValueHandler OBJECT = new ObjectHandler();
+    
+    private static final JSONValueHandler STRING = new JSONValueHandler() {
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.value(value.toString());
+        }
+        Object read(JSONTokenReader reader) throws Exception {
+            return reader.nextText();
+        }
+    };
+    
+    private static final JSONValueHandler BOOLEAN = new JSONValueHandler() {
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.value(((Boolean)value).booleanValue());
+        }
+        Object read(JSONTokenReader reader) throws Exception {
+            String text = reader.nextText();
+            return text == null ? null : Boolean.valueOf(text);
+        }
+    };
+    
+    private static final JSONValueHandler CHARACTER = new JSONValueHandler() {
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.value(value.toString());
+        }
+        Object read(JSONTokenReader reader) throws Exception {
+            String text = reader.nextText();
+            return text == null || text.length() == 0 ? null : Character.valueOf(text.charAt(0));
+        }
+    };
+    
+    private static final JSONValueHandler BASE64 = new JSONValueHandler() {
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.value(Base64Utility.encode((byte[])value));
+        }
+        Object read(JSONTokenReader reader) throws Exception {
+            String text = reader.nextText();
+            return text == null ? null : Base64Utility.decode(text);
+        }
+    };
+    
+    private static final Map<Class<?>, JSONValueHandler> SIMPLE_HANDLERS = 
+        new HashMap<Class<?>, JSONValueHandler>();
+    private static final ConcurrentWeakCache<Class<?>, JSONValueHandler> HANDLERS = 
+        new ConcurrentWeakCache<Class<?>, JSONValueHandler>();
+    
+    static {
+        SIMPLE_HANDLERS.put(Object.class, OBJECT);
+        SIMPLE_HANDLERS.put(String.class, STRING);
+        SIMPLE_HANDLERS.put(Boolean.class, BOOLEAN);
+        SIMPLE_HANDLERS.put(Boolean.TYPE, BOOLEAN);
+        SIMPLE_HANDLERS.put(Character.class, CHARACTER);
+        SIMPLE_HANDLERS.put(Character.TYPE, CHARACTER);
+        SIMPLE_HANDLERS.put(byte[].class, BASE64);
+        Class<?>[] numbers = new Class<?>[] {
+            Byte.class, Byte.TYPE, Short.class, Short.TYPE, Integer.class, Integer.TYPE, 
+            Long.class, Long.TYPE, Float.class, Float.TYPE, Double.class, Double.TYPE,
+            BigInteger.class, BigDecimal.class
+        };
+        for (Class<?> cls : numbers) {
+            SIMPLE_HANDLERS.put(cls, new NumberHandler(cls));
+        }
+        SIMPLE_HANDLERS.put(Date.class, new DateHandler(false));
+        SIMPLE_HANDLERS.put(Calendar.class, new DateHandler(true));
+        SIMPLE_HANDLERS.put(GregorianCalendar.class, new DateHandler(true));
+    }
+    
+    /**
+     * Writes a value which is not null
+     */
+    abstract void write(Object value, JSONTokenWriter writer) throws Exception;
+    
+    /**
+     * Reads the next value, returns null if it is a JSON null
+     */
+    abstract Object read(JSONTokenReader reader) throws Exception;
+    
+    static JSONValueHandler getHandler(Type type) {
+        if (type instanceof Class) {
+            Class<?> cls = (Class<?>)type;
+            JSONValueHandler handler = SIMPLE_HANDLERS.get(cls);
+            if (handler == null) {
+                handler = HANDLERS.get(cls);
+                if (handler == null) {
+                    handler = HANDLERS.putIfAbsent(cls, createHandler(cls));
+                }
+            }
+            return handler;
+        } else if (type instanceof ParameterizedType) {
+            Class<?> raw = InjectionUtils.getRawType(type);
+            Type[] args = ((ParameterizedType)type).getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(raw) && args.length == 1) {
+                return new CollectionHandler(raw, getHandler(args[0]));
+            } else if (Map.class.isAssignableFrom(raw) && args.length == 2) {
+                return new MapHandler(raw, getHandler(args[1]));
+            }
+            return getHandler(raw);
+        } else if (type instanceof GenericArrayType) {
+            Type componentType = ((GenericArrayType)type).getGenericComponentType();
+            Class<?> component = InjectionUtils.getRawType(componentType);
+            return component == null ? OBJECT : new ArrayHandler(component, getHandler(componentType));
+        } else if (type instanceof WildcardType) {
+            return getHandler(((WildcardType)type).getUpperBounds()[0]);
+        } else if (type instanceof TypeVariable) {
+            return getHandler(((TypeVariable<?>)type).getBounds()[0]);
+        }
+        return OBJECT;
+    }
+    
+    /**
+     * Returns true if the values of the class are written as JSON objects
+     * with the properties of the class
+     */
+    static boolean isBean(Class<?> cls) {
+        return getHandler(cls) instanceof BeanHandler;
+    }
+    
+    static JSONBeanInfo getBeanInfo(Class<?> cls) {
+        JSONValueHandler handler = getHandler(cls);
+        return handler instanceof BeanHandler ? ((BeanHandler)handler).getInfo() : null;
+    }
+    
+    private static JSONValueHandler createHandler(Class<?> cls) {
+        if (cls.isEnum()) {
+            return new EnumHandler(cls);
+        } else if (cls.isArray()) {
+            return new ArrayHandler(cls.getComponentType(), getHandler(cls.getComponentType()));
+        } else if (Collection.class.isAssignableFrom(cls)) {
+            return new CollectionHandler(cls, OBJECT);
+        } else if (Map.class.isAssignableFrom(cls)) {
+            return new MapHandler(cls, OBJECT);
+        } else if (Calendar.class.isAssignableFrom(cls)) {
+            return SIMPLE_HANDLERS.get(Calendar.class);
+        } else if (cls.getAnnotation(XmlRootElement.class) != null 
+            || cls.getAnnotation(XmlType.class) != null) {
+            return new BeanHandler(cls);
+        } else if (InjectionUtils.isPrimitive(cls) || hasStringFactory(cls)) {
+            return new TextHandler(cls);
+        } else if (!cls.isInterface() && !Modifier.isAbstract(cls.getModifiers()) && !cls.isPrimitive()
+            && !cls.getName().startsWith("java.") && !cls.getName().startsWith("javax.")) {
+            return new BeanHandler(cls);
+        }
+        return new TextHandler(cls);
+    }
+    
+    private static boolean hasStringFactory(Class<?> cls) {
+        try {
+            cls.getConstructor(new Class[]{String.class});
+            return true;
+        } catch (NoSuchMethodException ex) {
+            // try valueOf
+        }
+        for (String name : new String[] {"valueOf", "fromString"}) {
+            try {
+                if (Modifier.isStatic(cls.getMethod(name, new Class[]{String.class}).getModifiers())) {
+                    return true;
+                }
+            } catch (NoSuchMethodException ex) {
+                // no luck
+            }
+        }
+        return false;
+    }
+    
+    private static class NumberHandler extends JSONValueHandler {
+        private final Class<?> cls;
+        
+        NumberHandler(Class<?> cls) {
+            this.cls = cls;
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            if (value instanceof Double && (((Double)value).isNaN() || ((Double)value).isInfinite())
+                || value instanceof Float && (((Float)value).isNaN() || ((Float)value).isInfinite())) {
+                writer.value(value.toString());
+            } else {
+                writer.numberValue(value.toString());
+            }
+        }
+        
+        Object read(JSONTokenReader reader) throws Exception {
+            String text = reader.nextText();
+            if (text == null) {
+                return null;
+            }
+            if (cls == Integer.class || cls == Integer.TYPE) {
+                return Integer.valueOf(text);
+            } else if (cls == Long.class || cls == Long.TYPE) {
+                return Long.valueOf(text);
+            } else if (cls == Double.class || cls == Double.TYPE) {
+                return Double.valueOf(text);
+            } else if (cls == Float.class || cls == Float.TYPE) {
+                return Float.valueOf(text);
+            } else if (cls == Short.class || cls == Short.TYPE) {
+                return Short.valueOf(text);
+            } else if (cls == Byte.class || cls == Byte.TYPE) {
+                return Byte.valueOf(text);
+            } else if (cls == BigInteger.class) {
+                return new BigInteger(text);
+            }
+            return new BigDecimal(text);
+        }
+    }
+    
+    private static class DateHandler extends JSONValueHandler {
+        private static DatatypeFactory factory;
+        private final boolean calendar;
+        
+        DateHandler(boolean calendar) {
+            this.calendar = calendar;
+        }
+        
+        private static synchronized DatatypeFactory getFactory() throws Exception {
+            if (factory == null) {
+                factory = DatatypeFactory.newInstance();
+            }
+            return factory;
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            GregorianCalendar c;
+            if (value instanceof GregorianCalendar) {
+                c = (GregorianCalendar)value;
+            } else {
+                c = new GregorianCalendar();
+                c.setTime(value instanceof Date ? (Date)value : ((Calendar)value).getTime());
+            }
+            writer.value(getFactory().newXMLGregorianCalendar(c).toXMLFormat());
+        }
+        
+        Object read(JSONTokenReader reader) throws Exception {
+            String text = reader.nextText();
+            if (text == null) {
+                return null;
+            }
+            GregorianCalendar c = getFactory().newXMLGregorianCalendar(text).toGregorianCalendar();
+            return calendar ? c : c.getTime();
+        }
+    }
+    
+    private static class EnumHandler extends JSONValueHandler {
+        private final Map<Object, String> names = new HashMap<Object, String>();
+        private final Map<String, Object> values = new HashMap<String, Object>();
+        
+        EnumHandler(Class<?> cls) {
+            for (Object constant : cls.getEnumConstants()) {
+                String name = ((Enum<?>)constant).name();
+                try {
+                    Field f = cls.getField(name);
+                    XmlEnumValue value = f.getAnnotation(XmlEnumValue.class);
+                    if (value != null) {
+                        name = value.value();
+                    }
+                } catch (NoSuchFieldException ex) {
+                    // keep the name
+                }
+                names.put(constant, name);
+                values.put(name, constant);
+            }
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.value(names.get(value));
+        }
+        
+        Object read(JSONTokenReader reader) throws Exception {
+            String text = reader.nextText();
+            if (text == null) {
+                return null;
+            }
+            Object value = values.get(text);
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown enum value " + text);
+            }
+            return value;
+        }
+    }
+    
+    private static class TextHandler extends JSONValueHandler {
+        private final Class<?> cls;
+        
+        TextHandler(Class<?> cls) {
+            this.cls = cls;
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.value(value.toString());
+        }
+        
+        Object read(JSONTokenReader reader) throws Exception {
+            String text = reader.nextText();
+            return text == null ? null 
+                : InjectionUtils.handleParameter(text, cls, ParameterType.REQUEST_BODY, null);
+        }
+    }
+    
+    private static class ArrayHandler extends JSONValueHandler {
+        private final Class<?> componentType;
+        private final JSONValueHandler handler;
+        
+        ArrayHandler(Class<?> componentType, JSONValueHandler handler) {
+            this.componentType = componentType;
+            this.handler = handler;
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.beginArray();
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                writeValue(handler, Array.get(value, i), writer);
+            }
+            writer.endArray();
+        }
+        
+        Object read(JSONTokenReader reader) throws Exception {
+            if (reader.nextNull()) {
+                return null;
+            }
+            List<Object> values = new ArrayList<Object>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Object value = handler.read(reader);
+                if (value != null || !componentType.isPrimitive()) {
+                    values.add(value);
+                }
+            }
+            reader.endArray();
+            Object array = Array.newInstance(componentType, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Array.set(array, i, values.get(i));
+            }
+            return array;
+        }
+    }
+    
+    static class CollectionHandler extends JSONValueHandler {
+        private final Class<?> cls;
+        private final JSONValueHandler handler;
+        
+        CollectionHandler(Class<?> cls, JSONValueHandler handler) {
+            this.cls = cls;
+            this.handler = handler;
+        }
+        
+        JSONValueHandler getElementHandler() {
+            return handler;
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.beginArray();
+            for (Object o : (Collection<?>)value) {
+                writeValue(handler, o, writer);
+            }
+            writer.endArray();
+        }
+        
+        @SuppressWarnings("unchecked")
+        Object read(JSONTokenReader reader) throws Exception {
+            if (reader.nextNull()) {
+                return null;
+            }
+            Collection<Object> values = (Collection<Object>)newCollection();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                values.add(handler.read(reader));
+            }
+            reader.endArray();
+            return values;
+        }
+        
+        private Object newCollection() throws Exception {
+            if (!cls.isInterface() && !Modifier.isAbstract(cls.getModifiers())) {
+                return cls.newInstance();
+            } else if (SortedSet.class.isAssignableFrom(cls)) {
+                return new TreeSet<Object>();
+            } else if (Set.class.isAssignableFrom(cls)) {
+                return new LinkedHashSet<Object>();
+            } else if (Queue.class.isAssignableFrom(cls)) {
+                return new LinkedList<Object>();
+            }
+            return new ArrayList<Object>();
+        }
+    }
+    
+    private static class MapHandler extends JSONValueHandler {
+        private final Class<?> cls;
+        private final JSONValueHandler handler;
+        
+        MapHandler(Class<?> cls, JSONValueHandler handler) {
+            this.cls = cls;
+            this.handler = handler;
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                writer.name(String.valueOf(entry.getKey()));
+                writeValue(handler, entry.getValue(), writer);
+            }
+            writer.endObject();
+        }
+        
+        @SuppressWarnings("unchecked")
+        Object read(JSONTokenReader reader) throws Exception {
+            if (reader.nextNull()) {
+                return null;
+            }
+            Map<String, Object> values;
+            if (!cls.isInterface() && !Modifier.isAbstract(cls.getModifiers())) {
+                values = (Map<String, Object>)cls.newInstance();
+            } else if (SortedMap.class.isAssignableFrom(cls)) {
+                values = new TreeMap<String, Object>();
+            } else {
+                values = new LinkedHashMap<String, Object>();
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                values.put(name, handler.read(reader));
+            }
+            reader.endObject();
+            return values;
+        }
+    }
+    
+    private static class BeanHandler extends JSONValueHandler {
+        private final Class<?> cls;
+        private volatile JSONBeanInfo info;
+        
+        BeanHandler(Class<?> cls) {
+            this.cls = cls;
+        }
+        
+        // worked out on first use as beans may refer to themselves
+        JSONBeanInfo getInfo() {
+            JSONBeanInfo beanInfo = info;
+            if (beanInfo == null) {
+                beanInfo = new JSONBeanInfo(cls);
+                info = beanInfo;
+            }
+            return beanInfo;
+        }
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            writer.beginObject();
+            for (JSONBeanInfo.Property p : getInfo().getProperties()) {
+                Object propertyValue = p.getValue(value);
+                // as JAXB, which writes no elements for them
+                if (propertyValue != null && !isEmpty(propertyValue)) {
+                    writer.name(p.getName());
+                    p.getHandler().write(propertyValue, writer);
+                }
+            }
+            writer.endObject();
+        }
+        
+        Object read(JSONTokenReader reader) throws Exception {
+            if (reader.nextNull()) {
+                return null;
+            }
+            JSONBeanInfo beanInfo = getInfo();
+            Object bean = beanInfo.newInstance();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                JSONBeanInfo.Property p = beanInfo.getProperty(reader.nextName());
+                if (p == null) {
+                    reader.skipValue();
+                } else {
+                    p.setValue(bean, p.getHandler().read(reader));
+                }
+            }
+            reader.endObject();
+            return bean;
+        }
+    }
+    
+    /*
+     * Values of a declared Object type are written according to their actual
+     * class and read as Strings, numbers, Booleans, Lists and Maps.
+     */
+    private static class ObjectHandler extends JSONValueHandler {
+        
+        void write(Object value, JSONTokenWriter writer) throws Exception {
+            if (value.getClass() == Object.class) {
+                writer.beginObject();
+                writer.endObject();
+            } else {
+                getHandler(value.getClass()).write(value, writer);
+            }
+        }
+        
+        Object read(JSONTokenReader reader) throws Exception {
+            switch (reader.peek()) {
+            case JSONTokenReader.BEGIN_OBJECT:
+                Map<String, Object> values = new LinkedHashMap<String, Object>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    values.put(name, read(reader));
+                }
+                reader.endObject();
+                return values;
+            case JSONTokenReader.BEGIN_ARRAY:
+                List<Object> list = new ArrayList<Object>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(read(reader));
+                }
+                reader.endArray();
+                return list;
+            case JSONTokenReader.NUMBER:
+                return new BigDecimal(reader.nextText());
+            case JSONTokenReader.BOOLEAN:
+                return Boolean.valueOf(reader.nextText());
+            default:
+                return reader.nextText();
+            }
+        }
+    }
+    
+    private static boolean isEmpty(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>)value).isEmpty();
+        }
+        return value.getClass().isArray() && Array.getLength(value) == 0;
+    }
+    
+    private static void writeValue(JSONValueHandler handler, Object value, JSONTokenWriter writer) 
+        throws Exception {
+        if (value == null) {
+            writer.nullValue();
+        } else {
+            handler.write(value, writer);
+        }
+    }
+}
@@ -52,6 +52,7 @@ import org.apache.cxf.attachment.ByteDataSource;
 import org.apache.cxf.common.i18n.BundleUtils;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.jaxrs.ext.StableProvider;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.InputStreamDataSource;
 import org.apache.cxf.jaxrs.ext.multipart.Multipart;
@@ -67,7 +68,7 @@ import org.apache.cxf.message.MessageUtils;
 @Consumes({"multipart/related", "multipart/mixed", "multipart/alternative", "multipart/form-data" })
 @Produces({"multipart/related", "multipart/mixed", "multipart/alternative" })
 public class MultipartProvider extends AbstractConfigurableProvider
-    implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    implements MessageBodyReader<Object>, MessageBodyWriter<Object>, StableProvider {
     
     private static final Logger LOG = LogUtils.getL7dLogger(MultipartProvider.class);
     private static final ResourceBundle BUNDLE = BundleUtils.getBundle(MultipartProvider.class);
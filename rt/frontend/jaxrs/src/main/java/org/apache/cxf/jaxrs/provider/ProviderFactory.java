@@ -20,15 +20,19 @@
 package org.apache.cxf.jaxrs.provider;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.ws.rs.core.MediaType;
@@ -46,6 +50,7 @@ import org.apache.cxf.jaxrs.client.ResponseExceptionMapper;
 import org.apache.cxf.jaxrs.ext.ParameterHandler;
 import org.apache.cxf.jaxrs.ext.RequestHandler;
 import org.apache.cxf.jaxrs.ext.ResponseHandler;
+import org.apache.cxf.jaxrs.ext.StableProvider;
 import org.apache.cxf.jaxrs.impl.RequestPreprocessor;
 import org.apache.cxf.jaxrs.impl.WebApplicationExceptionMapper;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
@@ -56,6 +61,8 @@ import org.apache.cxf.message.Message;
 
 public final class ProviderFactory {
     private static final Logger LOG = LogUtils.getL7dLogger(ProviderFactory.class);
+    private static final int MAX_SELECTIONS = 1000;
+    private static final Object NO_PROVIDER = new Object();
     private static final ProviderFactory SHARED_FACTORY = new ProviderFactory();
     
     static {
@@ -88,6 +95,15 @@ public final class ProviderFactory {
         new ArrayList<ProviderInfo<ResponseExceptionMapper>>(1);
     private RequestPreprocessor requestPreprocessor;
     
+    private boolean stableReaders;
+    private boolean stableWriters;
+    private ConcurrentHashMap<SelectionKey, Object> readerSelections = 
+        new ConcurrentHashMap<SelectionKey, Object>();
+    private ConcurrentHashMap<SelectionKey, Object> writerSelections = 
+        new ConcurrentHashMap<SelectionKey, Object>();
+    private AtomicLong selectionHits = new AtomicLong();
+    private AtomicLong selectionMisses = new AtomicLong();
+    
     private ProviderFactory() {
     }
     
@@ -372,6 +388,7 @@ public final class ProviderFactory {
         
         sortReaders();
         sortWriters();
+        resetSelections();
         
         injectContexts(messageReaders, messageWriters, contextResolvers, requestHandlers, responseHandlers,
                        exceptionMappers);
@@ -402,6 +419,187 @@ public final class ProviderFactory {
         Collections.sort(messageWriters, new MessageBodyWriterComparator());
     }
     
+    /*
+     * Selections are only remembered if every reader or writer declares that
+     * its answers are stable, otherwise a provider which might change its mind
+     * could be hidden behind or stand in for another one. 
+     */
+    private void resetSelections() {
+        stableReaders = isStable(messageReaders);
+        stableWriters = isStable(messageWriters);
+        readerSelections.clear();
+        writerSelections.clear();
+    }
+    
+    private static boolean isStable(List<? extends ProviderInfo<?>> providers) {
+        for (ProviderInfo<?> pi : providers) {
+            if (!isStable(pi.getProvider().getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /*
+     * The marker is not inherited: a subclass may override isReadable or isWriteable
+     * with answers depending on more than their arguments, so it has to declare
+     * StableProvider itself. 
+     */
+    private static boolean isStable(Class<?> cls) {
+        for (Class<?> c : cls.getInterfaces()) {
+            if (c == StableProvider.class) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /*
+     * The shared factory lives as long as the CXF classes do, so it only remembers 
+     * selections made for types and annotations loaded by the class loader of CXF 
+     * or its parents, keys holding on to application classes would keep a redeployed 
+     * application from being unloaded. 
+     */
+    private boolean canRemember(Class<?> type, Type genericType, Annotation[] annotations) {
+        if (this != SHARED_FACTORY) {
+            return true;
+        }
+        if (!isSharedType(type) || !isSharedType(genericType)) {
+            return false;
+        }
+        if (annotations != null) {
+            for (Annotation a : annotations) {
+                if (!isSharedAnnotation(a)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isSharedType(Type type) {
+        if (type == null) {
+            return true;
+        } else if (type instanceof Class) {
+            return isSharedClass((Class<?>)type);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType)type;
+            if (!isSharedType(pt.getRawType()) || !isSharedType(pt.getOwnerType())) {
+                return false;
+            }
+            return areSharedTypes(pt.getActualTypeArguments());
+        } else if (type instanceof GenericArrayType) {
+            return isSharedType(((GenericArrayType)type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            WildcardType wt = (WildcardType)type;
+            return areSharedTypes(wt.getUpperBounds()) && areSharedTypes(wt.getLowerBounds());
+        }
+        // a type variable holds on to the class or method declaring it
+        return false;
+    }
+    
+    private static boolean areSharedTypes(Type[] types) {
+        for (Type t : types) {
+            if (!isSharedType(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isSharedAnnotation(Annotation a) {
+        if (!isSharedClass(a.annotationType())) {
+            return false;
+        }
+        // the values of the annotation may refer to application classes too
+        for (Method m : a.annotationType().getDeclaredMethods()) {
+            Class<?> rt = m.getReturnType();
+            if (rt.isPrimitive() || rt == String.class || rt == String[].class) {
+                continue;
+            }
+            Object value;
+            try {
+                value = m.invoke(a);
+            } catch (Exception ex) {
+                return false;
+            }
+            Object[] values = value instanceof Object[] ? (Object[])value : new Object[] {value};
+            for (Object v : values) {
+                if (v instanceof Class && !isSharedClass((Class<?>)v)
+                    || v instanceof Enum && !isSharedClass(((Enum<?>)v).getDeclaringClass())
+                    || v instanceof Annotation && !isSharedAnnotation((Annotation)v)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isSharedClass(Class<?> cls) {
+        ClassLoader loader = cls.getClassLoader();
+        if (loader == null) {
+            return true;
+        }
+        for (ClassLoader l = ProviderFactory.class.getClassLoader(); l != null; l = l.getParent()) {
+            if (l == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void rememberSelection(ConcurrentHashMap<SelectionKey, Object> selections,
+                                   SelectionKey key, ProviderInfo<?> selected) {
+        if (selections.size() >= MAX_SELECTIONS) {
+            selections.clear();
+        }
+        selections.put(key, selected == null ? NO_PROVIDER : selected);
+    }
+    
+    private Object getSelection(ConcurrentHashMap<SelectionKey, Object> selections,
+                                SelectionKey key, Message m) {
+        Object selected = selections.get(key);
+        if (selected == null) {
+            selectionMisses.incrementAndGet();
+            return null;
+        }
+        selectionHits.incrementAndGet();
+        if (selected == NO_PROVIDER) {
+            return selected;
+        }
+        ProviderInfo<?> pi = (ProviderInfo<?>)selected;
+        if (this == SHARED_FACTORY || m != null) {
+            InjectionUtils.injectContextFields(pi.getProvider(), pi, m);
+            InjectionUtils.injectContextMethods(pi.getProvider(), pi, m);
+        }
+        return pi.getProvider();
+    }
+    
+    private static <T> ProviderInfo<T> findProviderInfo(List<ProviderInfo<T>> providers, Object provider) {
+        for (ProviderInfo<T> pi : providers) {
+            if (pi.getProvider() == provider) {
+                return pi;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns how many times a message body reader or writer was found 
+     * among the remembered selections
+     */
+    public long getSelectionHits() {
+        return selectionHits.get();
+    }
+    
+    /**
+     * Returns how many times a message body reader or writer had to be
+     * selected because no selection was remembered for it
+     */
+    public long getSelectionMisses() {
+        return selectionMisses.get();
+    }
+    
         
     
     /**
@@ -420,12 +618,23 @@ public final class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        SelectionKey key = null;
+        if (stableReaders && canRemember(type, genericType, annotations)) {
+            key = new SelectionKey(type, genericType, annotations, mediaType);
+            Object selected = getSelection(readerSelections, key, m);
+            if (selected != null) {
+                return selected == NO_PROVIDER ? null : (MessageBodyReader<T>)selected;
+            }
+        }
         List<MessageBodyReader<T>> candidates = new LinkedList<MessageBodyReader<T>>();
         for (ProviderInfo<MessageBodyReader> ep : messageReaders) {
             if (matchesReaderCriterias(ep.getProvider(), type, genericType, annotations, mediaType)) {
                 if (this == SHARED_FACTORY) {
                     InjectionUtils.injectContextFields(ep.getProvider(), ep, m);
                     InjectionUtils.injectContextMethods(ep.getProvider(), ep, m);
+                    if (key != null) {
+                        rememberSelection(readerSelections, key, ep);
+                    }
                     return ep.getProvider();
                 }
                 handleMapper((List)candidates, ep, type, m);
@@ -433,9 +642,15 @@ public final class ProviderFactory {
         }     
         
         if (candidates.size() == 0) {
+            if (key != null) {
+                rememberSelection(readerSelections, key, null);
+            }
             return null;
         }
         Collections.sort(candidates, new ClassComparator());
+        if (key != null) {
+            rememberSelection(readerSelections, key, findProviderInfo(messageReaders, candidates.get(0)));
+        }
         return candidates.get(0);
         
     }
@@ -474,21 +689,38 @@ public final class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        SelectionKey key = null;
+        if (stableWriters && canRemember(type, genericType, annotations)) {
+            key = new SelectionKey(type, genericType, annotations, mediaType);
+            Object selected = getSelection(writerSelections, key, m);
+            if (selected != null) {
+                return selected == NO_PROVIDER ? null : (MessageBodyWriter<T>)selected;
+            }
+        }
         List<MessageBodyWriter<T>> candidates = new LinkedList<MessageBodyWriter<T>>();
         for (ProviderInfo<MessageBodyWriter> ep : messageWriters) {
             if (matchesWriterCriterias(ep.getProvider(), type, genericType, annotations, mediaType)) {
                 if (this == SHARED_FACTORY) {
                     InjectionUtils.injectContextFields(ep.getProvider(), ep, m);
                     InjectionUtils.injectContextMethods(ep.getProvider(), ep, m);
+                    if (key != null) {
+                        rememberSelection(writerSelections, key, ep);
+                    }
                     return ep.getProvider();
                 }
                 handleMapper((List)candidates, ep, type, m);
             }
         }     
         if (candidates.size() == 0) {
+            if (key != null) {
+                rememberSelection(writerSelections, key, null);
+            }
             return null;
         }
         Collections.sort(candidates, new ClassComparator());
+        if (key != null) {
+            rememberSelection(writerSelections, key, findProviderInfo(messageWriters, candidates.get(0)));
+        }
         return candidates.get(0);
     }
     
@@ -604,6 +836,7 @@ public final class ProviderFactory {
         responseHandlers.clear();
         paramHandlers.clear();
         responseExceptionMappers.clear();
+        resetSelections();
     }
     
     public void setBus(Bus bus) {
@@ -667,6 +900,70 @@ public final class ProviderFactory {
         
     }
     
+    /*
+     * Annotations are compared by identity: the arrays handed in are often
+     * fresh copies but the annotation instances they hold are shared. 
+     */
+    private static class SelectionKey {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Annotation[] annotations;
+        private final MediaType mediaType;
+        private final int hashCode;
+        
+        SelectionKey(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            this.type = type;
+            this.genericType = genericType;
+            this.annotations = annotations;
+            this.mediaType = mediaType;
+            int hash = type.hashCode();
+            hash = 31 * hash + (genericType == null ? 0 : genericType.hashCode());
+            if (annotations != null) {
+                for (Annotation a : annotations) {
+                    hash = 31 * hash + System.identityHashCode(a);
+                }
+            }
+            hashCode = 31 * hash + (mediaType == null ? 0 : mediaType.hashCode());
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SelectionKey)) {
+                return false;
+            }
+            SelectionKey other = (SelectionKey)o;
+            if (hashCode != other.hashCode || type != other.type) {
+                return false;
+            }
+            return areEqual(genericType, other.genericType) 
+                && areEqual(mediaType, other.mediaType)
+                && sameAnnotations(annotations, other.annotations);
+        }
+        
+        private static boolean areEqual(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+        
+        private static boolean sameAnnotations(Annotation[] a1, Annotation[] a2) {
+            int length1 = a1 == null ? 0 : a1.length;
+            int length2 = a2 == null ? 0 : a2.length;
+            if (length1 != length2) {
+                return false;
+            }
+            for (int i = 0; i < length1; i++) {
+                if (a1[i] != a2[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
     private static int compareClasses(Object o1, Object o2) {
         Class<?> cl1 = ClassHelper.getRealClass(o1); 
         Class<?> cl2 = ClassHelper.getRealClass(o2);
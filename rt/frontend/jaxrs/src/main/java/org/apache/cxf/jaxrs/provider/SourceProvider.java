@@ -45,13 +45,14 @@ import javax.xml.transform.stream.StreamSource;
 
 import org.w3c.dom.Document;
 
+import org.apache.cxf.jaxrs.ext.StableProvider;
 import org.apache.cxf.jaxrs.ext.xml.XMLSource;
 
 @Provider
 @Produces({"application/xml", "application/*+xml", "text/xml" })
 @Consumes({"application/xml", "application/*+xml", "text/xml", "text/html" })
 public class SourceProvider implements 
-    MessageBodyReader<Object>, MessageBodyWriter<Source> {
+    MessageBodyReader<Object>, MessageBodyWriter<Source>, StableProvider {
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mt) {
         return Source.class.isAssignableFrom(type);
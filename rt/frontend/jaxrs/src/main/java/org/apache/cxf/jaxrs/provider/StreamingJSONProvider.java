@@ -0,0 +1,240 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.cxf.jaxrs.ext.StableProvider;
+import org.apache.cxf.jaxrs.utils.HttpUtils;
+import org.apache.cxf.jaxrs.utils.InjectionUtils;
+
+/**
+ * Reads and writes JAXB-annotated and plain beans, and collections and arrays of them,
+ * as JSON without going through JAXB and XML events. The JSON tokens are written
+ * and read as the properties of the beans are visited, and the properties of every
+ * class are only worked out once.
+ * 
+ * Beans with an XmlRootElement annotation are wrapped in an object with the root
+ * element name, as JSONProvider does by default, unless dropRootElement is set.
+ * Attribute names start with '@' and empty collections are left out, as with 
+ * JSONProvider, but names are never qualified with a namespace prefix and 
+ * collections and arrays are always written as JSON arrays, even with a single 
+ * element. Numbers and booleans are written as JSON numbers and booleans.
+ * 
+ * Only beans with properties, or with an XmlRootElement annotation, are written, 
+ * and only those which also have a default constructor are read.
+ * 
+ * A JSON array can be read incrementally by accepting an Iterator of the element 
+ * type, the elements are then read from the request as the iterator is advanced. 
+ */
+@Produces("application/json")
+@Consumes("application/json")
+@Provider
+public class StreamingJSONProvider extends AbstractConfigurableProvider 
+    implements MessageBodyReader<Object>, MessageBodyWriter<Object>, StableProvider {
+    
+    private static final String DEFAULT_ENCODING = "UTF-8";
+    
+    private boolean dropRootElement;
+    
+    public void setDropRootElement(boolean drop) {
+        this.dropRootElement = drop;
+    }
+    
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+        if (Iterator.class == type) {
+            return genericType instanceof ParameterizedType 
+                && isSupported(InjectionUtils.getActualType(genericType), true);
+        }
+        return isSupported(type, genericType, true);
+    }
+    
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+        return isSupported(type, genericType, false);
+    }
+    
+    private static boolean isSupported(Class<?> type, Type genericType, boolean read) {
+        if (type.isArray()) {
+            return isSupported(type.getComponentType(), read);
+        } else if (InjectionUtils.isSupportedCollectionOrArray(type)) {
+            return genericType instanceof ParameterizedType 
+                && isSupported(InjectionUtils.getActualType(genericType), read);
+        }
+        return isSupported(type, read);
+    }
+    
+    private static boolean isSupported(Class<?> type, boolean read) {
+        JSONBeanInfo info = type == null ? null : JSONValueHandler.getBeanInfo(type);
+        if (info == null || read && !info.canCreate()) {
+            return false;
+        }
+        // not every class which is not a Java one is a bean
+        return info.getProperties().length > 0 || info.getRootName() != null;
+    }
+    
+    public long getSize(Object o, Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+        return -1;
+    }
+    
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] anns, MediaType mt, 
+                           MultivaluedMap<String, String> headers, InputStream is) 
+        throws IOException, WebApplicationException {
+        String enc = mt.getParameters().get("charset");
+        JSONTokenReader reader = new JSONTokenReader(
+            new InputStreamReader(is, enc == null ? DEFAULT_ENCODING : enc));
+        try {
+            if (Iterator.class == (Class<?>)type) {
+                return new ArrayIterator(reader, 
+                    JSONValueHandler.getHandler(InjectionUtils.getActualType(genericType)));
+            }
+            JSONValueHandler handler = JSONValueHandler.getHandler(getType(type, genericType));
+            String rootName = getRootName(type);
+            if (rootName == null) {
+                return handler.read(reader);
+            }
+            reader.beginObject();
+            Object value = null;
+            while (reader.hasNext()) {
+                if (rootName.equals(reader.nextName())) {
+                    value = handler.read(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return value;
+        } catch (WebApplicationException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new WebApplicationException(ex, Response.Status.BAD_REQUEST);
+        }
+    }
+    
+    public void writeTo(Object o, Class<?> type, Type genericType, Annotation[] anns, MediaType mt, 
+                        MultivaluedMap<String, Object> headers, OutputStream os) 
+        throws IOException, WebApplicationException {
+        String enc = HttpUtils.getSetEncoding(mt, headers, DEFAULT_ENCODING);
+        JSONTokenWriter writer = new JSONTokenWriter(new BufferedWriter(new OutputStreamWriter(os, enc)));
+        Class<?> cls = o.getClass();
+        Type actualType = type.isAssignableFrom(cls) ? getType(type, genericType) : cls;
+        try {
+            String rootName = getRootName(cls);
+            if (rootName != null) {
+                writer.beginObject();
+                writer.name(rootName);
+            }
+            JSONValueHandler.getHandler(actualType).write(o, writer);
+            if (rootName != null) {
+                writer.endObject();
+            }
+            writer.flush();
+        } catch (IOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new WebApplicationException(ex);
+        }
+    }
+    
+    private static Type getType(Class<?> type, Type genericType) {
+        return genericType != null && InjectionUtils.getRawType(genericType) == type ? genericType : type;
+    }
+    
+    private String getRootName(Class<?> type) {
+        if (dropRootElement) {
+            return null;
+        }
+        JSONBeanInfo info = JSONValueHandler.getBeanInfo(type);
+        return info == null ? null : info.getRootName();
+    }
+    
+    /*
+     * Reads the elements of a JSON array one at a time
+     */
+    private static class ArrayIterator implements Iterator<Object> {
+        private final JSONTokenReader reader;
+        private final JSONValueHandler handler;
+        private boolean started;
+        private boolean finished;
+        
+        ArrayIterator(JSONTokenReader reader, JSONValueHandler handler) {
+            this.reader = reader;
+            this.handler = handler;
+        }
+        
+        public boolean hasNext() {
+            if (finished) {
+                return false;
+            }
+            try {
+                if (!started) {
+                    started = true;
+                    reader.beginArray();
+                }
+                if (reader.hasNext()) {
+                    return true;
+                }
+                reader.endArray();
+                finished = true;
+                return false;
+            } catch (WebApplicationException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new WebApplicationException(ex, Response.Status.BAD_REQUEST);
+            }
+        }
+        
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return handler.read(reader);
+            } catch (WebApplicationException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new WebApplicationException(ex, Response.Status.BAD_REQUEST);
+            }
+        }
+        
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
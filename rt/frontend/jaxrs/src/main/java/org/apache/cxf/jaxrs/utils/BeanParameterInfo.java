@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.cxf.common.util.ConcurrentWeakCache;
+
+/**
+ * The properties of a bean which parameters are injected into, keyed by their
+ * lower-cased names. A property is set through a public setter, or a public field
+ * if there is no setter, and its current value is read through a public getter
+ * or the same field. 
+ */
+final class BeanParameterInfo {
+    private static final ConcurrentWeakCache<Class<?>, BeanParameterInfo> INFOS = 
+        new ConcurrentWeakCache<Class<?>, BeanParameterInfo>();
+    
+    private final Map<String, Property> properties;
+    
+    private BeanParameterInfo(Class<?> beanClass) {
+        Method[] methods = beanClass.getMethods();
+        Field[] fields = beanClass.getFields();
+        Set<String> names = new LinkedHashSet<String>();
+        for (Method m : methods) {
+            String name = m.getName();
+            if (name.regionMatches(true, 0, "set", 0, 3) || name.regionMatches(true, 0, "get", 0, 3)) {
+                names.add(toKey(name.substring(3)));
+            }
+        }
+        for (Field f : fields) {
+            names.add(toKey(f.getName()));
+        }
+        Map<String, Property> props = new HashMap<String, Property>();
+        for (String name : names) {
+            Property p = findProperty(name, methods, fields);
+            if (p != null) {
+                props.put(name, p);
+            }
+        }
+        properties = Collections.unmodifiableMap(props);
+    }
+    
+    static BeanParameterInfo getInfo(Class<?> beanClass) {
+        BeanParameterInfo info = INFOS.get(beanClass);
+        if (info == null) {
+            info = INFOS.putIfAbsent(beanClass, new BeanParameterInfo(beanClass));
+        }
+        return info;
+    }
+    
+    Property getProperty(String name) {
+        return properties.get(toKey(name));
+    }
+    
+    private static String toKey(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+    
+    private static Property findProperty(String name, Method[] methods, Field[] fields) {
+        Method setter = null;
+        Method getter = null;
+        for (Method m : methods) {
+            if (m.getName().equalsIgnoreCase("set" + name)
+                && m.getParameterTypes().length == 1) {
+                setter = m;
+            } else if (m.getName().equalsIgnoreCase("get" + name)
+                && m.getReturnType() != Void.TYPE) {
+                getter = m;
+            }
+            if (setter != null && getter != null) {
+                break;
+            }
+        }
+        if (setter == null) {
+            for (Field f : fields) {
+                if (f.getName().equalsIgnoreCase(name)) {
+                    return new FieldProperty(f);
+                }
+            }
+            return null;
+        }
+        return getter == null ? null : new MethodProperty(setter, getter);
+    }
+    
+    abstract static class Property {
+        private final Class<?> type;
+        private final Type genericType;
+        
+        Property(Class<?> type, Type genericType) {
+            this.type = type;
+            this.genericType = genericType;
+        }
+        
+        Class<?> getType() {
+            return type;
+        }
+        
+        Type getGenericType() {
+            return genericType;
+        }
+        
+        abstract Object getValue(Object bean);
+        
+        abstract void setValue(Object bean, Object value);
+    }
+    
+    private static class MethodProperty extends Property {
+        private final Method setter;
+        private final Method getter;
+        
+        MethodProperty(Method setter, Method getter) {
+            super(setter.getParameterTypes()[0], setter.getGenericParameterTypes()[0]);
+            this.setter = setter;
+            this.getter = getter;
+        }
+        
+        Object getValue(Object bean) {
+            return InjectionUtils.extractFromMethod(bean, getter);
+        }
+        
+        void setValue(Object bean, Object value) {
+            InjectionUtils.injectThroughMethod(bean, setter, value);
+        }
+    }
+    
+    private static class FieldProperty extends Property {
+        private final Field field;
+        
+        FieldProperty(Field field) {
+            super(field.getType(), field.getGenericType());
+            this.field = field;
+        }
+        
+        Object getValue(Object bean) {
+            return InjectionUtils.extractFieldValue(field, bean);
+        }
+        
+        void setValue(Object bean, Object value) {
+            InjectionUtils.injectFieldValue(field, bean, value);
+        }
+    }
+}
@@ -21,7 +21,6 @@ package org.apache.cxf.jaxrs.utils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -299,32 +298,8 @@ public final class InjectionUtils {
                 throw new WebApplicationException(nfe, Response.Status.BAD_REQUEST);
             }
         }
-        // check constructors accepting a single String value
-        try {
-            Constructor<?> c = pClass.getConstructor(new Class<?>[]{String.class});
-            return c.newInstance(new Object[]{value});
-        } catch (NoSuchMethodException ex) {
-            // try valueOf
-        } catch (WebApplicationException ex) {
-            throw ex;
-        } catch (Exception ex) { 
-            LOG.severe(new org.apache.cxf.common.i18n.Message("CLASS_CONSTRUCTOR_FAILURE", 
-                                                               BUNDLE, 
-                                                               pClass.getName()).toString());
-            throw new WebApplicationException(ex, HttpUtils.getParameterFailureStatus(pType));
-        }
-        
-        Object result = null;
-        // check for valueOf(String) static methods
-        String[] methodNames = pClass.isEnum() 
-            ? new String[] {"fromString", "fromValue", "valueOf"} 
-            : new String[] {"valueOf", "fromString"};
-        for (String mName : methodNames) {   
-            result = evaluateFactoryMethod(value, pClass, pType, mName);
-            if (result != null) {
-                break;
-            }
-        }
+        // constructors accepting a single String value or valueOf(String) static methods
+        Object result = ParameterConverter.getConverter(pClass).convert(value, pType);
         
         if (result == null && message != null) {
             ParameterHandler<?> pm = ProviderFactory.getInstance(message)
@@ -354,28 +329,6 @@ public final class InjectionUtils {
         throw new WebApplicationException(r);
     }
     
-    private static Object evaluateFactoryMethod(String value,
-                                                Class<?> pClass, 
-                                                ParameterType pType, 
-                                                String methodName) {
-        try {
-            Method m = pClass.getMethod(methodName, new Class<?>[]{String.class});
-            if (Modifier.isStatic(m.getModifiers())) {
-                return m.invoke(null, new Object[]{value});
-            }
-        } catch (NoSuchMethodException ex) {
-            // no luck
-        } catch (Exception ex) {
-            Throwable t = ex instanceof InvocationTargetException 
-                ? ((InvocationTargetException)ex).getTargetException() : ex; 
-            LOG.severe(new org.apache.cxf.common.i18n.Message("CLASS_VALUE_OF_FAILURE", 
-                                                               BUNDLE, 
-                                                               pClass.getName()).toString());
-            throw new WebApplicationException(t, HttpUtils.getParameterFailureStatus(pType));
-        }
-        return null;
-    }
-    
     public static Object handleBean(Class<?> paramType, MultivaluedMap<String, String> values,
                                     ParameterType pType, Message message, boolean decoded) {
         Object bean = null;
@@ -410,6 +363,7 @@ public final class InjectionUtils {
         }
 
         if (parsedValues.size() > 0) {
+            BeanParameterInfo beanInfo = BeanParameterInfo.getInfo(paramType);
             for (Map.Entry<String, MultivaluedMap<String, String>> entry : parsedValues.entrySet()) {
                 String memberKey = entry.getKey();
 
@@ -418,43 +372,11 @@ public final class InjectionUtils {
                     memberKey = memberKey.substring(1);
                 }
 
-                Object setter = null;
-                Object getter = null;
-                for (Method m : paramType.getMethods()) {
-                    if (m.getName().equalsIgnoreCase("set" + memberKey)
-                        && m.getParameterTypes().length == 1) {
-                        setter = m;
-                    } else if (m.getName().equalsIgnoreCase("get" + memberKey)
-                        && m.getReturnType() != Void.TYPE) {
-                        getter = m;
-                    }
-                    if (setter != null && getter != null) {
-                        break;
-                    }
-                }
-                if (setter == null) {
-                    for (Field f : paramType.getFields()) {
-                        if (f.getName().equalsIgnoreCase(memberKey)) {
-                            setter = f;
-                            getter = f;
-                            break;
-                        }
-                    }
-                }
-
-                if (setter != null && getter != null) {
-                    Class<?> type = null;
-                    Type genericType = null;
-                    Object paramValue = null;
-                    if (setter instanceof Method) {
-                        type = Method.class.cast(setter).getParameterTypes()[0];
-                        genericType = Method.class.cast(setter).getGenericParameterTypes()[0];
-                        paramValue = InjectionUtils.extractFromMethod(bean, (Method) getter);
-                    } else {
-                        type = Field.class.cast(setter).getType();
-                        genericType = Field.class.cast(setter).getGenericType();
-                        paramValue = InjectionUtils.extractFieldValue((Field) getter, bean);
-                    }
+                BeanParameterInfo.Property property = beanInfo.getProperty(memberKey);
+                if (property != null) {
+                    Class<?> type = property.getType();
+                    Type genericType = property.getGenericType();
+                    Object paramValue = property.getValue(bean);
 
                     List<MultivaluedMap<String, String>> processedValuesList =
                         processValues(type, genericType, entry.getValue(), isbean);
@@ -477,11 +399,7 @@ public final class InjectionUtils {
                         }
 
                         if (paramValue != null) {
-                            if (setter instanceof Method) {
-                                InjectionUtils.injectThroughMethod(bean, (Method) setter, paramValue);
-                            } else {
-                                InjectionUtils.injectFieldValue((Field) setter, bean, paramValue);
-                            }
+                            property.setValue(bean, paramValue);
                         }
                     }
                 }
@@ -29,6 +29,7 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -92,6 +93,7 @@ import org.apache.cxf.jaxrs.model.OperationResourceInfoComparator;
 import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
 import org.apache.cxf.jaxrs.model.URITemplate;
+import org.apache.cxf.jaxrs.model.URITemplateTrie;
 import org.apache.cxf.jaxrs.provider.AbstractConfigurableProvider;
 import org.apache.cxf.jaxrs.provider.ProviderFactory;
 import org.apache.cxf.jaxrs.utils.multipart.AttachmentUtils;
@@ -223,6 +225,19 @@ public final class JAXRSUtils {
                                                  String path, 
                                                  MultivaluedMap<String, String> values,
                                                  Message message) {
+        return selectResourceClass(resources, null, path, values, message);
+    }
+    
+    /**
+     * Selects the root resource class, the trie, if available, is used to find 
+     * the resources whose templates may match the path, the same precedence 
+     * rules are applied to the remaining candidates.   
+     */
+    public static ClassResourceInfo selectResourceClass(List<ClassResourceInfo> resources,
+                                                 URITemplateTrie<ClassResourceInfo> trie,
+                                                 String path, 
+                                                 MultivaluedMap<String, String> values,
+                                                 Message message) {
         
         LOG.fine(new org.apache.cxf.common.i18n.Message("START_CRI_MATCH", 
                                                         BUNDLE, 
@@ -232,6 +247,13 @@ public final class JAXRSUtils {
                    ? resources.get(0) : null;
         }
         
+        if (trie != null && !LOG.isLoggable(Level.FINE)) {
+            List<ClassResourceInfo> candidates = trie.getCandidates(path);
+            if (candidates != null) {
+                resources = candidates;
+            }
+        }
+        
         SortedMap<ClassResourceInfo, MultivaluedMap<String, String>> candidateList = 
             new TreeMap<ClassResourceInfo, MultivaluedMap<String, String>>(
                 new ClassResourceInfoComparator(message));
@@ -300,9 +322,18 @@ public final class JAXRSUtils {
         int consumeMatched = 0;
         int produceMatched = 0;
         
+        Collection<OperationResourceInfo> oris = null;
+        if (!LOG.isLoggable(Level.FINE)) {
+            // the templates which can not match are skipped unless all the mismatches have to be logged  
+            oris = resource.getMethodDispatcher().getOperationResourceInfoTrie().getCandidates(path);
+        }
+        if (oris == null) {
+            oris = resource.getMethodDispatcher().getOperationResourceInfos();
+        }
+        
         boolean subresourcesOnly = true;
         for (MediaType acceptType : acceptContentTypes) {
-            for (OperationResourceInfo ori : resource.getMethodDispatcher().getOperationResourceInfos()) {
+            for (OperationResourceInfo ori : oris) {
                 URITemplate uriTemplate = ori.getURITemplate();
                 MultivaluedMap<String, String> map = new MetadataMap<String, String>(values);
                 if (uriTemplate != null && uriTemplate.match(path, map)) {
@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.logging.Logger;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.cxf.common.i18n.BundleUtils;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.ConcurrentWeakCache;
+import org.apache.cxf.jaxrs.model.ParameterType;
+
+/**
+ * Creates parameter values of a given class from their String form, using a
+ * constructor accepting a single String or static valueOf(String), fromString(String)
+ * or fromValue(String) methods. The way a class is converted is worked out once and 
+ * kept, and the common JDK types and enums are converted without reflection. 
+ */
+abstract class ParameterConverter {
+    
+    private static final Logger LOG = LogUtils.getL7dLogger(ParameterConverter.class);
+    private static final ResourceBundle BUNDLE = BundleUtils.getBundle(ParameterConverter.class);
+    
+    private static final ParameterConverter NO_CONVERTER = new ParameterConverter() {
+        Object convert(String value, ParameterType pType) {
+            return null;
+        }
+    };
+    
+    private static final ConcurrentWeakCache<Class<?>, ParameterConverter> CONVERTERS = 
+        new ConcurrentWeakCache<Class<?>, ParameterConverter>();
+    
+    private static final Map<Class<?>, ParameterConverter> JDK_CONVERTERS = 
+        new HashMap<Class<?>, ParameterConverter>();
+    
+    static {
+        JDK_CONVERTERS.put(String.class, new ParameterConverter() {
+            Object convert(String value, ParameterType pType) {
+                return value;
+            }
+        });
+        JDK_CONVERTERS.put(Boolean.class, new JdkConverter(Boolean.class) {
+            Object create(String value) {
+                return Boolean.valueOf(value);
+            }
+        });
+        JDK_CONVERTERS.put(Byte.class, new JdkConverter(Byte.class) {
+            Object create(String value) {
+                return Byte.valueOf(value);
+            }
+        });
+        JDK_CONVERTERS.put(Short.class, new JdkConverter(Short.class) {
+            Object create(String value) {
+                return Short.valueOf(value);
+            }
+        });
+        JDK_CONVERTERS.put(Integer.class, new JdkConverter(Integer.class) {
+            Object create(String value) {
+                return Integer.valueOf(value);
+            }
+        });
+        JDK_CONVERTERS.put(Long.class, new JdkConverter(Long.class) {
+            Object create(String value) {
+                return Long.valueOf(value);
+            }
+        });
+        JDK_CONVERTERS.put(Float.class, new JdkConverter(Float.class) {
+            Object create(String value) {
+                return Float.valueOf(value);
+            }
+        });
+        JDK_CONVERTERS.put(Double.class, new JdkConverter(Double.class) {
+            Object create(String value) {
+                return Double.valueOf(value);
+            }
+        });
+        JDK_CONVERTERS.put(BigInteger.class, new JdkConverter(BigInteger.class) {
+            Object create(String value) {
+                return new BigInteger(value);
+            }
+        });
+        JDK_CONVERTERS.put(BigDecimal.class, new JdkConverter(BigDecimal.class) {
+            Object create(String value) {
+                return new BigDecimal(value);
+            }
+        });
+    }
+    
+    /**
+     * Returns the parameter value or null if the class can not be created from a String 
+     * @throws WebApplicationException if the value is not acceptable
+     */
+    abstract Object convert(String value, ParameterType pType);
+    
+    static ParameterConverter getConverter(Class<?> cls) {
+        ParameterConverter converter = JDK_CONVERTERS.get(cls);
+        if (converter == null) {
+            converter = CONVERTERS.get(cls);
+            if (converter == null) {
+                converter = CONVERTERS.putIfAbsent(cls, createConverter(cls));
+            }
+        }
+        return converter;
+    }
+    
+    private static ParameterConverter createConverter(Class<?> cls) {
+        try {
+            return new ConstructorConverter(cls.getConstructor(new Class<?>[]{String.class}));
+        } catch (NoSuchMethodException ex) {
+            // try valueOf
+        }
+        String[] methodNames = cls.isEnum() 
+            ? new String[] {"fromString", "fromValue", "valueOf"} 
+            : new String[] {"valueOf", "fromString"};
+        List<Method> methods = new ArrayList<Method>(methodNames.length);
+        for (String mName : methodNames) {
+            try {
+                Method m = cls.getMethod(mName, new Class<?>[]{String.class});
+                if (Modifier.isStatic(m.getModifiers())) {
+                    methods.add(m);
+                }
+            } catch (NoSuchMethodException ex) {
+                // no luck
+            }
+        }
+        if (methods.size() == 0) {
+            return NO_CONVERTER;
+        }
+        if (cls.isEnum() && methods.size() == 1) {
+            return new EnumConverter(cls);
+        }
+        return new FactoryMethodConverter(cls, methods.toArray(new Method[methods.size()]));
+    }
+    
+    private static WebApplicationException valueOfFailure(Class<?> cls, Throwable t, ParameterType pType) {
+        LOG.severe(new org.apache.cxf.common.i18n.Message("CLASS_VALUE_OF_FAILURE", 
+                                                           BUNDLE, 
+                                                           cls.getName()).toString());
+        return new WebApplicationException(t, HttpUtils.getParameterFailureStatus(pType));
+    }
+    
+    private static WebApplicationException constructorFailure(Class<?> cls, Throwable t, 
+                                                              ParameterType pType) {
+        LOG.severe(new org.apache.cxf.common.i18n.Message("CLASS_CONSTRUCTOR_FAILURE", 
+                                                           BUNDLE, 
+                                                           cls.getName()).toString());
+        return new WebApplicationException(t, HttpUtils.getParameterFailureStatus(pType));
+    }
+    
+    private abstract static class JdkConverter extends ParameterConverter {
+        private final Class<?> cls;
+        
+        JdkConverter(Class<?> cls) {
+            this.cls = cls;
+        }
+        
+        abstract Object create(String value);
+        
+        Object convert(String value, ParameterType pType) {
+            try {
+                return create(value);
+            } catch (RuntimeException ex) {
+                throw constructorFailure(cls, ex, pType);
+            }
+        }
+    }
+    
+    private static class ConstructorConverter extends ParameterConverter {
+        private final Constructor<?> constructor;
+        
+        ConstructorConverter(Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+        
+        Object convert(String value, ParameterType pType) {
+            try {
+                return constructor.newInstance(new Object[]{value});
+            } catch (WebApplicationException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw constructorFailure(constructor.getDeclaringClass(), ex, pType);
+            }
+        }
+    }
+    
+    private static class FactoryMethodConverter extends ParameterConverter {
+        private final Class<?> cls;
+        private final Method[] methods;
+        
+        FactoryMethodConverter(Class<?> cls, Method[] methods) {
+            this.cls = cls;
+            this.methods = methods;
+        }
+        
+        Object convert(String value, ParameterType pType) {
+            for (Method m : methods) {
+                try {
+                    Object result = m.invoke(null, new Object[]{value});
+                    if (result != null) {
+                        return result;
+                    }
+                } catch (Exception ex) {
+                    Throwable t = ex instanceof InvocationTargetException 
+                        ? ((InvocationTargetException)ex).getTargetException() : ex;
+                    throw valueOfFailure(cls, t, pType);
+                }
+            }
+            return null;
+        }
+    }
+    
+    private static class EnumConverter extends ParameterConverter {
+        private final Class<?> cls;
+        
+        EnumConverter(Class<?> cls) {
+            this.cls = cls;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Object convert(String value, ParameterType pType) {
+            try {
+                return Enum.valueOf((Class)cls, value);
+            } catch (RuntimeException ex) {
+                throw valueOfFailure(cls, ex, pType);
+            }
+        }
+    }
+}
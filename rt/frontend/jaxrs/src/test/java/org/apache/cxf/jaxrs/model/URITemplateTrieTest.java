@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class URITemplateTrieTest extends Assert {
+
+    private static final String[] TEMPLATES = {
+        "/",
+        "/bookstore",
+        "/bookstore/",
+        "/bookstore/books",
+        "/bookstore/books/{id}",
+        "/bookstore/books/{id}/chapters/{chapter}",
+        "/bookstore/books/{id:\\d+}",
+        "/bookstore/books/{id}.xml",
+        "/bookstore/books/id{id}",
+        "/bookstore/{path:.*}",
+        "/bookstore/a.b/c*d",
+        "/bookstore/a+b",
+        "/bookstore/(a)",
+        "/{store}/books",
+        "/{a}/{b}",
+        "/books/{id}/",
+        "/books/{zip:[0-9]{5}}/area",
+        "/1/2/3/d",
+        "/1/2/3/d/{id}",
+        "/1/2/3/d/{id}/bar",
+        "//double",
+        "/a//b",
+        "/test",
+        "/test/"
+    };
+    
+    private static final String[] PATHS = {
+        "/",
+        "",
+        "//",
+        "/bookstore",
+        "/bookstore/",
+        "/bookstore/books",
+        "/bookstore/books/",
+        "/bookstore/books/123",
+        "/bookstore/books/abc",
+        "/bookstore/books/123/chapters/1",
+        "/bookstore/books/123/chapters/1/",
+        "/bookstore/books/123.xml",
+        "/bookstore/books/id123",
+        "/bookstore/a.b/c*d",
+        "/bookstore/axb/cxxd",
+        "/bookstore/ab",
+        "/bookstore/aab",
+        "/bookstore/a+b",
+        "/bookstore/a",
+        "/bookstore/(a)",
+        "/bookstore/anything/else",
+        "/bookstorex",
+        "/books",
+        "/books/1",
+        "/books/1/",
+        "/books/12345/area",
+        "/books/1234/area",
+        "/store/books",
+        "/store/books/1",
+        "/1/2/3/d",
+        "/1/2/3/d/1",
+        "/1/2/3/d/1/bar",
+        "/1/2/3/d/1/bar/baz",
+        "/1/2/3",
+        "//double",
+        "/double",
+        "/a//b",
+        "/a/b",
+        "/test",
+        "/test/",
+        "/test/1",
+        "/bookstore;a=b/books",
+        "/bookstore/books;a=b",
+        "/bookstore/books/1;a=b",
+        "bookstore",
+        null
+    };
+    
+    @Test
+    public void testLiteralSegments() {
+        assertEquals(Arrays.asList(new String[]{}), URITemplateTrie.getLiteralSegments("/"));
+        assertEquals(Arrays.asList("a"), URITemplateTrie.getLiteralSegments("/a/"));
+        assertEquals(Arrays.asList("a", "b"), URITemplateTrie.getLiteralSegments("/a/b/{c}/d"));
+        assertEquals(Arrays.asList("a"), URITemplateTrie.getLiteralSegments("/a/b{c}/d"));
+        assertEquals(Arrays.asList("a.b", "c*d"), URITemplateTrie.getLiteralSegments("/a.b/c*d"));
+        assertEquals(Arrays.asList(new String[]{}), URITemplateTrie.getLiteralSegments("/a+b"));
+        assertEquals(Arrays.asList("", "a"), URITemplateTrie.getLiteralSegments("//a"));
+        assertEquals(Arrays.asList(new String[]{}), URITemplateTrie.getLiteralSegments("a/b"));
+    }
+    
+    @Test
+    public void testCandidates() {
+        List<URITemplate> templates = createTemplates();
+        URITemplateTrie<URITemplate> trie = new URITemplateTrie<URITemplate>(templates, templates);
+        assertEquals(Arrays.asList(templates.get(0), templates.get(1), templates.get(2), templates.get(9),
+                                   templates.get(10), templates.get(11), templates.get(12),
+                                   templates.get(13), templates.get(14)),
+                     trie.getCandidates("/bookstore/a.b/c*d"));
+        assertEquals(Arrays.asList(templates.get(0), templates.get(13), templates.get(14)),
+                     trie.getCandidates("/store/books"));
+        assertNull(trie.getCandidates("/bookstore;a=b/books"));
+        assertNull(trie.getCandidates("bookstore"));
+        assertNull(trie.getCandidates(null));
+    }
+    
+    @Test
+    public void testSameMatchesAsAllTemplates() {
+        List<URITemplate> templates = createTemplates();
+        URITemplateTrie<URITemplate> trie = new URITemplateTrie<URITemplate>(templates, templates);
+        for (String path : PATHS) {
+            List<URITemplate> candidates = trie.getCandidates(path);
+            if (candidates == null) {
+                candidates = templates;
+            }
+            assertEquals("Different matches for " + path, 
+                         getMatches(templates, path), getMatches(candidates, path));
+        }
+    }
+    
+    @Test
+    public void testNullTemplate() {
+        List<String> values = Arrays.asList("a", "b");
+        URITemplateTrie<String> trie = 
+            new URITemplateTrie<String>(values, Arrays.asList(null, URITemplate.createTemplate("/b")));
+        assertEquals(Arrays.asList("b"), trie.getCandidates("/b"));
+        assertEquals(Arrays.asList(new String[]{}), trie.getCandidates("/a"));
+    }
+    
+    private static List<URITemplate> createTemplates() {
+        List<URITemplate> templates = new ArrayList<URITemplate>();
+        for (String t : TEMPLATES) {
+            templates.add(URITemplate.createTemplate(t));
+        }
+        return templates;
+    }
+    
+    private static List<String> getMatches(List<URITemplate> templates, String path) {
+        List<String> matches = new ArrayList<String>();
+        for (URITemplate t : templates) {
+            MetadataMap<String, String> values = new MetadataMap<String, String>();
+            if (t.match(path, values)) {
+                matches.add(t.getValue() + " " + values);
+            }
+        }
+        return matches;
+    }
+}
@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -38,12 +39,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.PropertyException;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.ValidationEventHandler;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
@@ -176,6 +179,60 @@ public class JAXBElementProviderTest extends Assert {
         readSuperBook(bos.toString(), true);
     }
     
+    @Test
+    public void testWriteWithPooledMarshaller() throws Exception {
+        JAXBElementProvider provider = new JAXBElementProvider();
+        Book b = new Book("CXF in Action", 123L);
+        
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        provider.writeTo(b, Book.class, Book.class, new Annotation[0], 
+                         MediaType.valueOf("text/xml;charset=ISO-8859-1"), 
+                         new MetadataMap<String, Object>(), bos);
+        assertTrue(bos.toString().contains("encoding=\"ISO-8859-1\""));
+        
+        // the marshaller is reused, the encoding of the previous request must not be
+        bos = new ByteArrayOutputStream();
+        provider.writeTo(b, Book.class, Book.class, new Annotation[0], MediaType.TEXT_XML_TYPE, 
+                         new MetadataMap<String, Object>(), bos);
+        assertTrue(bos.toString().contains("encoding=\"UTF-8\""));
+        assertTrue(bos.toString().contains("<name>CXF in Action</name>"));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPooledUnmarshallerAfterFailedReads() throws Exception {
+        final List<Unmarshaller> unmarshallers = new ArrayList<Unmarshaller>();
+        JAXBElementProvider provider = new JAXBElementProvider() {
+            protected Unmarshaller createUnmarshaller(Class<?> cls, Type genericType, boolean isCollection) 
+                throws JAXBException {
+                Unmarshaller unmarshaller = super.createUnmarshaller(cls, genericType, isCollection);
+                unmarshallers.add(unmarshaller);
+                return unmarshaller;
+            }
+        };
+        provider.setMarshallerPoolSize(1);
+        
+        // more failures than the provider used to track unreleased instances for 
+        for (int i = 0; i < 70; i++) {
+            try {
+                provider.readFrom((Class)Book.class, Book.class, new Annotation[0], MediaType.TEXT_XML_TYPE, 
+                    new MetadataMap<String, String>(), new ByteArrayInputStream("<Book><id>".getBytes()));
+                fail("Malformed XML has been read");
+            } catch (WebApplicationException ex) {
+                // expected
+            }
+        }
+        
+        String data = "<Book><id>123</id><name>CXF in Action</name></Book>";
+        Book book = (Book)provider.readFrom((Class)Book.class, Book.class, new Annotation[0], 
+            MediaType.TEXT_XML_TYPE, new MetadataMap<String, String>(), 
+            new ByteArrayInputStream(data.getBytes()));
+        assertEquals(123L, book.getId());
+        assertEquals("CXF in Action", book.getName());
+        assertTrue("Unmarshaller is not pooled", 
+                   Proxy.isProxyClass(unmarshallers.get(unmarshallers.size() - 1).getClass()));
+    }
+    
     @Test
     public void testWriteDerivedType2() throws Exception {
         JAXBElementProvider provider = new JAXBElementProvider();
@@ -24,7 +24,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -232,6 +235,81 @@ public class ProviderFactoryTest extends Assert {
                                               MediaType.APPLICATION_XML_TYPE, new MessageImpl()));
     }
     
+    @Test
+    public void testSharedFactoryDoesNotRememberApplicationClasses() throws Exception {
+        ProviderFactory pf = ProviderFactory.getSharedInstance();
+        pf.createMessageBodyReader(Book.class, Book.class, new Annotation[]{},
+                                   MediaType.TEXT_PLAIN_TYPE, new MessageImpl());
+        long hits = pf.getSelectionHits();
+        long misses = pf.getSelectionMisses();
+        pf.createMessageBodyReader(Book.class, Book.class, new Annotation[]{},
+                                   MediaType.TEXT_PLAIN_TYPE, new MessageImpl());
+        assertEquals(hits + 1, pf.getSelectionHits());
+        
+        // as if loaded by an application deployed next to CXF
+        URL location = Book.class.getProtectionDomain().getCodeSource().getLocation();
+        Class<?> appBook = new URLClassLoader(new URL[] {location}, null).loadClass(Book.class.getName());
+        assertNotSame(Book.class, appBook);
+        for (int i = 0; i < 2; i++) {
+            pf.createMessageBodyReader(appBook, appBook, new Annotation[]{},
+                                       MediaType.TEXT_PLAIN_TYPE, new MessageImpl());
+            pf.createMessageBodyWriter(appBook, appBook, new Annotation[]{},
+                                       MediaType.TEXT_PLAIN_TYPE, new MessageImpl());
+        }
+        assertEquals(hits + 1, pf.getSelectionHits());
+        assertEquals(misses, pf.getSelectionMisses());
+    }
+    
+    @Test
+    public void testSelectionCache() throws Exception {
+        ProviderFactory pf = ProviderFactory.getInstance();
+        PrimitiveTextProvider textProvider = new PrimitiveTextProvider();
+        pf.registerUserProvider(textProvider);
+        Method m = ProviderFactoryTest.class.getMethod("testSelectionCache", new Class[]{});
+        
+        assertSame(textProvider, pf.createMessageBodyReader(String.class, String.class, m.getAnnotations(),
+                                                            MediaType.TEXT_PLAIN_TYPE, new MessageImpl()));
+        assertEquals(0, pf.getSelectionHits());
+        assertEquals(1, pf.getSelectionMisses());
+        assertSame(textProvider, pf.createMessageBodyReader(String.class, String.class, m.getAnnotations(),
+                                                            MediaType.TEXT_PLAIN_TYPE, new MessageImpl()));
+        assertEquals(1, pf.getSelectionHits());
+        assertEquals(1, pf.getSelectionMisses());
+        assertSame(textProvider, pf.createMessageBodyWriter(String.class, String.class, new Annotation[]{},
+                                                            MediaType.TEXT_PLAIN_TYPE, new MessageImpl()));
+        assertEquals(2, pf.getSelectionMisses());
+        assertNull(pf.createMessageBodyReader(Book.class, Book.class, new Annotation[]{},
+                                              MediaType.TEXT_PLAIN_TYPE, new MessageImpl()));
+        assertNull(pf.createMessageBodyReader(Book.class, Book.class, new Annotation[]{},
+                                              MediaType.TEXT_PLAIN_TYPE, new MessageImpl()));
+        assertEquals(2, pf.getSelectionHits());
+        assertEquals(3, pf.getSelectionMisses());
+        
+        // a provider which does not declare its answers stable disables the cache
+        TestStringProvider stringProvider = new TestStringProvider();
+        pf.registerUserProvider(stringProvider);
+        assertSame(stringProvider, pf.createMessageBodyReader(String.class, String.class, m.getAnnotations(),
+                                                              MediaType.TEXT_HTML_TYPE, new MessageImpl()));
+        assertSame(stringProvider, pf.createMessageBodyReader(String.class, String.class, m.getAnnotations(),
+                                                              MediaType.TEXT_HTML_TYPE, new MessageImpl()));
+        assertEquals(2, pf.getSelectionHits());
+        assertEquals(3, pf.getSelectionMisses());
+    }
+    
+    @Test
+    public void testSubclassOfStableProviderIsNotCached() throws Exception {
+        ProviderFactory pf = ProviderFactory.getInstance();
+        CountingJAXBProvider provider = new CountingJAXBProvider();
+        pf.registerUserProvider(provider);
+        for (int i = 0; i < 2; i++) {
+            assertSame(provider, pf.createMessageBodyReader(Book.class, Book.class, new Annotation[]{},
+                                                            MediaType.APPLICATION_XML_TYPE, 
+                                                            new MessageImpl()));
+        }
+        assertEquals(2, provider.getCount());
+        assertEquals(0, pf.getSelectionHits());
+    }
+    
     @Test
     public void testSortEntityProviders() throws Exception {
         ProviderFactory pf = ProviderFactory.getInstance();
@@ -401,6 +479,20 @@ public class ProviderFactoryTest extends Assert {
     
     @Consumes("text/html")
     @Produces("text/html")
+    private static final class CountingJAXBProvider extends JAXBElementProvider {
+        private int count;
+        
+        @Override
+        public boolean isReadable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+            count++;
+            return super.isReadable(type, genericType, anns, mt);
+        }
+        
+        int getCount() {
+            return count;
+        }
+    }
+    
     private final class TestStringProvider 
         implements MessageBodyReader<String>, MessageBodyWriter<String>  {
 
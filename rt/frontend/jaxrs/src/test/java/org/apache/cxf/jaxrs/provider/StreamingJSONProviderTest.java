@@ -0,0 +1,317 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.resources.Book;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingJSONProviderTest extends Assert {
+    
+    @Test
+    public void testIsReadableAndWriteable() throws Exception {
+        StreamingJSONProvider p = new StreamingJSONProvider();
+        MediaType mt = MediaType.APPLICATION_JSON_TYPE;
+        assertTrue(p.isReadable(Item.class, Item.class, new Annotation[]{}, mt));
+        assertTrue(p.isWriteable(Book.class, Book.class, new Annotation[]{}, mt));
+        assertTrue(p.isWriteable(List.class, getType("getItemList"), new Annotation[]{}, mt));
+        assertTrue(p.isWriteable(Item[].class, Item[].class, new Annotation[]{}, mt));
+        assertTrue(p.isReadable(Iterator.class, getType("getItemIterator"), new Annotation[]{}, mt));
+        assertFalse(p.isReadable(List.class, List.class, new Annotation[]{}, mt));
+        assertFalse(p.isWriteable(String.class, String.class, new Annotation[]{}, mt));
+        assertFalse(p.isWriteable(Integer.class, Integer.class, new Annotation[]{}, mt));
+        assertTrue(p.isWriteable(Point.class, Point.class, new Annotation[]{}, mt));
+        assertFalse("no default constructor", p.isReadable(Point.class, Point.class, new Annotation[]{}, mt));
+        assertFalse(p.isReadable(Point[].class, Point[].class, new Annotation[]{}, mt));
+        assertFalse("no properties", p.isWriteable(Empty.class, Empty.class, new Annotation[]{}, mt));
+    }
+    
+    @Test
+    public void testWriteBean() throws Exception {
+        StreamingJSONProvider p = new StreamingJSONProvider();
+        Item item = new Item(1, "\"CXF\"\n");
+        item.getTags().add("a");
+        item.getTags().add("b");
+        assertEquals("{\"item\":{\"id\":1,\"name\":\"\\\"CXF\\\"\\n\",\"tags\":[\"a\",\"b\"]}}", 
+                     write(p, item, Item.class, Item.class));
+        
+        p.setDropRootElement(true);
+        assertEquals("{\"id\":1,\"name\":\"\\\"CXF\\\"\\n\",\"tags\":[\"a\",\"b\"]}", 
+                     write(p, item, Item.class, Item.class));
+    }
+    
+    @Test
+    public void testWriteCollection() throws Exception {
+        List<Item> items = Arrays.asList(new Item(1, "a"), new Item(2, null));
+        assertEquals("[{\"id\":1,\"name\":\"a\"},{\"id\":2}]", 
+                     write(new StreamingJSONProvider(), items, List.class, getType("getItemList")));
+    }
+    
+    @Test
+    public void testWriteLikeJSONProvider() throws Exception {
+        Entry entry = new Entry();
+        entry.setKey("k1");
+        entry.setName("CXF");
+        assertEquals("{\"entry\":{\"@key\":\"k1\",\"name\":\"CXF\"}}", writeWithJSONProvider(entry));
+        assertEquals(writeWithJSONProvider(entry), write(new StreamingJSONProvider(), entry, 
+                                                         Entry.class, Entry.class));
+        entry.getTags().add("a");
+        entry.getTags().add("b");
+        assertEquals(writeWithJSONProvider(entry), write(new StreamingJSONProvider(), entry, 
+                                                         Entry.class, Entry.class));
+        
+        Entry read = (Entry)read(new StreamingJSONProvider(), writeWithJSONProvider(entry).getBytes("UTF-8"), 
+                                 Entry.class, Entry.class);
+        assertEquals("k1", read.getKey());
+        assertEquals(Arrays.asList("a", "b"), read.getTags());
+    }
+    
+    @Test
+    public void testReadBook() throws Exception {
+        // numbers written as Strings by JSONProvider are accepted
+        String json = "{\"Book\":{\"id\":\"123\",\"name\":\"CXF in Action\",\"unknown\":[{}]}}";
+        Book book = (Book)read(new StreamingJSONProvider(), json.getBytes("UTF-8"), Book.class, Book.class);
+        assertEquals(123L, book.getId());
+        assertEquals("CXF in Action", book.getName());
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReadCollection() throws Exception {
+        String json = "[{\"id\":1,\"name\":\"a\",\"tags\":[\"x\"]},{\"id\":2}]";
+        List<Item> items = (List<Item>)read(new StreamingJSONProvider(), json.getBytes("UTF-8"), 
+                                            List.class, getType("getItemList"));
+        assertEquals(2, items.size());
+        assertEquals("a", items.get(0).getName());
+        assertEquals(Arrays.asList("x"), items.get(0).getTags());
+        assertEquals(2, items.get(1).getId());
+        
+        Item[] array = (Item[])read(new StreamingJSONProvider(), json.getBytes("UTF-8"), 
+                                    Item[].class, Item[].class);
+        assertEquals(2, array.length);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReadIterator() throws Exception {
+        int count = 20000;
+        List<Item> items = new ArrayList<Item>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(i, "item " + i));
+        }
+        byte[] json = write(new StreamingJSONProvider(), items, List.class, getType("getItemList"))
+            .getBytes("UTF-8");
+        
+        CountingInputStream is = new CountingInputStream(json);
+        Iterator<Item> it = (Iterator<Item>)new StreamingJSONProvider().readFrom(
+            (Class)Iterator.class, getType("getItemIterator"), new Annotation[]{}, 
+            MediaType.APPLICATION_JSON_TYPE, new MetadataMap<String, String>(), is);
+        assertTrue(it.hasNext());
+        assertEquals("item 0", it.next().getName());
+        assertTrue(is.getCount() < json.length / 2);
+        int i = 1;
+        while (it.hasNext()) {
+            assertEquals(i++, it.next().getId());
+        }
+        assertEquals(count, i);
+        assertEquals(json.length, is.getCount());
+    }
+    
+    @Test
+    public void testReadMalformed() throws Exception {
+        try {
+            read(new StreamingJSONProvider(), "{\"item\":{\"id\":1,}}".getBytes("UTF-8"), 
+                 Item.class, Item.class);
+            fail();
+        } catch (WebApplicationException ex) {
+            assertEquals(400, ex.getResponse().getStatus());
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReadTruncatedArray() throws Exception {
+        try {
+            read(new StreamingJSONProvider(), "[".getBytes("UTF-8"), List.class, getType("getItemList"));
+            fail();
+        } catch (WebApplicationException ex) {
+            assertEquals(400, ex.getResponse().getStatus());
+        }
+        Iterator<Item> it = (Iterator<Item>)read(new StreamingJSONProvider(), " [ ".getBytes("UTF-8"), 
+                                                 Iterator.class, getType("getItemIterator"));
+        try {
+            it.hasNext();
+            fail();
+        } catch (WebApplicationException ex) {
+            assertEquals(400, ex.getResponse().getStatus());
+        }
+    }
+    
+    private static Type getType(String methodName) throws Exception {
+        return StreamingJSONProviderTest.class.getMethod(methodName, new Class[]{}).getGenericReturnType();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static String write(StreamingJSONProvider p, Object o, Class<?> cls, Type type) 
+        throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        p.writeTo(o, cls, type, new Annotation[]{}, MediaType.APPLICATION_JSON_TYPE, 
+                  new MetadataMap<String, Object>(), bos);
+        return bos.toString("UTF-8");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static String writeWithJSONProvider(Object o) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new JSONProvider().writeTo(o, (Class)o.getClass(), o.getClass(), new Annotation[]{}, 
+                                   MediaType.APPLICATION_JSON_TYPE, new MetadataMap<String, Object>(), bos);
+        return bos.toString("UTF-8");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Object read(StreamingJSONProvider p, byte[] json, Class<?> cls, Type type) 
+        throws Exception {
+        return p.readFrom((Class)cls, type, new Annotation[]{}, MediaType.APPLICATION_JSON_TYPE,
+                          new MetadataMap<String, String>(), new ByteArrayInputStream(json));
+    }
+    
+    public List<Item> getItemList() {
+        return null;
+    }
+    
+    public Iterator<Item> getItemIterator() {
+        return null;
+    }
+    
+    @XmlRootElement(name = "item")
+    @XmlType(propOrder = {"id", "name", "tags" })
+    public static class Item {
+        private long id;
+        private String name;
+        private List<String> tags = new ArrayList<String>();
+        
+        public Item() {
+        }
+        
+        public Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+        
+        public long getId() {
+            return id;
+        }
+        
+        public void setId(long id) {
+            this.id = id;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+    
+    @XmlRootElement(name = "entry")
+    @XmlType(propOrder = {"name", "tags" })
+    public static class Entry {
+        private String key;
+        private String name;
+        private List<String> tags = new ArrayList<String>();
+        
+        @XmlAttribute
+        public String getKey() {
+            return key;
+        }
+        
+        public void setKey(String key) {
+            this.key = key;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+    
+    public static class Point {
+        private int x;
+        
+        public Point(int x) {
+            this.x = x;
+        }
+        
+        public int getX() {
+            return x;
+        }
+        
+        public void setX(int x) {
+            this.x = x;
+        }
+    }
+    
+    public static class Empty {
+    }
+    
+    private static class CountingInputStream extends ByteArrayInputStream {
+        CountingInputStream(byte[] data) {
+            super(data);
+        }
+        
+        int getCount() {
+            return pos;
+        }
+        
+        public int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1024));
+        }
+    }
+}
@@ -27,8 +27,11 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MultivaluedMap;
 
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.model.ParameterType;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -95,6 +98,61 @@ public class InjectionUtilsTest extends Assert {
         
     }
 
+    @Test
+    public void testHandleParameter() {
+        assertEquals("1", InjectionUtils.handleParameter("1", String.class, ParameterType.QUERY, null));
+        assertEquals(Integer.valueOf(2), 
+                     InjectionUtils.handleParameter("2", Integer.class, ParameterType.QUERY, null));
+        assertEquals(Color.GREEN, 
+                     InjectionUtils.handleParameter("GREEN", Color.class, ParameterType.QUERY, null));
+        assertEquals(CustomColor.RED, 
+                     InjectionUtils.handleParameter("red", CustomColor.class, ParameterType.QUERY, null));
+        assertEquals(CustomColor.RED, 
+                     InjectionUtils.handleParameter("RED", CustomColor.class, ParameterType.QUERY, null));
+        try {
+            InjectionUtils.handleParameter("a", Long.class, ParameterType.QUERY, null);
+            fail();
+        } catch (WebApplicationException ex) {
+            assertEquals(404, ex.getResponse().getStatus());
+        }
+        try {
+            InjectionUtils.handleParameter("BLUE", Color.class, ParameterType.FORM, null);
+            fail();
+        } catch (WebApplicationException ex) {
+            assertEquals(400, ex.getResponse().getStatus());
+        }
+    }
+    
+    @Test
+    public void testHandleBean() {
+        MultivaluedMap<String, String> values = new MetadataMap<String, String>();
+        values.add("a", "aValue");
+        values.add("B", "1");
+        values.add("d.a", "aaValue");
+        values.add("d.b", "2");
+        values.add("x", "unknown");
+        
+        CustomerBean1 bean = (CustomerBean1)InjectionUtils.handleBean(CustomerBean1.class, values, 
+                                                                      ParameterType.QUERY, null, false);
+        assertEquals("aValue", bean.getA());
+        assertEquals(Long.valueOf(1), bean.getB());
+        assertEquals("aaValue", bean.getD().getA());
+        assertEquals(Long.valueOf(2), bean.getD().getB());
+        assertNull(bean.getE());
+    }
+    
+    public enum Color {
+        RED, GREEN
+    }
+    
+    public enum CustomColor {
+        RED;
+        
+        public static CustomColor fromString(String s) {
+            return "red".equals(s) ? RED : null;
+        }
+    }
+
     static class CustomerBean1 {
         private String a;
         private Long b;
@@ -72,6 +72,7 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.MethodDispatcher;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.URITemplate;
+import org.apache.cxf.jaxrs.model.URITemplateTrie;
 import org.apache.cxf.jaxrs.provider.ProviderFactory;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
@@ -110,6 +111,46 @@ public class JAXRSUtilsTest extends Assert {
                      org.apache.cxf.jaxrs.resources.BookStoreNoSubResource.class);
     }
     
+    @Test
+    public void testSelectResourceClassWithTrie() throws Exception {
+        JAXRSServiceFactoryBean sf = new JAXRSServiceFactoryBean();
+        sf.setResourceClasses(org.apache.cxf.jaxrs.resources.BookStoreNoSubResource.class,
+                              org.apache.cxf.jaxrs.resources.BookStore.class,
+                              org.apache.cxf.jaxrs.resources.TestResourceTemplate1.class,
+                              org.apache.cxf.jaxrs.resources.TestResourceTemplate2.class,
+                              org.apache.cxf.jaxrs.resources.TestResourceTemplate3.class,
+                              org.apache.cxf.jaxrs.resources.TestResourceTemplate4.class);
+        sf.create();
+        JAXRSServiceImpl service = (JAXRSServiceImpl)sf.getService();
+        List<ClassResourceInfo> resources = service.getClassResourceInfos();
+        String[] paths = {"/", "/bookstore", "/bookstore/", "/bookstore/bar", "/bookstore/books/123",
+                          "/1", "/1/", "/1/foo", "/1/foo/bar", "/test", "/test/1", "/bookstore;a=b/bar"};
+        for (String path : paths) {
+            MultivaluedMap<String, String> map1 = new MetadataMap<String, String>();
+            ClassResourceInfo cri1 = JAXRSUtils.selectResourceClass(resources, path, map1, null);
+            MultivaluedMap<String, String> map2 = new MetadataMap<String, String>();
+            ClassResourceInfo cri2 = JAXRSUtils.selectResourceClass(resources, 
+                service.getClassResourceInfoTrie(), path, map2, null);
+            assertSame("Different resource for " + path, cri1, cri2);
+            assertEquals("Different values for " + path, map1, map2);
+        }
+    }
+    
+    @Test
+    public void testResourceTrieRebuiltWhenResourcesAdded() throws Exception {
+        JAXRSServiceFactoryBean sf = new JAXRSServiceFactoryBean();
+        sf.setResourceClasses(org.apache.cxf.jaxrs.resources.BookStoreNoSubResource.class);
+        sf.create();
+        JAXRSServiceImpl service = (JAXRSServiceImpl)sf.getService();
+        URITemplateTrie<ClassResourceInfo> trie = service.getClassResourceInfoTrie();
+        assertSame(trie, service.getClassResourceInfoTrie());
+        
+        sf.setResourceClasses(org.apache.cxf.jaxrs.resources.TestResourceTemplate1.class);
+        URITemplateTrie<ClassResourceInfo> trie2 = service.getClassResourceInfoTrie();
+        assertNotSame(trie, trie2);
+        assertEquals(2, trie2.getValues().size());
+    }
+    
     @Test
     public void testSelectBetweenMultipleResourceClasses2() throws Exception {
         JAXRSServiceFactoryBean sf = new JAXRSServiceFactoryBean();
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxws.handler.logical;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.staxutils.StaxSource;
+import org.apache.cxf.staxutils.XMLStreamEventBuffer;
+
+/**
+ * The payload of a message recorded into an {@link XMLStreamEventBuffer}.  Every
+ * source reads the payload from the start, and a new source is handed out each time
+ * the payload is asked for, so the payload can be read by any number of handlers.
+ */
+final class BufferedPayloadSource extends StaxSource {
+    private final XMLStreamEventBuffer buffer;
+
+    BufferedPayloadSource(XMLStreamEventBuffer buffer) {
+        super(buffer.createXMLStreamReader());
+        this.buffer = buffer;
+    }
+
+    BufferedPayloadSource replay() {
+        return new BufferedPayloadSource(buffer);
+    }
+
+    QName getPayloadName() {
+        try {
+            XMLStreamReader reader = buffer.createXMLStreamReader();
+            reader.nextTag();
+            return reader.getName();
+        } catch (XMLStreamException e) {
+            throw new Fault(e);
+        }
+    }
+}
@@ -119,6 +119,8 @@ public class LogicalHandlerInInterceptor
             String ln = dsrc.getNode().getLocalName();
             String ns = dsrc.getNode().getNamespaceURI();
             return new QName(ns, ln);
+        } else if (src instanceof BufferedPayloadSource) {
+            return ((BufferedPayloadSource)src).getPayloadName();
         }
         return null;
     }
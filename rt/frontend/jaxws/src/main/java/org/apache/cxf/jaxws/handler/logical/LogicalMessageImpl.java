@@ -53,12 +53,22 @@ import org.apache.cxf.helpers.XMLUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.message.XMLMessage;
 import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.cxf.staxutils.W3CDOMStreamWriter;
+import org.apache.cxf.staxutils.XMLStreamEventBuffer;
 
 
 public class LogicalMessageImpl implements LogicalMessage {
+    /**
+     * If set to true, the payload of a message read from a stream is recorded as a list
+     * of events rather than copied into a DOM, and handlers get a Source replaying them.
+     * A DOM is only built if a handler asks for one.
+     */
+    public static final String STREAMING_PAYLOAD = LogicalMessageImpl.class.getName() 
+        + ".streamingPayload";
+    
     private static final Logger LOG = LogUtils.getL7dLogger(LogicalMessageImpl.class);
     private final LogicalMessageContextImpl msgContext;
     
@@ -77,7 +87,10 @@ public class LogicalMessageImpl implements LogicalMessage {
         } else {
             Message message = msgContext.getWrappedMessage();
             source = message.getContent(Source.class);
-            if (source == null) {
+            if (source instanceof BufferedPayloadSource) {
+                // the source handed out before may have been read already
+                source = ((BufferedPayloadSource)source).replay();
+            } else if (source == null) {
                 // need to convert
                 SOAPMessage msg = message.getContent(SOAPMessage.class);
                 XMLStreamReader reader = null;
@@ -94,6 +107,21 @@ public class LogicalMessageImpl implements LogicalMessage {
                     }
                 }
 
+                if (source == null
+                    && MessageUtils.isTrue(message.getContextualProperty(STREAMING_PAYLOAD))) {
+                    reader = message.getContent(XMLStreamReader.class);
+                    StaxUtils.toNextTag(reader);
+                    if (reader.getEventType() == XMLStreamReader.START_ELEMENT) {
+                        try {
+                            XMLStreamEventBuffer buffer = new XMLStreamEventBuffer();
+                            buffer.addFragment(reader);
+                            source = new BufferedPayloadSource(buffer);
+                            reader = buffer.createXMLStreamReader();
+                        } catch (XMLStreamException e) {
+                            throw new Fault(e);
+                        }
+                    }
+                }
                 if (source == null) {
                     try {
                         W3CDOMStreamWriter writer = new W3CDOMStreamWriter();
@@ -220,7 +248,12 @@ public class LogicalMessageImpl implements LogicalMessage {
 
     public Object getPayload(JAXBContext arg0) {
         try {
-            return arg0.createUnmarshaller().unmarshal(getPayload());
+            Source source = getPayload();
+            if (source instanceof BufferedPayloadSource) {
+                XMLStreamReader reader = ((BufferedPayloadSource)source).getXMLStreamReader();
+                return arg0.createUnmarshaller().unmarshal(reader);
+            }
+            return arg0.createUnmarshaller().unmarshal(source);
         } catch (JAXBException e) {
             throw new WebServiceException(e);
         }
@@ -72,4 +72,52 @@ public class GreeterTest extends AbstractJaxWsTest {
         assertValid("/s:Envelope/s:Body", response);
         assertValid("//h:sayHiResponse", response);
     }
+
+    @Test
+    public void testEndpointWithDirectInvocation() throws Exception {
+        ReflectionServiceFactoryBean bean = new JaxWsServiceFactoryBean();
+        URL resource = getClass().getResource("/wsdl/hello_world.wsdl");
+        assertNotNull(resource);        
+        bean.setWsdlURL(resource.toString());
+        bean.setBus(bus);
+        bean.setServiceClass(GreeterImpl.class);
+        DirectGreeterImpl greeter = new DirectGreeterImpl();
+        JAXWSMethodInvoker invoker = new JAXWSMethodInvoker(greeter);
+        invoker.setDirectInvocation(true);
+        
+        ServerFactoryBean svr = new ServerFactoryBean();
+        svr.setBus(bus);
+        svr.setServiceFactory(bean);
+        svr.setInvoker(invoker);
+        
+        svr.create();
+
+        Node response = invoke("http://localhost:9000/SoapContext/SoapPort",
+                           LocalTransportFactory.TRANSPORT_ID,
+                           "GreeterMessage.xml");
+        
+        assertEquals(1, greeter.getInvocationCount());
+        assertTrue("sayHi was called reflectively", greeter.isDirect());
+        
+        assertNotNull(response);
+        
+        addNamespace("h", "http://apache.org/hello_world_soap_http/types");
+        
+        assertValid("/s:Envelope/s:Body", response);
+        assertValid("//h:sayHiResponse", response);
+    }
+    
+    public static class DirectGreeterImpl extends GreeterImpl {
+        private boolean direct;
+        
+        public String sayHi() {
+            StackTraceElement caller = new Throwable().getStackTrace()[1];
+            direct = caller.getClassName().contains("_DirectInvocation");
+            return super.sayHi();
+        }
+        
+        public boolean isDirect() {
+            return direct;
+        }
+    }
 }
@@ -19,11 +19,17 @@
 
 package org.apache.cxf.jaxws.handler;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+
+import org.w3c.dom.Document;
 
 import org.apache.cxf.jaxws.handler.logical.LogicalMessageContextImpl;
 import org.apache.cxf.jaxws.handler.logical.LogicalMessageImpl;
@@ -31,6 +37,7 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.handlers.types.AddNumbers;
 import org.apache.handlers.types.ObjectFactory;
 import org.junit.Assert;
@@ -72,4 +79,40 @@ public class LogicalMessageImplTest extends Assert {
         assertEquals(req.getArg0(), resp.getArg0());        
         assertEquals(req.getArg1(), resp.getArg1());        
     }
+
+    @Test
+    public void testGetStreamingPayload() throws Exception {
+        JAXBContext ctx = JAXBContext.newInstance(ObjectFactory.class);
+        Message message = new MessageImpl();
+        Exchange e = new ExchangeImpl();
+        message.setExchange(e);
+        message.put(LogicalMessageImpl.STREAMING_PAYLOAD, Boolean.TRUE);
+        String body = "<soap:Body xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+            + " xmlns:x=\"http://apache.org/handlers/types\">"
+            + "<x:addNumbers><x:arg0>10</x:arg0><x:arg1>20</x:arg1></x:addNumbers></soap:Body>";
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new StringReader(body));
+        reader.nextTag();
+        reader.next();
+        message.setContent(XMLStreamReader.class, reader);
+        
+        LogicalMessageImpl lmi = new LogicalMessageImpl(new LogicalMessageContextImpl(message));
+        Source source = lmi.getPayload();
+        assertFalse(source instanceof DOMSource);
+        Document doc = StaxUtils.read(StaxUtils.createXMLStreamReader(source));
+        assertEquals("addNumbers", doc.getDocumentElement().getLocalName());
+        assertEquals("http://apache.org/handlers/types", doc.getDocumentElement().getNamespaceURI());
+
+        // read again, the payload is replayed
+        for (int x = 0; x < 2; x++) {
+            JAXBElement<?> el = (JAXBElement)lmi.getPayload(ctx);
+            AddNumbers resp = (AddNumbers)el.getValue();
+            assertEquals(10, resp.getArg0());
+            assertEquals(20, resp.getArg1());
+        }
+
+        XMLStreamReader bodyReader = message.getContent(XMLStreamReader.class);
+        assertNotSame(reader, bodyReader);
+        bodyReader.nextTag();
+        assertEquals("addNumbers", bodyReader.getLocalName());
+    }
 }
@@ -32,6 +32,7 @@ import org.apache.cxf.feature.AbstractFeature;
 import org.apache.cxf.service.factory.FactoryBeanListener;
 import org.apache.cxf.service.factory.ReflectionServiceFactoryBean;
 import org.apache.cxf.service.factory.ServiceConstructionException;
+import org.apache.cxf.service.invoker.AbstractInvoker;
 import org.apache.cxf.service.invoker.BeanInvoker;
 import org.apache.cxf.service.invoker.FactoryInvoker;
 import org.apache.cxf.service.invoker.Invoker;
@@ -158,6 +159,9 @@ public class ServerFactoryBean extends AbstractWSDLBasedEndpointFactory {
                     ep.getService().setInvoker(invoker);
                 }
             }
+            if (ep.getService().getInvoker() instanceof AbstractInvoker) {
+                ((AbstractInvoker)ep.getService().getInvoker()).initializeDirectInvocation(ep.getService());
+            }
 
         } catch (EndpointException e) {
             throw new ServiceConstructionException(e);
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.management.counters;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of response times in microseconds. Values are counted
+ * in log-linear buckets: every power of two is split into 32 linear sub buckets,
+ * so a value is known to within about 3% from 1 microsecond up to 2^36 
+ * microseconds (about 19 hours). Larger values are counted in the last bucket.
+ * 
+ * Recording is lock free. The counts are spread over stripes picked by thread,
+ * so invocations running concurrently do not update the same counts.
+ */
+public final class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 36;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS;
+    
+    private static final int MAX_STRIPES = 4;
+    
+    // per stripe, the bucket counts followed by the sum of the values
+    private final AtomicLongArray stripes[];
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    LatencyHistogram(int concurrency) {
+        int n = 1;
+        while (n < concurrency && n < MAX_STRIPES) {
+            n <<= 1;
+        }
+        stripes = new AtomicLongArray[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS + 1);
+        }
+    }
+    
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+    
+    /**
+     * @return the highest value counted in the bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = SUB_BUCKETS + (index & (SUB_BUCKETS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+    
+    public void record(long value) {
+        AtomicLongArray stripe = stripes[(int)Thread.currentThread().getId() & (stripes.length - 1)];
+        stripe.incrementAndGet(bucketIndex(value));
+        stripe.addAndGet(BUCKETS, value);
+        
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+        m = min.get();
+        while (value < m && !min.compareAndSet(m, value)) {
+            m = min.get();
+        }
+    }
+    
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i <= BUCKETS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        max.set(0);
+        min.set(Long.MAX_VALUE);
+    }
+    
+    /**
+     * @return the bucket counts merged over the stripes, followed by the sum
+     * of the recorded values
+     */
+    public long[] snapshot() {
+        long counts[] = new long[BUCKETS + 1];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i <= BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return counts;
+    }
+    
+    public long getCount() {
+        return getCount(snapshot());
+    }
+    
+    public long getSum() {
+        long sum = 0;
+        for (AtomicLongArray stripe : stripes) {
+            sum += stripe.get(BUCKETS);
+        }
+        return sum;
+    }
+    
+    /**
+     * @return the largest recorded value, 0 if there is none
+     */
+    public long getMax() {
+        return max.get();
+    }
+    
+    /**
+     * @return the smallest recorded value, Long.MAX_VALUE if there is none
+     */
+    public long getMin() {
+        return min.get();
+    }
+    
+    public long getValueAtPercentile(double percentile) {
+        long value = getValueAtPercentile(snapshot(), percentile);
+        return Math.min(value, getMax());
+    }
+    
+    static long getCount(long[] snapshot) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += snapshot[i];
+        }
+        return count;
+    }
+    
+    /**
+     * @param snapshot bucket counts as returned by {@link #snapshot()}, or the 
+     *        difference of two snapshots
+     * @param percentile between 0 and 100
+     * @return the highest value of the bucket holding the percentile, 0 if 
+     *        nothing was counted
+     */
+    static long getValueAtPercentile(long[] snapshot, double percentile) {
+        long count = getCount(snapshot);
+        long rank = (long)Math.ceil(Math.min(100d, Math.max(0d, percentile)) / 100d * count);
+        if (rank == 0) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+}
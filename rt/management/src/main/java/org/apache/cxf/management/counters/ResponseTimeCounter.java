@@ -25,23 +25,45 @@ import javax.management.ObjectName;
 
 import org.apache.cxf.message.FaultMode;
 
+/**
+ * Counts the invocations and faults of a service or operation and keeps a 
+ * {@link LatencyHistogram} of their response times in microseconds. Besides 
+ * the values since the counter was created or reset, percentiles and the 
+ * invocation rate are available for a sliding window over the last minute, 
+ * which moves in steps of a quarter of the window.
+ */
 public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {    
     
+    static final long WINDOW = 60L * 1000 * 1000;
+    static final int WINDOW_STEPS = 4;
+    
     private ObjectName objectName;
     private AtomicInteger invocations = new AtomicInteger();
     private AtomicInteger checkedApplicationFaults = new AtomicInteger();
     private AtomicInteger unCheckedApplicationFaults = new AtomicInteger();
     private AtomicInteger runtimeFaults = new AtomicInteger();
     private AtomicInteger logicalRuntimeFaults = new AtomicInteger();
-    private long totalHandlingTime;    
-    private long maxHandlingTime;
-    private long minHandlingTime = Integer.MAX_VALUE;
+    private LatencyHistogram histogram = new LatencyHistogram();
+    
+    // the histogram snapshots taken at the last WINDOW_STEPS steps, oldest at windowIndex
+    private final long[][] windowSnapshots = new long[WINDOW_STEPS][];
+    private final long[] windowTimes = new long[WINDOW_STEPS];
+    private int windowIndex;
+    private volatile long startTime;
+    private volatile long nextWindowStep;
     
     public ResponseTimeCounter(ObjectName on) {
-        objectName = on;     
+        objectName = on;
+        startTime = now();
+        nextWindowStep = startTime + WINDOW / WINDOW_STEPS;
+    }
+    
+    private static long now() {
+        return System.nanoTime() / 1000;
     }
     
     public void  increase(MessageHandlingTimeRecorder mhtr) {
+        moveWindow(now());
         invocations.getAndIncrement();
         FaultMode faultMode = mhtr.getFaultMode();
         if (null == faultMode) {
@@ -76,14 +98,54 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
             handlingTime = mhtr.getHandlingTime(); 
         }
             
-        totalHandlingTime = totalHandlingTime + handlingTime;
-        if (maxHandlingTime < handlingTime) {
-            maxHandlingTime = handlingTime;
+        histogram.record(handlingTime);
+    }
+    
+    private void moveWindow(long time) {
+        if (time < nextWindowStep) {
+            return;
         }
-        if (minHandlingTime > handlingTime) {
-            minHandlingTime = handlingTime;
+        synchronized (windowSnapshots) {
+            long step = WINDOW / WINDOW_STEPS;
+            if (time < nextWindowStep) {
+                return;
+            }
+            // steps without any invocation or query get the same snapshot
+            long steps = (time - nextWindowStep) / step + 1;
+            long[] snapshot = histogram.snapshot();
+            for (int i = 0; i < Math.min(steps, WINDOW_STEPS); i++) {
+                windowSnapshots[windowIndex] = snapshot;
+                windowTimes[windowIndex] = time;
+                windowIndex = (windowIndex + 1) % WINDOW_STEPS;
+            }
+            nextWindowStep += steps * step;
         }
     }
+    
+    /**
+     * @return the histogram counts since the start of the window, followed by 
+     * the sum of the response times and the start time of the window
+     */
+    private long[] getWindow() {
+        long time = now();
+        moveWindow(time);
+        long[] base;
+        long start;
+        synchronized (windowSnapshots) {
+            base = windowSnapshots[windowIndex];
+            start = base == null ? startTime : windowTimes[windowIndex];
+        }
+        long[] window = histogram.snapshot();
+        if (base != null) {
+            for (int i = 0; i < base.length; i++) {
+                window[i] -= base[i];
+            }
+        }
+        long[] result = new long[window.length + 1];
+        System.arraycopy(window, 0, result, 0, window.length);
+        result[window.length] = Math.max(1, time - start);
+        return result;
+    }
 
     public void reset() {
         invocations.set(0);
@@ -92,9 +154,14 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
         runtimeFaults.set(0);
         logicalRuntimeFaults.set(0);
         
-        totalHandlingTime = 0;    
-        maxHandlingTime = 0;
-        minHandlingTime = Integer.MAX_VALUE;   
+        histogram.reset();
+        synchronized (windowSnapshots) {
+            for (int i = 0; i < WINDOW_STEPS; i++) {
+                windowSnapshots[i] = null;
+            }
+            startTime = now();
+            nextWindowStep = startTime + WINDOW / WINDOW_STEPS;
+        }
     }
     
     public ObjectName getObjectName() {
@@ -102,15 +169,76 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
     }
 
     public Number getAvgResponseTime() {        
-        return (int)(totalHandlingTime / invocations.get());
+        int count = invocations.get();
+        return count == 0 ? 0 : (int)(histogram.getSum() / count);
     }
     
     public Number getMaxResponseTime() {        
-        return maxHandlingTime;
+        return histogram.getMax();
     }
 
     public Number getMinResponseTime() {        
-        return minHandlingTime;
+        long min = histogram.getMin();
+        return min == Long.MAX_VALUE ? (long)Integer.MAX_VALUE : min;
+    }
+    
+    public Number getResponseTimeAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+    
+    public Number getP50ResponseTime() {
+        return getResponseTimeAtPercentile(50);
+    }
+    
+    public Number getP90ResponseTime() {
+        return getResponseTimeAtPercentile(90);
+    }
+    
+    public Number getP99ResponseTime() {
+        return getResponseTimeAtPercentile(99);
+    }
+    
+    public Number getP999ResponseTime() {
+        return getResponseTimeAtPercentile(99.9);
+    }
+    
+    public Number getInvocationRate() {
+        return invocations.get() * 1000000d / Math.max(1, now() - startTime);
+    }
+    
+    public Number getWindowResponseTimeAtPercentile(double percentile) {
+        return LatencyHistogram.getValueAtPercentile(getWindow(), percentile);
+    }
+    
+    public Number getWindowP50ResponseTime() {
+        return getWindowResponseTimeAtPercentile(50);
+    }
+    
+    public Number getWindowP90ResponseTime() {
+        return getWindowResponseTimeAtPercentile(90);
+    }
+    
+    public Number getWindowP99ResponseTime() {
+        return getWindowResponseTimeAtPercentile(99);
+    }
+    
+    public Number getWindowP999ResponseTime() {
+        return getWindowResponseTimeAtPercentile(99.9);
+    }
+    
+    public Number getWindowNumInvocations() {
+        return LatencyHistogram.getCount(getWindow());
+    }
+    
+    public Number getWindowAvgResponseTime() {
+        long[] window = getWindow();
+        long count = LatencyHistogram.getCount(window);
+        return count == 0 ? 0 : window[LatencyHistogram.BUCKETS] / count;
+    }
+    
+    public Number getWindowInvocationRate() {
+        long[] window = getWindow();
+        return LatencyHistogram.getCount(window) * 1000000d / window[LatencyHistogram.BUCKETS + 1];
     }
 
     public Number getNumInvocations() {        
@@ -134,7 +262,7 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
     }
     
     public Number getTotalHandlingTime() {        
-        return totalHandlingTime;
+        return histogram.getSum();
     }  
 
 }
@@ -28,4 +28,32 @@ public interface ResponseTimeCounterMBean {
     Number getMaxResponseTime();
     Number getMinResponseTime();   
     Number getTotalHandlingTime();
+    
+    /**
+     * @param percentile between 0 and 100
+     * @return the response time in microseconds that the given percentage of
+     * the invocations did not exceed, accurate to about 3%
+     */
+    Number getResponseTimeAtPercentile(double percentile);
+    Number getP50ResponseTime();
+    Number getP90ResponseTime();
+    Number getP99ResponseTime();
+    Number getP999ResponseTime();
+    /**
+     * @return the invocations per second since the counter was created or reset
+     */
+    Number getInvocationRate();
+    
+    /**
+     * Like {@link #getResponseTimeAtPercentile(double)}, for the invocations 
+     * of the last minute only.
+     */
+    Number getWindowResponseTimeAtPercentile(double percentile);
+    Number getWindowP50ResponseTime();
+    Number getWindowP90ResponseTime();
+    Number getWindowP99ResponseTime();
+    Number getWindowP999ResponseTime();
+    Number getWindowNumInvocations();
+    Number getWindowAvgResponseTime();
+    Number getWindowInvocationRate();
 }
\ No newline at end of file
@@ -131,6 +131,13 @@ public class CounterRepositoryTest extends Assert {
         assertEquals("The operation counter's MinResponseTime is wrong ",
                      opCounter.getMinResponseTime(), (long)1000);
         assertEquals("The Service counter isn't increased", sCounter.getNumInvocations(), 2);
+        // percentiles are accurate to about 3%
+        assertTrue("The operation counter's median is wrong ", 
+                   Math.abs(opCounter.getP50ResponseTime().longValue() - 1000) <= 32);
+        assertEquals("The operation counter's 99th percentile is wrong ", 
+                     opCounter.getP99ResponseTime(), (long)2000);
+        assertEquals("The operation counter's window isn't increased", 
+                     opCounter.getWindowNumInvocations(), (long)2);
         
         opCounter.reset();
         assertTrue(opCounter.getNumCheckedApplicationFaults().intValue() == 0);
@@ -141,6 +148,8 @@ public class CounterRepositoryTest extends Assert {
         assertTrue(opCounter.getTotalHandlingTime().intValue() == 0);
         assertTrue(opCounter.getMinResponseTime().longValue() == Integer.MAX_VALUE);
         assertTrue(opCounter.getMaxResponseTime().intValue() == 0);
+        assertTrue(opCounter.getP99ResponseTime().intValue() == 0);
+        assertTrue(opCounter.getWindowNumInvocations().intValue() == 0);
         
         EasyMock.verify(bus);
         EasyMock.verify(mhtr1);
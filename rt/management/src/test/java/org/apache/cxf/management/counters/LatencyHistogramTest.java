@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.management.counters;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest extends Assert {
+    
+    @Test
+    public void testBuckets() throws Exception {
+        long last = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            long highest = LatencyHistogram.highestValue(i);
+            assertEquals(i, LatencyHistogram.bucketIndex(last + 1));
+            assertEquals(i, LatencyHistogram.bucketIndex(highest));
+            // buckets are never wider than about 3% of their values
+            assertTrue(highest - last <= Math.max(1, (last + 1) / 32));
+            last = highest;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucketIndex(-1));
+    }
+    
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getCount());
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(50005000, histogram.getSum());
+        assertEquals(1, histogram.getMin());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+        assertWithin(5000, histogram.getValueAtPercentile(50));
+        assertWithin(9900, histogram.getValueAtPercentile(99));
+        assertWithin(9990, histogram.getValueAtPercentile(99.9));
+        
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getMax());
+        assertEquals(Long.MAX_VALUE, histogram.getMin());
+    }
+    
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram(4);
+        Thread threads[] = new Thread[8];
+        for (int x = 0; x < threads.length; x++) {
+            final long seed = x;
+            threads[x] = new Thread() {
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100000; i++) {
+                        histogram.record(random.nextInt(1000000));
+                    }
+                }
+            };
+            threads[x].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(800000, histogram.getCount());
+        assertWithin(500000, histogram.getValueAtPercentile(50));
+    }
+    
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, 
+                   Math.abs(expected - actual) <= expected / 32 + 1);
+    }
+}
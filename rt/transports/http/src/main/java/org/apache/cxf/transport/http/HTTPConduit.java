@@ -21,6 +21,7 @@ package org.apache.cxf.transport.http;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -42,6 +43,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -73,6 +75,7 @@ import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.AbstractConduit;
 import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.http.nio.NIOHTTPClient;
 import org.apache.cxf.transport.http.policy.PolicyUtils;
 import org.apache.cxf.transport.https.CertConstraints;
 import org.apache.cxf.transport.https.CertConstraintsInterceptor;
@@ -152,6 +155,15 @@ public class HTTPConduit
      *  is used to get the response.
      */
     public static final String KEY_HTTP_CONNECTION = "http.connection";
+    
+    /**
+     *  This constant is the contextual property that makes asynchronous
+     *  invocations over plain http use the non-blocking NIO client, so that
+     *  no thread waits for the response. Invocations that need to cache
+     *  the request, go through a proxy or use trust deciders are not
+     *  affected.
+     */
+    public static final String USE_ASYNC_CLIENT = "use.async.http.conduit";
 
     /**
      * This constant is the Message(Map) key for a list of visited URLs that
@@ -186,6 +198,13 @@ public class HTTPConduit
      */
     protected HttpURLConnectionFactory connectionFactory;
     
+    /**
+     * This field holds the connection manager the connections are leased
+     * from if the client policy sets MaxConnectionsPerHost. If it is not
+     * set, the manager registered on the bus is used.
+     */
+    private HTTPConnectionManager connectionManager;
+    
     /**
      *  This field holds a reference to the CXF bus associated this conduit.
      */
@@ -444,6 +463,48 @@ public class HTTPConduit
         return sessionCookies;
     }
     
+    /**
+     * Leases a connection from the connection manager if the client policy
+     * limits the connections per host.
+     * 
+     * @return the lease, or null if connections are not managed
+     */
+    private HTTPConnectionLease leaseConnection(URL url, Proxy proxy, HTTPClientPolicy policy)
+        throws IOException {
+        if (policy.getMaxConnectionsPerHost() <= 0) {
+            return null;
+        }
+        return getConnectionManager().lease(url, proxy, policy);
+    }
+    
+    /**
+     * This method returns the connection manager connections are leased from
+     * if the client policy sets MaxConnectionsPerHost. 
+     */
+    public synchronized HTTPConnectionManager getConnectionManager() {
+        if (connectionManager == null) {
+            if (bus == null) {
+                connectionManager = new HTTPConnectionPool();
+            } else {
+                synchronized (bus) {
+                    connectionManager = bus.getExtension(HTTPConnectionManager.class);
+                    if (connectionManager == null) {
+                        connectionManager = new HTTPConnectionPool(bus);
+                    }
+                }
+            }
+        }
+        return connectionManager;
+    }
+
+    /**
+     * This method sets the connection manager for this HTTPConduit, 
+     * overriding the one registered on the bus.
+     */
+    public synchronized void setConnectionManager(HTTPConnectionManager manager) {
+        connectionManager = manager;
+    }
+    
     /**
      * This method sets the connectionFactory field for this object. It is called
      * after an SSL Client Policy is set or an HttpsHostnameVerifier
@@ -500,9 +561,18 @@ public class HTTPConduit
         boolean needToCacheRequest = false;
         
         HTTPClientPolicy csPolicy = getClient(message);
+        
+        if (useAsyncClient(message, currentURL, csPolicy)) {
+            setSessionCookies(message, headers);
+            setHeadersByPolicy(message, currentURL, headers);
+            message.setContent(OutputStream.class,
+                               new AsyncWrappedOutputStream(message, currentURL, csPolicy));
+            return;
+        }
 
         HttpURLConnectionFactory f = getConnectionFactory(currentURL);
-        HttpURLConnection connection = f.createConnection(getProxy(csPolicy), currentURL);
+        Proxy proxy = getProxy(csPolicy);
+        HttpURLConnection connection = f.createConnection(proxy, currentURL);
         connection.setDoOutput(true);  
              
         long timeout = csPolicy.getConnectionTimeout();
@@ -571,28 +641,7 @@ public class HTTPConduit
             }
         }
 
-        //Do we need to maintain a session?
-        maintainSession = Boolean.TRUE.equals((Boolean)message.get(Message.MAINTAIN_SESSION));
-        
-        //If we have any cookies and we are maintaining sessions, then use them        
-        if (maintainSession && sessionCookies.size() > 0) {
-            List<String> cookies = null;
-            for (String s : headers.keySet()) {
-                if (HttpHeaderHelper.COOKIE.equalsIgnoreCase(s)) {
-                    cookies = headers.remove(s);
-                    break;
-                }
-            }
-            if (cookies == null) {
-                cookies = new ArrayList<String>();
-            } else {
-                cookies = new ArrayList<String>(cookies);
-            }
-            headers.put(HttpHeaderHelper.COOKIE, cookies);
-            for (Cookie c : sessionCookies.values()) {
-                cookies.add(c.requestCookieHeader());
-            }
-        }
+        setSessionCookies(message, headers);
 
         // The trust decision is relegated to after the "flushing" of the
         // request headers.
@@ -611,6 +660,15 @@ public class HTTPConduit
         // client side policy.
         setHeadersByPolicy(message, currentURL, headers);
         
+        // Lease the connection last, nothing must fail once it is held 
+        // until the chain knows to release it.
+        HTTPConnectionLease lease = leaseConnection(currentURL, proxy, csPolicy);
+        if (lease != null) {
+            message.put(HTTPConnectionLease.class, lease);
+            if (message.getInterceptorChain() != null) {
+                message.getInterceptorChain().add(HTTPConnectionLeaseInterceptor.INSTANCE);
+            }
+        }
 
         message.setContent(OutputStream.class, 
                            new WrappedOutputStream(
@@ -621,6 +679,57 @@ public class HTTPConduit
         // We are now "ready" to "send" the message. 
     }
     
+    /**
+     * This predicate returns true iff the message is sent by an asynchronous
+     * invocation that can use the NIO client.
+     */
+    private boolean useAsyncClient(Message message, URL url, HTTPClientPolicy csPolicy) {
+        Exchange exchange = message.getExchange();
+        return bus != null
+            && exchange != null
+            && !exchange.isSynchronous()
+            && !exchange.isOneWay()
+            && MessageUtils.isTrue(message.getContextualProperty(USE_ASYNC_CLIENT))
+            && "http".equals(url.getProtocol())
+            && getProxy(csPolicy) == null
+            && System.getProperty("http.proxyHost") == null
+            && authSupplier == null
+            && !csPolicy.isAutoRedirect()
+            && csPolicy.getMaxRetransmits() <= 0
+            && csPolicy.getMaxConnectionsPerHost() <= 0
+            && trustDecider == null
+            && message.get(MessageTrustDecider.class) == null;
+    }
+    
+    /**
+     * Adds the session cookies to the request headers if the session 
+     * is maintained.
+     */
+    private void setSessionCookies(Message message, Map<String, List<String>> headers) {
+        //Do we need to maintain a session?
+        maintainSession = Boolean.TRUE.equals((Boolean)message.get(Message.MAINTAIN_SESSION));
+        
+        //If we have any cookies and we are maintaining sessions, then use them        
+        if (maintainSession && sessionCookies.size() > 0) {
+            List<String> cookies = null;
+            for (String s : headers.keySet()) {
+                if (HttpHeaderHelper.COOKIE.equalsIgnoreCase(s)) {
+                    cookies = headers.remove(s);
+                    break;
+                }
+            }
+            if (cookies == null) {
+                cookies = new ArrayList<String>();
+            } else {
+                cookies = new ArrayList<String>(cookies);
+            }
+            headers.put(HttpHeaderHelper.COOKIE, cookies);
+            for (Cookie c : sessionCookies.values()) {
+                cookies.add(c.requestCookieHeader());
+            }
+        }
+    }
+    
     public void close(Message msg) throws IOException {
         InputStream in = msg.getContent(InputStream.class);
         try {
@@ -904,10 +1013,7 @@ public class HTTPConduit
      * @param message The outbound message.
      * @throws IOException
      */
-    private void setURLRequestHeaders(Message message) throws IOException {
-        HttpURLConnection connection = 
-            (HttpURLConnection)message.get(KEY_HTTP_CONNECTION);
-
+    private static String getRequestContentType(Message message) {
         String ct  = (String)message.get(Message.CONTENT_TYPE);
         String enc = (String)message.get(Message.ENCODING);
 
@@ -922,6 +1028,14 @@ public class HTTPConduit
         } else {
             ct = "text/xml";
         }
+        return ct;
+    }
+    
+    private void setURLRequestHeaders(Message message) throws IOException {
+        HttpURLConnection connection = 
+            (HttpURLConnection)message.get(KEY_HTTP_CONNECTION);
+
+        String ct = getRequestContentType(message);
         connection.setRequestProperty(HttpHeaderHelper.CONTENT_TYPE, ct);
         
         if (LOG.isLoggable(Level.FINE)) {
@@ -1884,9 +1998,7 @@ public class HTTPConduit
             try {
                 if (buffer != null && buffer.size() > 0) {
                     thresholdNotReached();
-                    LoadingByteArrayOutputStream tmp = buffer;
-                    buffer = null;
-                    super.write(tmp.getRawBytes(), 0, tmp.size());
+                    unBuffer();
                 }
                 if (!written) {
                     handleHeadersTrustCaching();
@@ -1907,6 +2019,7 @@ public class HTTPConduit
                     }
                 }
             } catch (HttpRetryException e) {
+                releaseConnection(false);
                 String msg = "HTTP response '" + e.responseCode() + ": "
                              + connection.getResponseMessage() + "' invoking " + connection.getURL();
                 switch (e.responseCode()) {
@@ -1950,6 +2063,7 @@ public class HTTPConduit
                 // pass cause with initCause() instead of constructor for jdk 1.5 compatibility
                 throw (IOException) new IOException(msg).initCause(e);
             } catch (IOException e) {
+                releaseConnection(false);
                 String url = connection.getURL().toString();
                 String origMessage = e.getMessage();
                 if (origMessage != null && origMessage.contains(url)) {
@@ -1960,12 +2074,24 @@ public class HTTPConduit
                                    + e.getMessage(), e,
                                    IOException.class);
             } catch (RuntimeException e) {
+                releaseConnection(false);
                 throw mapException(e.getClass().getSimpleName() 
                                    + " invoking " + connection.getURL() + ": "
                                    + e.getMessage(), e,
                                    RuntimeException.class);
             }
         }
+        
+        /**
+         * Hands the leased connection, if any, back to the connection manager.
+         */
+        protected void releaseConnection(boolean reusable) {
+            HTTPConnectionLease lease = outMessage.get(HTTPConnectionLease.class);
+            if (lease != null) {
+                lease.release(reusable);
+            }
+        }
+        
         private <T extends Exception> T mapException(String msg, 
                                                      T ex, Class<T> cls) {
             T ex2 = ex;
@@ -2053,26 +2179,12 @@ public class HTTPConduit
                         try {
                             handleResponseInternal();
                         } catch (Exception e) {
-                            ((PhaseInterceptorChain)outMessage.getInterceptorChain()).abort();
-                            ((PhaseInterceptorChain)outMessage.getInterceptorChain()).unwind(outMessage);
-                            outMessage.setContent(Exception.class, e);
-                            outMessage.getInterceptorChain().getFaultObserver().onMessage(outMessage);
+                            releaseConnection(false);
+                            handleAsyncFault(outMessage, e);
                         }
                     }
                 };
-                Executor ex = outMessage.getExchange().get(Executor.class);
-                if (ex == null) {
-                    WorkQueueManager mgr = outMessage.getExchange().get(Bus.class)
-                        .getExtension(WorkQueueManager.class);
-                    ex = mgr.getNamedWorkQueue("http-conduit");
-                    if (ex == null) {
-                        ex = mgr.getAutomaticWorkQueue();
-                    }
-                } else {
-                    outMessage.getExchange().put(Executor.class.getName() 
-                                                 + ".USING_SPECIFIED", Boolean.TRUE);
-                }
-                ex.execute(runnable);
+                getResponseExecutor(outMessage).execute(runnable);
             }
         }
         protected void handleResponseInternal() throws IOException {
@@ -2119,6 +2231,7 @@ public class HTTPConduit
                     // oneway operation or decoupled MEP without 
                     // partial response
                     connection.getInputStream().close();
+                    releaseConnection(true);
                     return;
                 }
             } else {
@@ -2170,6 +2283,15 @@ public class HTTPConduit
             }
             // if (in == null) : it's perfectly ok for non-soap http services
             // have no response body : those interceptors which do need it will check anyway        
+            HTTPConnectionLease lease = outMessage.get(HTTPConnectionLease.class);
+            if (lease != null) {
+                if (in == null) {
+                    lease.release(true);
+                } else {
+                    // the connection is in use until the response is read
+                    in = new LeasedInputStream(in, lease);
+                }
+            }
             inMessage.setContent(InputStream.class, in);
             
             
@@ -2179,6 +2301,247 @@ public class HTTPConduit
 
     }
     
+    /**
+     * Hands the leased connection back once the response has been read
+     * to the end or closed.
+     */
+    private static class LeasedInputStream extends FilterInputStream {
+        private final HTTPConnectionLease lease;
+        private boolean failed;
+        
+        LeasedInputStream(InputStream in, HTTPConnectionLease l) {
+            super(in);
+            lease = l;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            try {
+                return released(super.read());
+            } catch (IOException ex) {
+                failed = true;
+                throw ex;
+            }
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return released(super.read(b, off, len));
+            } catch (IOException ex) {
+                failed = true;
+                throw ex;
+            }
+        }
+        
+        private int released(int result) {
+            if (result == -1) {
+                // the response has been read, the JDK keeps the socket alive
+                lease.release(true);
+            }
+            return result;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } catch (IOException ex) {
+                failed = true;
+                throw ex;
+            } finally {
+                lease.release(!failed);
+            }
+        }
+    }
+    
+    /**
+     * Returns the executor the response of an asynchronous invocation is
+     * processed on.
+     */
+    private static Executor getResponseExecutor(Message outMessage) {
+        Executor ex = outMessage.getExchange().get(Executor.class);
+        if (ex == null) {
+            WorkQueueManager mgr = outMessage.getExchange().get(Bus.class)
+                .getExtension(WorkQueueManager.class);
+            ex = mgr.getNamedWorkQueue("http-conduit");
+            if (ex == null) {
+                ex = mgr.getAutomaticWorkQueue();
+            }
+        } else {
+            outMessage.getExchange().put(Executor.class.getName() 
+                                         + ".USING_SPECIFIED", Boolean.TRUE);
+        }
+        return ex;
+    }
+    
+    /**
+     * Hands a failure of an asynchronous invocation to the fault observer.
+     */
+    private static void handleAsyncFault(Message outMessage, Exception e) {
+        ((PhaseInterceptorChain)outMessage.getInterceptorChain()).abort();
+        ((PhaseInterceptorChain)outMessage.getInterceptorChain()).unwind(outMessage);
+        outMessage.setContent(Exception.class, e);
+        outMessage.getInterceptorChain().getFaultObserver().onMessage(outMessage);
+    }
+    
+    /**
+     * Buffers the request of an asynchronous invocation and sends it with 
+     * the NIO client once the stream is closed.  The response is processed 
+     * on the response executor, no thread waits for it.
+     */
+    protected class AsyncWrappedOutputStream extends LoadingByteArrayOutputStream 
+        implements NIOHTTPClient.ResponseCallback {
+        
+        protected final Message outMessage;
+        protected final URL url;
+        protected final HTTPClientPolicy policy;
+        private boolean sent;
+        
+        protected AsyncWrappedOutputStream(Message m, URL u, HTTPClientPolicy p) {
+            outMessage = m;
+            url = u;
+            policy = p;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (sent) {
+                return;
+            }
+            sent = true;
+            String method = (String)outMessage.get(Message.HTTP_REQUEST_METHOD);
+            if (method == null) {
+                method = "POST";
+            }
+            boolean hasBody = ("POST".equals(method) || "PUT".equals(method))
+                && outMessage.get("org.apache.cxf.post.empty") == null;
+            
+            Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+            headers.put(HttpHeaderHelper.CONTENT_TYPE, 
+                        createMutableList(getRequestContentType(outMessage)));
+            boolean userAgent = false;
+            for (Map.Entry<String, List<String>> e : getSetProtocolHeaders(outMessage).entrySet()) {
+                String header = e.getKey();
+                if (HttpHeaderHelper.CONTENT_TYPE.equalsIgnoreCase(header)) {
+                    continue;
+                }
+                userAgent |= "User-Agent".equalsIgnoreCase(header);
+                if (HttpHeaderHelper.COOKIE.equalsIgnoreCase(header)) {
+                    headers.put(header, e.getValue());
+                } else {
+                    StringBuilder b = new StringBuilder();
+                    for (int i = 0; i < e.getValue().size(); i++) {
+                        b.append(e.getValue().get(i));
+                        if (i + 1 < e.getValue().size()) {
+                            b.append(',');
+                        }
+                    }
+                    headers.put(header, createMutableList(b.toString()));
+                }
+            }
+            if (!userAgent) {
+                headers.put("User-Agent", createMutableList(Version.getCompleteVersionString()));
+            }
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("Sending " + method + " Message with Headers to " + url 
+                         + " Conduit :" + getConduitName() + " using the NIO client");
+                logProtocolHeaders(Level.FINE, outMessage);
+            }
+            
+            NIOHTTPClient.getClient(bus).execute(url, method, headers, 
+                                                 hasBody ? getRawBytes() : null, size(),
+                                                 policy.getConnectionTimeout(),
+                                                 policy.getReceiveTimeout(),
+                                                 this);
+        }
+        
+        public void responseReceived(final int responseCode, 
+                                     final Map<String, List<String>> headers,
+                                     final InputStream body) {
+            dispatch(new Runnable() {
+                public void run() {
+                    try {
+                        handleResponse(responseCode, headers, body);
+                    } catch (Exception e) {
+                        handleAsyncFault(outMessage, e);
+                    }
+                }
+            });
+        }
+
+        public void failed(final IOException ex) {
+            dispatch(new Runnable() {
+                public void run() {
+                    IOException e = new IOException(ex.getClass().getSimpleName() 
+                                                    + " invoking " + url + ": " + ex.getMessage());
+                    e.initCause(ex);
+                    handleAsyncFault(outMessage, e);
+                }
+            });
+        }
+        
+        private void dispatch(Runnable runnable) {
+            try {
+                getResponseExecutor(outMessage).execute(runnable);
+            } catch (RejectedExecutionException ex) {
+                LOG.log(Level.WARNING, "Response executor rejected the response of "
+                        + url + ", processing it on the I/O thread");
+                runnable.run();
+            }
+        }
+        
+        protected void handleResponse(int responseCode, 
+                                      Map<String, List<String>> origHeaders,
+                                      InputStream in) throws IOException {
+            Exchange exchange = outMessage.getExchange();
+            exchange.put(Message.RESPONSE_CODE, responseCode);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("Response Code: " + responseCode + " Conduit: " + getConduitName());
+                LOG.fine("Header fields: " + origHeaders);
+            }
+            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND
+                && !MessageUtils.isTrue(outMessage.getContextualProperty(
+                    "org.apache.cxf.http.no_io_exceptions"))) {
+                throw new IOException("HTTP response '" + responseCode + "' invoking " + url);
+            }
+            outMessage.removeContent(OutputStream.class);
+            
+            Message inMessage = new MessageImpl();
+            inMessage.setExchange(exchange);
+            Map<String, List<String>> headers = new HashMap<String, List<String>>();
+            String ct = null;
+            List<String> setCookies = null;
+            for (Map.Entry<String, List<String>> e : origHeaders.entrySet()) {
+                headers.put(HttpHeaderHelper.getHeaderKey(e.getKey()), e.getValue());
+                if (HttpHeaderHelper.CONTENT_TYPE.equalsIgnoreCase(e.getKey())) {
+                    ct = e.getValue().get(0);
+                } else if ("Set-Cookie".equalsIgnoreCase(e.getKey())) {
+                    setCookies = e.getValue();
+                }
+            }
+            inMessage.put(Message.PROTOCOL_HEADERS, headers);
+            inMessage.put(Message.RESPONSE_CODE, responseCode);
+            inMessage.put(Message.CONTENT_TYPE, ct);
+            String charset = HttpHeaderHelper.findCharset(ct);
+            String normalizedEncoding = HttpHeaderHelper.mapCharset(charset);
+            if (normalizedEncoding == null) {
+                String m = new org.apache.cxf.common.i18n.Message("INVALID_ENCODING_MSG",
+                                                                   LOG, charset).toString();
+                LOG.log(Level.WARNING, m);
+                throw new IOException(m);   
+            } 
+            inMessage.put(Message.ENCODING, normalizedEncoding);            
+            if (maintainSession) {
+                Cookie.handleSetCookie(sessionCookies, setCookies);
+            }
+            if (responseCode != HttpURLConnection.HTTP_NOT_FOUND) {
+                inMessage.setContent(InputStream.class, in);
+            }
+            incomingObserver.onMessage(inMessage);
+        }
+    }
+    
     /**
      * Used to set appropriate message properties, exchange etc.
      * as required for an incoming decoupled response (as opposed
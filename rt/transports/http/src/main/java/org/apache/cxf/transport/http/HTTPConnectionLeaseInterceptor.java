@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http;
+
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Hands the connection leased by HTTPConduit.prepare() back if the outbound 
+ * chain is unwound before the request has been sent, as then neither the
+ * response nor the closing of the conduit will do so.
+ */
+final class HTTPConnectionLeaseInterceptor extends AbstractPhaseInterceptor<Message> {
+    static final HTTPConnectionLeaseInterceptor INSTANCE = new HTTPConnectionLeaseInterceptor();
+    
+    private HTTPConnectionLeaseInterceptor() {
+        super(Phase.PREPARE_SEND);
+        addAfter(MessageSenderInterceptor.class.getName());
+    }
+
+    public void handleMessage(Message message) {
+        // the lease is held until the response has been read
+    }
+    
+    @Override
+    public void handleFault(Message message) {
+        HTTPConnectionLease lease = message.get(HTTPConnectionLease.class);
+        if (lease != null) {
+            lease.release(false);
+        }
+    }
+}
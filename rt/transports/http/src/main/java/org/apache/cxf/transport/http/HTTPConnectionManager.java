@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.URL;
+
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+
+/**
+ * Governs the connections the HTTPConduit opens to remote hosts.  Before 
+ * a request is sent the conduit leases a connection for the target host
+ * and it hands the lease back once the response has been consumed. 
+ * <p>
+ * The conduit only consults a manager if the client policy sets
+ * MaxConnectionsPerHost.  By default the manager registered on the bus 
+ * is used, a different one can be set on the conduit itself.
+ */
+public interface HTTPConnectionManager {
+
+    /**
+     * Leases a connection to the host of the given URL, waiting for one to
+     * become available if the limits configured by the policy have been
+     * reached.
+     * 
+     * @param url the target URL
+     * @param proxy the proxy the connection goes through, may be null
+     * @param policy the client policy of the conduit
+     * @return the lease, never null
+     * @throws IOException if no connection became available in time
+     */
+    HTTPConnectionLease lease(URL url, Proxy proxy, HTTPClientPolicy policy) throws IOException;
+    
+}
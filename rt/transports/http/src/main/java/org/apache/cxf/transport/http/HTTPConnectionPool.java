@@ -0,0 +1,308 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Resource;
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.management.InstrumentationManager;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+
+/**
+ * Default HTTPConnectionManager.  It bounds the number of requests the 
+ * conduits of the bus have in progress to a host, and through a proxy if
+ * one is used, at the same time.  A pool wide bound on the requests to all
+ * hosts can be configured with maxConnections.
+ * <p>
+ * The connections are java.net.HttpURLConnections whose sockets are kept 
+ * alive and closed by the JDK, so the pool only counts the connections that
+ * are in use.  For the JDK to actually keep the sockets alive the 
+ * http.maxConnections system property should be at least as large as
+ * MaxConnectionsPerHost. 
+ */
+@NoJSR250Annotations(unlessNull = "bus")
+public class HTTPConnectionPool implements HTTPConnectionManager {
+    private static final Logger LOG = LogUtils.getL7dLogger(HTTPConnectionPool.class);
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Map<String, Route> routes = new LinkedHashMap<String, Route>();
+    
+    private int maxConnections;
+    private int leased;
+    private int pending;
+    
+    private long leases;
+    private long leaseTimeouts;
+    private long totalLeaseWait;
+    private long maxLeaseWait;
+    
+    private Bus bus;
+    
+    public HTTPConnectionPool() {
+        
+    }
+    public HTTPConnectionPool(Bus b) {
+        setBus(b);
+    }
+    
+    public Bus getBus() {
+        return bus;
+    }
+    
+    @Resource
+    public final void setBus(Bus bus) {        
+        this.bus = bus;
+        if (null != bus) {
+            bus.setExtension(this, HTTPConnectionManager.class);
+            InstrumentationManager manager = bus.getExtension(InstrumentationManager.class);
+            if (null != manager) {
+                try {
+                    manager.register(new HTTPConnectionPoolMBeanWrapper(this));
+                } catch (JMException jmex) {
+                    LOG.log(Level.WARNING , jmex.getMessage(), jmex);
+                }
+            }
+        }
+    }
+    
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+    
+    /**
+     * Sets the maximum number of connections in use to all hosts.  0 or 
+     * less means unlimited, the default.
+     */
+    public void setMaxConnections(int max) {
+        lock.lock();
+        try {
+            maxConnections = max;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public HTTPConnectionLease lease(URL url, Proxy proxy, HTTPClientPolicy policy) throws IOException {
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        StringBuilder key = new StringBuilder(url.getProtocol())
+            .append("://").append(url.getHost()).append(':').append(port);
+        if (proxy != null && proxy.type() != Proxy.Type.DIRECT) {
+            key.append(" via ").append(proxy.address());
+        }
+        return lease(key.toString(),
+                     policy.getMaxConnectionsPerHost(),
+                     policy.getConnectionRequestTimeout());
+    }
+    
+    HTTPConnectionLease lease(String key, int maxPerHost, long timeout) throws IOException {
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lock();
+        try {
+            Route route = routes.get(key);
+            if (route == null) {
+                route = new Route(key);
+                routes.put(key, route);
+            }
+            
+            boolean acquired = false;
+            pending++;
+            route.pending++;
+            try {
+                while (!acquired) {
+                    if ((maxPerHost <= 0 || route.leased < maxPerHost)
+                        && (maxConnections <= 0 || leased < maxConnections)) {
+                        acquired = true;
+                    } else if (timeout <= 0) {
+                        available.await();
+                    } else if (remaining > 0) {
+                        remaining = available.awaitNanos(remaining);
+                    } else {
+                        leaseTimeouts++;
+                        throw new IOException("Timeout waiting for a connection to " + key 
+                                              + " after " + timeout + " ms");
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a connection to " + key);
+            } finally {
+                pending--;
+                route.pending--;
+                if (!acquired) {
+                    discardRouteIfUnused(route);
+                }
+            }
+            
+            route.leased++;
+            leased++;
+            leases++;
+            long wait = System.nanoTime() - start;
+            totalLeaseWait += wait;
+            if (wait > maxLeaseWait) {
+                maxLeaseWait = wait;
+            }
+            return new Lease(route);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    void release(Lease lease, boolean reusable) {
+        lock.lock();
+        try {
+            Route route = lease.route;
+            route.leased--;
+            leased--;
+            discardRouteIfUnused(route);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discardRouteIfUnused(Route route) {
+        if (route.leased == 0 && route.pending == 0) {
+            routes.remove(route.key);
+        }
+    }
+    
+    public int getLeasedConnections() {
+        lock.lock();
+        try {
+            return leased;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public int getPendingLeases() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getLeaseCount() {
+        lock.lock();
+        try {
+            return leases;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getLeaseTimeouts() {
+        lock.lock();
+        try {
+            return leaseTimeouts;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * @return the average time in milliseconds callers waited for a lease
+     */
+    public double getAverageLeaseWaitTime() {
+        lock.lock();
+        try {
+            return leases == 0 ? 0 : totalLeaseWait / (leases * 1000000.0);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * @return the longest time in milliseconds a caller waited for a lease
+     */
+    public double getMaxLeaseWaitTime() {
+        lock.lock();
+        try {
+            return maxLeaseWait / 1000000.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * @return the connection counts of the hosts connections are in use to 
+     */
+    public String[] getHosts() {
+        lock.lock();
+        try {
+            String[] hosts = new String[routes.size()];
+            int i = 0;
+            for (Route route : routes.values()) {
+                hosts[i++] = route.key + " leased=" + route.leased + " pending=" + route.pending;
+            }
+            return hosts;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    
+    private static class Route {
+        final String key;
+        int leased;
+        int pending;
+        
+        Route(String k) {
+            key = k;
+        }
+    }
+    
+    final class Lease implements HTTPConnectionLease {
+        final Route route;
+        final AtomicBoolean released = new AtomicBoolean();
+        
+        Lease(Route r) {
+            route = r;
+        }
+
+        public void release(boolean reusable) {
+            if (released.compareAndSet(false, true)) {
+                HTTPConnectionPool.this.release(this, reusable);
+            }
+        }
+    }
+}
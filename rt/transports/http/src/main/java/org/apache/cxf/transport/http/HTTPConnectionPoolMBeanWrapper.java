@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+@ManagedResource(componentName = "HTTPConnectionPool", 
+                 description = "The pool of client HTTP connections", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+                 
+public class HTTPConnectionPoolMBeanWrapper implements ManagedComponent {    
+    static final String NAME_VALUE = "Bus.HTTPConnectionPool";
+    static final String TYPE_VALUE = "HTTPConnectionPool";
+    
+    private HTTPConnectionPool pool;
+    
+    public HTTPConnectionPoolMBeanWrapper(HTTPConnectionPool p) {
+        pool = p;        
+    }
+    
+    @ManagedAttribute(description = "The maximum number of connections in use to all hosts, 0 if unlimited")
+    public int getMaxConnections() {
+        return pool.getMaxConnections();
+    }
+    public void setMaxConnections(int max) {
+        pool.setMaxConnections(max);
+    }
+    
+    @ManagedAttribute(description = "The number of connections currently in use")
+    public int getLeasedConnections() {
+        return pool.getLeasedConnections();
+    }
+    
+    @ManagedAttribute(description = "The number of callers waiting for a connection")
+    public int getPendingLeases() {
+        return pool.getPendingLeases();
+    }
+    
+    @ManagedAttribute(description = "The number of connections leased")
+    public long getLeaseCount() {
+        return pool.getLeaseCount();
+    }
+    
+    @ManagedAttribute(description = "The number of callers that timed out waiting for a connection")
+    public long getLeaseTimeouts() {
+        return pool.getLeaseTimeouts();
+    }
+    
+    @ManagedAttribute(description = "The average time in milliseconds spent waiting for a connection")
+    public double getAverageLeaseWaitTime() {
+        return pool.getAverageLeaseWaitTime();
+    }
+    
+    @ManagedAttribute(description = "The longest time in milliseconds spent waiting for a connection")
+    public double getMaxLeaseWaitTime() {
+        return pool.getMaxLeaseWaitTime();
+    }
+    
+    @ManagedAttribute(description = "The connection counts of the hosts connections are in use to")
+    public String[] getHosts() {
+        return pool.getHosts();
+    }
+      
+    public ObjectName getObjectName() throws JMException {
+        String busId = "cxf";
+        if (pool.getBus() != null) {
+            busId = pool.getBus().getId();
+        }
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME + ":");
+        buffer.append(ManagementConstants.BUS_ID_PROP + "=" + busId + ",");
+        buffer.append("HTTPConnectionPool=" + NAME_VALUE);
+        buffer.append("," + ManagementConstants.TYPE_PROP + "=" + TYPE_VALUE);
+
+        //Use default domain name of server
+        return new ObjectName(buffer.toString());
+    }
+}
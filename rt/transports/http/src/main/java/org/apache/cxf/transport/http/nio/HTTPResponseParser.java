@@ -0,0 +1,317 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
+
+/**
+ * Incremental parser for HTTP/1.x responses.  It is fed whatever has been
+ * read from the channel and keeps its state between calls, so a response 
+ * can be split at any byte.
+ */
+final class HTTPResponseParser {
+    private static final int STATUS_LINE = 0;
+    private static final int HEADERS = 1;
+    private static final int BODY_LENGTH = 2;
+    private static final int BODY_EOF = 3;
+    private static final int CHUNK_SIZE = 4;
+    private static final int CHUNK_DATA = 5;
+    private static final int CHUNK_END = 6;
+    private static final int TRAILERS = 7;
+    private static final int DONE = 8;
+    
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    
+    private final StringBuilder line = new StringBuilder(128);
+    private boolean headRequest;
+    private int state;
+    private boolean started;
+    private boolean http11;
+    private int responseCode;
+    private Map<String, List<String>> headers;
+    private LoadingByteArrayOutputStream body;
+    private long remaining;
+    private boolean keepAlive;
+    
+    HTTPResponseParser() {
+        reset(false);
+    }
+    
+    /**
+     * Prepares the parser for the response to the next request.
+     */
+    void reset(boolean head) {
+        headRequest = head;
+        state = STATUS_LINE;
+        started = false;
+        line.setLength(0);
+        headers = new LinkedHashMap<String, List<String>>();
+        body = null;
+        remaining = 0;
+        keepAlive = false;
+    }
+    
+    /**
+     * @return true once a byte of the response has been seen
+     */
+    boolean isStarted() {
+        return started;
+    }
+    
+    boolean isComplete() {
+        return state == DONE;
+    }
+    
+    /**
+     * @return true if the connection can be used for another request 
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+    
+    int getResponseCode() {
+        return responseCode;
+    }
+    
+    Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+    
+    InputStream getBody() {
+        return body == null ? null : body.createInputStream();
+    }
+    
+    /**
+     * Consumes the bytes remaining in the buffer.
+     * @return true if the response is complete
+     */
+    boolean parse(ByteBuffer buf) throws IOException {
+        if (buf.hasRemaining()) {
+            started = true;
+        }
+        while (buf.hasRemaining() && state != DONE) {
+            switch (state) {
+            case BODY_LENGTH:
+            case CHUNK_DATA: {
+                int n = (int)Math.min(remaining, buf.remaining());
+                copy(buf, n);
+                remaining -= n;
+                if (remaining == 0) {
+                    state = state == BODY_LENGTH ? DONE : CHUNK_END;
+                }
+                break;
+            }
+            case BODY_EOF:
+                copy(buf, buf.remaining());
+                break;
+            default:
+                if (readLine(buf)) {
+                    processLine(line.toString());
+                    line.setLength(0);
+                }
+            }
+        }
+        return state == DONE;
+    }
+    
+    /**
+     * Called when the server closed the connection.
+     * @return true if the response is complete
+     */
+    boolean parseEOF() throws IOException {
+        if (state == BODY_EOF) {
+            state = DONE;
+        } else if (state != DONE) {
+            throw new IOException("Connection closed before the response was complete");
+        }
+        keepAlive = false;
+        return true;
+    }
+    
+    private void copy(ByteBuffer buf, int n) {
+        if (body == null) {
+            body = new LoadingByteArrayOutputStream(remaining > 0 && remaining < 64 * 1024 
+                                                    ? (int)remaining : 1024);
+        }
+        if (buf.hasArray()) {
+            body.write(buf.array(), buf.arrayOffset() + buf.position(), n);
+            buf.position(buf.position() + n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                body.write(buf.get());
+            }
+        }
+    }
+    
+    private boolean readLine(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            char c = (char)(buf.get() & 0xFF);
+            if (c == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r') {
+                    line.setLength(len - 1);
+                }
+                return true;
+            }
+            if (line.length() == MAX_LINE_LENGTH) {
+                throw new IOException("HTTP response line exceeds " + MAX_LINE_LENGTH + " bytes");
+            }
+            line.append(c);
+        }
+        return false;
+    }
+    
+    private void processLine(String s) throws IOException {
+        switch (state) {
+        case STATUS_LINE:
+            if (s.length() == 0) {
+                // tolerate a stray CRLF between responses 
+                return;
+            }
+            parseStatusLine(s);
+            state = HEADERS;
+            break;
+        case HEADERS:
+            if (s.length() == 0) {
+                headersComplete();
+            } else {
+                parseHeader(s);
+            }
+            break;
+        case CHUNK_SIZE: {
+            int idx = s.indexOf(';');
+            String size = (idx == -1 ? s : s.substring(0, idx)).trim();
+            try {
+                remaining = Long.parseLong(size, 16);
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid chunk size " + size);
+            }
+            if (remaining < 0) {
+                throw new IOException("Invalid chunk size " + size);
+            }
+            state = remaining == 0 ? TRAILERS : CHUNK_DATA;
+            break;
+        }
+        case CHUNK_END:
+            if (s.length() != 0) {
+                throw new IOException("Missing CRLF after chunk");
+            }
+            state = CHUNK_SIZE;
+            break;
+        case TRAILERS:
+            if (s.length() == 0) {
+                state = DONE;
+            }
+            break;
+        default:
+            break;
+        }
+    }
+    
+    private void parseStatusLine(String s) throws IOException {
+        // HTTP/1.1 200 OK
+        int sp1 = s.indexOf(' ');
+        if (sp1 == -1 || !s.startsWith("HTTP/")) {
+            throw new IOException("Invalid HTTP status line: " + s);
+        }
+        http11 = !"HTTP/1.0".equals(s.substring(0, sp1));
+        int sp2 = s.indexOf(' ', sp1 + 1);
+        String code = sp2 == -1 ? s.substring(sp1 + 1) : s.substring(sp1 + 1, sp2);
+        try {
+            responseCode = Integer.parseInt(code.trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid HTTP status line: " + s);
+        }
+    }
+    
+    private void parseHeader(String s) throws IOException {
+        int idx = s.indexOf(':');
+        if (idx <= 0) {
+            throw new IOException("Invalid HTTP header: " + s);
+        }
+        String name = s.substring(0, idx).trim();
+        String value = s.substring(idx + 1).trim();
+        List<String> values = headers.get(name);
+        if (values == null) {
+            for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+                if (e.getKey().equalsIgnoreCase(name)) {
+                    values = e.getValue();
+                    break;
+                }
+            }
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                headers.put(name, values);
+            }
+        }
+        values.add(value);
+    }
+    
+    private String getHeader(String name) {
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            if (e.getKey().equalsIgnoreCase(name) && !e.getValue().isEmpty()) {
+                return e.getValue().get(e.getValue().size() - 1);
+            }
+        }
+        return null;
+    }
+    
+    private void headersComplete() throws IOException {
+        if (responseCode >= 100 && responseCode < 200) {
+            // interim response, the real one follows
+            headers.clear();
+            state = STATUS_LINE;
+            return;
+        }
+        String connection = getHeader("Connection");
+        if (http11) {
+            keepAlive = connection == null || !"close".equalsIgnoreCase(connection);
+        } else {
+            keepAlive = "keep-alive".equalsIgnoreCase(connection);
+        }
+        
+        String te = getHeader("Transfer-Encoding");
+        String cl = getHeader("Content-Length");
+        if (headRequest || responseCode == 204 || responseCode == 304) {
+            state = DONE;
+        } else if (te != null && "chunked".equalsIgnoreCase(te)) {
+            state = CHUNK_SIZE;
+        } else if (cl != null) {
+            try {
+                remaining = Long.parseLong(cl);
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid Content-Length " + cl);
+            }
+            state = remaining > 0 ? BODY_LENGTH : DONE;
+        } else {
+            // delimited by the server closing the connection
+            keepAlive = false;
+            state = BODY_EOF;
+        }
+    }
+}
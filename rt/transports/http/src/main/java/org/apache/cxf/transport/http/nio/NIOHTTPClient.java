@@ -0,0 +1,485 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * A non-blocking HTTP/1.1 client.  A single I/O thread drives all 
+ * connections through a Selector: the calling thread only queues the 
+ * request, which is then written and its response parsed as the bytes 
+ * arrive.  No thread is held while a request is outstanding.  The 
+ * completed response is handed to the callback on the I/O thread, so 
+ * callbacks must not block.
+ * <p>
+ * Connections are kept alive and reused for later requests to the same
+ * host.  Requests and responses are buffered in memory, the client is 
+ * meant for the many small exchanges of asynchronous invocations.
+ */
+public class NIOHTTPClient {
+    
+    /**
+     * Receives the outcome of a request.
+     */
+    public interface ResponseCallback {
+        void responseReceived(int responseCode, 
+                              Map<String, List<String>> headers, 
+                              InputStream body);
+        
+        void failed(IOException ex);
+    }
+    
+    private static final Logger LOG = LogUtils.getL7dLogger(NIOHTTPClient.class);
+    private static final String CRLF = "\r\n";
+    
+    private final Selector selector;
+    private final Queue<Request> queued = new ConcurrentLinkedQueue<Request>();
+    private final Map<String, LinkedList<Connection>> idle = new HashMap<String, LinkedList<Connection>>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(16 * 1024);
+    private final Thread ioThread;
+    private volatile boolean running = true;
+    private int maxIdlePerHost = 16;
+    private long keepAliveTimeout = 30000;
+    
+    public NIOHTTPClient(String name) throws IOException {
+        selector = Selector.open();
+        ioThread = new Thread(new Runnable() {
+            public void run() {
+                NIOHTTPClient.this.run();
+            }
+        }, name);
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+    
+    /**
+     * Returns the client shared by the conduits of the bus, creating it on 
+     * first use.  The client is shut down with the bus.
+     */
+    public static NIOHTTPClient getClient(final Bus bus) throws IOException {
+        synchronized (bus) {
+            NIOHTTPClient client = bus.getExtension(NIOHTTPClient.class);
+            if (client == null) {
+                client = new NIOHTTPClient("cxf-nio-http-client");
+                final NIOHTTPClient c = client;
+                BusLifeCycleManager manager = bus.getExtension(BusLifeCycleManager.class);
+                if (manager != null) {
+                    manager.registerLifeCycleListener(new BusLifeCycleListener() {
+                        public void initComplete() {
+                        }
+                        public void preShutdown() {
+                        }
+                        public void postShutdown() {
+                            c.shutdown();
+                        }
+                    });
+                }
+                bus.setExtension(client, NIOHTTPClient.class);
+            }
+            return client;
+        }
+    }
+    
+    public int getMaxIdlePerHost() {
+        return maxIdlePerHost;
+    }
+    
+    /**
+     * Sets the number of idle connections that are kept open per host.
+     */
+    public void setMaxIdlePerHost(int max) {
+        maxIdlePerHost = max;
+    }
+
+    public long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+    
+    /**
+     * Sets the time in milliseconds after which an idle connection is closed.
+     */
+    public void setKeepAliveTimeout(long timeout) {
+        keepAliveTimeout = timeout;
+    }
+    
+    /**
+     * Queues a request.
+     * 
+     * @param url the target URL, only http is supported
+     * @param method the request method
+     * @param headers the request headers, Host and Content-Length are added
+     * @param body the request body, may be null
+     * @param length the number of bytes of the body to send
+     * @param connectTimeout the connect timeout in milliseconds, 0 is infinite
+     * @param receiveTimeout the time in milliseconds to wait for the response, 0 is infinite
+     * @param callback receives the response
+     * @throws IOException if the request cannot be sent at all
+     */
+    public void execute(URL url, String method, Map<String, List<String>> headers,
+                        byte[] body, int length, long connectTimeout, long receiveTimeout, 
+                        ResponseCallback callback) throws IOException {
+        if (!running) {
+            throw new IOException("The NIO HTTP client has been shut down");
+        }
+        if (!"http".equals(url.getProtocol())) {
+            throw new IOException("Illegal Protocol " + url.getProtocol() + " for the NIO HTTP client");
+        }
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        InetSocketAddress address = new InetSocketAddress(url.getHost(), port);
+        if (address.isUnresolved()) {
+            throw new UnknownHostException(url.getHost());
+        }
+        Request request = new Request(url.getHost() + ":" + port, address, 
+                                      encode(url, port, method, headers, body, length),
+                                      "HEAD".equals(method), 
+                                      connectTimeout, receiveTimeout, callback);
+        queued.add(request);
+        selector.wakeup();
+    }
+    
+    /**
+     * Closes all connections and fails the outstanding requests.
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+    
+    private static ByteBuffer encode(URL url, int port, String method, Map<String, List<String>> headers,
+                                     byte[] body, int length) throws IOException {
+        StringBuilder b = new StringBuilder(256);
+        String path = url.getFile();
+        b.append(method).append(' ').append(path.length() == 0 ? "/" : path).append(" HTTP/1.1").append(CRLF);
+        boolean host = false;
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            String name = e.getKey();
+            if ("Content-Length".equalsIgnoreCase(name) 
+                || "Transfer-Encoding".equalsIgnoreCase(name)) {
+                continue;
+            }
+            host |= "Host".equalsIgnoreCase(name);
+            for (String value : e.getValue()) {
+                if (value.indexOf('\r') != -1 || value.indexOf('\n') != -1) {
+                    throw new IOException("Illegal character in the value of header " + name);
+                }
+                b.append(name).append(": ").append(value).append(CRLF);
+            }
+        }
+        if (!host) {
+            b.append("Host: ").append(url.getHost());
+            if (port != url.getDefaultPort()) {
+                b.append(':').append(port);
+            }
+            b.append(CRLF);
+        }
+        if (body != null) {
+            b.append("Content-Length: ").append(length).append(CRLF);
+        }
+        b.append(CRLF);
+        
+        byte[] data = new byte[b.length() + (body == null ? 0 : length)];
+        for (int i = 0; i < b.length(); i++) {
+            data[i] = (byte)b.charAt(i);
+        }
+        if (body != null) {
+            System.arraycopy(body, 0, data, b.length(), length);
+        }
+        return ByteBuffer.wrap(data);
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                selector.select(processTimeouts(System.currentTimeMillis()));
+                Request request = queued.poll();
+                while (request != null) {
+                    start(request);
+                    request = queued.poll();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Connection c = (Connection)key.attachment();
+                    try {
+                        c.process(key);
+                    } catch (IOException ex) {
+                        c.fail(ex, true);
+                    }
+                }
+            } catch (Throwable ex) {
+                LOG.log(Level.WARNING, "Unexpected error in the NIO HTTP client", ex);
+            }
+        }
+        IOException ex = new IOException("The NIO HTTP client has been shut down");
+        for (SelectionKey key : selector.keys()) {
+            ((Connection)key.attachment()).fail(ex, false);
+        }
+        Request request = queued.poll();
+        while (request != null) {
+            request.fail(ex);
+            request = queued.poll();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+    
+    /**
+     * Fails the requests and closes the idle connections whose deadline 
+     * has passed.
+     * @return the time to wait for the next deadline, 0 if there is none 
+     */
+    private long processTimeouts(long now) {
+        long next = Long.MAX_VALUE;
+        for (SelectionKey key : selector.keys()) {
+            Connection c = (Connection)key.attachment();
+            if (c.deadline <= 0) {
+                continue;
+            }
+            if (c.deadline <= now) {
+                if (c.request == null) {
+                    c.close();
+                } else {
+                    c.fail(new SocketTimeoutException(c.connected ? "Read timed out" : "connect timed out"),
+                           false);
+                }
+            } else if (c.deadline < next) {
+                next = c.deadline;
+            }
+        }
+        return next == Long.MAX_VALUE ? 0 : Math.max(1, next - now);
+    }
+    
+    private static long deadline(long timeout) {
+        return timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+    }
+    
+    private void start(Request request) {
+        LinkedList<Connection> list = idle.get(request.key);
+        if (list != null && !list.isEmpty()) {
+            Connection c = list.removeFirst();
+            c.reused = true;
+            c.begin(request);
+            return;
+        }
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection c = new Connection(request.key, channel);
+            c.request = request;
+            c.parser.reset(request.head);
+            if (channel.connect(request.address)) {
+                c.connected = true;
+                c.selectionKey = channel.register(selector, SelectionKey.OP_WRITE, c);
+                c.deadline = deadline(request.receiveTimeout);
+            } else {
+                c.selectionKey = channel.register(selector, SelectionKey.OP_CONNECT, c);
+                c.deadline = deadline(request.connectTimeout);
+            }
+        } catch (IOException ex) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+            request.fail(ex);
+        }
+    }
+    
+    private final class Request {
+        final String key;
+        final InetSocketAddress address;
+        final ByteBuffer data;
+        final boolean head;
+        final long connectTimeout;
+        final long receiveTimeout;
+        final ResponseCallback callback;
+        boolean retried;
+        
+        Request(String k, InetSocketAddress a, ByteBuffer d, boolean h,
+                long ct, long rt, ResponseCallback cb) {
+            key = k;
+            address = a;
+            data = d;
+            head = h;
+            connectTimeout = ct;
+            receiveTimeout = rt;
+            callback = cb;
+        }
+        
+        void fail(IOException ex) {
+            try {
+                callback.failed(ex);
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Response callback failed", e);
+            }
+        }
+    }
+    
+    private final class Connection {
+        final String key;
+        final SocketChannel channel;
+        final HTTPResponseParser parser = new HTTPResponseParser();
+        SelectionKey selectionKey;
+        Request request;
+        long deadline;
+        boolean connected;
+        boolean reused;
+        
+        Connection(String k, SocketChannel ch) {
+            key = k;
+            channel = ch;
+        }
+        
+        void begin(Request r) {
+            request = r;
+            parser.reset(r.head);
+            selectionKey.interestOps(SelectionKey.OP_WRITE);
+            deadline = deadline(r.receiveTimeout);
+        }
+        
+        void process(SelectionKey k) throws IOException {
+            if (k.isValid() && k.isConnectable()) {
+                channel.finishConnect();
+                connected = true;
+                k.interestOps(SelectionKey.OP_WRITE);
+                deadline = deadline(request.receiveTimeout);
+            }
+            if (k.isValid() && k.isWritable()) {
+                channel.write(request.data);
+                if (!request.data.hasRemaining()) {
+                    k.interestOps(SelectionKey.OP_READ);
+                }
+            }
+            if (k.isValid() && k.isReadable()) {
+                readBuffer.clear();
+                int n = channel.read(readBuffer);
+                if (request == null) {
+                    // the server closed an idle connection, or sent garbage
+                    close();
+                } else if (n == -1) {
+                    if (!parser.isStarted()) {
+                        throw new IOException("Connection closed by the server");
+                    }
+                    parser.parseEOF();
+                    complete();
+                } else {
+                    readBuffer.flip();
+                    if (parser.parse(readBuffer)) {
+                        complete();
+                    }
+                }
+            }
+        }
+        
+        void complete() {
+            Request r = request;
+            request = null;
+            if (running && parser.isKeepAlive()) {
+                selectionKey.interestOps(SelectionKey.OP_READ);
+                deadline = deadline(keepAliveTimeout);
+                LinkedList<Connection> list = idle.get(key);
+                if (list == null) {
+                    list = new LinkedList<Connection>();
+                    idle.put(key, list);
+                }
+                list.addFirst(this);
+                if (list.size() > maxIdlePerHost) {
+                    list.getLast().close();
+                }
+            } else {
+                close();
+            }
+            try {
+                r.callback.responseReceived(parser.getResponseCode(), parser.getHeaders(), parser.getBody());
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Response callback failed", ex);
+            }
+        }
+        
+        /**
+         * Closes the connection and fails its request.  A request that 
+         * failed on a reused connection before any response arrived is 
+         * sent once more on a new one, as the server may just have 
+         * closed the idle connection. 
+         */
+        void fail(IOException ex, boolean mayRetry) {
+            Request r = request;
+            request = null;
+            close();
+            if (r == null) {
+                return;
+            }
+            if (mayRetry && reused && !parser.isStarted() && !r.retried && running) {
+                r.retried = true;
+                r.data.rewind();
+                start(r);
+            } else {
+                r.fail(ex);
+            }
+        }
+        
+        void close() {
+            deadline = 0;
+            LinkedList<Connection> list = idle.get(key);
+            if (list != null && list.remove(this) && list.isEmpty()) {
+                idle.remove(key);
+            }
+            if (selectionKey != null) {
+                selectionKey.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
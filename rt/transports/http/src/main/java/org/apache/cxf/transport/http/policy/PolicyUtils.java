@@ -426,6 +426,19 @@ public final class PolicyUtils {
         if (p1.isSetReceiveTimeout() || p2.isSetReceiveTimeout()) {
             p.setReceiveTimeout(Math.min(p1.getReceiveTimeout(), p2.getReceiveTimeout()));
         }
+        if (p1.isSetMaxConnectionsPerHost() && p2.isSetMaxConnectionsPerHost()
+            && p1.getMaxConnectionsPerHost() > 0 && p2.getMaxConnectionsPerHost() > 0) {
+            p.setMaxConnectionsPerHost(Math.min(p1.getMaxConnectionsPerHost(), 
+                                                p2.getMaxConnectionsPerHost()));
+        } else if (p1.isSetMaxConnectionsPerHost() && p1.getMaxConnectionsPerHost() > 0) {
+            p.setMaxConnectionsPerHost(p1.getMaxConnectionsPerHost());
+        } else if (p2.isSetMaxConnectionsPerHost()) {
+            p.setMaxConnectionsPerHost(p2.getMaxConnectionsPerHost());
+        }
+        if (p1.isSetConnectionRequestTimeout() || p2.isSetConnectionRequestTimeout()) {
+            p.setConnectionRequestTimeout(Math.min(p1.getConnectionRequestTimeout(), 
+                                                   p2.getConnectionRequestTimeout()));
+        }
          
         return p;      
     }
@@ -472,6 +485,12 @@ public final class PolicyUtils {
             && p1.getProxyServerType().value().equals(p2.getProxyServerType().value())
             && (p1.getReceiveTimeout() == p2.getReceiveTimeout())
             && equals(p1.getReferer(), p2.getReferer());
+        if (!result) {
+            return false;
+        }
+        
+        result &= (p1.getMaxConnectionsPerHost() == p2.getMaxConnectionsPerHost())
+            && (p1.getConnectionRequestTimeout() == p2.getConnectionRequestTimeout());
         
         return result;
     }
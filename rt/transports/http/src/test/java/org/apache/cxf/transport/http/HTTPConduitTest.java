@@ -20,6 +20,7 @@
 package org.apache.cxf.transport.http;
 
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
 import java.util.ArrayList;
@@ -32,8 +33,16 @@ import org.apache.cxf.bus.CXFBusImpl;
 import org.apache.cxf.common.util.Base64Utility;
 import org.apache.cxf.configuration.security.AuthorizationPolicy;
 import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.apache.cxf.phase.PhaseManagerImpl;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 import org.apache.cxf.wsdl.EndpointReferenceUtils;
@@ -149,6 +158,71 @@ public class HTTPConduitTest extends Assert {
                         message.getContent(OutputStream.class));
     }
 
+    @Test
+    public void testConnectionLeasedFromPool() throws Exception {
+        Bus bus = new CXFBusImpl();
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://nowhere.com/bar/foo");
+        HTTPConduit conduit = new HTTPConduit(bus, ei, null);
+        conduit.finalizeConfig();
+        conduit.getClient().setMaxConnectionsPerHost(1);
+        conduit.getClient().setConnectionRequestTimeout(10);
+
+        Message message = getNewMessage();
+        conduit.prepare(message);
+        HTTPConnectionLease lease = message.get(HTTPConnectionLease.class);
+        assertNotNull(lease);
+        HTTPConnectionPool pool = (HTTPConnectionPool)bus.getExtension(HTTPConnectionManager.class);
+        assertSame(pool, conduit.getConnectionManager());
+        assertEquals(1, pool.getLeasedConnections());
+        
+        try {
+            conduit.prepare(getNewMessage());
+            fail("Expected the lease to time out");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertEquals(1, pool.getLeaseTimeouts());
+        
+        lease.release(true);
+        message = getNewMessage();
+        conduit.prepare(message);
+        assertNotNull(message.get(HTTPConnectionLease.class));
+    }
+
+    @Test
+    public void testConnectionReleasedOnFault() throws Exception {
+        Bus bus = new CXFBusImpl();
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://nowhere.com/bar/foo");
+        HTTPConduit conduit = new HTTPConduit(bus, ei, null);
+        conduit.finalizeConfig();
+        conduit.getClient().setMaxConnectionsPerHost(1);
+        conduit.getClient().setConnectionRequestTimeout(10);
+        final HTTPConnectionPool pool = (HTTPConnectionPool)conduit.getConnectionManager();
+
+        Message message = getNewMessage();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setOutMessage(message);
+        exchange.setConduit(conduit);
+        PhaseInterceptorChain chain = 
+            new PhaseInterceptorChain(new PhaseManagerImpl().getOutPhases());
+        chain.add(new MessageSenderInterceptor());
+        // fails after the conduit has been prepared, before the request is sent
+        chain.add(new AbstractPhaseInterceptor<Message>(Phase.WRITE) {
+            public void handleMessage(Message m) {
+                assertEquals(1, pool.getLeasedConnections());
+                throw new Fault(new IOException("write failed"));
+            }
+        });
+        message.setInterceptorChain(chain);
+        chain.doIntercept(message);
+        
+        assertNotNull(message.getContent(Exception.class));
+        assertEquals(0, pool.getLeasedConnections());
+        conduit.prepare(getNewMessage());
+    }
+
     @Test
     public void testAuthPolicyFromEndpointInfo() throws Exception {
         Bus bus = new CXFBusImpl();
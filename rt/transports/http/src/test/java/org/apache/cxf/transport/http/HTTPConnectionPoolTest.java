@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HTTPConnectionPoolTest extends Assert {
+    
+    @Test
+    public void testPerHostLimit() throws Exception {
+        HTTPConnectionPool pool = new HTTPConnectionPool();
+        HTTPConnectionLease l1 = pool.lease("http://a:80", 2, 10);
+        HTTPConnectionLease l2 = pool.lease("http://a:80", 2, 10);
+        try {
+            pool.lease("http://a:80", 2, 10);
+            fail("Expected the lease to time out");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertEquals(1, pool.getLeaseTimeouts());
+        
+        // other hosts are not affected
+        HTTPConnectionLease l3 = pool.lease("http://b:80", 2, 10);
+        assertEquals(3, pool.getLeasedConnections());
+        
+        l1.release(true);
+        l1.release(true);
+        assertEquals(2, pool.getLeasedConnections());
+        HTTPConnectionLease l4 = pool.lease("http://a:80", 2, 10);
+        
+        l2.release(false);
+        l3.release(true);
+        assertEquals(1, pool.getHosts().length);
+        l4.release(true);
+        assertEquals(0, pool.getLeasedConnections());
+        assertEquals(4, pool.getLeaseCount());
+        assertEquals(0, pool.getHosts().length);
+    }
+    
+    @Test
+    public void testWaitForRelease() throws Exception {
+        final HTTPConnectionPool pool = new HTTPConnectionPool();
+        HTTPConnectionLease lease = pool.lease("http://a:80", 1, 0);
+        final HTTPConnectionLease[] leased = new HTTPConnectionLease[1];
+        Thread t = new Thread() {
+            public void run() {
+                try {
+                    leased[0] = pool.lease("http://a:80", 1, 0);
+                } catch (IOException ex) {
+                    // leased[0] stays null
+                }
+            }
+        };
+        t.start();
+        while (pool.getPendingLeases() == 0) {
+            Thread.sleep(5);
+        }
+        lease.release(true);
+        t.join(5000);
+        assertNotNull(leased[0]);
+        assertTrue(pool.getMaxLeaseWaitTime() > 0);
+        leased[0].release(true);
+    }
+    
+    @Test
+    public void testMaxConnections() throws Exception {
+        HTTPConnectionPool pool = new HTTPConnectionPool();
+        pool.setMaxConnections(1);
+        HTTPConnectionLease lease = pool.lease("http://a:80", 2, 10);
+        try {
+            pool.lease("http://b:80", 2, 10);
+            fail("Expected the lease to time out");
+        } catch (IOException ex) {
+            // expected
+        }
+        lease.release(true);
+        pool.lease("http://b:80", 2, 10).release(true);
+    }
+    
+    @Test
+    public void testLeaseByPolicy() throws Exception {
+        HTTPConnectionPool pool = new HTTPConnectionPool();
+        HTTPClientPolicy policy = new HTTPClientPolicy();
+        policy.setMaxConnectionsPerHost(1);
+        policy.setConnectionRequestTimeout(10);
+        
+        HTTPConnectionLease lease = pool.lease(new URL("http://localhost/foo"), null, policy);
+        try {
+            pool.lease(new URL("http://localhost:80/bar"), null, policy);
+            fail("Expected the lease to time out");
+        } catch (IOException ex) {
+            // expected
+        }
+        HTTPConnectionLease other = pool.lease(new URL("http://localhost:8080/foo"), null, policy);
+        assertEquals(2, pool.getHosts().length);
+        other.release(true);
+        lease.release(true);
+    }
+}
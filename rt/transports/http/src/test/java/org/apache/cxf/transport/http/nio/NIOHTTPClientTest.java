@@ -0,0 +1,379 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.nio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.CXFBusImpl;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NIOHTTPClientTest extends Assert {
+    
+    private NIOHTTPClient client;
+    private StandInServer server;
+    
+    @Before
+    public void setUp() throws Exception {
+        client = new NIOHTTPClient("nio-http-client-test");
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+        server = new StandInServer() {
+            void respond(OutputStream out, String body, int count) throws IOException {
+                write(out, "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " 
+                      + body.length() + "\r\n\r\n" + body);
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            Callback cb = send("hello" + i, 0);
+            assertEquals(200, cb.responseCode);
+            assertEquals("hello" + i, cb.body);
+            assertEquals("text/plain", cb.headers.get("Content-Type").get(0));
+        }
+        assertEquals(1, server.accepted.get());
+    }
+    
+    @Test
+    public void testChunkedResponse() throws Exception {
+        server = new StandInServer() {
+            void respond(OutputStream out, String body, int count) throws IOException {
+                write(out, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhel");
+                pause();
+                write(out, "lo\r\n");
+                pause();
+                write(out, body.length() + ";ext=1\r\n" + body + "\r\n0\r\n\r\n");
+            }
+        };
+        Callback cb = send("world", 0);
+        assertEquals("helloworld", cb.body);
+        cb = send("again", 0);
+        assertEquals("helloagain", cb.body);
+        assertEquals(1, server.accepted.get());
+    }
+    
+    @Test
+    public void testResponseDelimitedByClose() throws Exception {
+        server = new StandInServer() {
+            void respond(OutputStream out, String body, int count) throws IOException {
+                write(out, "HTTP/1.0 500 Server Error\r\n\r\n" + body);
+                throw new IOException("close");
+            }
+        };
+        Callback cb = send("fault", 0);
+        assertEquals(500, cb.responseCode);
+        assertEquals("fault", cb.body);
+        cb = send("fault2", 0);
+        assertEquals("fault2", cb.body);
+        assertEquals(2, server.accepted.get());
+    }
+    
+    @Test
+    public void testStaleConnectionIsRetried() throws Exception {
+        server = new StandInServer() {
+            void respond(OutputStream out, String body, int count) throws IOException {
+                write(out, "HTTP/1.1 200 OK\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+                // close without telling the client
+                throw new IOException("close");
+            }
+        };
+        assertEquals("one", send("one", 0).body);
+        pause();
+        assertEquals("two", send("two", 0).body);
+        assertEquals(2, server.accepted.get());
+    }
+    
+    @Test
+    public void testReceiveTimeout() throws Exception {
+        server = new StandInServer() {
+            void respond(OutputStream out, String body, int count) throws IOException {
+                pause();
+                pause();
+                pause();
+            }
+        };
+        Callback cb = send("slow", 50);
+        assertTrue(cb.failure instanceof SocketTimeoutException);
+    }
+    
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        server = new StandInServer() {
+            void respond(OutputStream out, String body, int count) throws IOException {
+                write(out, "HTTP/1.1 200 OK\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+            }
+        };
+        int n = 100;
+        CountDownLatch latch = new CountDownLatch(n);
+        List<Callback> callbacks = new ArrayList<Callback>();
+        for (int i = 0; i < n; i++) {
+            Callback cb = new Callback(latch);
+            callbacks.add(cb);
+            execute("request" + i, 0, cb);
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < n; i++) {
+            assertEquals("request" + i, callbacks.get(i).body);
+        }
+    }
+    
+    @Test
+    public void testAsyncInvocationThroughConduit() throws Exception {
+        server = new StandInServer() {
+            void respond(OutputStream out, String body, int count) throws IOException {
+                write(out, "HTTP/1.1 200 OK\r\nContent-Type: text/xml; charset=UTF-8\r\nContent-Length: " 
+                      + body.length() + "\r\n\r\n" + body);
+            }
+        };
+        Bus bus = new CXFBusImpl();
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://localhost:" + server.getPort() + "/test");
+        HTTPConduit conduit = new HTTPConduit(bus, ei, null);
+        conduit.setClient(new HTTPClientPolicy());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Message[] response = new Message[1];
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                response[0] = message;
+                latch.countDown();
+            }
+        });
+        
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setSynchronous(false);
+        exchange.put(Bus.class, bus);
+        exchange.put(Executor.class, new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        message.setExchange(exchange);
+        message.put(HTTPConduit.USE_ASYNC_CLIENT, Boolean.TRUE);
+        conduit.prepare(message);
+        // no URLConnection is used
+        assertNull(message.get(HTTPConduit.KEY_HTTP_CONNECTION));
+        OutputStream out = message.getContent(OutputStream.class);
+        out.write("<hello/>".getBytes("UTF-8"));
+        out.close();
+        
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(200, response[0].get(Message.RESPONSE_CODE));
+        assertEquals("UTF-8", response[0].get(Message.ENCODING));
+        assertEquals("<hello/>", IOUtils.toString(response[0].getContent(InputStream.class)));
+        bus.getExtension(NIOHTTPClient.class).shutdown();
+    }
+    
+    private Callback send(String body, long receiveTimeout) throws Exception {
+        Callback cb = new Callback(new CountDownLatch(1));
+        execute(body, receiveTimeout, cb);
+        assertTrue(cb.latch.await(10, TimeUnit.SECONDS));
+        return cb;
+    }
+    
+    private void execute(String body, long receiveTimeout, Callback cb) throws Exception {
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("Content-Type", Collections.singletonList("text/plain"));
+        byte[] bytes = body.getBytes("ISO-8859-1");
+        client.execute(new URL("http://localhost:" + server.getPort() + "/test"), "POST", headers,
+                       bytes, bytes.length, 5000, receiveTimeout, cb);
+    }
+    
+    private static void pause() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException ex) {
+            // ignore
+        }
+    }
+    
+    static class Callback implements NIOHTTPClient.ResponseCallback {
+        final CountDownLatch latch;
+        int responseCode;
+        Map<String, List<String>> headers;
+        String body;
+        IOException failure;
+        
+        Callback(CountDownLatch l) {
+            latch = l;
+        }
+        
+        public void responseReceived(int code, Map<String, List<String>> h, InputStream in) {
+            responseCode = code;
+            headers = h;
+            try {
+                body = in == null ? null : IOUtils.toString(in);
+            } catch (IOException ex) {
+                failure = ex;
+            }
+            latch.countDown();
+        }
+
+        public void failed(IOException ex) {
+            failure = ex;
+            latch.countDown();
+        }
+    }
+    
+    /**
+     * A minimal blocking HTTP server, one thread per connection.
+     */
+    abstract static class StandInServer implements Runnable {
+        final ServerSocket serverSocket;
+        final AtomicInteger accepted = new AtomicInteger();
+        final List<Socket> sockets = Collections.synchronizedList(new ArrayList<Socket>());
+        
+        StandInServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread t = new Thread(this);
+            t.setDaemon(true);
+            t.start();
+        }
+        
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+        
+        abstract void respond(OutputStream out, String body, int count) throws IOException;
+        
+        void write(OutputStream out, String s) throws IOException {
+            out.write(s.getBytes("ISO-8859-1"));
+            out.flush();
+        }
+        
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    accepted.incrementAndGet();
+                    sockets.add(socket);
+                    Thread t = new Thread() {
+                        public void run() {
+                            handle(socket);
+                        }
+                    };
+                    t.setDaemon(true);
+                    t.start();
+                } catch (IOException ex) {
+                    return;
+                }
+            }
+        }
+        
+        void handle(Socket socket) {
+            try {
+                InputStream in = socket.getInputStream();
+                OutputStream out = socket.getOutputStream();
+                int count = 0;
+                while (true) {
+                    String line = readLine(in);
+                    if (line == null) {
+                        break;
+                    }
+                    int length = 0;
+                    for (String h = readLine(in); h != null && h.length() > 0; h = readLine(in)) {
+                        if (h.toLowerCase().startsWith("content-length:")) {
+                            length = Integer.parseInt(h.substring(15).trim());
+                        }
+                    }
+                    byte[] body = new byte[length];
+                    int read = 0;
+                    while (read < length) {
+                        int n = in.read(body, read, length - read);
+                        if (n == -1) {
+                            throw new IOException("EOF");
+                        }
+                        read += n;
+                    }
+                    respond(out, new String(body, "ISO-8859-1"), count++);
+                }
+            } catch (IOException ex) {
+                // close the connection
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+        
+        String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream b = new ByteArrayOutputStream();
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            while (c != -1 && c != '\n') {
+                if (c != '\r') {
+                    b.write(c);
+                }
+                c = in.read();
+            }
+            return b.toString("ISO-8859-1");
+        }
+        
+        void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket s : sockets) {
+                    s.close();
+                }
+            }
+        }
+    }
+}
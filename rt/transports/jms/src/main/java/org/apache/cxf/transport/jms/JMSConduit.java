@@ -65,12 +65,14 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
     static final Logger LOG = LogUtils.getL7dLogger(JMSConduit.class);
     
     private static final String CORRELATED = JMSConduit.class.getName() + ".correlated";
+    private static final String REPLY = JMSConduit.class.getName() + ".reply";
     
     private EndpointInfo endpointInfo;
     private JMSConfiguration jmsConfig;
     private Map<String, Exchange> correlationMap = new ConcurrentHashMap<String, Exchange>();
     private DefaultMessageListenerContainer jmsListener;
     private DefaultMessageListenerContainer allListener;
+    private volatile JmsTemplate defaultJmsTemplate;
     private String conduitId;
     private AtomicLong messageCount;
     private int outstandingAsync;
@@ -116,6 +118,37 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         ++outstandingAsync;
         return jmsListener;
     }
+    /**
+     * The listener that receives the replies of synchronous requests when the shared reply listener is 
+     * used. It is the listener of the asynchronous requests, but it is kept until the conduit is closed.
+     */
+    private synchronized AbstractMessageListenerContainer getReplyListener() {
+        if (jmsListener == null) {
+            jmsListener = JMSFactory.createJmsListener(jmsConfig, 
+                                                       this, 
+                                                       jmsConfig.getReplyDestination(), 
+                                                       conduitId, 
+                                                       false);
+            addBusListener();
+        }
+        return jmsListener;
+    }
+    
+    /**
+     * A JmsTemplate is created per request only when the request headers override the QoS settings 
+     * of the configuration.
+     */
+    private JmsTemplate getJmsTemplate(JMSMessageHeadersType headers) {
+        if (headers.isSetTimeToLive() || headers.isSetJMSPriority() || headers.isSetJMSDeliveryMode()) {
+            return JMSFactory.createJmsTemplate(jmsConfig, headers);
+        }
+        JmsTemplate template = defaultJmsTemplate;
+        if (template == null) {
+            template = JMSFactory.createJmsTemplate(jmsConfig, null);
+            defaultJmsTemplate = template;
+        }
+        return template;
+    }
     private synchronized AbstractMessageListenerContainer getAllListener() {
         if (allListener == null) {
             allListener = JMSFactory.createJmsListener(jmsConfig, 
@@ -165,15 +198,19 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         if (replyTo == null) {
             replyTo = jmsConfig.getReplyDestination();
         }
-        final JmsTemplate jmsTemplate = JMSFactory.createJmsTemplate(jmsConfig, headers);
-        
         String userCID = headers.getJMSCorrelationID();
+        // requests with their own reply destination or correlation id are received with a selector
+        final boolean sharedReply = jmsConfig.isUseSharedReplyListener() && userCID == null
+            && headers.getJMSReplyTo() == null && exchange.isSynchronous() && !exchange.isOneWay();
+        final JmsTemplate jmsTemplate = jmsConfig.isUseSharedReplyListener()
+            ? getJmsTemplate(headers) : JMSFactory.createJmsTemplate(jmsConfig, headers);
+        
         boolean messageIdPattern = false;
         String correlationId = null;
         if (!exchange.isOneWay()) {
             if (userCID != null) {
                 correlationId = userCID;
-            } else if (!jmsConfig.isSetConduitSelectorPrefix()
+            } else if (!sharedReply && !jmsConfig.isSetConduitSelectorPrefix()
                        && (exchange.isSynchronous() || exchange.isOneWay())
                        && (!jmsConfig.isSetUseConduitIdSelector() 
                            || !jmsConfig.isUseConduitIdSelector())) {
@@ -194,7 +231,9 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         Destination replyToDestination = null;
         if (!exchange.isOneWay() || !jmsConfig.isEnforceSpec() && isSetReplyTo(outMessage)
             && replyTo != null) {
-            if (exchange.isSynchronous() || exchange.isOneWay()) {
+            if (sharedReply) {
+                replyToDestination = getReplyListener().getDestination();
+            } else if (exchange.isSynchronous() || exchange.isOneWay()) {
                 replyToDestination = JMSFactory.resolveOrCreateDestination(jmsTemplate, replyTo,
                                                                            jmsConfig.isPubSubDomain());
             } else {
@@ -222,7 +261,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                 jmsMessage = JMSUtils.buildJMSMessageFromCXFMessage(jmsConfig, outMessage, request,
                                                                     messageType, session, destination,
                                                                     cid);
-                if (!exchange.isSynchronous() && !exchange.isOneWay()) {
+                if (sharedReply || (!exchange.isSynchronous() && !exchange.isOneWay())) {
                     correlationMap.put(cid, exchange);
                 }
                 LOG.log(Level.FINE, "client sending request: ", jmsMessage);
@@ -247,21 +286,33 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
          */
         if (!exchange.isOneWay()) {
             synchronized (exchange) {
-                jmsTemplate.send(jmsConfig.getTargetDestination(), messageCreator);
-                if (messageIdPattern) {
-                    correlationId = messageCreator.getMessageID();
-                }
-                headers.setJMSMessageID(messageCreator.getMessageID());
-
-                final String messageSelector = "JMSCorrelationID = '" + correlationId + "'";
-                if (exchange.isSynchronous()) {
-                    javax.jms.Message replyMessage = jmsTemplate.receiveSelected(replyToDestination,
-                                                                                 messageSelector);
-                    if (replyMessage == null) {
-                        throw new RuntimeException("Timeout receiving message with correlationId "
-                                                   + correlationId);
-                    } else {
-                        doReplyMessage(exchange, replyMessage);
+                boolean sent = false;
+                try {
+                    jmsTemplate.send(jmsConfig.getTargetDestination(), messageCreator);
+                    sent = true;
+                    if (messageIdPattern) {
+                        correlationId = messageCreator.getMessageID();
+                    }
+                    headers.setJMSMessageID(messageCreator.getMessageID());
+    
+                    final String messageSelector = "JMSCorrelationID = '" + correlationId + "'";
+                    if (sharedReply) {
+                        doReplyMessage(exchange, waitForReply(exchange, correlationId));
+                    } else if (exchange.isSynchronous()) {
+                        javax.jms.Message replyMessage = jmsTemplate.receiveSelected(replyToDestination,
+                                                                                     messageSelector);
+                        if (replyMessage == null) {
+                            throw new RuntimeException("Timeout receiving message with correlationId "
+                                                       + correlationId);
+                        } else {
+                            doReplyMessage(exchange, replyMessage);
+                        }
+                    }
+                } finally {
+                    // no reply is expected for a request which has not been sent, and the shared 
+                    // reply listener has handed over the reply or is not waited for anymore
+                    if (cid != null && (sharedReply || !sent)) {
+                        correlationMap.remove(cid);
                     }
                 }
             }
@@ -271,6 +322,37 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         }
     }
 
+    /**
+     * Waits for the shared reply listener to hand over the reply. Must be called holding the lock on
+     * the exchange, the caller removes the exchange from the correlation map.
+     */
+    private javax.jms.Message waitForReply(Exchange exchange, String correlationId) {
+        // like JmsTemplate.receive, no timeout means waiting indefinitely
+        Long timeout = jmsConfig.getReceiveTimeout();
+        boolean indefinite = timeout == null || timeout.longValue() <= 0;
+        long end = indefinite ? 0 : System.currentTimeMillis() + timeout.longValue();
+        javax.jms.Message replyMessage = (javax.jms.Message)exchange.remove(REPLY);
+        try {
+            while (replyMessage == null) {
+                long remaining = indefinite ? 0 : end - System.currentTimeMillis();
+                if (!indefinite && remaining <= 0) {
+                    break;
+                }
+                exchange.wait(remaining);
+                replyMessage = (javax.jms.Message)exchange.remove(REPLY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the message with correlationId "
+                                       + correlationId, e);
+        }
+        if (replyMessage == null) {
+            throw new RuntimeException("Timeout receiving message with correlationId "
+                                       + correlationId);
+        }
+        return replyMessage;
+    }
+
     static class JMSBusLifeCycleListener implements BusLifeCycleListener {
         final WeakReference<JMSConduit> ref;
         BusLifeCycleManager blcm;
@@ -329,6 +411,14 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
             LOG.log(Level.WARNING, "Could not correlate message with correlationId " + correlationId);
             return;
         }
+        if (exchange.isSynchronous()) {
+            // the thread that sent the request processes the reply
+            synchronized (exchange) {
+                exchange.put(REPLY, jmsMessage);
+                exchange.notifyAll();
+            }
+            return;
+        }
         doReplyMessage(exchange, jmsMessage);
         maybeShutdownListeners();
     }
@@ -341,7 +431,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         if (outstandingAsync > 0) {
             --outstandingAsync;
         }
-        if (outstandingAsync == 0) {
+        if (outstandingAsync == 0 && !jmsConfig.isUseSharedReplyListener()) {
             bus.getExtension(WorkQueueManager.class).getAutomaticWorkQueue().execute(new Runnable() {
                 public void run() {
                     maybeShutdownListenersInternal();
@@ -394,6 +484,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
     }
     public synchronized void close() {
         shutdownListeners();
+        defaultJmsTemplate = null;
         jmsConfig.destroyWrappedConnectionFactory();
         LOG.log(Level.FINE, "JMSConduit closed ");
     }
@@ -408,6 +499,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
 
     public void setJmsConfig(JMSConfiguration jmsConfig) {
         this.jmsConfig = jmsConfig;
+        defaultJmsTemplate = null;
     }
 
     protected static boolean isSetReplyTo(Message message) {         
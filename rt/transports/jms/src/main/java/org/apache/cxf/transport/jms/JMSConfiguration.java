@@ -27,6 +27,7 @@ import org.apache.cxf.configuration.ConfigurationException;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.connection.SingleConnectionFactory;
 import org.springframework.jms.connection.SingleConnectionFactory102;
 import org.springframework.jms.core.JmsTemplate;
@@ -92,6 +93,8 @@ public class JMSConfiguration implements InitializingBean {
     private Boolean enforceSpec;
     private boolean acceptMessagesWhileStopping;
     private boolean jmsProviderTibcoEms;
+    private boolean useSharedReplyListener;
+    private int sessionCacheSize = DEFAULT_VALUE;
 
     //For jms spec.
     private String targetService;
@@ -438,6 +441,11 @@ public class JMSConfiguration implements InitializingBean {
                 if (useJms11) {
                     if (connectionFactory instanceof XAConnectionFactory) {
                         scf = new XASingleConnectionFactory(connectionFactory);
+                    } else if (sessionCacheSize > 0) {
+                        CachingConnectionFactory ccf = new CachingConnectionFactory(connectionFactory);
+                        ccf.setSessionCacheSize(sessionCacheSize);
+                        ccf.setCacheProducers(true);
+                        scf = ccf;
                     } else {
                         scf = new SingleConnectionFactory(connectionFactory);
                     }
@@ -552,4 +560,33 @@ public class JMSConfiguration implements InitializingBean {
     public void setJmsProviderTibcoEms(boolean jmsProviderTibcoEms) {
         this.jmsProviderTibcoEms = jmsProviderTibcoEms;
     }
+
+    public boolean isUseSharedReplyListener() {
+        return useSharedReplyListener;
+    }
+
+    /**
+     * If true the conduit also receives the replies of synchronous requests with one long lived 
+     * listener on the reply destination, instead of a consumer with a correlation id selector per 
+     * request. Requests with a user supplied correlation id still use a consumer per request.
+     * 
+     * @param useSharedReplyListener
+     */
+    public void setUseSharedReplyListener(boolean useSharedReplyListener) {
+        this.useSharedReplyListener = useSharedReplyListener;
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Sets the number of sessions, together with their producers, that are cached per session mode 
+     * when the connection factory is wrapped. Only used for JMS 1.1 and non XA connection factories.
+     * 
+     * @param sessionCacheSize
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
 }
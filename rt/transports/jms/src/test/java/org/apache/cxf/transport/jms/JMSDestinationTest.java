@@ -42,6 +42,7 @@ import org.apache.cxf.transport.MessageObserver;
 import org.apache.cxf.transport.MultiplexDestination;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.springframework.jms.connection.CachingConnectionFactory;
 
 public class JMSDestinationTest extends AbstractJMSTester {
     private static final int MAX_RECEIVE_TIME = 10;
@@ -450,6 +451,50 @@ public class JMSDestinationTest extends AbstractJMSTester {
         destination.shutdown();
     }
 
+    @Test
+    public void testRoundTripSharedReplyListener() throws Exception {
+
+        setupServiceInfo("http://cxf.apache.org/hello_world_jms", "/wsdl/jms_test.wsdl",
+                         "HelloWorldService", "HelloWorldPort");
+        JMSConduit conduit = setupJMSConduit(true, false);
+        conduit.getJmsConfig().setUseSharedReplyListener(true);
+        conduit.getJmsConfig().setSessionCacheSize(2);
+        conduit.getJmsConfig().setReceiveTimeout(Long.valueOf(10000));
+        final Message outMessage = new MessageImpl();
+        setupMessageHeader(outMessage, null);
+        final JMSDestination destination = setupJMSDestination(false);
+
+        MessageObserver observer = new MessageObserver() {
+            public void onMessage(Message m) {
+                Exchange exchange = new ExchangeImpl();
+                exchange.setInMessage(m);
+                m.setExchange(exchange);
+                verifyReceivedMessage(m);
+                try {
+                    Conduit backConduit = destination.getBackChannel(m, null, null);
+                    sendoutMessage(backConduit, new MessageImpl(), true);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        destination.setMessageObserver(observer);
+        try {
+            // the reply is handed over before sendExchange returns
+            for (int x = 0; x < 3; x++) {
+                inMessage = null;
+                sendoutMessage(conduit, outMessage, false);
+                assertNotNull("The reply should have been received", inMessage);
+                verifyReceivedMessage(inMessage);
+            }
+            assertTrue(conduit.getJmsConfig().getWrappedConnectionFactory() 
+                       instanceof CachingConnectionFactory);
+        } finally {
+            conduit.close();
+            destination.shutdown();
+        }
+    }
+
     @Test
     public void testProperty() throws Exception {
 
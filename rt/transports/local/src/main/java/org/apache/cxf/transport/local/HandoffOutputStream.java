@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.local;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Collects a complete message in memory and, when closed, hands the buffer 
+ * over as an InputStream without copying it.
+ */
+abstract class HandoffOutputStream extends OutputStream {
+    
+    private static final int INITIAL_SIZE = 4096;
+    
+    private byte[] buf = new byte[INITIAL_SIZE];
+    private int count;
+    private boolean closed;
+    
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buf.length) {
+            grow(count + 1);
+        }
+        buf[count++] = (byte)b;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (count + len > buf.length) {
+            grow(count + len);
+        }
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            InputStream in = new ByteArrayInputStream(buf, 0, count);
+            buf = null;
+            onClose(in);
+        }
+    }
+    
+    /**
+     * Called once when the stream is closed.
+     * 
+     * @param in a stream over the bytes written
+     */
+    protected abstract void onClose(InputStream in) throws IOException;
+    
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+    
+    private void grow(int minCapacity) {
+        int capacity = Math.max(buf.length << 1, minCapacity);
+        byte[] b = new byte[capacity];
+        System.arraycopy(buf, 0, b, 0, count);
+        buf = b;
+    }
+}
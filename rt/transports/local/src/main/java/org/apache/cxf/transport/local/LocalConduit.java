@@ -41,6 +41,8 @@ public class LocalConduit extends AbstractConduit {
     public static final String RESPONSE_CONDUIT = LocalConduit.class.getName() + ".inConduit";
     public static final String IN_EXCHANGE = LocalConduit.class.getName() + ".inExchange";
     public static final String DIRECT_DISPATCH = LocalConduit.class.getName() + ".directDispatch";
+    public static final String BUFFER_HANDOFF = LocalConduit.class.getName() + ".bufferHandoff";
+    public static final String DISPATCH_INLINE = LocalConduit.class.getName() + ".dispatchInline";
     public static final String MESSAGE_FILTER_PROPERTIES = LocalTransportFactory.MESSAGE_FILTER_PROPERTIES;
 
     private static final Logger LOG = LogUtils.getL7dLogger(LocalConduit.class);
@@ -55,7 +57,10 @@ public class LocalConduit extends AbstractConduit {
     }
     
     public void prepare(final Message message) throws IOException {
-        if (!Boolean.TRUE.equals(message.get(DIRECT_DISPATCH))) {
+        if (Boolean.TRUE.equals(message.get(BUFFER_HANDOFF))
+            && !Boolean.TRUE.equals(message.get(DIRECT_DISPATCH))) {
+            dispatchViaHandoff(message);
+        } else if (!Boolean.TRUE.equals(message.get(DIRECT_DISPATCH))) {
             dispatchViaPipe(message);
         } else {
             // prepare the stream here
@@ -101,6 +106,48 @@ public class LocalConduit extends AbstractConduit {
     }
 
 
+    /**
+     * Buffers the outgoing message and, once its stream is closed, hands the buffer 
+     * to the destination on the bus's work queue, or on the calling thread if 
+     * DISPATCH_INLINE is set. 
+     */
+    private void dispatchViaHandoff(final Message message) throws IOException {
+        final LocalConduit conduit = this;
+        final Exchange exchange = message.getExchange();
+        final boolean inline = Boolean.TRUE.equals(message.get(DISPATCH_INLINE));
+        
+        if (destination.getMessageObserver() == null) {
+            throw new IllegalStateException("Local destination does not have a MessageObserver on address " 
+                                            + destination.getAddress().getAddress().getValue());
+        }
+        
+        HandoffOutputStream cout 
+            = new HandoffOutputStream() {
+                protected void onClose(InputStream stream) throws IOException {
+                    final MessageImpl inMsg = new MessageImpl();
+                    transportFactory.copy(message, inMsg); 
+
+                    inMsg.setContent(InputStream.class, stream);
+                    inMsg.setDestination(destination);
+                    inMsg.put(IN_CONDUIT, conduit);
+
+                    ExchangeImpl ex = new ExchangeImpl();
+                    ex.setInMessage(inMsg);
+                    ex.put(IN_EXCHANGE, exchange);
+                    ex.put(BUFFER_HANDOFF, Boolean.TRUE);
+
+                    final Runnable receiver = new Runnable() {
+                        public void run() {                            
+                            destination.getMessageObserver().onMessage(inMsg);
+                        }
+                    };
+                    
+                    transportFactory.dispatch(receiver, inline);
+                }
+            };
+        message.setContent(OutputStream.class, cout);
+    }
+
     private void dispatchViaPipe(final Message message) throws IOException {
         final LocalConduit conduit = this;
         final Exchange exchange = message.getExchange();
@@ -76,7 +76,26 @@ public class LocalDestination extends AbstractDestination {
         }
 
         public void prepare(final Message message) throws IOException {            
-            if (!Boolean.TRUE.equals(message.getExchange().get(LocalConduit.DIRECT_DISPATCH))) {
+            if (Boolean.TRUE.equals(message.getExchange().get(LocalConduit.BUFFER_HANDOFF))) {
+                final Exchange exchange = (Exchange)message.getExchange().get(LocalConduit.IN_EXCHANGE);
+
+                // the response is handed back on the thread that completes it
+                HandoffOutputStream cout 
+                    = new HandoffOutputStream() {
+                        protected void onClose(InputStream stream) throws IOException {
+                            MessageImpl m = new MessageImpl();
+                            localDestinationFactory.copy(message, m);
+                            m.setContent(InputStream.class, stream);
+                            if (exchange != null) {
+                                exchange.setInMessage(m);
+                            }
+                            conduit.getMessageObserver().onMessage(m);
+                        }
+                    };
+                
+                message.setContent(OutputStream.class, cout);
+                
+            } else if (!Boolean.TRUE.equals(message.getExchange().get(LocalConduit.DIRECT_DISPATCH))) {
                 final Exchange exchange = (Exchange)message.getExchange().get(LocalConduit.IN_EXCHANGE);
 
                 AbstractWrappedOutputStream cout 
@@ -26,6 +26,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.Resource;
@@ -40,6 +43,7 @@ import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.ConduitInitiator;
 import org.apache.cxf.transport.Destination;
 import org.apache.cxf.transport.DestinationFactory;
+import org.apache.cxf.workqueue.WorkQueueManager;
 import org.apache.cxf.ws.addressing.AttributedURIType;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
@@ -64,6 +68,7 @@ public class LocalTransportFactory extends AbstractTransportFactory
     private Set<String> messageFilterProperties;
     private Set<String> messageIncludeProperties;
     private Set<String> uriPrefixes = new HashSet<String>(URI_PREFIXES);
+    private volatile Executor executor;
     
     public LocalTransportFactory() {
         super();
@@ -85,6 +90,7 @@ public class LocalTransportFactory extends AbstractTransportFactory
     @Resource(name = "cxf")
     public void setBus(Bus b) {
         super.setBus(b);
+        executor = null;
     }
 
     public Destination getDestination(EndpointInfo ei) throws IOException {
@@ -149,6 +155,44 @@ public class LocalTransportFactory extends AbstractTransportFactory
         this.messageIncludeProperties = props;
     }
 
+    public Executor getExecutor() {
+        Executor ex = executor;
+        if (ex == null && getBus() != null) {
+            WorkQueueManager manager = getBus().getExtension(WorkQueueManager.class);
+            if (manager != null) {
+                ex = manager.getNamedWorkQueue("local-transport");
+                if (ex == null) {
+                    ex = manager.getAutomaticWorkQueue();
+                }
+                executor = ex;
+            }
+        }
+        return ex;
+    }
+
+    /**
+     * Sets the executor used to dispatch messages in buffer handoff mode. 
+     * Defaults to the bus's "local-transport" work queue, or its automatic
+     * work queue if there is none.
+     */
+    public void setExecutor(Executor e) {
+        executor = e;
+    }
+    
+    void dispatch(Runnable receiver, boolean inline) {
+        if (!inline) {
+            Executor ex = getExecutor();
+            if (ex != null) {
+                try {
+                    ex.execute(receiver);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    LOG.log(Level.FINE, "Work queue rejected local dispatch, dispatching inline.", e);
+                }
+            }
+        }
+        receiver.run();
+    }
     
     public void copy(Message message, Message copy) {
         Set<String> filter = CastUtils.cast((Set)message.get(MESSAGE_FILTER_PROPERTIES));
@@ -24,6 +24,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
@@ -46,8 +48,45 @@ public class LocalTransportFactoryTest extends Assert {
         testInvocation(true);
     }
     
-    private void testInvocation(boolean isDirectDispatch) throws Exception {
+    @Test
+    public void testLocalTransportWithBufferHandoff() throws Exception {
+        final AtomicInteger dispatched = new AtomicInteger();
+        LocalTransportFactory factory = new LocalTransportFactory();
+        factory.setExecutor(new Executor() {
+            public void execute(Runnable command) {
+                dispatched.incrementAndGet();
+                new Thread(command).start();
+            }
+        });
+        MessageImpl m = new MessageImpl();
+        m.put(LocalConduit.BUFFER_HANDOFF, Boolean.TRUE);
+        testInvocation(factory, m);
+        assertEquals(1, dispatched.get());
+    }
+    
+    @Test
+    public void testLocalTransportWithInlineBufferHandoff() throws Exception {
         LocalTransportFactory factory = new LocalTransportFactory();
+        factory.setExecutor(new Executor() {
+            public void execute(Runnable command) {
+                fail("Inline dispatch should not use the executor");
+            }
+        });
+        MessageImpl m = new MessageImpl();
+        m.put(LocalConduit.BUFFER_HANDOFF, Boolean.TRUE);
+        m.put(LocalConduit.DISPATCH_INLINE, Boolean.TRUE);
+        testInvocation(factory, m);
+    }
+    
+    private void testInvocation(boolean isDirectDispatch) throws Exception {
+        MessageImpl m = new MessageImpl();
+        if (isDirectDispatch) {
+            m.put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
+        }    
+        testInvocation(new LocalTransportFactory(), m);
+    }
+    
+    private void testInvocation(LocalTransportFactory factory, MessageImpl m) throws Exception {
         
         EndpointInfo ei = new EndpointInfo(null, "http://schemas.xmlsoap.org/soap/http");
         AddressType a = new AddressType();
@@ -62,10 +101,6 @@ public class LocalTransportFactoryTest extends Assert {
         TestMessageObserver obs = new TestMessageObserver();
         conduit.setMessageObserver(obs);
         
-        MessageImpl m = new MessageImpl();
-        if (isDirectDispatch) {
-            m.put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
-        }    
         m.setDestination(d);
         conduit.prepare(m);
         
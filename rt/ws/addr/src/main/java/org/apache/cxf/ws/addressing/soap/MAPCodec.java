@@ -19,7 +19,7 @@
 
 package org.apache.cxf.ws.addressing.soap;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +34,8 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -44,6 +46,7 @@ import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
 import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
+import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.headers.Header;
@@ -469,14 +472,21 @@ public class MAPCodec extends AbstractSoapInterceptor {
             if (header != null) {
                 LOG.log(Level.FINE, "Inbound WS-Addressing headers");
                 Unmarshaller unmarshaller = null;
-                Set<Element> referenceParameterHeaders = null;
+                List<Object> referenceParameterHeaders = null;
 
                 Iterator<Header> iter = header.iterator();
                 while (iter.hasNext()) {
                     Header hdr = iter.next();
-                    if (hdr.getObject() instanceof Element) {
-                        Element headerElement = (Element)hdr.getObject();
-                        String headerURI = headerElement.getNamespaceURI();
+                    // a header the ReadHeadersInterceptor only buffered is read from the
+                    // buffer, so that the document of the headers is not built for it
+                    XMLStreamReader headerReader = ReadHeadersInterceptor.getHeaderReader(hdr);
+                    Object headerSource = headerReader;
+                    if (headerReader == null && hdr.getObject() instanceof Element) {
+                        headerSource = hdr.getObject();
+                    }
+                    if (headerSource != null) {
+                        String headerURI = headerReader == null 
+                            ? ((Element)headerSource).getNamespaceURI() : headerReader.getNamespaceURI();
                         // Need to check the uri before getting unmarshaller else
                         // would get wrong unmarshaller and fail to process required
                         // headers.
@@ -491,56 +501,57 @@ public class MAPCodec extends AbstractSoapInterceptor {
                                 maps = new AddressingPropertiesImpl();
                                 maps.exposeAs(headerURI);
                             }
-                            String localName = headerElement.getLocalName();
+                            String localName = headerReader == null 
+                                ? ((Element)headerSource).getLocalName() : headerReader.getLocalName();
                             if (Names.WSA_MESSAGEID_NAME.equals(localName)) {
-                                maps.setMessageID(decodeAsNative(
+                                maps.setMessageID(decodeHeader(
                                                        headerURI,
                                                        AttributedURIType.class,
-                                                       headerElement, 
+                                                       headerSource, 
                                                        unmarshaller));
                             } else if (Names.WSA_TO_NAME.equals(localName)) {
-                                AttributedURIType addr = decodeAsNative(
+                                AttributedURIType addr = decodeHeader(
                                                        headerURI,
                                                        AttributedURIType.class,
-                                                       headerElement, 
+                                                       headerSource, 
                                                        unmarshaller);
                                 maps.setTo(EndpointReferenceUtils.getEndpointReference(addr));
                             } else if (Names.WSA_FROM_NAME.equals(localName)) {
-                                maps.setFrom(decodeAsNative(
+                                maps.setFrom(decodeHeader(
                                                        headerURI,
                                                        EndpointReferenceType.class,
-                                                       headerElement, 
+                                                       headerSource, 
                                                        unmarshaller));
                             } else if (Names.WSA_REPLYTO_NAME.equals(localName)) {
-                                maps.setReplyTo(decodeAsNative(
+                                maps.setReplyTo(decodeHeader(
                                                        headerURI,
                                                        EndpointReferenceType.class,
-                                                       headerElement, 
+                                                       headerSource, 
                                                        unmarshaller));
                             } else if (Names.WSA_FAULTTO_NAME.equals(localName)) {
-                                maps.setFaultTo(decodeAsNative(
+                                maps.setFaultTo(decodeHeader(
                                                        headerURI,
                                                        EndpointReferenceType.class,
-                                                       headerElement, 
+                                                       headerSource, 
                                                        unmarshaller));
                             } else if (Names.WSA_RELATESTO_NAME.equals(localName)) {
-                                maps.setRelatesTo(decodeAsNative(
+                                maps.setRelatesTo(decodeHeader(
                                                        headerURI,
                                                        RelatesToType.class,
-                                                       headerElement, 
+                                                       headerSource, 
                                                        unmarshaller));
                             } else if (Names.WSA_ACTION_NAME.equals(localName)) {
-                                maps.setAction(decodeAsNative(
+                                maps.setAction(decodeHeader(
                                                        headerURI,
                                                        AttributedURIType.class,
-                                                       headerElement, 
+                                                       headerSource, 
                                                        unmarshaller));
                             }
-                        } else if (null != headerElement.getAttribute(IS_REFERENCE_PARAM_ATTR_NAME)) {
+                        } else if (null != getReferenceParameterAttribute(headerSource)) {
                             if (null == referenceParameterHeaders) {
-                                referenceParameterHeaders = new HashSet<Element>();
+                                referenceParameterHeaders = new ArrayList<Object>();
                             }
-                            referenceParameterHeaders.add(headerElement); 
+                            referenceParameterHeaders.add(headerSource); 
                         } else if (headerURI.contains(Names.WSA_NAMESPACE_PATTERN)) {
                             LOG.log(Level.WARNING, 
                                     "UNSUPPORTED_VERSION_MSG",
@@ -554,23 +565,46 @@ public class MAPCodec extends AbstractSoapInterceptor {
             }
         } catch (JAXBException je) {
             LOG.log(Level.WARNING, "SOAP_HEADER_DECODE_FAILURE_MSG", je); 
+        } catch (XMLStreamException xe) {
+            LOG.log(Level.WARNING, "SOAP_HEADER_DECODE_FAILURE_MSG", xe); 
         }
         return maps;
     }
     
-    private void decodeReferenceParameters(Set<Element> referenceParameterHeaders, 
+    private static String getReferenceParameterAttribute(Object headerSource) {
+        if (headerSource instanceof Element) {
+            return ((Element)headerSource).getAttribute(IS_REFERENCE_PARAM_ATTR_NAME);
+        }
+        // as Element.getAttribute, which gives an empty string for a missing attribute
+        String value = ((XMLStreamReader)headerSource).getAttributeValue(null, IS_REFERENCE_PARAM_ATTR_NAME);
+        return value == null ? "" : value;
+    }
+    
+    private void decodeReferenceParameters(List<Object> referenceParameterHeaders, 
                                            AddressingPropertiesImpl maps, 
                                            Unmarshaller unmarshaller) 
         throws JAXBException {
         EndpointReferenceType toEpr = maps.getToEndpointReference();
         if (null != toEpr) {
-            for (Element e : referenceParameterHeaders) {
-                JAXBElement<String> el = unmarshaller.unmarshal(e, String.class);
+            for (Object headerSource : referenceParameterHeaders) {
+                JAXBElement<String> el = headerSource instanceof Element
+                    ? unmarshaller.unmarshal((Element)headerSource, String.class)
+                    : unmarshaller.unmarshal((XMLStreamReader)headerSource, String.class);
                 ContextUtils.applyReferenceParam(toEpr, el);
             }
         }
     }
 
+    private <T> T decodeHeader(String encodedAs,
+                               Class<T> clz,
+                               Object headerSource,
+                               Unmarshaller unmarshaller) 
+        throws JAXBException {
+        return headerSource instanceof Element
+            ? decodeAsNative(encodedAs, clz, (Element)headerSource, unmarshaller)
+            : decodeAsNative(encodedAs, clz, (XMLStreamReader)headerSource, unmarshaller);
+    }
+
     /**
      * Decodes a MAP from a exposed version.
      *
@@ -594,6 +628,31 @@ public class MAPCodec extends AbstractSoapInterceptor {
                 new Object[] {headerElement.getLocalName(), getLogText(value)});
         return value;
     }
+
+    /**
+     * Decodes a MAP from a exposed version.
+     *
+     * @param encodedAs specifies the encoded version
+     * @param clz the class
+     * @param headerReader the reader positioned on the SOAP header element
+     * @param marshaller the JAXB marshaller to use
+     * @return the decoded value
+     */
+    public <T> T decodeAsNative(String encodedAs,
+                                Class<T> clz,
+                                XMLStreamReader headerReader,
+                                Unmarshaller unmarshaller) 
+        throws JAXBException {
+        String localName = headerReader.getLocalName();
+        T value = clz.cast(transformer.decodeAsNative(encodedAs,
+                                              clz,
+                                              headerReader,
+                                              unmarshaller));
+        LOG.log(Level.FINE,
+                "{0} : {1}",
+                new Object[] {localName, getLogText(value)});
+        return value;
+    }
     
     /**
      * Return a text representation of a header value for logging.
@@ -667,6 +726,22 @@ public class MAPCodec extends AbstractSoapInterceptor {
         return element.getValue();
     }
 
+    /**
+     * Decodes a MAP from a SOAP header read from a stream.
+     *
+     * @param clz the class
+     * @param headerReader the reader positioned on the SOAP header element
+     * @param marshaller the JAXB marshaller to use
+     * @return the decoded value
+     */
+    protected <T> T decodeMAP(Class<T> clz,
+                              XMLStreamReader headerReader,
+                              Unmarshaller unmarshaller) throws JAXBException {
+        JAXBElement<T> element =
+            unmarshaller.unmarshal(headerReader, clz);
+        return element.getValue();
+    }
+
     /**
      * Discard any pre-existing MAP headers - this may occur if the runtime
      * re-uses a SOAP message.
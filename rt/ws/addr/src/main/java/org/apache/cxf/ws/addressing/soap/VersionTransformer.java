@@ -28,6 +28,7 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Element;
 import org.apache.cxf.common.logging.LogUtils;
@@ -124,36 +125,60 @@ public class VersionTransformer extends org.apache.cxf.ws.addressing.VersionTran
      */
     public <T> T decodeAsNative(String encodedAs, Class<T> clz, Element headerElement,
                                 Unmarshaller unmarshaller) throws JAXBException {
+        return decode(encodedAs, clz, headerElement, unmarshaller);
+    }
+
+    /**
+     * Decodes a MAP from a exposed version read from a stream.
+     * 
+     * @param encodedAs specifies the encoded version
+     * @param clz the class
+     * @param headerReader the reader positioned on the SOAP header element
+     * @param marshaller the JAXB marshaller to use
+     * @return the decoded value
+     */
+    public <T> T decodeAsNative(String encodedAs, Class<T> clz, XMLStreamReader headerReader,
+                                Unmarshaller unmarshaller) throws JAXBException {
+        return decode(encodedAs, clz, headerReader, unmarshaller);
+    }
+
+    private <T> T decode(String encodedAs, Class<T> clz, Object headerElement,
+                         Unmarshaller unmarshaller) throws JAXBException {
         T ret = null;
         LOG.fine("decodeAsNative: encodedAs: " + encodedAs);
         LOG.fine("                class: " + clz.getName());
 
         if (NATIVE_VERSION.equals(encodedAs)) {
-            ret = codec.decodeMAP(clz, headerElement, unmarshaller);
+            ret = decodeMAP(clz, headerElement, unmarshaller);
         } else if (Names200408.WSA_NAMESPACE_NAME.equals(encodedAs)) {
             if (AttributedURIType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(AttributedURI.class, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(AttributedURI.class, headerElement, unmarshaller)));
             } else if (EndpointReferenceType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(Names200408.EPR_TYPE, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(Names200408.EPR_TYPE, headerElement, unmarshaller)));
             } else if (RelatesToType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(Relationship.class, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(Relationship.class, headerElement, unmarshaller)));
             }
         } else if (Names200403.WSA_NAMESPACE_NAME.equals(encodedAs)) {
             if (AttributedURIType.class.equals(clz)) {
-                ret = clz.cast(convert(codec
-                    .decodeMAP(org.apache.cxf.ws.addressing.v200403.AttributedURI.class, headerElement,
-                               unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(
+                    org.apache.cxf.ws.addressing.v200403.AttributedURI.class, headerElement, unmarshaller)));
             } else if (EndpointReferenceType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(Names200403.EPR_TYPE, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(Names200403.EPR_TYPE, headerElement, unmarshaller)));
             } else if (RelatesToType.class.equals(clz)) {
-                ret = clz.cast(convert(codec
-                    .decodeMAP(org.apache.cxf.ws.addressing.v200403.Relationship.class, headerElement,
-                               unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(
+                    org.apache.cxf.ws.addressing.v200403.Relationship.class, headerElement, unmarshaller)));
             }
         }
         return ret;
     }
 
+    private <T> T decodeMAP(Class<T> clz, Object headerElement, 
+                            Unmarshaller unmarshaller) throws JAXBException {
+        return headerElement instanceof Element
+            ? codec.decodeMAP(clz, (Element)headerElement, unmarshaller)
+            : codec.decodeMAP(clz, (XMLStreamReader)headerElement, unmarshaller);
+    }
+
     /**
      * Augment the set of headers understood by the protocol binding with the 2004/08 header QNames.
      */
@@ -48,6 +48,18 @@ public abstract class AbstractPolicyInterceptor extends AbstractPhaseInterceptor
         }
     }
 
+    /**
+     * Checks that one of the alternatives of the effective policy is supported, using the 
+     * alternatives cached by the effective policy if it has been computed by the engine.
+     */
+    protected void checkEffectivePolicy(AssertionInfoMap aim, EffectivePolicy ep) {
+        if (ep instanceof EffectivePolicyImpl) {
+            aim.checkEffectivePolicyAlternatives(((EffectivePolicyImpl)ep).getAlternatives());
+        } else {
+            aim.checkEffectivePolicy(ep.getPolicy());
+        }
+    }
+
     protected void getTransportAssertions(Message message) {
         Exchange ex = message.getExchange();
         Assertor assertor = null;
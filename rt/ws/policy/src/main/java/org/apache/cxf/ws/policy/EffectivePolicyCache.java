@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.policy;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The endpoint and effective policies of one endpoint, keyed by the binding operation or fault
+ * and the direction. Each computed policy is stamped with the version of the policy engine
+ * it was computed with and is ignored once the version changes. Policies that were set explicitly
+ * are kept until they are replaced.
+ */
+final class EffectivePolicyCache {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    /**
+     * Returns a version greater than any version returned before. The engine and the registries 
+     * stamp their changes with it, so the greatest of their versions never repeats an earlier value,
+     * not even after the registry of an engine has been replaced.
+     */
+    static long nextVersion() {
+        return VERSIONS.incrementAndGet();
+    }
+
+    Object get(Object info, String direction, long version) {
+        Entry e = entries.get(new Key(info, direction));
+        if (e == null || (!e.explicit && e.version != version)) {
+            return null;
+        }
+        return e.policy;
+    }
+
+    void put(Object info, String direction, Object policy, long version) {
+        entries.put(new Key(info, direction), new Entry(policy, version, false));
+    }
+
+    void set(Object info, String direction, Object policy) {
+        Key key = new Key(info, direction);
+        if (policy == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, new Entry(policy, 0, true));
+        }
+    }
+
+    private static final class Key {
+        private final Object info;
+        private final String direction;
+
+        Key(Object i, String d) {
+            info = i;
+            direction = d;
+        }
+
+        @Override
+        public int hashCode() {
+            return (info == null ? 0 : System.identityHashCode(info)) * 31 + direction.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key)o;
+            return info == k.info && direction.equals(k.direction);
+        }
+    }
+
+    private static final class Entry {
+        private final Object policy;
+        private final long version;
+        private final boolean explicit;
+
+        Entry(Object p, long v, boolean e) {
+            policy = p;
+            version = v;
+            explicit = e;
+        }
+    }
+}
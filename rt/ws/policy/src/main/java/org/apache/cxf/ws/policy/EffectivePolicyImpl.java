@@ -21,6 +21,7 @@ package org.apache.cxf.ws.policy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -55,11 +56,31 @@ public class EffectivePolicyImpl implements EffectivePolicy {
     protected Policy policy;     
     protected Collection<PolicyAssertion> chosenAlternative;
     protected List<Interceptor<? extends org.apache.cxf.message.Message>> interceptors;
+    private volatile Alternatives alternatives;
     
     public Policy getPolicy() {
         return policy;        
     }
     
+    /**
+     * Returns the alternatives of the policy. Policy.getAlternatives() normalizes the policy
+     * on every call, so the verifying interceptors use the alternatives computed here once.
+     */
+    public List<List<PolicyAssertion>> getAlternatives() {
+        Policy p = policy;
+        Alternatives alts = alternatives;
+        if (alts == null || alts.policy != p) {
+            List<List<PolicyAssertion>> list = new ArrayList<List<PolicyAssertion>>();
+            Iterator it = p.getAlternatives();
+            while (it.hasNext()) {
+                list.add(CastUtils.cast((List)it.next(), PolicyAssertion.class));
+            }
+            alts = new Alternatives(p, Collections.unmodifiableList(list));
+            alternatives = alts;
+        }
+        return alts.list;
+    }
+    
     public List<Interceptor<? extends org.apache.cxf.message.Message>> getInterceptors() {
         return interceptors;
     }
@@ -214,5 +235,14 @@ public class EffectivePolicyImpl implements EffectivePolicy {
     void setInterceptors(List<Interceptor<? extends org.apache.cxf.message.Message>> out) {
         interceptors = out;
     }
-   
+    
+    private static final class Alternatives {
+        private final Policy policy;
+        private final List<List<PolicyAssertion>> list;
+        
+        Alternatives(Policy p, List<List<PolicyAssertion>> l) {
+            policy = p;
+            list = l;
+        }
+    }
 }
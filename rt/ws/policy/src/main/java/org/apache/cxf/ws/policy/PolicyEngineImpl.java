@@ -66,13 +66,16 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     private static final String POLICY_INFO_RESPONSE_CLIENT = "policy-engine-info-client-response";
     private static final String POLICY_INFO_ENDPOINT_CLIENT = "policy-engine-info-client-endpoint";
     
+    private static final String POLICY_INFO_CACHE = "policy-engine-info-cache";
+    
     private Bus bus;
-    private PolicyRegistry registry;
-    private Collection<PolicyProvider> policyProviders;
+    private volatile PolicyRegistry registry;
+    private volatile Collection<PolicyProvider> policyProviders;
     private boolean enabled = true;
     private Boolean ignoreUnknownAssertions;
     private boolean addedBusInterceptors;
-    private AlternativeSelector alternativeSelector;
+    private volatile AlternativeSelector alternativeSelector;
+    private volatile long version;
 
 
     public PolicyEngineImpl() { 
@@ -109,23 +112,31 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setPolicyProviders(Collection<PolicyProvider> p) {
         policyProviders = new CopyOnWriteArrayList<PolicyProvider>(p);
+        invalidatePolicies();
     }
    
-    public synchronized Collection<PolicyProvider> getPolicyProviders() {
-        if (policyProviders == null) {
-            policyProviders = new CopyOnWriteArrayList<PolicyProvider>();
-            if (bus != null) {
-                ConfiguredBeanLocator loc = bus.getExtension(ConfiguredBeanLocator.class);
-                if (loc != null) {
-                    loc.getBeansOfType(PolicyProvider.class);
+    public Collection<PolicyProvider> getPolicyProviders() {
+        Collection<PolicyProvider> providers = policyProviders;
+        if (providers == null) {
+            synchronized (this) {
+                if (policyProviders == null) {
+                    policyProviders = new CopyOnWriteArrayList<PolicyProvider>();
+                    if (bus != null) {
+                        ConfiguredBeanLocator loc = bus.getExtension(ConfiguredBeanLocator.class);
+                        if (loc != null) {
+                            loc.getBeansOfType(PolicyProvider.class);
+                        }
+                    }
                 }
+                providers = policyProviders;
             }
         }
-        return policyProviders;
+        return providers;
     }
 
     public void setRegistry(PolicyRegistry r) {
         registry = r;
+        invalidatePolicies();
     }
 
     public PolicyRegistry getRegistry() {
@@ -141,15 +152,22 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
         }
     }
 
-    public synchronized AlternativeSelector getAlternativeSelector() {  
-        if (alternativeSelector == null && enabled) {
-            alternativeSelector = new MinimalAlternativeSelector();
+    public AlternativeSelector getAlternativeSelector() {  
+        AlternativeSelector selector = alternativeSelector;
+        if (selector == null) {
+            synchronized (this) {
+                if (alternativeSelector == null && enabled) {
+                    alternativeSelector = new MinimalAlternativeSelector();
+                }
+                selector = alternativeSelector;
+            }
         }
-        return alternativeSelector;
+        return selector;
     }
 
     public void setAlternativeSelector(AlternativeSelector as) {
         alternativeSelector = as;
+        invalidatePolicies();
     }
 
     public boolean isIgnoreUnknownAssertions() {
@@ -171,7 +189,10 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public EffectivePolicy getEffectiveClientRequestPolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                            Conduit c) {
-        EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_REQUEST_CLIENT);
+        long version = getVersion();
+        EffectivePolicyCache cache = getCache(ei);
+        EffectivePolicy effectivePolicy = 
+            (EffectivePolicy)cache.get(boi, POLICY_INFO_REQUEST_CLIENT, version);
         if (null == effectivePolicy) {
             EffectivePolicyImpl epi = createOutPolicyInfo();
             Assertor assertor = null;
@@ -179,7 +200,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
                 assertor = (Assertor)c;
             }
             epi.initialise(ei, boi, this, assertor, true, true);
-            boi.setProperty(POLICY_INFO_REQUEST_CLIENT, epi);
+            cache.put(boi, POLICY_INFO_REQUEST_CLIENT, epi, version);
             effectivePolicy = epi;
         }
         return effectivePolicy;
@@ -187,13 +208,16 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveClientRequestPolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                 EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_REQUEST_CLIENT, ep);
+        getCache(ei).set(boi, POLICY_INFO_REQUEST_CLIENT, ep);
     }
 
     public EffectivePolicy getEffectiveServerResponsePolicy(EndpointInfo ei,
                                                             BindingOperationInfo boi,
                                                             Destination d) {
-        EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_RESPONSE_SERVER);
+        long version = getVersion();
+        EffectivePolicyCache cache = getCache(ei);
+        EffectivePolicy effectivePolicy = 
+            (EffectivePolicy)cache.get(boi, POLICY_INFO_RESPONSE_SERVER, version);
         if (null == effectivePolicy) {
             EffectivePolicyImpl epi = createOutPolicyInfo();
             Assertor assertor = null;
@@ -201,7 +225,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
                 assertor = (Assertor)d;
             }
             epi.initialise(ei, boi, this, assertor, false, false);
-            boi.setProperty(POLICY_INFO_RESPONSE_SERVER, epi);
+            cache.put(boi, POLICY_INFO_RESPONSE_SERVER, epi, version);
             effectivePolicy = epi;
         }
         return effectivePolicy;
@@ -209,12 +233,15 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveServerResponsePolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                  EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_RESPONSE_SERVER, ep);
+        getCache(ei).set(boi, POLICY_INFO_RESPONSE_SERVER, ep);
     }
   
     public EffectivePolicy getEffectiveServerFaultPolicy(EndpointInfo ei, BindingFaultInfo bfi, 
                                                          Destination d) {
-        EffectivePolicy effectivePolicy = (EffectivePolicy)bfi.getProperty(POLICY_INFO_FAULT_SERVER);
+        long version = getVersion();
+        EffectivePolicyCache cache = getCache(ei);
+        EffectivePolicy effectivePolicy = 
+            (EffectivePolicy)cache.get(bfi, POLICY_INFO_FAULT_SERVER, version);
         if (null == effectivePolicy) {
             EffectivePolicyImpl epi = createOutPolicyInfo();
             Assertor assertor = null;
@@ -222,14 +249,14 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
                 assertor = (Assertor)d;
             }
             epi.initialise(ei, bfi, this, assertor);
-            bfi.setProperty(POLICY_INFO_FAULT_SERVER, epi);
+            cache.put(bfi, POLICY_INFO_FAULT_SERVER, epi, version);
             effectivePolicy = epi;
         }
         return effectivePolicy;
     }
 
     public void setEffectiveServerFaultPolicy(EndpointInfo ei, BindingFaultInfo bfi, EffectivePolicy ep) {
-        bfi.setProperty(POLICY_INFO_FAULT_SERVER, ep);
+        getCache(ei).set(bfi, POLICY_INFO_FAULT_SERVER, ep);
     }
 
     public EndpointPolicy getClientEndpointPolicy(EndpointInfo ei, Conduit conduit) {
@@ -247,8 +274,8 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
         EndpointInfo ei, 
         boolean isRequestor,
         Assertor assertor) {
-        EndpointPolicy ep = (EndpointPolicy)ei.getProperty(isRequestor ? POLICY_INFO_ENDPOINT_CLIENT 
-                            : POLICY_INFO_ENDPOINT_SERVER);
+        EndpointPolicy ep = (EndpointPolicy)getCache(ei).get(null, 
+            isRequestor ? POLICY_INFO_ENDPOINT_CLIENT : POLICY_INFO_ENDPOINT_SERVER, getVersion());
         if (null != ep) {
             return ep; 
         }
@@ -256,20 +283,23 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     }
 
     public void setClientEndpointPolicy(EndpointInfo ei, EndpointPolicy ep) {
-        ei.setProperty(POLICY_INFO_ENDPOINT_CLIENT, ep);
+        getCache(ei).set(null, POLICY_INFO_ENDPOINT_CLIENT, ep);
     }
 
     public void setServerEndpointPolicy(EndpointInfo ei, EndpointPolicy ep) {
-        ei.setProperty(POLICY_INFO_ENDPOINT_SERVER, ep);
+        getCache(ei).set(null, POLICY_INFO_ENDPOINT_SERVER, ep);
     }
 
     public EffectivePolicy getEffectiveServerRequestPolicy(EndpointInfo ei, 
                                                            BindingOperationInfo boi) {
-        EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_REQUEST_SERVER);
+        long version = getVersion();
+        EffectivePolicyCache cache = getCache(ei);
+        EffectivePolicy effectivePolicy = 
+            (EffectivePolicy)cache.get(boi, POLICY_INFO_REQUEST_SERVER, version);
         if (null == effectivePolicy) {
             EffectivePolicyImpl epi = createOutPolicyInfo();
             epi.initialise(ei, boi, this, false, true);
-            boi.setProperty(POLICY_INFO_REQUEST_SERVER, epi);
+            cache.put(boi, POLICY_INFO_REQUEST_SERVER, epi, version);
             effectivePolicy = epi;
         }
         return effectivePolicy;
@@ -277,15 +307,18 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveServerRequestPolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                 EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_REQUEST_SERVER, ep);        
+        getCache(ei).set(boi, POLICY_INFO_REQUEST_SERVER, ep);
     }
 
     public EffectivePolicy getEffectiveClientResponsePolicy(EndpointInfo ei, BindingOperationInfo boi) {
-        EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_RESPONSE_CLIENT);
+        long version = getVersion();
+        EffectivePolicyCache cache = getCache(ei);
+        EffectivePolicy effectivePolicy = 
+            (EffectivePolicy)cache.get(boi, POLICY_INFO_RESPONSE_CLIENT, version);
         if (null == effectivePolicy) {
             EffectivePolicyImpl epi = createOutPolicyInfo();
             epi.initialise(ei, boi, this, true, false);        
-            boi.setProperty(POLICY_INFO_RESPONSE_CLIENT, epi);
+            cache.put(boi, POLICY_INFO_RESPONSE_CLIENT, epi, version);
             effectivePolicy = epi;
         }
         return effectivePolicy;
@@ -293,28 +326,68 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveClientResponsePolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                  EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_RESPONSE_CLIENT, ep);
+        getCache(ei).set(boi, POLICY_INFO_RESPONSE_CLIENT, ep);
     }
 
     public EffectivePolicy getEffectiveClientFaultPolicy(EndpointInfo ei, BindingFaultInfo bfi) {
-        EffectivePolicy effectivePolicy = (EffectivePolicy)bfi.getProperty(POLICY_INFO_FAULT_CLIENT);
+        long version = getVersion();
+        EffectivePolicyCache cache = getCache(ei);
+        EffectivePolicy effectivePolicy = 
+            (EffectivePolicy)cache.get(bfi, POLICY_INFO_FAULT_CLIENT, version);
         if (null == effectivePolicy) {
             EffectivePolicyImpl epi = createOutPolicyInfo();
             epi.initialisePolicy(ei, bfi, this);
-            bfi.setProperty(POLICY_INFO_FAULT_CLIENT, epi);
+            cache.put(bfi, POLICY_INFO_FAULT_CLIENT, epi, version);
             effectivePolicy = epi;
         }
         return effectivePolicy;
     }
 
     public void setEffectiveClientFaultPolicy(EndpointInfo ei, BindingFaultInfo bfi, EffectivePolicy ep) {
-        bfi.setProperty(POLICY_INFO_FAULT_CLIENT, ep);
+        getCache(ei).set(bfi, POLICY_INFO_FAULT_CLIENT, ep);
+    }
+
+    /**
+     * Drops all computed endpoint and effective policies, e.g. after policies that are not 
+     * kept in the registry of this engine have changed. Policies set explicitly are kept.
+     */
+    public void invalidatePolicies() {
+        version = EffectivePolicyCache.nextVersion();
+    }
+
+    /**
+     * The version of the policies known to this engine. It changes whenever the registry,
+     * the policy providers or the alternative selector change. Both versions come from 
+     * {@link EffectivePolicyCache#nextVersion()}, so their maximum only ever increases.
+     */
+    long getVersion() {
+        long v = version;
+        PolicyRegistry r = registry;
+        if (r instanceof PolicyRegistryImpl) {
+            v = Math.max(v, ((PolicyRegistryImpl)r).getVersion());
+        }
+        return v;
+    }
+
+    private static EffectivePolicyCache getCache(EndpointInfo ei) {
+        EffectivePolicyCache cache = (EffectivePolicyCache)ei.getProperty(POLICY_INFO_CACHE);
+        if (cache == null) {
+            synchronized (ei) {
+                cache = (EffectivePolicyCache)ei.getProperty(POLICY_INFO_CACHE);
+                if (cache == null) {
+                    cache = new EffectivePolicyCache();
+                    ei.setProperty(POLICY_INFO_CACHE, cache);
+                }
+            }
+        }
+        return cache;
     }
 
     // implementation
 
     protected final void init() {
         registry = new PolicyRegistryImpl();
+        version = EffectivePolicyCache.nextVersion();
     }
     
 
@@ -500,9 +573,11 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     EndpointPolicyImpl createEndpointPolicyInfo(EndpointInfo ei, 
                                                 boolean isRequestor, 
                                                 Assertor assertor) {
+        long v = getVersion();
         EndpointPolicyImpl epi = new EndpointPolicyImpl(ei, this, isRequestor, assertor);
         epi.initialize();
-        ei.setProperty(isRequestor ? POLICY_INFO_ENDPOINT_CLIENT : POLICY_INFO_ENDPOINT_SERVER, epi);
+        getCache(ei).put(null, isRequestor ? POLICY_INFO_ENDPOINT_CLIENT : POLICY_INFO_ENDPOINT_SERVER, 
+                         epi, v);
         return epi;
     }
 
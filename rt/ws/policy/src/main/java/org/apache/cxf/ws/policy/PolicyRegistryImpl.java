@@ -31,6 +31,7 @@ import org.apache.neethi.PolicyRegistry;
 public class PolicyRegistryImpl implements PolicyRegistry {
 
     private Map<String, Policy> reg = new ConcurrentHashMap<String, Policy>();
+    private volatile long version;
     
     public Policy lookup(String key) {
         return reg.get(key);
@@ -38,10 +39,19 @@ public class PolicyRegistryImpl implements PolicyRegistry {
 
     public void register(String key, Policy policy) {
         reg.put(key, policy);        
+        version = EffectivePolicyCache.nextVersion();
     }
 
     public void remove(String key) {
         reg.remove(key);
+        version = EffectivePolicyCache.nextVersion();
+    }
+
+    /**
+     * @return a number that changes whenever a policy is registered or removed
+     */
+    public long getVersion() {
+        return version;
     }
 
 }
@@ -100,7 +100,7 @@ public class PolicyVerificationInFaultInterceptor extends AbstractPolicyIntercep
         getTransportAssertions(message);
         
         EffectivePolicy effectivePolicy = pe.getEffectiveClientFaultPolicy(ei, bfi);
-        aim.checkEffectivePolicy(effectivePolicy.getPolicy());
+        checkEffectivePolicy(aim, effectivePolicy);
         LOG.fine("Verified policies for inbound message.");
     }
 
@@ -93,7 +93,7 @@ public class PolicyVerificationInInterceptor extends AbstractPolicyInterceptor {
             }
         }
                 
-        aim.checkEffectivePolicy(effectivePolicy.getPolicy());
+        checkEffectivePolicy(aim, effectivePolicy);
         LOG.fine("Verified policies for inbound message.");
     }
 
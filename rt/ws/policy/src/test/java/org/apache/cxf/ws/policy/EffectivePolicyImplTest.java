@@ -36,6 +36,7 @@ import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.Destination;
+import org.apache.cxf.ws.policy.builder.primitive.PrimitiveAssertion;
 import org.apache.neethi.Policy;
 import org.easymock.classextension.EasyMock;
 import org.easymock.classextension.IMocksControl;
@@ -86,6 +87,21 @@ public class EffectivePolicyImplTest extends Assert {
         control.verify();
     }
     
+    @Test
+    public void testAlternativesComputedOnce() {
+        EffectivePolicyImpl effectivePolicy = new EffectivePolicyImpl();
+        Policy p = new Policy();
+        p.addAssertion(new PrimitiveAssertion(new QName("http://x.y.z", "a")));
+        effectivePolicy.setPolicy(p);
+        List<List<PolicyAssertion>> alternatives = effectivePolicy.getAlternatives();
+        assertEquals(1, alternatives.size());
+        assertEquals(1, alternatives.get(0).size());
+        assertSame(alternatives, effectivePolicy.getAlternatives());
+        
+        effectivePolicy.setPolicy(new Policy());
+        assertNotSame(alternatives, effectivePolicy.getAlternatives());
+    }
+    
     @Test
     public void testInitialiseFromEndpointPolicy() throws NoSuchMethodException {
         Method m = EffectivePolicyImpl.class.getDeclaredMethod("initialiseInterceptors",
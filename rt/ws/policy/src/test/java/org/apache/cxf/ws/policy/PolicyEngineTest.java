@@ -228,6 +228,62 @@ public class PolicyEngineTest extends Assert {
         control.verify();
     }
     
+    @Test
+    public void testVersionIncreasesWhenRegistryIsReplaced() {
+        engine = new PolicyEngineImpl();
+        PolicyRegistryImpl registry = new PolicyRegistryImpl();
+        engine.setRegistry(registry);
+        registry.register("a", new Policy());
+        registry.register("b", new Policy());
+        long version = engine.getVersion();
+        
+        // the new registry has seen fewer changes than the replaced one
+        registry = new PolicyRegistryImpl();
+        engine.setRegistry(registry);
+        assertTrue(engine.getVersion() > version);
+        version = engine.getVersion();
+        registry.register("a", new Policy());
+        assertTrue(engine.getVersion() > version);
+    }
+    
+    @Test
+    public void testEffectiveServerRequestPolicyInvalidated() throws Exception {
+        Method m = PolicyEngineImpl.class.getDeclaredMethod("createOutPolicyInfo", new Class[] {});
+        engine = control.createMock(PolicyEngineImpl.class, new Method[] {m});
+        engine.init();
+        EndpointInfo ei = createMockEndpointInfo();
+        EndpointInfo ei2 = createMockEndpointInfo();
+        BindingOperationInfo boi = createMockBindingOperationInfo(); 
+        EffectivePolicyImpl epi1 = control.createMock(EffectivePolicyImpl.class);
+        EffectivePolicyImpl epi2 = control.createMock(EffectivePolicyImpl.class);
+        EffectivePolicyImpl epi3 = control.createMock(EffectivePolicyImpl.class);
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epi1);
+        epi1.initialise(ei, boi, engine, false, true);
+        EasyMock.expectLastCall();
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epi2);
+        epi2.initialise(ei2, boi, engine, false, true);
+        EasyMock.expectLastCall();
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epi3);
+        epi3.initialise(ei, boi, engine, false, true);
+        EasyMock.expectLastCall();
+        EffectivePolicy effectivePolicy = control.createMock(EffectivePolicy.class);
+        control.replay();
+        assertSame(epi1, engine.getEffectiveServerRequestPolicy(ei, boi));
+        // the policy is cached per endpoint
+        assertSame(epi2, engine.getEffectiveServerRequestPolicy(ei2, boi));
+        assertSame(epi1, engine.getEffectiveServerRequestPolicy(ei, boi));
+        
+        engine.getRegistry().register("p1", new Policy());
+        assertSame(epi3, engine.getEffectiveServerRequestPolicy(ei, boi));
+        assertSame(epi3, engine.getEffectiveServerRequestPolicy(ei, boi));
+        control.verify();
+        
+        // explicitly set policies are kept
+        engine.setEffectiveServerRequestPolicy(ei, boi, effectivePolicy);
+        engine.invalidatePolicies();
+        assertSame(effectivePolicy, engine.getEffectiveServerRequestPolicy(ei, boi));
+    }
+    
     @Test
     public void testGetEffectiveClientResponsePolicy() throws Exception {
         Method m = PolicyEngineImpl.class.getDeclaredMethod("createOutPolicyInfo", new Class[] {});
@@ -37,9 +37,13 @@ public class PolicyRegistryImplTest extends Assert {
         Policy policy = control.createMock(Policy.class);
         String key = "key";
         assertNull(reg.lookup(key));
+        long version = reg.getVersion();
         reg.register(key, policy);
         assertSame(policy, reg.lookup(key));
+        assertTrue(reg.getVersion() > version);
+        version = reg.getVersion();
         reg.remove(key);
         assertNull(reg.lookup(key));        
+        assertTrue(reg.getVersion() > version);
     }
 }
@@ -20,6 +20,8 @@
 package org.apache.cxf.ws.policy;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.endpoint.Endpoint;
@@ -28,7 +30,6 @@ import org.apache.cxf.message.Message;
 import org.apache.cxf.service.model.BindingFaultInfo;
 import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.service.model.EndpointInfo;
-import org.apache.neethi.Policy;
 import org.easymock.classextension.EasyMock;
 import org.easymock.classextension.IMocksControl;
 import org.junit.Assert;
@@ -107,9 +108,9 @@ public class PolicyVerificationInFaultInterceptorTest extends Assert {
         EasyMock.expectLastCall();
         EffectivePolicyImpl effectivePolicy = control.createMock(EffectivePolicyImpl.class);        
         EasyMock.expect(engine.getEffectiveClientFaultPolicy(ei, bfi)).andReturn(effectivePolicy);
-        Policy policy = control.createMock(Policy.class);
-        EasyMock.expect(effectivePolicy.getPolicy()).andReturn(policy);
-        aim.checkEffectivePolicy(policy);
+        List<List<PolicyAssertion>> alternatives = new ArrayList<List<PolicyAssertion>>();
+        EasyMock.expect(effectivePolicy.getAlternatives()).andReturn(alternatives);
+        aim.checkEffectivePolicyAlternatives(alternatives);
         EasyMock.expectLastCall();
         control.replay();
         interceptor.handleMessage(message);
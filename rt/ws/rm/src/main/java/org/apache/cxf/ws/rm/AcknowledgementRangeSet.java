@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+/**
+ * A sorted set of disjoint, non-adjacent message number ranges, kept in two
+ * parallel <code>long</code> arrays. Appending to the last range, which is
+ * the common case for in-order delivery, takes constant time; other additions
+ * take a binary search plus, when a gap is opened or closed, an array copy 
+ * proportional to the number of ranges (not the number of messages).
+ */
+final class AcknowledgementRangeSet {
+    
+    private long[] lowers;
+    private long[] uppers;
+    private int size;
+    
+    AcknowledgementRangeSet() {
+        lowers = new long[4];
+        uppers = new long[4];
+    }
+    
+    /**
+     * @return the number of ranges
+     */
+    int size() {
+        return size;
+    }
+    
+    long getLower(int i) {
+        return lowers[i];
+    }
+    
+    long getUpper(int i) {
+        return uppers[i];
+    }
+    
+    boolean contains(long n) {
+        int i = search(n);
+        return i < size && lowers[i] <= n;
+    }
+    
+    /**
+     * @return true if all numbers from 1 up to and including n are contained
+     */
+    boolean containsAllUpTo(long n) {
+        return size > 0 && lowers[0] == 1 && uppers[0] >= n;
+    }
+    
+    /**
+     * Adds a single number.
+     * 
+     * @return false if the number was already contained
+     */
+    boolean add(long n) {
+        if (size > 0) {
+            long d = n - uppers[size - 1];
+            if (d == 1) {
+                uppers[size - 1] = n;
+                return true;
+            } else if (d > 1) {
+                insert(size, n, n);
+                return true;
+            }
+        }
+        int i = search(n);
+        if (i < size && lowers[i] <= n) {
+            return false;
+        }
+        boolean joinPrevious = i > 0 && n - uppers[i - 1] == 1;
+        boolean joinNext = i < size && lowers[i] - n == 1;
+        if (joinPrevious && joinNext) {
+            uppers[i - 1] = uppers[i];
+            remove(i, 1);
+        } else if (joinPrevious) {
+            uppers[i - 1] = n;
+        } else if (joinNext) {
+            lowers[i] = n;
+        } else {
+            insert(i, n, n);
+        }
+        return true;
+    }
+    
+    /**
+     * Adds all numbers from lower up to and including upper, merging any
+     * overlapping or adjacent ranges.
+     */
+    void add(long lower, long upper) {
+        if (lower > upper) {
+            return;
+        }
+        // first range that overlaps or touches [lower, upper]
+        int i = search(lower == Long.MIN_VALUE ? lower : lower - 1);
+        int j = i;
+        while (j < size && (upper == Long.MAX_VALUE || lowers[j] <= upper + 1)) {
+            j++;
+        }
+        if (i == j) {
+            insert(i, lower, upper);
+        } else {
+            lowers[i] = Math.min(lowers[i], lower);
+            uppers[i] = Math.max(uppers[j - 1], upper);
+            remove(i + 1, j - i - 1);
+        }
+    }
+    
+    /**
+     * @return the index of the first range whose upper bound is not below n, 
+     * or size if there is none
+     */
+    private int search(long n) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (uppers[mid] < n) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void insert(int i, long lower, long upper) {
+        if (size == lowers.length) {
+            int capacity = size + (size >> 1) + 1;
+            long[] l = new long[capacity];
+            long[] u = new long[capacity];
+            System.arraycopy(lowers, 0, l, 0, size);
+            System.arraycopy(uppers, 0, u, 0, size);
+            lowers = l;
+            uppers = u;
+        }
+        if (i < size) {
+            System.arraycopy(lowers, i, lowers, i + 1, size - i);
+            System.arraycopy(uppers, i, uppers, i + 1, size - i);
+        }
+        lowers[i] = lower;
+        uppers[i] = upper;
+        size++;
+    }
+    
+    private void remove(int i, int count) {
+        if (count <= 0) {
+            return;
+        }
+        System.arraycopy(lowers, i + count, lowers, i, size - i - count);
+        System.arraycopy(uppers, i + count, uppers, i, size - i - count);
+        size -= count;
+    }
+}
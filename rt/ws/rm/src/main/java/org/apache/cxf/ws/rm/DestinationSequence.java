@@ -21,9 +21,8 @@ package org.apache.cxf.ws.rm;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.TimerTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -51,6 +50,8 @@ public class DestinationSequence extends AbstractSequence {
     private List<DeferredAcknowledgment> deferredAcknowledgments;
     private SequenceTermination scheduledTermination;
     private String correlationID;
+    private AcknowledgementRangeSet acknowledged = new AcknowledgementRangeSet();
+    private boolean acknowledgementChanged;
     
     public DestinationSequence(Identifier i, EndpointReferenceType a, Destination d) {
         this(i, a, null, null);
@@ -66,6 +67,11 @@ public class DestinationSequence extends AbstractSequence {
         if (null == acknowledgement) {
             acknowledgement = RMUtils.getWSRMFactory().createSequenceAcknowledgement();
             acknowledgement.setIdentifier(id);
+        } else {
+            for (AcknowledgementRange r : acknowledgement.getAcknowledgementRange()) {
+                acknowledged.add(r.getLower().longValue(), r.getUpper().longValue());
+            }
+            acknowledgementChanged = true;
         }
         monitor = new SequenceMonitor();
     }
@@ -87,10 +93,18 @@ public class DestinationSequence extends AbstractSequence {
     /**
      * @return the sequence acknowledgement presenting the sequences thus far received by a destination 
      */
-    public SequenceAcknowledgement getAcknowledgment() {
+    public synchronized SequenceAcknowledgement getAcknowledgment() {
+        if (acknowledgementChanged) {
+            updateAcknowledgementRanges();
+        }
         return acknowledgement;
     }
     
+    @Override
+    public synchronized boolean isAcknowledged(BigInteger m) {
+        return m.bitLength() < 64 && acknowledged.contains(m.longValue());
+    }
+    
     /**
      * @return the identifier of the rm destination
      */
@@ -101,46 +115,22 @@ public class DestinationSequence extends AbstractSequence {
     public void acknowledge(Message message) throws SequenceFault {
         SequenceType st = RMContextUtils.retrieveRMProperties(message, false).getSequence();
         BigInteger messageNumber = st.getMessageNumber();
-        LOG.fine("Acknowledging message: " + messageNumber);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Acknowledging message: " + messageNumber);
+        }
         if (null != lastMessageNumber && messageNumber.compareTo(lastMessageNumber) > 0) {
             throw new SequenceFaultFactory().createLastMessageNumberExceededFault(st.getIdentifier());
         }        
+        if (messageNumber.bitLength() > 63) {
+            throw new SequenceFaultFactory().createMessageNumberRolloverFault(st.getIdentifier());
+        }
         
         monitor.acknowledgeMessage();
         
         synchronized (this) {
-            boolean done = false;
-            int i = 0;
-            for (; i < acknowledgement.getAcknowledgementRange().size(); i++) {
-                AcknowledgementRange r = acknowledgement.getAcknowledgementRange().get(i);
-                if (r.getLower().compareTo(messageNumber) <= 0 
-                    && r.getUpper().compareTo(messageNumber) >= 0) {
-                    done = true;
-                    break;
-                } else {
-                    BigInteger diff = r.getLower().subtract(messageNumber);
-                    if (diff.signum() == 1) {
-                        if (diff.equals(BigInteger.ONE)) {
-                            r.setLower(messageNumber);
-                            done = true;
-                        }
-                        break;
-                    } else if (messageNumber.subtract(r.getUpper()).equals(BigInteger.ONE)) {
-                        r.setUpper(messageNumber);
-                        done = true;
-                        break;
-                    }
-                }
-            }
-
-            if (!done) {
-                AcknowledgementRange range = RMUtils.getWSRMFactory()
-                    .createSequenceAcknowledgementAcknowledgementRange();
-                range.setLower(messageNumber);
-                range.setUpper(messageNumber);
-                acknowledgement.getAcknowledgementRange().add(i, range);
+            if (acknowledged.add(messageNumber.longValue())) {
+                acknowledgementChanged = true;
             }
-            mergeRanges();
             notifyAll();
         }
         
@@ -170,16 +160,34 @@ public class DestinationSequence extends AbstractSequence {
         
     }
     
-    void mergeRanges() {
+    /**
+     * Renders the acknowledged message numbers into the ranges of the sequence
+     * acknowledgement, reusing the existing range objects where possible.
+     */
+    private void updateAcknowledgementRanges() {
         List<AcknowledgementRange> ranges = acknowledgement.getAcknowledgementRange();
-        for (int i = ranges.size() - 1; i > 0; i--) {
-            AcknowledgementRange current = ranges.get(i);
-            AcknowledgementRange previous = ranges.get(i - 1);
-            if (current.getLower().subtract(previous.getUpper()).equals(BigInteger.ONE)) {
-                previous.setUpper(current.getUpper());
-                ranges.remove(i);
+        int n = acknowledged.size();
+        for (int i = 0; i < n; i++) {
+            AcknowledgementRange r = null;
+            if (i < ranges.size()) {
+                r = ranges.get(i);
+            } else {
+                r = RMUtils.getWSRMFactory().createSequenceAcknowledgementAcknowledgementRange();
+                ranges.add(r);
+            }
+            long lower = acknowledged.getLower(i);
+            if (null == r.getLower() || r.getLower().longValue() != lower) {
+                r.setLower(BigInteger.valueOf(lower));
             }
+            long upper = acknowledged.getUpper(i);
+            if (null == r.getUpper() || r.getUpper().longValue() != upper) {
+                r.setUpper(BigInteger.valueOf(upper));
+            }
+        }
+        for (int i = ranges.size() - 1; i >= n; i--) {
+            ranges.remove(i);
         }
+        acknowledgementChanged = false;
     }
     
     void setDestination(Destination d) {
@@ -244,9 +252,7 @@ public class DestinationSequence extends AbstractSequence {
     }
     
     synchronized boolean allPredecessorsAcknowledged(BigInteger mn) {
-        return acknowledgement.getAcknowledgementRange().size() == 1
-            && acknowledgement.getAcknowledgementRange().get(0).getLower().equals(BigInteger.ONE)
-            && acknowledgement.getAcknowledgementRange().get(0).getUpper().subtract(mn).signum() >= 0;
+        return mn.bitLength() < 64 && acknowledged.containsAllUpTo(mn.longValue());
     }
     
     void purgeAcknowledged(BigInteger messageNr) {
@@ -254,9 +260,7 @@ public class DestinationSequence extends AbstractSequence {
         if (null == store) {
             return;
         }
-        Collection<BigInteger> messageNrs = new ArrayList<BigInteger>();
-        messageNrs.add(messageNr);
-        store.removeMessages(getIdentifier(), messageNrs, false);
+        store.removeMessages(getIdentifier(), Collections.singletonList(messageNr), false);
     }
 
     /**
@@ -310,7 +314,7 @@ public class DestinationSequence extends AbstractSequence {
         }
         scheduledTermination.updateInactivityTimeout(inactivityTimeout);
         if (!scheduled) {
-            destination.getManager().getTimer().schedule(scheduledTermination, inactivityTimeout);
+            destination.getManager().getScheduler().schedule(scheduledTermination, inactivityTimeout);
         }
     }
 
@@ -328,7 +332,7 @@ public class DestinationSequence extends AbstractSequence {
         }
         DeferredAcknowledgment da = new DeferredAcknowledgment();
         deferredAcknowledgments.add(da);
-        destination.getManager().getTimer().schedule(da, delay);
+        destination.getManager().getScheduler().schedule(da, delay);
         LOG.fine("Scheduled acknowledgment to be sent in " + delay + " ms");
     }
     
@@ -348,7 +352,7 @@ public class DestinationSequence extends AbstractSequence {
         }
     }
 
-    final class DeferredAcknowledgment extends TimerTask {
+    final class DeferredAcknowledgment extends RMTimerTask {
 
         public void run() {
             LOG.fine("timer task: send acknowledgment.");
@@ -370,7 +374,7 @@ public class DestinationSequence extends AbstractSequence {
         }
     }
     
-    final class SequenceTermination extends TimerTask {
+    final class SequenceTermination extends RMTimerTask {
         
         private long maxInactivityTimeout;
         
@@ -400,7 +404,7 @@ public class DestinationSequence extends AbstractSequence {
                    // reschedule 
                     SequenceTermination st = new SequenceTermination();
                     st.updateInactivityTimeout(maxInactivityTimeout);
-                    DestinationSequence.this.destination.getManager().getTimer()
+                    DestinationSequence.this.destination.getManager().getScheduler()
                         .schedule(st, maxInactivityTimeout);
                 }
             }
@@ -0,0 +1,249 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * A {@link RMScheduler} backed by a hashed timing wheel. Scheduling and cancellation 
+ * are O(1): new and cancelled tasks are handed over to the worker thread through 
+ * lock-free queues, and the worker thread alone maintains the wheel. Expiry is 
+ * approximated to the tick duration, i.e. a task never runs early but may run 
+ * up to one tick late.
+ * <p>
+ * Expired tasks run on the worker thread unless an executor is configured.
+ */
+public class HashedWheelScheduler implements RMScheduler, Runnable {
+    
+    public static final long DEFAULT_TICK_DURATION = 100L;
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+    
+    private static final Logger LOG = LogUtils.getL7dLogger(HashedWheelScheduler.class);
+    
+    private final String name;
+    private final long tickNanos;
+    private final RMTimerTask[] wheel;
+    private final int mask;
+    private final Queue<RMTimerTask> pendingTasks = new ConcurrentLinkedQueue<RMTimerTask>();
+    private final Queue<RMTimerTask> cancelledTasks = new ConcurrentLinkedQueue<RMTimerTask>();
+    private volatile Executor executor;
+    private volatile boolean shutdown;
+    private Thread worker;
+    private long startTime;
+    private long tick;
+    
+    public HashedWheelScheduler(String name) {
+        this(name, DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL);
+    }
+    
+    /**
+     * @param name the name of the worker thread
+     * @param tickDuration the tick duration in milliseconds
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     */
+    public HashedWheelScheduler(String name, long tickDuration, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+        }
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.name = name;
+        tickNanos = tickDuration * 1000000L;
+        wheel = new RMTimerTask[size];
+        mask = size - 1;
+    }
+    
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor on which expired tasks are run. 
+     * 
+     * @param e the executor, or null to run expired tasks on the worker thread
+     */
+    public void setExecutor(Executor e) {
+        executor = e;
+    }
+    
+    public void schedule(RMTimerTask task, long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Negative delay.");
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Scheduler already shut down.");
+        }
+        long start = start();
+        task.scheduled(this, System.currentTimeMillis() + delay);
+        task.deadline = System.nanoTime() - start + delay * 1000000L;
+        pendingTasks.offer(task);
+    }
+
+    public void cancelled(RMTimerTask task) {
+        if (!shutdown) {
+            cancelledTasks.offer(task);
+        }
+    }
+
+    public void shutdown() {
+        Thread t = null;
+        synchronized (this) {
+            shutdown = true;
+            t = worker;
+        }
+        if (null != t && Thread.currentThread() != t) {
+            t.interrupt();
+        }
+    }
+    
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    
+    public void run() {
+        while (!shutdown) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            processCancelledTasks();
+            transferPendingTasks();
+            expire(wheel[(int)(tick & mask)]);
+            tick++;
+        }
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = null;
+        }
+        pendingTasks.clear();
+        cancelledTasks.clear();
+    }
+    
+    private synchronized long start() {
+        if (null == worker) {
+            startTime = System.nanoTime();
+            worker = new Thread(this, name);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        return startTime;
+    }
+    
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long current = System.nanoTime() - startTime;
+            long sleep = (deadline - current + 999999L) / 1000000L;
+            if (sleep <= 0) {
+                return true;
+            }
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException ex) {
+                if (shutdown) {
+                    return false;
+                }
+            }
+        }
+    }
+    
+    private void processCancelledTasks() {
+        for (RMTimerTask task = cancelledTasks.poll(); null != task; task = cancelledTasks.poll()) {
+            if (task.bucket >= 0) {
+                unlink(task);
+            }
+        }
+    }
+    
+    private void transferPendingTasks() {
+        for (RMTimerTask task = pendingTasks.poll(); null != task; task = pendingTasks.poll()) {
+            if (task.isCancelled()) {
+                continue;
+            }
+            long calculated = task.deadline / tickNanos;
+            task.remainingRounds = (calculated - tick) / wheel.length;
+            int idx = (int)(Math.max(calculated, tick) & mask);
+            task.bucket = idx;
+            task.prev = null;
+            task.next = wheel[idx];
+            if (null != task.next) {
+                task.next.prev = task;
+            }
+            wheel[idx] = task;
+        }
+    }
+    
+    private void expire(RMTimerTask head) {
+        RMTimerTask task = head;
+        while (null != task) {
+            RMTimerTask next = task.next;
+            if (task.remainingRounds <= 0) {
+                unlink(task);
+                if (task.expire()) {
+                    dispatch(task);
+                }
+            } else {
+                task.remainingRounds--;
+            }
+            task = next;
+        }
+    }
+    
+    private void unlink(RMTimerTask task) {
+        if (null == task.prev) {
+            wheel[task.bucket] = task.next;
+        } else {
+            task.prev.next = task.next;
+        }
+        if (null != task.next) {
+            task.next.prev = task.prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.bucket = -1;
+    }
+    
+    private void dispatch(RMTimerTask task) {
+        Executor e = executor;
+        if (null != e) {
+            try {
+                e.execute(task);
+                return;
+            } catch (RejectedExecutionException ex) {
+                LOG.log(Level.FINE, "Executor rejected scheduled task, running it on the timer thread.");
+            }
+        }
+        try {
+            task.run();
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "SCHEDULED_TASK_FAILED_MSG", ex);
+        }
+    }
+}
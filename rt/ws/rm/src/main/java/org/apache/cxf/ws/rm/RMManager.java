@@ -23,7 +23,7 @@ import java.math.BigInteger;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Timer;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -52,6 +52,7 @@ import org.apache.cxf.service.model.BindingInfo;
 import org.apache.cxf.service.model.InterfaceInfo;
 import org.apache.cxf.service.model.ServiceInfo;
 import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.workqueue.WorkQueueManager;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.addressing.AddressingPropertiesImpl;
 import org.apache.cxf.ws.addressing.MAPAggregator;
@@ -80,7 +81,8 @@ public class RMManager implements ServerLifeCycleListener, ClientLifeCycleListen
     private SequenceIdentifierGenerator idGenerator;
     private RetransmissionQueue retransmissionQueue;
     private Map<Endpoint, RMEndpoint> reliableEndpoints = new HashMap<Endpoint, RMEndpoint>();
-    private AtomicReference<Timer> timer = new AtomicReference<Timer>();
+    private AtomicReference<RMScheduler> scheduler = new AtomicReference<RMScheduler>();
+    private String workQueueName = "ws-rm";
     private RMAssertion rmAssertion;
     private DeliveryAssuranceType deliveryAssurance;
     private SourcePolicyType sourcePolicy;
@@ -155,18 +157,57 @@ public class RMManager implements ServerLifeCycleListener, ClientLifeCycleListen
         idGenerator = generator;
     }
 
-    private Timer getTimer(boolean create) {
-        Timer ret = timer.get();
+    private RMScheduler getScheduler(boolean create) {
+        RMScheduler ret = scheduler.get();
         if (ret == null && create) {
-            Timer newt = new Timer("RMManager-Timer-" + System.identityHashCode(this), true);
-            if (!timer.compareAndSet(null, newt)) {
-                newt.cancel();
+            RMScheduler news = new HashedWheelScheduler("RMManager-Timer-" + System.identityHashCode(this));
+            if (!scheduler.compareAndSet(null, news)) {
+                news.shutdown();
             }
         }
-        return timer.get();
+        return scheduler.get();
     }
-    public Timer getTimer() {
-        return getTimer(true);
+    
+    /**
+     * @return the scheduler for resends, deferred acknowledgements and sequence
+     * termination, creating a {@link HashedWheelScheduler} if none was set
+     */
+    public RMScheduler getScheduler() {
+        return getScheduler(true);
+    }
+
+    public void setScheduler(RMScheduler s) {
+        scheduler.set(s);
+    }
+    
+    public String getWorkQueueName() {
+        return workQueueName;
+    }
+
+    /**
+     * Sets the name of the bus work queue used to dispatch resends when the endpoint
+     * has no asynchronous executor. Falls back to the default automatic work queue 
+     * if no queue of that name is configured.
+     * 
+     * @param name the work queue name
+     */
+    public void setWorkQueueName(String name) {
+        workQueueName = name;
+    }
+    
+    /**
+     * @return the work queue for resend dispatch, or null if there is no bus
+     */
+    public Executor getWorkQueue() {
+        if (null == bus) {
+            return null;
+        }
+        WorkQueueManager wqm = bus.getExtension(WorkQueueManager.class);
+        if (null == wqm) {
+            return null;
+        }
+        Executor ex = null == workQueueName ? null : wqm.getNamedWorkQueue(workQueueName);
+        return null == ex ? wqm.getAutomaticWorkQueue() : ex;
     }
 
     public BindingFaultFactory getBindingFaultFactory(Binding binding) {
@@ -363,12 +404,9 @@ public class RMManager implements ServerLifeCycleListener, ClientLifeCycleListen
             rme.shutdown();
         }
 
-        // remove references to timer tasks cancelled above to make them
-        // eligible for garbage collection
-        Timer t = getTimer(false);
-        if (t != null) {
-            t.purge();
-            t.cancel();
+        RMScheduler s = getScheduler(false);
+        if (s != null) {
+            s.shutdown();
         }
     }
     
@@ -381,13 +419,6 @@ public class RMManager implements ServerLifeCycleListener, ClientLifeCycleListen
         
         rme.shutdown();        
         
-        // remove references to timer tasks cancelled above to make them
-        // eligible for garbage collection
-        Timer t = getTimer(false);
-        if (t != null) {
-            t.purge();
-        }
-        
         reliableEndpoints.remove(e);
     }
     
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+/**
+ * Schedules the RM timer tasks, i.e. resends, deferred acknowledgements
+ * and the termination of inactive sequences.
+ */
+public interface RMScheduler {
+    
+    /**
+     * Schedules the task for execution after the given delay.
+     * 
+     * @param task the task
+     * @param delay the delay in milliseconds
+     * @throws IllegalStateException if the task was already scheduled or cancelled, 
+     * or if the scheduler has been shut down
+     */
+    void schedule(RMTimerTask task, long delay);
+    
+    /**
+     * Notifies the scheduler that a task it accepted has been cancelled.
+     * 
+     * @param task the cancelled task
+     */
+    void cancelled(RMTimerTask task);
+    
+    /**
+     * Discards all scheduled tasks and stops the scheduler.
+     */
+    void shutdown();
+}
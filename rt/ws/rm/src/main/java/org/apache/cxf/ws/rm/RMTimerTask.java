@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A task that can be scheduled for one-time execution by a {@link RMScheduler}.
+ * Unlike a <code>java.util.TimerTask</code>, cancellation notifies the scheduler
+ * so that the task can be unlinked immediately instead of lingering until its
+ * execution time.
+ */
+public abstract class RMTimerTask implements Runnable {
+    
+    static final int VIRGIN = 0;
+    static final int SCHEDULED = 1;
+    static final int EXPIRED = 2;
+    static final int CANCELLED = 3;
+    
+    private final AtomicInteger state = new AtomicInteger(VIRGIN);
+    private volatile long executionTime;
+    private volatile RMScheduler scheduler;
+    
+    // wheel bookkeeping, only accessed from the HashedWheelScheduler worker thread
+    RMTimerTask prev;
+    RMTimerTask next;
+    long remainingRounds;
+    long deadline;
+    int bucket = -1;
+
+    /**
+     * Cancels this task. A task that has already expired is not affected.
+     * 
+     * @return true if this task will not run as a consequence of this call
+     */
+    public boolean cancel() {
+        if (state.compareAndSet(SCHEDULED, CANCELLED)) {
+            RMScheduler s = scheduler;
+            if (null != s) {
+                s.cancelled(this);
+            }
+            return true;
+        }
+        return state.compareAndSet(VIRGIN, CANCELLED);
+    }
+    
+    public boolean isCancelled() {
+        return CANCELLED == state.get();
+    }
+    
+    /**
+     * @return the time (in milliseconds since the epoch) at which this task was 
+     * scheduled to run, or 0 if it has not been scheduled yet
+     */
+    public long scheduledExecutionTime() {
+        return executionTime;
+    }
+    
+    /**
+     * Marks this task as scheduled. Invoked by scheduler implementations 
+     * when accepting the task.
+     * 
+     * @param s the accepting scheduler
+     * @param time the execution time in milliseconds since the epoch
+     * @throws IllegalStateException if the task was already scheduled or cancelled
+     */
+    public void scheduled(RMScheduler s, long time) {
+        if (!state.compareAndSet(VIRGIN, SCHEDULED)) {
+            throw new IllegalStateException("Task already scheduled or cancelled.");
+        }
+        // a cancel() racing with this call may not see the scheduler, the task 
+        // is then discarded by the scheduler when it expires
+        executionTime = time;
+        scheduler = s;
+    }
+    
+    /**
+     * Marks this task as expired. Invoked by scheduler implementations
+     * immediately before running the task.
+     * 
+     * @return true if the task is to be run, false if it has been cancelled
+     */
+    public boolean expire() {
+        return state.compareAndSet(SCHEDULED, EXPIRED);
+    }
+}
@@ -0,0 +1,353 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.jdbc;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * Applies the writes of concurrent callers as JDBC batches within one 
+ * transaction (group commit).
+ * <p>
+ * A caller queues its request and then competes for the lock of its lane.
+ * The winner writes and commits everything queued up to that point, the 
+ * others find their request done once they get the lock in turn, so a caller
+ * only blocks until the batch holding its request is durable.  Requests are
+ * assigned to lanes by sequence identifier, which keeps the writes for a 
+ * sequence in order while different lanes commit on their own connections. 
+ * <p>
+ * Within a batch the writes of different sequences are grouped by statement,
+ * the writes of one sequence are applied in the order their requests were 
+ * queued.
+ */
+final class GroupCommitter {
+    
+    // the writes of one request are grouped by statement and applied in this order
+    static final int CREATE_SEQUENCE = 0;
+    static final int UPDATE_SEQUENCE = 1;
+    static final int CREATE_MESSAGE = 2;
+    static final int DELETE_MESSAGE = 3;
+    static final int DELETE_SEQUENCE = 4;
+    
+    private static final Logger LOG = LogUtils.getL7dLogger(GroupCommitter.class);
+    
+    private static final Comparator<PendingWrite> WRITE_ORDER = new Comparator<PendingWrite>() {
+        public int compare(PendingWrite p1, PendingWrite p2) {
+            if (p1.step != p2.step) {
+                return p1.step < p2.step ? -1 : 1;
+            }
+            if (p1.write.order != p2.write.order) {
+                return p1.write.order < p2.write.order ? -1 : 1;
+            }
+            return p1.write.sql.compareTo(p2.write.sql);
+        }
+    };
+    
+    private final Lane[] lanes;
+    private final int maxBatchSize;
+    
+    /**
+     * @param connection the connection to use when there is no data source
+     * @param dataSource if not null, each lane takes its own connection from it
+     */
+    GroupCommitter(Connection connection, DataSource dataSource, int laneCount, int batchSize) {
+        maxBatchSize = Math.max(1, batchSize);
+        lanes = new Lane[dataSource == null ? 1 : Math.max(1, laneCount)];
+        for (int x = 0; x < lanes.length; x++) {
+            lanes[x] = new Lane(connection, dataSource);
+        }
+    }
+    
+    /**
+     * Queues the writes and waits until they are committed.
+     */
+    void execute(String sequenceId, Write ... writes) throws SQLException, IOException {
+        Request request = new Request(sequenceId, writes);
+        lanes[(sequenceId.hashCode() & Integer.MAX_VALUE) % lanes.length].execute(request);
+        if (request.failure instanceof SQLException) {
+            throw (SQLException)request.failure;
+        } else if (request.failure instanceof IOException) {
+            throw (IOException)request.failure;
+        } else if (request.failure instanceof RuntimeException) {
+            throw (RuntimeException)request.failure;
+        } else if (request.failure != null) {
+            throw (Error)request.failure;
+        }
+    }
+    
+    void close() {
+        for (Lane lane : lanes) {
+            lane.close();
+        }
+    }
+    
+    /**
+     * A single statement execution.
+     */
+    abstract static class Write {
+        final int order;
+        final String sql;
+        
+        Write(int o, String s) {
+            order = o;
+            sql = s;
+        }
+        
+        /**
+         * Writes with the same non null key replace each other within a batch,
+         * only the last one is executed.  Writes creating or deleting a sequence
+         * are never merged across.
+         */
+        Object getMergeKey() {
+            return null;
+        }
+        
+        /**
+         * Takes whatever state the write needs from live objects.  Called on the
+         * thread of the caller, in the order the requests of a lane are queued.
+         */
+        void capture() throws IOException {
+        }
+        
+        abstract void bind(PreparedStatement stmt) throws SQLException, IOException;
+    }
+    
+    private static final class Request {
+        final String sequenceId;
+        final Write[] writes;
+        // guarded by the lane lock
+        boolean done;
+        Throwable failure;
+        
+        Request(String id, Write[] w) {
+            sequenceId = id;
+            writes = w;
+        }
+    }
+    
+    private static final class PendingWrite {
+        final int step;
+        Write write;
+        
+        PendingWrite(int s, Write w) {
+            step = s;
+            write = w;
+        }
+    }
+    
+    private final class Lane {
+        private final Lock lock = new ReentrantLock();
+        private final Queue<Request> queue = new ConcurrentLinkedQueue<Request>();
+        private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+        private final DataSource dataSource;
+        private Connection connection;
+        
+        Lane(Connection c, DataSource ds) {
+            connection = c;
+            dataSource = ds;
+        }
+        
+        void execute(Request request) {
+            synchronized (queue) {
+                try {
+                    for (Write w : request.writes) {
+                        w.capture();
+                    }
+                } catch (IOException ex) {
+                    request.failure = ex;
+                    return;
+                }
+                queue.add(request);
+            }
+            lock.lock();
+            try {
+                while (!request.done) {
+                    flush();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void flush() {
+            List<Request> batch = new ArrayList<Request>();
+            while (batch.size() < maxBatchSize && !queue.isEmpty()) {
+                batch.add(queue.poll());
+            }
+            try {
+                write(batch);
+            } catch (Throwable ex) {
+                rollback();
+                if (batch.size() == 1) {
+                    batch.get(0).failure = ex;
+                } else {
+                    // isolate the request(s) that caused the batch to fail
+                    LOG.log(Level.FINE, "Batch of " + batch.size() 
+                            + " requests failed, retrying them one by one", ex);
+                    for (Request r : batch) {
+                        try {
+                            write(Collections.singletonList(r));
+                        } catch (Throwable ex2) {
+                            rollback();
+                            r.failure = ex2;
+                        }
+                    }
+                }
+            } finally {
+                // a request without a failure here was committed
+                for (Request r : batch) {
+                    r.done = true;
+                }
+            }
+        }
+        
+        private void write(List<Request> requests) throws SQLException, IOException {
+            List<PendingWrite> writes = new ArrayList<PendingWrite>();
+            Map<Object, PendingWrite> merged = new HashMap<Object, PendingWrite>();
+            // the n-th request of a sequence in this batch is applied in step n 
+            Map<String, Integer> steps = new HashMap<String, Integer>();
+            for (Request r : requests) {
+                Integer step = steps.get(r.sequenceId);
+                step = step == null ? 0 : step + 1;
+                steps.put(r.sequenceId, step);
+                for (Write w : r.writes) {
+                    if (w.order == CREATE_SEQUENCE || w.order == DELETE_SEQUENCE) {
+                        merged.clear();
+                    }
+                    Object key = w.getMergeKey();
+                    if (key != null) {
+                        PendingWrite pending = merged.get(key);
+                        if (pending != null) {
+                            pending.write = w;
+                            continue;
+                        }
+                    }
+                    PendingWrite pending = new PendingWrite(step, w);
+                    if (key != null) {
+                        merged.put(key, pending);
+                    }
+                    writes.add(pending);
+                }
+            }
+            Collections.sort(writes, WRITE_ORDER);
+            
+            PreparedStatement stmt = null;
+            String sql = null;
+            boolean ok = false;
+            try {
+                for (PendingWrite pending : writes) {
+                    Write w = pending.write;
+                    if (!w.sql.equals(sql)) {
+                        if (stmt != null) {
+                            stmt.executeBatch();
+                        }
+                        sql = w.sql;
+                        stmt = getStatement(sql);
+                    }
+                    w.bind(stmt);
+                    stmt.addBatch();
+                }
+                if (stmt != null) {
+                    stmt.executeBatch();
+                }
+                ok = true;
+            } finally {
+                if (!ok && stmt != null) {
+                    // don't leave half a batch behind for the next flush
+                    try {
+                        stmt.clearBatch();
+                    } catch (SQLException ex) {
+                        // ignore
+                    }
+                }
+            }
+            getConnection().commit();
+        }
+        
+        private PreparedStatement getStatement(String sql) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null) {
+                stmt = getConnection().prepareStatement(sql);
+                statements.put(sql, stmt);
+            }
+            return stmt;
+        }
+        
+        private Connection getConnection() throws SQLException {
+            if (connection == null) {
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+            }
+            return connection;
+        }
+        
+        private void rollback() {
+            try {
+                if (connection != null) {
+                    connection.rollback();
+                }
+            } catch (SQLException ex) {
+                LogUtils.log(LOG, Level.SEVERE, "ABORT_FAILED_MSG", ex);
+            }
+        }
+        
+        void close() {
+            lock.lock();
+            try {
+                for (PreparedStatement stmt : statements.values()) {
+                    try {
+                        stmt.close();
+                    } catch (SQLException ex) {
+                        // ignore
+                    }
+                }
+                statements.clear();
+                if (dataSource != null && connection != null) {
+                    try {
+                        connection.close();
+                    } catch (SQLException ex) {
+                        // ignore
+                    }
+                    connection = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
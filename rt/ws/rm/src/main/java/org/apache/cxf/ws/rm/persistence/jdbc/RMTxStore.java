@@ -43,6 +43,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
 
 import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
@@ -107,6 +109,14 @@ public class RMTxStore implements RMStore {
         = "INSERT INTO {0} VALUES(?, ?, ?, ?)";
     private static final String DELETE_MESSAGE_STMT_STR =
         "DELETE FROM {0} WHERE SEQ_ID = ? AND MSG_NO = ?";
+    private static final String CREATE_INBOUND_MESSAGE_STMT_STR
+        = MessageFormat.format(CREATE_MESSAGE_STMT_STR, INBOUND_MSGS_TABLE_NAME);
+    private static final String CREATE_OUTBOUND_MESSAGE_STMT_STR
+        = MessageFormat.format(CREATE_MESSAGE_STMT_STR, OUTBOUND_MSGS_TABLE_NAME);
+    private static final String DELETE_INBOUND_MESSAGE_STMT_STR
+        = MessageFormat.format(DELETE_MESSAGE_STMT_STR, INBOUND_MSGS_TABLE_NAME);
+    private static final String DELETE_OUTBOUND_MESSAGE_STMT_STR
+        = MessageFormat.format(DELETE_MESSAGE_STMT_STR, OUTBOUND_MSGS_TABLE_NAME);
     private static final String SELECT_DEST_SEQUENCES_STMT_STR =
         "SELECT SEQ_ID, ACKS_TO, LAST_MSG_NO, ACKNOWLEDGED FROM CXF_RM_DEST_SEQUENCES "
         + "WHERE ENDPOINT_ID = ?";
@@ -143,6 +153,12 @@ public class RMTxStore implements RMStore {
     private String url = MessageFormat.format("jdbc:derby:{0};create=true", DEFAULT_DATABASE_NAME);
     private String userName;
     private String password;
+    private DataSource dataSource;
+    
+    private boolean groupCommit;
+    private int groupCommitLanes = 1;
+    private int maxBatchSize = 64;
+    private GroupCommitter committer;
     
     // configuration
     
@@ -182,15 +198,76 @@ public class RMTxStore implements RMStore {
         connection = c;
     }
     
+    /**
+     * Sets a (pooling) DataSource to take connections from instead of
+     * opening one with the driver, url, user name and password.
+     */
+    public void setDataSource(DataSource ds) {
+        dataSource = ds;
+    }
+    
+    DataSource getDataSource() {
+        return dataSource;
+    }
+    
+    /**
+     * In group commit mode the writes of concurrent callers are applied as
+     * JDBC batches within a shared transaction, each caller waits until the
+     * transaction holding its writes has committed. 
+     */
+    public void setGroupCommit(boolean gc) {
+        groupCommit = gc;
+    }
+    
+    boolean isGroupCommit() {
+        return groupCommit;
+    }
+    
+    /**
+     * The number of transactions that may commit concurrently in group commit
+     * mode, each on its own connection.  Only used with a DataSource.
+     */
+    public void setGroupCommitLanes(int l) {
+        groupCommitLanes = l;
+    }
+    
+    int getGroupCommitLanes() {
+        return groupCommitLanes;
+    }
+    
+    /**
+     * The maximum number of callers whose writes share one transaction
+     * in group commit mode.
+     */
+    public void setMaxBatchSize(int s) {
+        maxBatchSize = s;
+    }
+    
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+    
     // RMStore interface  
     
     public void createDestinationSequence(DestinationSequence seq) {
-        String sequenceIdentifier = seq.getIdentifier().getValue();
-        String endpointIdentifier = seq.getEndpointIdentifier();
+        final String sequenceIdentifier = seq.getIdentifier().getValue();
+        final String endpointIdentifier = seq.getEndpointIdentifier();
         if (LOG.isLoggable(Level.FINE)) {
             LOG.info("Creating destination sequence: " + sequenceIdentifier + ", (endpoint: "
                  + endpointIdentifier + ")");
         }
+        if (null != committer) {
+            final String addr = seq.getAcksTo().getAddress().getValue();
+            write(sequenceIdentifier, new GroupCommitter.Write(GroupCommitter.CREATE_SEQUENCE, 
+                                                               CREATE_DEST_SEQUENCE_STMT_STR) {
+                void bind(PreparedStatement stmt) throws SQLException {
+                    stmt.setString(1, sequenceIdentifier);
+                    stmt.setString(2, addr);
+                    stmt.setString(3, endpointIdentifier);
+                }
+            });
+            return;
+        }
         try {
             beginTransaction();
             
@@ -213,12 +290,28 @@ public class RMTxStore implements RMStore {
     }
     
     public void createSourceSequence(SourceSequence seq) {
-        String sequenceIdentifier = seq.getIdentifier().getValue();
-        String endpointIdentifier = seq.getEndpointIdentifier();
+        final String sequenceIdentifier = seq.getIdentifier().getValue();
+        final String endpointIdentifier = seq.getEndpointIdentifier();
         if (LOG.isLoggable(Level.FINE)) {
             LOG.fine("Creating source sequence: " + sequenceIdentifier + ", (endpoint: "
                      + endpointIdentifier + ")"); 
         }
+        if (null != committer) {
+            Date expiry = seq.getExpires();
+            final long expires = expiry == null ? 0 : expiry.getTime();
+            Identifier osid = seq.getOfferingSequenceIdentifier();
+            final String offeringId = osid == null ? null : osid.getValue();
+            write(sequenceIdentifier, new GroupCommitter.Write(GroupCommitter.CREATE_SEQUENCE, 
+                                                               CREATE_SRC_SEQUENCE_STMT_STR) {
+                void bind(PreparedStatement stmt) throws SQLException {
+                    stmt.setString(1, sequenceIdentifier);
+                    stmt.setLong(2, expires);
+                    stmt.setString(3, offeringId);
+                    stmt.setString(4, endpointIdentifier);
+                }
+            });
+            return;
+        }
         
         try {
             beginTransaction();
@@ -244,6 +337,10 @@ public class RMTxStore implements RMStore {
     }
     
     public void removeDestinationSequence(Identifier sid) {
+        if (null != committer) {
+            write(sid.getValue(), deleteSequenceWrite(DELETE_DEST_SEQUENCE_STMT_STR, sid.getValue()));
+            return;
+        }
         try {
             beginTransaction();
             
@@ -263,6 +360,10 @@ public class RMTxStore implements RMStore {
 
 
     public void removeSourceSequence(Identifier sid) {
+        if (null != committer) {
+            write(sid.getValue(), deleteSequenceWrite(DELETE_SRC_SEQUENCE_STMT_STR, sid.getValue()));
+            return;
+        }
         try {
             beginTransaction();
             
@@ -384,6 +485,11 @@ public class RMTxStore implements RMStore {
     }
 
     public void persistIncoming(DestinationSequence seq, RMMessage msg) {        
+        if (null != committer) {
+            String id = seq.getIdentifier().getValue();
+            write(id, updateDestinationSequenceWrite(id, seq), storeMessageWrite(id, msg, false));
+            return;
+        }
         try {
             beginTransaction();
             
@@ -402,6 +508,11 @@ public class RMTxStore implements RMStore {
         }        
     }
     public void persistOutgoing(SourceSequence seq, RMMessage msg) {
+        if (null != committer) {
+            String id = seq.getIdentifier().getValue();
+            write(id, updateSourceSequenceWrite(id, seq), storeMessageWrite(id, msg, true));
+            return;
+        }
         try {
             beginTransaction();
             
@@ -421,12 +532,29 @@ public class RMTxStore implements RMStore {
     }
 
     public void removeMessages(Identifier sid, Collection<BigInteger> messageNrs, boolean outbound) {
+        if (null != committer) {
+            final String id = sid.getValue();
+            String sql = outbound ? DELETE_OUTBOUND_MESSAGE_STMT_STR : DELETE_INBOUND_MESSAGE_STMT_STR;
+            GroupCommitter.Write[] writes = new GroupCommitter.Write[messageNrs.size()];
+            int i = 0;
+            for (BigInteger messageNr : messageNrs) {
+                final BigDecimal nr = new BigDecimal(messageNr);
+                writes[i++] = new GroupCommitter.Write(GroupCommitter.DELETE_MESSAGE, sql) {
+                    void bind(PreparedStatement stmt) throws SQLException {
+                        stmt.setString(1, id);
+                        stmt.setBigDecimal(2, nr);
+                    }
+                };
+            }
+            write(id, writes);
+            return;
+        }
         try {
             beginTransaction();
             PreparedStatement stmt = outbound ? deleteOutboundMessageStmt : deleteInboundMessageStmt;
             if (null == stmt) {
-                stmt = connection.prepareStatement(MessageFormat.format(DELETE_MESSAGE_STMT_STR,
-                    outbound ? OUTBOUND_MSGS_TABLE_NAME : INBOUND_MSGS_TABLE_NAME));
+                stmt = connection.prepareStatement(outbound ? DELETE_OUTBOUND_MESSAGE_STMT_STR
+                                                   : DELETE_INBOUND_MESSAGE_STMT_STR);
                 if (outbound) {
                     deleteOutboundMessageStmt = stmt;                    
                 } else {
@@ -486,24 +614,15 @@ public class RMTxStore implements RMStore {
             new Object[] {outbound ? "outbound" : "inbound", nr, id, to});
         PreparedStatement stmt = outbound ? createOutboundMessageStmt : createInboundMessageStmt;
         if (null == stmt) {
-            stmt = connection.prepareStatement(MessageFormat.format(CREATE_MESSAGE_STMT_STR,
-                outbound ? OUTBOUND_MSGS_TABLE_NAME : INBOUND_MSGS_TABLE_NAME));
+            stmt = connection.prepareStatement(outbound ? CREATE_OUTBOUND_MESSAGE_STMT_STR
+                                               : CREATE_INBOUND_MESSAGE_STMT_STR);
             if (outbound) {
                 createOutboundMessageStmt = stmt;                    
             } else {
                 createInboundMessageStmt = stmt;
             }
         }
-        int i = 1;
-        stmt.setString(i++, id);  
-        stmt.setBigDecimal(i++, new BigDecimal(nr));
-        stmt.setString(i++, to); 
-        byte[] bytes = msg.getContent();    
-        stmt.setBinaryStream(i++, new ByteArrayInputStream(bytes) {
-            public String toString() {
-                return IOUtils.newStringFromBytes(buf, 0, count);
-            }
-        }, bytes.length);
+        setMessageParameters(stmt, id, nr, to, msg.getContent());
         stmt.execute();
         LOG.log(Level.FINE, "Successfully stored {0} message number {1} for sequence {2}",
                 new Object[] {outbound ? "outbound" : "inbound", nr, id});
@@ -515,9 +634,7 @@ public class RMTxStore implements RMStore {
         if (null == updateSrcSequenceStmt) {
             updateSrcSequenceStmt = connection.prepareStatement(UPDATE_SRC_SEQUENCE_STMT_STR);
         }
-        updateSrcSequenceStmt.setBigDecimal(1, new BigDecimal(seq.getCurrentMessageNr())); 
-        updateSrcSequenceStmt.setBoolean(2, seq.isLastMessage()); 
-        updateSrcSequenceStmt.setString(3, seq.getIdentifier().getValue());
+        setSourceSequenceParameters(updateSrcSequenceStmt, seq.getIdentifier().getValue(), seq);
         updateSrcSequenceStmt.execute();
     }
     
@@ -526,14 +643,124 @@ public class RMTxStore implements RMStore {
         if (null == updateDestSequenceStmt) {
             updateDestSequenceStmt = connection.prepareStatement(UPDATE_DEST_SEQUENCE_STMT_STR);
         }
+        setDestinationSequenceParameters(updateDestSequenceStmt, seq.getIdentifier().getValue(), seq);
+        updateDestSequenceStmt.execute();
+    }
+    
+    private static void setMessageParameters(PreparedStatement stmt, String id, BigInteger nr,
+                                             String to, byte[] bytes) 
+        throws SQLException {
+        int i = 1;
+        stmt.setString(i++, id);  
+        stmt.setBigDecimal(i++, new BigDecimal(nr));
+        stmt.setString(i++, to); 
+        stmt.setBinaryStream(i++, new ByteArrayInputStream(bytes) {
+            public String toString() {
+                return IOUtils.newStringFromBytes(buf, 0, count);
+            }
+        }, bytes.length);
+    }
+    
+    private static void setSourceSequenceParameters(PreparedStatement stmt, String id, 
+                                                    SourceSequence seq) 
+        throws SQLException {
+        stmt.setBigDecimal(1, new BigDecimal(seq.getCurrentMessageNr())); 
+        stmt.setBoolean(2, seq.isLastMessage()); 
+        stmt.setString(3, id);
+    }
+    
+    private static void setDestinationSequenceParameters(PreparedStatement stmt, String id, 
+                                                         DestinationSequence seq) 
+        throws SQLException, IOException {
         BigInteger lastMessageNr = seq.getLastMessageNumber();
-        updateDestSequenceStmt.setBigDecimal(1, lastMessageNr == null ? null
+        stmt.setBigDecimal(1, lastMessageNr == null ? null
             : new BigDecimal(lastMessageNr)); 
         InputStream is = PersistenceUtils.getInstance()
             .serialiseAcknowledgment(seq.getAcknowledgment());
-        updateDestSequenceStmt.setBinaryStream(2, is, is.available()); 
-        updateDestSequenceStmt.setString(3, seq.getIdentifier() .getValue());
-        updateDestSequenceStmt.execute();
+        stmt.setBinaryStream(2, is, is.available()); 
+        stmt.setString(3, id);
+    }
+    
+    // group commit writes
+    
+    private void write(String sequenceId, GroupCommitter.Write ... writes) {
+        try {
+            committer.execute(sequenceId, writes);
+        } catch (SQLException ex) {
+            throw new RMStoreException(ex);
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+    
+    private static GroupCommitter.Write deleteSequenceWrite(String sql, final String id) {
+        return new GroupCommitter.Write(GroupCommitter.DELETE_SEQUENCE, sql) {
+            void bind(PreparedStatement stmt) throws SQLException {
+                stmt.setString(1, id);
+            }
+        };
+    }
+    
+    private static GroupCommitter.Write storeMessageWrite(final String id, RMMessage msg, 
+                                                          boolean outbound) {
+        final BigInteger nr = msg.getMessageNumber();
+        final String to = msg.getTo();
+        final byte[] bytes = msg.getContent();
+        LOG.log(Level.FINE, "Storing {0} message number {1} for sequence {2}, to = {3}",
+            new Object[] {outbound ? "outbound" : "inbound", nr, id, to});
+        return new GroupCommitter.Write(GroupCommitter.CREATE_MESSAGE, 
+            outbound ? CREATE_OUTBOUND_MESSAGE_STMT_STR : CREATE_INBOUND_MESSAGE_STMT_STR) {
+            void bind(PreparedStatement stmt) throws SQLException {
+                setMessageParameters(stmt, id, nr, to, bytes);
+            }
+        };
+    }
+    
+    // the sequence state is taken when the write is queued, so of several 
+    // updates to the same sequence in one batch only the last is needed
+    
+    private static GroupCommitter.Write updateSourceSequenceWrite(final String id, 
+                                                                  final SourceSequence seq) {
+        return new GroupCommitter.Write(GroupCommitter.UPDATE_SEQUENCE, UPDATE_SRC_SEQUENCE_STMT_STR) {
+            private BigInteger currentMessageNr;
+            private boolean lastMessage;
+            
+            Object getMergeKey() {
+                return seq;
+            }
+            void capture() {
+                currentMessageNr = seq.getCurrentMessageNr();
+                lastMessage = seq.isLastMessage();
+            }
+            void bind(PreparedStatement stmt) throws SQLException {
+                stmt.setBigDecimal(1, new BigDecimal(currentMessageNr)); 
+                stmt.setBoolean(2, lastMessage); 
+                stmt.setString(3, id);
+            }
+        };
+    }
+    
+    private static GroupCommitter.Write updateDestinationSequenceWrite(final String id, 
+                                                                       final DestinationSequence seq) {
+        return new GroupCommitter.Write(GroupCommitter.UPDATE_SEQUENCE, UPDATE_DEST_SEQUENCE_STMT_STR) {
+            private BigInteger lastMessageNr;
+            private byte[] acknowledgement;
+            
+            Object getMergeKey() {
+                return seq;
+            }
+            void capture() throws IOException {
+                lastMessageNr = seq.getLastMessageNumber();
+                acknowledgement = IOUtils.readBytesFromStream(PersistenceUtils.getInstance()
+                    .serialiseAcknowledgment(seq.getAcknowledgment()));
+            }
+            void bind(PreparedStatement stmt) throws SQLException {
+                stmt.setBigDecimal(1, lastMessageNr == null ? null
+                    : new BigDecimal(lastMessageNr)); 
+                stmt.setBinaryStream(2, new ByteArrayInputStream(acknowledgement), acknowledgement.length); 
+                stmt.setString(3, id);
+            }
+        };
     }
     
     protected void createTables() throws SQLException {
@@ -581,8 +808,16 @@ public class RMTxStore implements RMStore {
     }
     
     @PostConstruct     
-    synchronized void init() {
+    public synchronized void init() {
         
+        if (null == connection && null != dataSource) {
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException ex) {
+                LogUtils.log(LOG, Level.SEVERE, "CONNECT_EXC", ex);
+                return;
+            }
+        }
         if (null == connection) {
             LOG.log(Level.FINE, "Using derby.system.home: {0}", System.getProperty("derby.system.home"));
             assert null != url;
@@ -607,6 +842,8 @@ public class RMTxStore implements RMStore {
         try {
             connection.setAutoCommit(false);
             createTables();
+            // release the locks on the tables for the other connections
+            connection.commit();
         } catch (SQLException ex) {
             LogUtils.log(LOG, Level.SEVERE, "CONNECT_EXC", ex);
             SQLException se = ex;
@@ -616,8 +853,20 @@ public class RMTxStore implements RMStore {
             }
             throw new RMStoreException(ex);
         }   
+        
+        if (groupCommit) {
+            committer = new GroupCommitter(connection, dataSource, groupCommitLanes, maxBatchSize);
+        }
     }   
     
+    @PreDestroy
+    public synchronized void destroy() {
+        if (null != committer) {
+            committer.close();
+            committer = null;
+        }
+    }
+    
     Connection getConnection() {
         return connection;
     }
@@ -31,7 +31,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TimerTask;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
@@ -49,6 +48,7 @@ import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.workqueue.SynchronousExecutor;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.addressing.AttributedURIType;
 import org.apache.cxf.ws.policy.AssertionInfo;
@@ -58,6 +58,8 @@ import org.apache.cxf.ws.rm.RMContextUtils;
 import org.apache.cxf.ws.rm.RMManager;
 import org.apache.cxf.ws.rm.RMMessageConstants;
 import org.apache.cxf.ws.rm.RMProperties;
+import org.apache.cxf.ws.rm.RMScheduler;
+import org.apache.cxf.ws.rm.RMTimerTask;
 import org.apache.cxf.ws.rm.RMUtils;
 import org.apache.cxf.ws.rm.RetransmissionCallback;
 import org.apache.cxf.ws.rm.RetransmissionQueue;
@@ -369,7 +371,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         private Message message;
         private OutputStream out;
         private Date next;
-        private TimerTask nextTask;
+        private RMTimerTask nextTask;
         private int resends;
         private long nextInterval;
         private long backoff;
@@ -402,7 +404,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                 LOG.log(Level.INFO, "Cannot resend to anonymous target.  Not scheduling a resend.");
                 return;
             }
-            if (null != manager.getTimer()) {
+            if (null != manager.getScheduler()) {
                 schedule();
             }
         }
@@ -424,6 +426,14 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
             } else {
                 LOG.log(Level.FINE, "Using endpoint executor {0}", executor.getClass().getName());
             }
+            if (SynchronousExecutor.isA(executor)) {
+                // keep the resend off the scheduler thread
+                Executor workQueue = manager.getWorkQueue();
+                if (null != workQueue) {
+                    executor = workQueue;
+                    LOG.log(Level.FINE, "Using work queue {0}", executor.getClass().getName());
+                }
+            }
             
             try {
                 executor.execute(this);
@@ -508,17 +518,17 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         }
 
         protected final synchronized void schedule() {
-            if (null == manager.getTimer()) {
+            RMScheduler scheduler = manager.getScheduler();
+            if (null == scheduler) {
                 return;
             }
-            class ResendTask extends TimerTask {
+            class ResendTask extends RMTimerTask {
                 ResendCandidate candidate;
 
                 ResendTask(ResendCandidate c) {
                     candidate = c;
                 }
 
-                @Override
                 public void run() {
                     if (!candidate.isPending()) {
                         candidate.initiate(includeAckRequested);
@@ -527,7 +537,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
             }
             nextTask = new ResendTask(this);
             try {
-                manager.getTimer().schedule(nextTask, next);
+                scheduler.schedule(nextTask, Math.max(0L, next.getTime() - System.currentTimeMillis()));
             } catch (IllegalStateException ex) {
                 LOG.log(Level.WARNING, "SCHEDULE_RESEND_FAILED_MSG", ex);
             }
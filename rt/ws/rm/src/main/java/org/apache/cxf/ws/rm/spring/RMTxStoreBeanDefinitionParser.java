@@ -22,6 +22,7 @@ import org.w3c.dom.Element;
 
 import org.apache.cxf.configuration.spring.AbstractBeanDefinitionParser;
 import org.apache.cxf.ws.rm.persistence.jdbc.RMTxStore;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 
 public class RMTxStoreBeanDefinitionParser extends AbstractBeanDefinitionParser {
 
@@ -34,5 +35,14 @@ public class RMTxStoreBeanDefinitionParser extends AbstractBeanDefinitionParser
     protected boolean shouldGenerateIdAsFallback() {
         return true;
     }
+    
+    @Override
+    protected void mapAttribute(BeanDefinitionBuilder bean, String name, String val) {
+        if ("dataSource".equals(name)) {
+            bean.addPropertyReference(name, val);
+        } else {
+            super.mapAttribute(bean, name, val);
+        }
+    }
        
 }
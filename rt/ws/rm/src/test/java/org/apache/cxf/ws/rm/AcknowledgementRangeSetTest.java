@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AcknowledgementRangeSetTest extends Assert {
+
+    @Test
+    public void testAddInOrder() {
+        AcknowledgementRangeSet set = new AcknowledgementRangeSet();
+        assertFalse(set.contains(1));
+        assertFalse(set.containsAllUpTo(1));
+        for (long i = 1; i <= 1000; i++) {
+            assertTrue(set.add(i));
+        }
+        assertFalse(set.add(500));
+        assertEquals(1, set.size());
+        assertEquals(1, set.getLower(0));
+        assertEquals(1000, set.getUpper(0));
+        assertTrue(set.containsAllUpTo(1000));
+        assertFalse(set.containsAllUpTo(1001));
+    }
+    
+    @Test
+    public void testAddWithGaps() {
+        AcknowledgementRangeSet set = new AcknowledgementRangeSet();
+        long[] numbers = {1, 2, 9, 10, 4, 9, 2, 6, 3};
+        for (long n : numbers) {
+            set.add(n);
+        }
+        assertRanges(set, new long[] {1, 4, 6, 6, 9, 10});
+        set.add(5);
+        assertRanges(set, new long[] {1, 6, 9, 10});
+        set.add(8);
+        set.add(7);
+        assertRanges(set, new long[] {1, 10});
+        assertFalse(set.contains(11));
+        assertFalse(set.contains(0));
+    }
+    
+    @Test
+    public void testAddRange() {
+        AcknowledgementRangeSet set = new AcknowledgementRangeSet();
+        for (int i = 0; i < 5; i++) {
+            set.add(3 * i + 1, 3 * i + 3);
+        }
+        assertRanges(set, new long[] {1, 15});
+        
+        set = new AcknowledgementRangeSet();
+        for (int i = 0; i < 5; i++) {
+            set.add(3 * i + 1, 3 * i + 2);
+        }
+        assertEquals(5, set.size());
+        
+        set = new AcknowledgementRangeSet();
+        for (int i = 4; i >= 0; i--) {
+            if (i != 2) {
+                set.add(3 * i + 1, 3 * i + 3);
+            }
+        }
+        assertRanges(set, new long[] {1, 6, 10, 15});
+        set.add(5, 11);
+        assertRanges(set, new long[] {1, 15});
+        set.add(20, 30);
+        set.add(17, 17);
+        set.add(16, 40);
+        assertRanges(set, new long[] {1, 40});
+    }
+    
+    @Test
+    public void testRandom() {
+        Random random = new Random(42);
+        AcknowledgementRangeSet set = new AcknowledgementRangeSet();
+        TreeSet<Long> expected = new TreeSet<Long>();
+        for (int i = 0; i < 5000; i++) {
+            long n = 1 + random.nextInt(2000);
+            assertEquals(expected.add(n), set.add(n));
+        }
+        for (long n = 0; n <= 2001; n++) {
+            assertEquals(expected.contains(n), set.contains(n));
+        }
+        long count = 0;
+        for (int i = 0; i < set.size(); i++) {
+            if (i > 0) {
+                assertTrue(set.getLower(i) > set.getUpper(i - 1) + 1);
+            }
+            count += set.getUpper(i) - set.getLower(i) + 1;
+        }
+        assertEquals(expected.size(), count);
+    }
+    
+    private static void assertRanges(AcknowledgementRangeSet set, long[] bounds) {
+        assertEquals(bounds.length / 2, set.size());
+        for (int i = 0; i < set.size(); i++) {
+            assertEquals(bounds[2 * i], set.getLower(i));
+            assertEquals(bounds[2 * i + 1], set.getUpper(i));
+        }
+    }
+}
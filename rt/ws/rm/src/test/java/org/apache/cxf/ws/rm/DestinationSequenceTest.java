@@ -22,7 +22,6 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Timer;
 
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.message.Exchange;
@@ -56,6 +55,7 @@ public class DestinationSequenceTest extends Assert {
     private RMAssertion rma;
     private AcksPolicyType ap;
     private DestinationPolicyType dp;
+    private List<RMScheduler> schedulers = new ArrayList<RMScheduler>();
  
     @Before
     public void setUp() {
@@ -75,7 +75,10 @@ public class DestinationSequenceTest extends Assert {
         rma = null;
         dp = null;
         ap = null;
-        
+        for (RMScheduler scheduler : schedulers) {
+            scheduler.shutdown();
+        }
+        schedulers.clear();
     }
 
     @Test
@@ -150,12 +153,14 @@ public class DestinationSequenceTest extends Assert {
         assertEquals(0, ranges.size());
         
         seq.acknowledge(message1);        
+        ranges = seq.getAcknowledgment().getAcknowledgementRange();
         assertEquals(1, ranges.size());
         AcknowledgementRange r1 = ranges.get(0);
         assertEquals(1, r1.getLower().intValue());
         assertEquals(1, r1.getUpper().intValue());
         
         seq.acknowledge(message2);
+        ranges = seq.getAcknowledgment().getAcknowledgementRange();
         assertEquals(1, ranges.size());
         r1 = ranges.get(0);
         assertEquals(1, r1.getLower().intValue());
@@ -199,10 +204,10 @@ public class DestinationSequenceTest extends Assert {
         control.replay();
         
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
-        List<AcknowledgementRange> ranges = seq.getAcknowledgment().getAcknowledgementRange();
         for (int i = 0; i < messages.length; i++) {
             seq.acknowledge(messages[i]);
         }
+        List<AcknowledgementRange> ranges = seq.getAcknowledgment().getAcknowledgementRange();
         assertEquals(2, ranges.size());
         AcknowledgementRange r = ranges.get(0);
         assertEquals(1, r.getLower().intValue());
@@ -229,10 +234,10 @@ public class DestinationSequenceTest extends Assert {
         control.replay();
         
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
-        List<AcknowledgementRange> ranges = seq.getAcknowledgment().getAcknowledgementRange();
         for (int i = 0; i < messages.length; i++) {
             seq.acknowledge(messages[i]);
         }
+        List<AcknowledgementRange> ranges = seq.getAcknowledgment().getAcknowledgementRange();
         
         assertEquals(3, ranges.size());
         AcknowledgementRange r = ranges.get(0);
@@ -262,10 +267,10 @@ public class DestinationSequenceTest extends Assert {
         control.replay();
         
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
-        List<AcknowledgementRange> ranges = seq.getAcknowledgment().getAcknowledgementRange();
         for (int i = 0; i < messages.length; i++) {
             seq.acknowledge(messages[i]);
         }
+        List<AcknowledgementRange> ranges = seq.getAcknowledgment().getAcknowledgementRange();
         assertEquals(2, ranges.size());
         AcknowledgementRange r = ranges.get(0);
         assertEquals(2, r.getLower().intValue());
@@ -277,50 +282,6 @@ public class DestinationSequenceTest extends Assert {
         control.verify();
     }
     
-    @Test
-    public void testMerge() {
-        DestinationSequence seq = new DestinationSequence(id, ref, destination);
-        List<AcknowledgementRange> ranges = seq.getAcknowledgment().getAcknowledgementRange();
-        AcknowledgementRange r;
-        for (int i = 0; i < 5; i++) {
-            r = new AcknowledgementRange();
-            r.setLower(new BigInteger(Integer.toString(3 * i + 1)));
-            r.setUpper(new BigInteger(Integer.toString(3 * i + 3)));
-            ranges.add(r);
-        }
-        seq.mergeRanges();
-        assertEquals(1, ranges.size());
-        r = ranges.get(0);
-        assertEquals(BigInteger.ONE, r.getLower());
-        assertEquals(new BigInteger("15"), r.getUpper());
-        ranges.clear();
-        for (int i = 0; i < 5; i++) {
-            r = new AcknowledgementRange();
-            r.setLower(new BigInteger(Integer.toString(3 * i + 1)));
-            r.setUpper(new BigInteger(Integer.toString(3 * i + 2)));
-            ranges.add(r);
-        }
-        seq.mergeRanges();
-        assertEquals(5, ranges.size());
-        ranges.clear();
-        for (int i = 0; i < 5; i++) {
-            if (i != 2) {
-                r = new AcknowledgementRange();
-                r.setLower(new BigInteger(Integer.toString(3 * i + 1)));
-                r.setUpper(new BigInteger(Integer.toString(3 * i + 3)));
-                ranges.add(r);
-            }
-        }
-        seq.mergeRanges();
-        assertEquals(2, ranges.size());
-        r = ranges.get(0);
-        assertEquals(BigInteger.ONE, r.getLower());
-        assertEquals(new BigInteger("6"), r.getUpper());
-        r = ranges.get(1);
-        assertEquals(BigInteger.TEN, r.getLower());
-        assertEquals(new BigInteger("15"), r.getUpper());        
-    }
-    
     @Test
     public void testMonitor() throws SequenceFault {
         setUpDestination();
@@ -383,8 +344,8 @@ public class DestinationSequenceTest extends Assert {
     
     @Test
     public void testAcknowledgeDeferred() throws SequenceFault, RMException {
-        Timer timer = new Timer();
-        setUpDestination(timer);
+        RMScheduler scheduler = createScheduler();
+        setUpDestination(scheduler);
         
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
         RMEndpoint rme = control.createMock(RMEndpoint.class);
@@ -444,10 +405,7 @@ public class DestinationSequenceTest extends Assert {
         setUpDestination();
         
         BigInteger mn = BigInteger.TEN;        
-        SequenceAcknowledgement ack = control.createMock(SequenceAcknowledgement.class);
-        List<AcknowledgementRange> ranges = new ArrayList<AcknowledgementRange>();
-        AcknowledgementRange r = control.createMock(AcknowledgementRange.class);
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges);
+        SequenceAcknowledgement ack = factory.createSequenceAcknowledgement();
         DeliveryAssuranceType da = control.createMock(DeliveryAssuranceType.class);
         EasyMock.expect(manager.getDeliveryAssurance()).andReturn(da);
         EasyMock.expect(da.isSetAtMostOnce()).andReturn(true);                    
@@ -459,13 +417,12 @@ public class DestinationSequenceTest extends Assert {
         control.verify();
         
         control.reset();
-        ranges.add(r);
+        ack.getAcknowledgementRange().add(createRange(5, 15));
+        ds = new DestinationSequence(id, ref, null, ack);
+        ds.setDestination(destination);
         EasyMock.expect(destination.getManager()).andReturn(manager);
         EasyMock.expect(manager.getDeliveryAssurance()).andReturn(da);
         EasyMock.expect(da.isSetAtMostOnce()).andReturn(true);            
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges);
-        EasyMock.expect(r.getLower()).andReturn(new BigInteger("5"));
-        EasyMock.expect(r.getUpper()).andReturn(new BigInteger("15"));
         control.replay();     
         try {
             ds.applyDeliveryAssurance(mn);
@@ -490,13 +447,9 @@ public class DestinationSequenceTest extends Assert {
         EasyMock.expect(da.isSetAtLeastOnce()).andReturn(true);
         EasyMock.expect(da.isSetInOrder()).andReturn(true); 
         
-        SequenceAcknowledgement ack = control.createMock(SequenceAcknowledgement.class);
-        List<AcknowledgementRange> ranges = new ArrayList<AcknowledgementRange>();
-        AcknowledgementRange r = control.createMock(AcknowledgementRange.class);
-        ranges.add(r);
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges).times(3);
-        EasyMock.expect(r.getLower()).andReturn(BigInteger.ONE);
-        EasyMock.expect(r.getUpper()).andReturn(new BigInteger("15"));
+ 
+        SequenceAcknowledgement ack = factory.createSequenceAcknowledgement();
+        ack.getAcknowledgementRange().add(createRange(1, 15));
         
         control.replay(); 
         
@@ -577,53 +530,52 @@ public class DestinationSequenceTest extends Assert {
     
     @Test
     public void testAllPredecessorsAcknowledged() {
-
-        SequenceAcknowledgement ack = control.createMock(SequenceAcknowledgement.class);
-        List<AcknowledgementRange> ranges = new ArrayList<AcknowledgementRange>();
-        AcknowledgementRange r = control.createMock(AcknowledgementRange.class);
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges);
-        control.replay();
+        SequenceAcknowledgement ack = factory.createSequenceAcknowledgement();
         DestinationSequence ds = new DestinationSequence(id, ref, null, ack);
-        ds.setDestination(destination);
         assertTrue("all predecessors acknowledged", !ds.allPredecessorsAcknowledged(BigInteger.TEN));
-        control.verify();
         
-        control.reset();
-        ranges.add(r);
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges).times(2);
-        EasyMock.expect(r.getLower()).andReturn(BigInteger.TEN);
-        control.replay();
+        ack.getAcknowledgementRange().add(createRange(10, 10));
+        ds = new DestinationSequence(id, ref, null, ack);
         assertTrue("all predecessors acknowledged", !ds.allPredecessorsAcknowledged(BigInteger.TEN));
-        control.verify();
         
-        control.reset();
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges).times(3);
-        EasyMock.expect(r.getLower()).andReturn(BigInteger.ONE);
-        EasyMock.expect(r.getUpper()).andReturn(new BigInteger("5"));
-        control.replay();
+        ack.getAcknowledgementRange().clear();
+        ack.getAcknowledgementRange().add(createRange(1, 5));
+        ds = new DestinationSequence(id, ref, null, ack);
         assertTrue("all predecessors acknowledged", !ds.allPredecessorsAcknowledged(BigInteger.TEN));
-        control.verify();
         
-        control.reset();
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges).times(3);
-        EasyMock.expect(r.getLower()).andReturn(BigInteger.ONE);
-        EasyMock.expect(r.getUpper()).andReturn(BigInteger.TEN);
-        control.replay();
+        ack.getAcknowledgementRange().clear();
+        ack.getAcknowledgementRange().add(createRange(1, 10));
+        ds = new DestinationSequence(id, ref, null, ack);
         assertTrue("not all predecessors acknowledged", ds.allPredecessorsAcknowledged(BigInteger.TEN));
-        control.verify();
         
-        ranges.add(r);
-        control.reset();
-        EasyMock.expect(ack.getAcknowledgementRange()).andReturn(ranges);
-        control.replay();
-        assertTrue("all predecessors acknowledged", !ds.allPredecessorsAcknowledged(BigInteger.TEN));
-        control.verify();
+        ack.getAcknowledgementRange().add(createRange(12, 15));
+        ds = new DestinationSequence(id, ref, null, ack);
+        assertTrue("not all predecessors acknowledged", ds.allPredecessorsAcknowledged(BigInteger.TEN));
+        assertTrue("all predecessors acknowledged", !ds.allPredecessorsAcknowledged(new BigInteger("12")));
+    }
+    
+    @Test
+    public void testLoadAcknowledgement() {
+        SequenceAcknowledgement ack = factory.createSequenceAcknowledgement();
+        List<AcknowledgementRange> ranges = ack.getAcknowledgementRange();
+        ranges.add(createRange(7, 9));
+        ranges.add(createRange(1, 3));
+        ranges.add(createRange(4, 5));
+        DestinationSequence ds = new DestinationSequence(id, ref, null, ack);
+        assertSame(ack, ds.getAcknowledgment());
+        assertEquals(2, ranges.size());
+        assertEquals(BigInteger.ONE, ranges.get(0).getLower());
+        assertEquals(new BigInteger("5"), ranges.get(0).getUpper());
+        assertEquals(new BigInteger("7"), ranges.get(1).getLower());
+        assertEquals(new BigInteger("9"), ranges.get(1).getUpper());
+        assertTrue(ds.isAcknowledged(new BigInteger("8")));
+        assertTrue(!ds.isAcknowledged(new BigInteger("6")));
     }
     
     @Test
     public void testScheduleSequenceTermination() throws SequenceFault {
-        Timer timer = new Timer();
-        setUpDestination(timer);
+        RMScheduler scheduler = createScheduler();
+        setUpDestination(scheduler);
         
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
         destination.removeSequence(seq);
@@ -675,8 +627,8 @@ public class DestinationSequenceTest extends Assert {
         destination = control.createMock(Destination.class);
         manager = control.createMock(RMManager.class);
         EasyMock.expect(destination.getManager()).andReturn(manager);
-        Timer t = new Timer();
-        EasyMock.expect(manager.getTimer()).andReturn(t);
+        RMScheduler t = createScheduler();
+        EasyMock.expect(manager.getScheduler()).andReturn(t);
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
         RMEndpoint rme = control.createMock(RMEndpoint.class);
         EasyMock.expect(destination.getReliableEndpoint()).andReturn(rme);
@@ -730,14 +682,14 @@ public class DestinationSequenceTest extends Assert {
         destination = control.createMock(Destination.class);
         manager = control.createMock(RMManager.class);
         EasyMock.expect(destination.getManager()).andReturn(manager);
-        Timer t = new Timer();
-        EasyMock.expect(manager.getTimer()).andReturn(t);
+        RMScheduler t = createScheduler();
+        EasyMock.expect(manager.getScheduler()).andReturn(t);
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
         control.replay();
         seq.scheduleDeferredAcknowledgement(30000L);
         seq.cancelDeferredAcknowledgments();
         seq.cancelDeferredAcknowledgments();
-        t.cancel();
+        t.shutdown();
         control.verify();
     }
     
@@ -746,21 +698,34 @@ public class DestinationSequenceTest extends Assert {
         destination = control.createMock(Destination.class);
         manager = control.createMock(RMManager.class);
         EasyMock.expect(destination.getManager()).andReturn(manager);
-        Timer t = new Timer();
-        EasyMock.expect(manager.getTimer()).andReturn(t);
+        RMScheduler t = createScheduler();
+        EasyMock.expect(manager.getScheduler()).andReturn(t);
         DestinationSequence seq = new DestinationSequence(id, ref, destination);
         control.replay();
         seq.scheduleSequenceTermination(30000L);
         seq.cancelTermination();
-        t.cancel();
+        t.shutdown();
         control.verify();
     }
     
+    private RMScheduler createScheduler() {
+        RMScheduler scheduler = new HashedWheelScheduler("test", 10L, 64);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+    
+    private AcknowledgementRange createRange(int lower, int upper) {
+        AcknowledgementRange r = factory.createSequenceAcknowledgementAcknowledgementRange();
+        r.setLower(BigInteger.valueOf(lower));
+        r.setUpper(BigInteger.valueOf(upper));
+        return r;
+    }
+    
     private void setUpDestination() {
         setUpDestination(null);
     }
     
-    private void setUpDestination(Timer timer) {
+    private void setUpDestination(RMScheduler scheduler) {
         
         manager = control.createMock(RMManager.class);
 
@@ -785,8 +750,8 @@ public class DestinationSequenceTest extends Assert {
         destination = control.createMock(Destination.class);
         EasyMock.expect(destination.getManager()).andReturn(manager).anyTimes();
         
-        if (null != timer) {
-            EasyMock.expect(manager.getTimer()).andReturn(timer).anyTimes();
+        if (null != scheduler) {
+            EasyMock.expect(manager.getScheduler()).andReturn(scheduler).anyTimes();
         }
 
     }
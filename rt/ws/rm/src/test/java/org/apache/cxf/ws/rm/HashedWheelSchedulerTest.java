@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedWheelSchedulerTest extends Assert {
+
+    private HashedWheelScheduler scheduler;
+    
+    @Before
+    public void setUp() {
+        scheduler = new HashedWheelScheduler("test", 10L, 4);
+    }
+    
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+    
+    @Test
+    public void testExpiry() throws InterruptedException {
+        List<String> order = new CopyOnWriteArrayList<String>();
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.currentTimeMillis();
+        TestTask t3 = new TestTask("3", order, latch);
+        TestTask t1 = new TestTask("1", order, latch);
+        TestTask t2 = new TestTask("2", order, latch);
+        // beyond a full rotation of the wheel
+        scheduler.schedule(t3, 150L);
+        scheduler.schedule(t1, 20L);
+        scheduler.schedule(t2, 70L);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, order.size());
+        assertEquals("1", order.get(0));
+        assertEquals("2", order.get(1));
+        assertEquals("3", order.get(2));
+        assertTrue(t3.executed - start >= 145L);
+        assertTrue(t3.scheduledExecutionTime() >= start + 150L);
+        assertFalse(t1.cancel());
+    }
+    
+    @Test
+    public void testCancel() throws InterruptedException {
+        List<String> order = new CopyOnWriteArrayList<String>();
+        CountDownLatch latch = new CountDownLatch(1);
+        TestTask cancelled = new TestTask("cancelled", order, latch);
+        TestTask t = new TestTask("1", order, latch);
+        scheduler.schedule(cancelled, 30L);
+        scheduler.schedule(t, 80L);
+        assertTrue(cancelled.cancel());
+        assertTrue(cancelled.isCancelled());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, order.size());
+        assertEquals("1", order.get(0));
+        assertFalse(t.isCancelled());
+    }
+    
+    @Test
+    public void testExecutor() throws InterruptedException {
+        final List<Runnable> dispatched = new CopyOnWriteArrayList<Runnable>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.setExecutor(new Executor() {
+            public void execute(Runnable command) {
+                dispatched.add(command);
+                latch.countDown();
+            }
+        });
+        List<String> order = new CopyOnWriteArrayList<String>();
+        TestTask t = new TestTask("1", order, new CountDownLatch(1));
+        scheduler.schedule(t, 0L);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertSame(t, dispatched.get(0));
+        assertEquals(0, order.size());
+    }
+    
+    @Test
+    public void testIllegalScheduling() {
+        List<String> order = new CopyOnWriteArrayList<String>();
+        TestTask t = new TestTask("1", order, new CountDownLatch(1));
+        scheduler.schedule(t, 10000L);
+        try {
+            scheduler.schedule(t, 10000L);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        scheduler.shutdown();
+        assertTrue(scheduler.isShutdown());
+        try {
+            scheduler.schedule(new TestTask("2", order, new CountDownLatch(1)), 10L);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+    
+    static class TestTask extends RMTimerTask {
+        private final String name;
+        private final List<String> order;
+        private final CountDownLatch latch;
+        private volatile long executed;
+        
+        TestTask(String n, List<String> o, CountDownLatch l) {
+            name = n;
+            order = o;
+            latch = l;
+        }
+        
+        public void run() {
+            executed = System.currentTimeMillis();
+            order.add(name);
+            latch.countDown();
+        }
+    }
+}
@@ -26,7 +26,6 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.TimerTask;
 
 import javax.xml.namespace.QName;
 
@@ -79,7 +78,7 @@ public class RMManagerTest extends Assert {
         assertNull(manager.getBus());
         assertNull(manager.getStore());
         assertNull(manager.getRetransmissionQueue());
-        assertNotNull(manager.getTimer());
+        assertNotNull(manager.getScheduler());
 
         Bus bus = control.createMock(Bus.class);
         RMStore store = control.createMock(RMStore.class);
@@ -420,19 +419,19 @@ public class RMManagerTest extends Assert {
         Endpoint e = control.createMock(Endpoint.class);
         RMEndpoint rme = control.createMock(RMEndpoint.class);
         manager.getReliableEndpointsMap().put(e, rme);
-        manager.getTimer(); //start the timer
+        manager.getScheduler(); //start the scheduler
         rme.shutdown();
         EasyMock.expectLastCall();
         assertNotNull(manager);
-        class TestTask extends TimerTask {
+        class TestTask extends RMTimerTask {
             public void run() {
             }
         }
         control.replay();
         bus.shutdown(true);
         try {
-            manager.getTimer().schedule(new TestTask(), 5000); 
-            fail("Timer has not been cancelled.");
+            manager.getScheduler().schedule(new TestTask(), 5000); 
+            fail("Scheduler has not been shut down.");
         } catch (IllegalStateException ex) {
             // expected
         }
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GroupCommitterTest extends Assert {
+
+    private List<String> executed;
+    private int commits;
+    private GroupCommitter committer;
+
+    @Before
+    public void setUp() {
+        executed = Collections.synchronizedList(new ArrayList<String>());
+        committer = new GroupCommitter(createConnection(), null, 1, 10);
+    }
+
+    @Test
+    public void testWritesOfASequenceKeepTheirOrder() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread first = execute("b", new TestWrite(GroupCommitter.CREATE_MESSAGE, "message b") {
+            void bind(PreparedStatement stmt) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                super.bind(stmt);
+            }
+        });
+        writing.await();
+
+        // queued while the first batch is written, so they go into the same batch
+        Thread delete = execute("a", new TestWrite(GroupCommitter.DELETE_SEQUENCE, "delete a"));
+        waitUntilQueued(delete);
+        Thread create = execute("a", new TestWrite(GroupCommitter.CREATE_MESSAGE, "message a"));
+        waitUntilQueued(create);
+        Thread other = execute("c", new TestWrite(GroupCommitter.CREATE_MESSAGE, "message c"));
+        waitUntilQueued(other);
+
+        release.countDown();
+        for (Thread t : new Thread[] {first, delete, create, other}) {
+            t.join();
+        }
+        assertEquals(2, commits);
+        assertEquals(4, executed.size());
+        assertEquals("message b", executed.get(0));
+        assertTrue(executed.indexOf("delete a") < executed.indexOf("message a"));
+    }
+
+    @Test
+    public void testErrorFailsTheRequest() throws Exception {
+        try {
+            committer.execute("a", new TestWrite(GroupCommitter.CREATE_MESSAGE, "message a") {
+                void bind(PreparedStatement stmt) {
+                    throw new Error("write failed");
+                }
+            });
+            fail("Expected Error was not thrown.");
+        } catch (Error ex) {
+            assertEquals("write failed", ex.getMessage());
+        }
+        assertEquals(0, commits);
+
+        committer.execute("a", new TestWrite(GroupCommitter.CREATE_MESSAGE, "message a"));
+        assertEquals(1, commits);
+    }
+
+    private Thread execute(final String sequenceId, final GroupCommitter.Write write) {
+        Thread t = new Thread() {
+            public void run() {
+                try {
+                    committer.execute(sequenceId, write);
+                } catch (Exception ex) {
+                    executed.add(ex.toString());
+                }
+            }
+        };
+        t.start();
+        return t;
+    }
+
+    private static void waitUntilQueued(Thread t) throws InterruptedException {
+        // a queued request waits for the lock of the lane
+        while (t.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Connection createConnection() {
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[] {Connection.class}, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("prepareStatement".equals(method.getName())) {
+                        return createStatement();
+                    } else if ("commit".equals(method.getName())) {
+                        commits++;
+                    }
+                    return null;
+                }
+            });
+    }
+
+    private PreparedStatement createStatement() {
+        return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[] {PreparedStatement.class}, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("executeBatch".equals(method.getName())) {
+                        return new int[0];
+                    }
+                    return null;
+                }
+            });
+    }
+
+    private class TestWrite extends GroupCommitter.Write {
+        TestWrite(int order, String sql) {
+            super(order, sql);
+        }
+
+        void bind(PreparedStatement stmt) {
+            executed.add(sql);
+        }
+    }
+}
@@ -24,7 +24,9 @@ import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.ws.addressing.v200408.EndpointReferenceType;
@@ -271,6 +273,86 @@ public class RMTxStoreTest extends Assert {
         store.removeMessages(sid2, messageNrs, true);
     }
     
+    @Test
+    public void testGroupCommit() throws Exception {
+        final RMTxStore gcStore = new RMTxStore();
+        gcStore.setGroupCommit(true);
+        gcStore.setMaxBatchSize(8);
+        gcStore.init();
+        
+        final String endpoint = "group.commit.endpoint";
+        final int messages = 20;
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final String seqId = "gcsequence" + t;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        IMocksControl c = EasyMock.createNiceControl();
+                        Identifier sid = RMUtils.getWSRMFactory().createIdentifier();
+                        sid.setValue(seqId);
+                        SourceSequence seq = c.createMock(SourceSequence.class);
+                        EasyMock.expect(seq.getIdentifier()).andReturn(sid).anyTimes();
+                        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(endpoint).anyTimes();
+                        EasyMock.expect(seq.getCurrentMessageNr())
+                            .andReturn(BigInteger.valueOf(messages)).anyTimes();
+                        c.replay();
+                        gcStore.createSourceSequence(seq);
+                        for (int i = 1; i <= messages; i++) {
+                            RMMessage msg = new RMMessage();
+                            msg.setMessageNumber(BigInteger.valueOf(i));
+                            msg.setContent(new byte[i]);
+                            gcStore.persistOutgoing(seq, msg);
+                        }
+                    } catch (Throwable ex) {
+                        errors.add(ex);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        
+        Collection<SourceSequence> seqs = gcStore.getSourceSequences(endpoint);
+        assertEquals(threads.length, seqs.size());
+        for (SourceSequence seq : seqs) {
+            assertEquals(BigInteger.valueOf(messages), seq.getCurrentMessageNr());
+            Collection<RMMessage> msgs = gcStore.getMessages(seq.getIdentifier(), true);
+            assertEquals(messages, msgs.size());
+            Collection<BigInteger> nrs = new ArrayList<BigInteger>();
+            for (RMMessage msg : msgs) {
+                nrs.add(msg.getMessageNumber());
+                assertEquals(msg.getMessageNumber().intValue(), msg.getContent().length);
+            }
+            gcStore.removeMessages(seq.getIdentifier(), nrs, true);
+            assertEquals(0, gcStore.getMessages(seq.getIdentifier(), true).size());
+        }
+        
+        // a failing write only fails its own caller
+        SourceSequence seq = control.createMock(SourceSequence.class);
+        EasyMock.expect(seq.getIdentifier()).andReturn(seqs.iterator().next().getIdentifier());
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(endpoint);
+        control.replay();
+        try {
+            gcStore.createSourceSequence(seq);
+            fail("Expected RMStoreException was not thrown.");
+        } catch (RMStoreException ex) {
+            SQLException se = (SQLException)ex.getCause();
+            // duplicate key value
+            assertEquals("23505", se.getSQLState());
+        }
+        
+        for (SourceSequence s : seqs) {
+            gcStore.removeSourceSequence(s.getIdentifier());
+        }
+        assertEquals(0, gcStore.getSourceSequences(endpoint).size());
+        gcStore.destroy();
+    }
+    
     @Test
     public void testUpdateDestinationSequence() throws SQLException, IOException {
         DestinationSequence seq = control.createMock(DestinationSequence.class);
@@ -39,15 +39,20 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.dom.DOMSource;
 
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
 import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
+import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.binding.soap.saaj.SAAJInInterceptor;
 import org.apache.cxf.common.classloader.ClassLoaderUtils;
 import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.DOMUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.security.SecurityContext;
@@ -55,6 +60,7 @@ import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.cxf.ws.security.SecurityConstants;
 import org.apache.cxf.ws.security.tokenstore.SecurityToken;
 import org.apache.cxf.ws.security.tokenstore.TokenStore;
+import org.apache.ws.security.SOAPConstants;
 import org.apache.ws.security.WSConstants;
 import org.apache.ws.security.WSPasswordCallback;
 import org.apache.ws.security.WSSConfig;
@@ -84,6 +90,12 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
 
     public static final String SECURITY_PROCESSED = WSS4JInInterceptor.class.getName() + ".DONE";
     
+    /**
+     * The actions that only need the security header and can be processed
+     * without a SAAJ model of the message.
+     */
+    static final int STREAMING_ACTIONS = WSConstants.UT | WSConstants.TS;
+    
     private static final Logger LOG = LogUtils.getL7dLogger(WSS4JInInterceptor.class);
     private static final Logger TIME_LOG = LogUtils.getL7dLogger(WSS4JInInterceptor.class,
                                                                  null,
@@ -91,6 +103,7 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
                                                                      + "-Time");
     private SAAJInInterceptor saajIn = new SAAJInInterceptor();
     private boolean ignoreActions;
+    private boolean streaming;
 
     /**
      *
@@ -121,6 +134,20 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
     public void setIgnoreActions(boolean i) {
         ignoreActions = i;
     }
+    
+    public boolean isStreaming() {
+        return streaming;
+    }
+    /**
+     * Process UsernameToken and Timestamp only messages from the headers read by
+     * the ReadHeadersInterceptor so the body keeps streaming instead of being
+     * read into a SAAJ model.  Messages carrying other security tokens, such as
+     * signatures or encrypted keys, are still processed on a SAAJ model.
+     * @param streaming
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
     private SOAPMessage getSOAPMessage(SoapMessage msg) {
         SOAPMessage doc = msg.getContent(SOAPMessage.class);
         if (doc == null) {
@@ -158,8 +185,6 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
             engine = getSecurityEngine();
         }
         
-        SOAPMessage doc = getSOAPMessage(msg);
-        
         boolean doDebug = LOG.isLoggable(Level.FINE);
         boolean doTimeLog = TIME_LOG.isLoggable(Level.FINE);
 
@@ -200,13 +225,23 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
              */
             doReceiverAction(doAction, reqData);
             
+            Document headerDoc = null;
+            if (streaming && (doAction & ~STREAMING_ACTIONS) == 0) {
+                headerDoc = getHeaderDocument(msg, actor);
+            }
+            SOAPMessage doc = null;
+            if (headerDoc == null) {
+                doc = getSOAPMessage(msg);
+                headerDoc = doc.getSOAPPart();
+            }
+            
             Vector wsResult = null;
             if (doTimeLog) {
                 t1 = System.currentTimeMillis();
             }
 
             wsResult = engine.processSecurityHeader(
-                doc.getSOAPPart(), 
+                headerDoc, 
                 actor, 
                 cbHandler, 
                 reqData.getSigCrypto(), 
@@ -220,7 +255,7 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
             if (wsResult == null) { // no security header found
                 if (doAction == WSConstants.NO_SECURITY) {
                     return;
-                } else if (doc.getSOAPPart().getEnvelope().getBody().hasFault()) {
+                } else if (doc != null && doc.getSOAPPart().getEnvelope().getBody().hasFault()) {
                     LOG.warning("Request does not contain required Security header, " 
                                 + "but it's a fault.");
                     return;
@@ -338,6 +373,42 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
         }
     }
     
+    /**
+     * Returns the document the ReadHeadersInterceptor read the envelope and headers
+     * into if the security header for the actor only holds tokens that can be
+     * processed without the body, null if a SAAJ model of the message is needed.
+     */
+    private Document getHeaderDocument(SoapMessage msg, String actor) throws WSSecurityException {
+        if (msg.getContent(SOAPMessage.class) != null) {
+            return null;
+        }
+        Document doc = ReadHeadersInterceptor.getHeaderDocument(msg);
+        if (doc == null) {
+            return null;
+        }
+        Element envelope = doc.getDocumentElement();
+        if (envelope == null) {
+            return null;
+        }
+        SOAPConstants sc = WSSecurityUtil.getSOAPConstants(envelope);
+        Element securityHeader = WSSecurityUtil.getSecurityHeader(doc, actor, sc);
+        if (securityHeader == null) {
+            return null;
+        }
+        Element child = DOMUtils.getFirstElement(securityHeader);
+        while (child != null) {
+            String ns = child.getNamespaceURI();
+            String name = child.getLocalName();
+            boolean token = (WSConstants.WSSE_NS.equals(ns) || WSConstants.WSSE11_NS.equals(ns))
+                && WSConstants.USERNAME_TOKEN_LN.equals(name);
+            if (!token && !(WSConstants.WSU_NS.equals(ns) && WSConstants.TIMESTAMP_TOKEN_LN.equals(name))) {
+                return null;
+            }
+            child = DOMUtils.getNextElement(child);
+        }
+        return doc;
+    }
+    
     /**
      * Do whatever is necessary to determine the action for the incoming message and 
      * do whatever other setup work is necessary.
@@ -362,18 +433,20 @@ public class WSS4JInInterceptor extends AbstractWSS4JInterceptor {
         WSHandlerResult rResult = new WSHandlerResult(actor, wsResult);
         results.add(0, rResult);
 
-        SOAPBody body = doc.getSOAPBody();
-
-        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new DOMSource(body));
-        // advance just past body
-        int evt = reader.next();
-        int i = 0;
-        while (reader.hasNext() && i < 1
-               && (evt != XMLStreamConstants.END_ELEMENT || evt != XMLStreamConstants.START_ELEMENT)) {
-            reader.next();
-            i++;
+        if (doc != null) {
+            SOAPBody body = doc.getSOAPBody();
+    
+            XMLStreamReader reader = StaxUtils.createXMLStreamReader(new DOMSource(body));
+            // advance just past body
+            int evt = reader.next();
+            int i = 0;
+            while (reader.hasNext() && i < 1
+                   && (evt != XMLStreamConstants.END_ELEMENT || evt != XMLStreamConstants.START_ELEMENT)) {
+                reader.next();
+                i++;
+            }
+            msg.setContent(XMLStreamReader.class, reader);
         }
-        msg.setContent(XMLStreamReader.class, reader);
         String pwType = (String)getProperty(msg, "passwordType");
         if ("PasswordDigest".equals(pwType)) {
             //CXF-2150 - we need to check the UsernameTokens
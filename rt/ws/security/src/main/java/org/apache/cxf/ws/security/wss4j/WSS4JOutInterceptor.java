@@ -25,17 +25,21 @@ import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.namespace.QName;
 import javax.xml.soap.SOAPMessage;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import org.apache.cxf.binding.soap.SoapFault;
+import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
 import org.apache.cxf.binding.soap.saaj.SAAJOutInterceptor;
 import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.DOMUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.phase.PhaseInterceptor;
@@ -67,7 +71,7 @@ public class WSS4JOutInterceptor extends AbstractWSS4JInterceptor {
     private WSS4JOutInterceptorInternal ending;
     private SAAJOutInterceptor saajOut = new SAAJOutInterceptor();
     private boolean mtomEnabled;
-    
+    private boolean streaming;
     
 
     public WSS4JOutInterceptor() {
@@ -95,6 +99,20 @@ public class WSS4JOutInterceptor extends AbstractWSS4JInterceptor {
         this.mtomEnabled = allowMTOM;
     }
     
+    public boolean isStreaming() {
+        return streaming;
+    }
+    /**
+     * Build the security header on its own when only UsernameToken and Timestamp
+     * actions are configured, so the body is written straight to the output
+     * instead of into a SAAJ model first.  Other actions, such as signing or
+     * encrypting, still secure a SAAJ model of the whole message.
+     * @param streaming
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+    
 
     @Override
     public Object getProperty(Object msgContext, String key) {
@@ -117,12 +135,49 @@ public class WSS4JOutInterceptor extends AbstractWSS4JInterceptor {
             mc.put(org.apache.cxf.message.Message.MTOM_ENABLED, false);
         }
         
+        if (streaming && mc.getContent(SOAPMessage.class) == null && isHeaderOnly(mc)) {
+            ending.handleMessage(mc, createEnvelope(mc.getVersion()));
+            return;
+        }
+        
         if (mc.getContent(SOAPMessage.class) == null) {
             saajOut.handleMessage(mc);
         }
         
         mc.getInterceptorChain().add(ending);
     }    
+    
+    private boolean isHeaderOnly(SoapMessage mc) {
+        String action = getString(WSHandlerConstants.ACTION, mc);
+        if (action == null || getProperty(mc, WSS4J_ACTION_MAP) != null) {
+            return false;
+        }
+        try {
+            int doAction = WSSecurityUtil.decodeAction(action, new Vector());
+            return doAction != WSConstants.NO_SECURITY 
+                && (doAction & ~WSS4JInInterceptor.STREAMING_ACTIONS) == 0;
+        } catch (WSSecurityException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Creates an empty envelope for the security actions to add their header to.
+     */
+    private static Document createEnvelope(SoapVersion version) {
+        Document doc = DOMUtils.createDocument();
+        String prefix = version.getPrefix();
+        Element env = doc.createElementNS(version.getNamespace(), 
+                                          prefix + ":" + version.getEnvelope().getLocalPart());
+        env.setAttributeNS(WSConstants.XMLNS_NS, "xmlns:" + prefix, version.getNamespace());
+        env.appendChild(doc.createElementNS(version.getNamespace(), 
+                                            prefix + ":" + version.getHeader().getLocalPart()));
+        env.appendChild(doc.createElementNS(version.getNamespace(), 
+                                            prefix + ":" + version.getBody().getLocalPart()));
+        doc.appendChild(env);
+        return doc;
+    }
+
     public void handleFault(SoapMessage message) {
         saajOut.handleFault(message);
     } 
@@ -138,6 +193,14 @@ public class WSS4JOutInterceptor extends AbstractWSS4JInterceptor {
         }
 
         public void handleMessage(SoapMessage mc) throws Fault {
+            handleMessage(mc, null);
+        }
+        
+        /**
+         * @param envelope the envelope to secure instead of the SAAJ model, the
+         * resulting security header is added to the headers of the message
+         */
+        void handleMessage(SoapMessage mc, Document envelope) throws Fault {
             
             boolean doDebug = LOG.isLoggable(Level.FINE);
             boolean doTimeDebug = TIME_LOG.isLoggable(Level.FINE);
@@ -233,15 +296,18 @@ public class WSS4JOutInterceptor extends AbstractWSS4JInterceptor {
                  * handler in a chain. Now we can perform our security operations on
                  * this request.
                  */
-                SOAPMessage saaj = mc.getContent(SOAPMessage.class);
-    
-                if (saaj == null) {
-                    LOG.warning("SAAJOutHandler must be enabled for WS-Security!");
-                    throw new SoapFault(new Message("NO_SAAJ_DOC", LOG), version
-                            .getReceiver());
+                Document doc = envelope;
+                if (doc == null) {
+                    SOAPMessage saaj = mc.getContent(SOAPMessage.class);
+        
+                    if (saaj == null) {
+                        LOG.warning("SAAJOutHandler must be enabled for WS-Security!");
+                        throw new SoapFault(new Message("NO_SAAJ_DOC", LOG), version
+                                .getReceiver());
+                    }
+        
+                    doc = saaj.getSOAPPart();
                 }
-    
-                Document doc = saaj.getSOAPPart();
                 /**
                  * There is nothing to send...Usually happens when the provider
                  * needs to send a HTTP 202 message (with no content)
@@ -256,6 +322,10 @@ public class WSS4JOutInterceptor extends AbstractWSS4JInterceptor {
     
                 doSenderAction(doAction, doc, reqData, actions, Boolean.TRUE
                         .equals(getProperty(mc, org.apache.cxf.message.Message.REQUESTOR_ROLE)));
+                
+                if (envelope != null) {
+                    addSecurityHeader(mc, reqData.getSecHeader().getSecurityHeader());
+                }
     
                 if (doTimeDebug) {
                     t2 = System.currentTimeMillis();
@@ -297,6 +367,20 @@ public class WSS4JOutInterceptor extends AbstractWSS4JInterceptor {
             //nothing
         }
         
+        private void addSecurityHeader(SoapMessage mc, Element el) {
+            // the SoapOutInterceptor writes the role and mustUnderstand attributes
+            // from the header itself
+            SoapVersion version = mc.getVersion();
+            SoapHeader sh = new SoapHeader(new QName(el.getNamespaceURI(), el.getLocalName()), el);
+            String mu = el.getAttributeNS(version.getNamespace(), version.getAttrNameMustUnderstand());
+            sh.setMustUnderstand("1".equals(mu) || Boolean.valueOf(mu));
+            String actor = el.getAttributeNS(version.getNamespace(), version.getAttrNameRole());
+            if (actor.length() > 0) {
+                sh.setActor(actor);
+            }
+            mc.getHeaders().add(sh);
+        }
+        
         private void configureActions(SoapMessage mc, boolean doDebug,
                 SoapVersion version, WSSConfig config) {
             
@@ -18,6 +18,11 @@
  */
 package org.apache.cxf.ws.security.wss4j;
 
+import java.security.Principal;
+
+import javax.xml.soap.SOAPMessage;
+
+import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.saaj.SAAJInInterceptor;
 import org.apache.cxf.binding.soap.saaj.SAAJOutInterceptor;
 import org.apache.cxf.endpoint.Client;
@@ -25,6 +30,8 @@ import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.frontend.ClientProxy;
 import org.apache.cxf.interceptor.LoggingInInterceptor;
 import org.apache.cxf.interceptor.LoggingOutInterceptor;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
 import org.apache.cxf.service.Service;
@@ -113,4 +120,50 @@ public class RoundTripTest extends AbstractSecurityTest {
 
         assertEquals("test", echo.echo("test"));
     }
+
+    @Test
+    public void testStreamingUsernameTokenTimestamp() throws Exception {
+        String actions = WSHandlerConstants.TIMESTAMP + " " + WSHandlerConstants.USERNAME_TOKEN;
+
+        JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+        factory.setServiceBean(new EchoImpl());
+        factory.setAddress("local://StreamingEcho");
+        factory.setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        Service service = factory.create().getEndpoint().getService();
+
+        WSS4JInInterceptor streamingIn = new WSS4JInInterceptor();
+        streamingIn.setStreaming(true);
+        streamingIn.setProperty(WSHandlerConstants.ACTION, actions);
+        streamingIn.setProperty(WSHandlerConstants.PW_CALLBACK_CLASS, TestPwdCallback.class.getName());
+        WSS4JOutInterceptor streamingOut = new WSS4JOutInterceptor();
+        streamingOut.setStreaming(true);
+        streamingOut.setProperty(WSHandlerConstants.ACTION, actions);
+        streamingOut.setProperty(WSHandlerConstants.USER, "alice");
+        streamingOut.setProperty(WSHandlerConstants.PW_CALLBACK_CLASS, TestPwdCallback.class.getName());
+
+        final boolean[] checked = new boolean[1];
+        service.getInInterceptors().add(streamingIn);
+        service.getInInterceptors().add(new AbstractPhaseInterceptor<SoapMessage>(Phase.USER_LOGICAL) {
+            public void handleMessage(SoapMessage message) {
+                assertNull(message.getContent(SOAPMessage.class));
+                Principal p = (Principal)message.get(WSS4JInInterceptor.PRINCIPAL_RESULT);
+                assertEquals("alice", p.getName());
+                assertNotNull(message.get(WSS4JInInterceptor.TIMESTAMP_RESULT));
+                checked[0] = true;
+            }
+        });
+        service.getOutInterceptors().add(streamingOut);
+
+        JaxWsProxyFactoryBean proxyFac = new JaxWsProxyFactoryBean();
+        proxyFac.setServiceClass(Echo.class);
+        proxyFac.setAddress("local://StreamingEcho");
+        proxyFac.getClientFactoryBean().setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        Echo streamingEcho = (Echo)proxyFac.create();
+        Client streamingClient = ClientProxy.getClient(streamingEcho);
+        streamingClient.getInInterceptors().add(streamingIn);
+        streamingClient.getOutInterceptors().add(streamingOut);
+
+        assertEquals("test", streamingEcho.echo("test"));
+        assertTrue(checked[0]);
+    }
 }